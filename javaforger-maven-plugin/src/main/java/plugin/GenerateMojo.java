@@ -0,0 +1,257 @@
+/*
+ * Copyright 2019 by Daan van den Heuvel.
+ *
+ * This file is part of JavaForger.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package plugin;
+
+import java.io.File;
+import java.io.IOException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.net.URISyntaxException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.PathMatcher;
+import java.nio.file.Paths;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import org.apache.maven.artifact.DependencyResolutionRequiredException;
+import org.apache.maven.plugin.AbstractMojo;
+import org.apache.maven.plugin.MojoExecutionException;
+import org.apache.maven.plugins.annotations.Component;
+import org.apache.maven.plugins.annotations.LifecyclePhase;
+import org.apache.maven.plugins.annotations.Mojo;
+import org.apache.maven.plugins.annotations.Parameter;
+import org.apache.maven.plugins.annotations.ResolutionScope;
+import org.apache.maven.project.MavenProject;
+import org.sonatype.plexus.build.incremental.BuildContext;
+
+import configuration.DefaultConfigurations;
+import configuration.JavaForgerConfiguration;
+import configuration.StaticJavaForgerConfiguration;
+import generator.Checkpoint;
+import generator.JavaForgerException;
+import generator.PipelineRunner;
+import reader.SourceCache;
+
+/**
+ * Executes {@link JavaForgerConfiguration}s for the input classes selected in the pom, as part of the build. The symbol solver is setup from the compile
+ * source roots and the dependency jars of the project. Every generation is executed in parallel by the {@link PipelineRunner}. Merges that are already up to
+ * date are skipped using a {@link Checkpoint} per generation in the state directory: a merge is only executed again if the input class or the merge class
+ * changed since the last build, or if any template or the JavaForger jar changed. The {@link StaticJavaForgerConfiguration} is shared by all executions within
+ * the JVM, so it is setup for every execution and reset afterwards, and executions of modules that are built in parallel run one at a time.
+ *
+ * @author Daan
+ */
+@Mojo(name = "generate", defaultPhase = LifecyclePhase.GENERATE_SOURCES, requiresDependencyResolution = ResolutionScope.COMPILE)
+public class GenerateMojo extends AbstractMojo {
+  private static final Object LOCK = new Object();
+
+  @Parameter(defaultValue = "${project}", readonly = true, required = true)
+  private MavenProject project;
+
+  @Component
+  private BuildContext buildContext;
+
+  /** The configurations to execute and their input classes. */
+  @Parameter(required = true)
+  private List<Generation> generations;
+
+  /** Folders containing custom templates, templates in these folders can be used next to the templates delivered with JavaForger. */
+  @Parameter
+  private List<File> templateDirectories = new ArrayList<>();
+
+  /** The number of threads per pipeline stage, by default the number of available processors. */
+  @Parameter(property = "javaforger.threads", defaultValue = "0")
+  private int threads;
+
+  /** The directory to store the state of previous builds in, used to skip merges that are up to date. */
+  @Parameter(defaultValue = "${project.build.directory}/javaforger", required = true)
+  private File stateDirectory;
+
+  /** Executes all merges, even if they are up to date. */
+  @Parameter(property = "javaforger.force", defaultValue = "false")
+  private boolean force;
+
+  @Parameter(property = "javaforger.skip", defaultValue = "false")
+  private boolean skip;
+
+  @Override
+  public void execute() throws MojoExecutionException {
+    if (skip) {
+      getLog().info("Skipping JavaForger");
+      return;
+    }
+    synchronized (LOCK) {
+      try {
+        setupStaticConfiguration();
+        String templatesHash = hashTemplates();
+        int index = 0;
+        for (Generation generation : generations) {
+          execute(generation, index++, templatesHash);
+        }
+      } finally {
+        StaticJavaForgerConfiguration.reset();
+      }
+    }
+    project.getCompileSourceRoots().forEach(root -> buildContext.refresh(new File(root)));
+    project.getTestCompileSourceRoots().forEach(root -> buildContext.refresh(new File(root)));
+  }
+
+  private void execute(Generation generation, int index, String templatesHash) throws MojoExecutionException {
+    List<String> inputClasses = findInputClasses(generation);
+    if (inputClasses.isEmpty()) {
+      getLog().warn("No input classes found for " + generation);
+      return;
+    }
+    Path checkpointFile = stateDirectory.toPath().resolve("generation-" + index + ".checkpoint");
+    Path hashFile = stateDirectory.toPath().resolve("generation-" + index + ".state");
+    String state = templatesHash + " " + generation;
+    try {
+      Files.createDirectories(stateDirectory.toPath());
+      if (force || !state.equals(read(hashFile))) {
+        Files.deleteIfExists(checkpointFile);
+      }
+      int executed;
+      try (Checkpoint checkpoint = Checkpoint.open(checkpointFile)) {
+        executed = PipelineRunner.builder(createConfiguration(generation.getConfiguration())).parseThreads(getThreads()).modelThreads(getThreads())
+            .renderThreads(getThreads()).checkpoint(checkpoint).build().run(inputClasses);
+        // The checkpoint is kept for the next build, drop the units that are not part of this build anymore
+        checkpoint.compact();
+      }
+      Files.write(hashFile, state.getBytes(StandardCharsets.UTF_8));
+      getLog().info("JavaForger executed " + executed + " merges for " + inputClasses.size() + " input classes of " + generation);
+    } catch (IOException | JavaForgerException e) {
+      throw new MojoExecutionException("Could not execute " + generation, e);
+    }
+  }
+
+  private void setupStaticConfiguration() throws MojoExecutionException {
+    // Template locations and caches of a previous execution, possibly for another module, must not be used.
+    StaticJavaForgerConfiguration.reset();
+    StaticJavaForgerConfiguration staticConfig = StaticJavaForgerConfiguration.getConfig();
+    try {
+      staticConfig.setProjectPaths(project.getCompileSourceRoots(), project.getCompileClasspathElements());
+      // Input classes are read by multiple generations, and merge classes are read again for every merge.
+      staticConfig.setSourceCache(new SourceCache());
+      for (File templateDirectory : templateDirectories) {
+        staticConfig.addTemplateLocation(templateDirectory.getAbsolutePath());
+      }
+    } catch (DependencyResolutionRequiredException | IOException e) {
+      throw new MojoExecutionException("Could not setup JavaForger", e);
+    }
+  }
+
+  private List<String> findInputClasses(Generation generation) throws MojoExecutionException {
+    Path base = project.getBasedir().toPath();
+    Path buildDirectory = new File(project.getBuild().getDirectory()).toPath();
+    List<String> includes = generation.getIncludes().isEmpty() ? defaultIncludes() : generation.getIncludes();
+    List<PathMatcher> include = includes.stream().map(GenerateMojo::toMatcher).collect(Collectors.toList());
+    List<PathMatcher> exclude = generation.getExcludes().stream().map(GenerateMojo::toMatcher).collect(Collectors.toList());
+    try (Stream<Path> files = Files.walk(base)) {
+      return files.filter(Files::isRegularFile).filter(p -> !p.startsWith(buildDirectory)).filter(p -> {
+        Path relative = base.relativize(p);
+        return include.stream().anyMatch(m -> m.matches(relative)) && exclude.stream().noneMatch(m -> m.matches(relative));
+      }).map(Path::toString).sorted().collect(Collectors.toList());
+    } catch (IOException e) {
+      throw new MojoExecutionException("Could not find input classes in " + base, e);
+    }
+  }
+
+  private List<String> defaultIncludes() {
+    Path base = project.getBasedir().toPath();
+    return project.getCompileSourceRoots().stream().map(root -> base.relativize(new File(root).toPath()).toString().replace('\\', '/') + "/**/*.java")
+        .collect(Collectors.toList());
+  }
+
+  private static PathMatcher toMatcher(String glob) {
+    return FileSystems.getDefault().getPathMatcher("glob:" + glob.replace('\\', '/'));
+  }
+
+  /**
+   * Creates the configuration from the name of a method in {@link DefaultConfigurations} or the name of a {@link Supplier} class.
+   */
+  @SuppressWarnings("unchecked")
+  private static JavaForgerConfiguration createConfiguration(String name) throws MojoExecutionException {
+    if (name == null) {
+      throw new MojoExecutionException("Every generation requires a configuration");
+    }
+    try {
+      for (Method method : DefaultConfigurations.class.getMethods()) {
+        if (method.getName().equals(name) && method.getParameterCount() == 0 && Modifier.isStatic(method.getModifiers())) {
+          return (JavaForgerConfiguration) method.invoke(null);
+        }
+      }
+      Class<?> supplier = Class.forName(name, true, GenerateMojo.class.getClassLoader());
+      return ((Supplier<JavaForgerConfiguration>) supplier.getConstructor().newInstance()).get();
+    } catch (ReflectiveOperationException | ClassCastException e) {
+      throw new MojoExecutionException("Configuration " + name + " is neither a method of DefaultConfigurations nor a Supplier of JavaForgerConfiguration", e);
+    }
+  }
+
+  /**
+   * @return A hash of all custom templates together with the JavaForger jar, which contains the default templates and determines how they are merged.
+   */
+  private String hashTemplates() throws MojoExecutionException {
+    try {
+      MessageDigest digest = MessageDigest.getInstance("SHA-256");
+      hash(digest, Paths.get(JavaForgerConfiguration.class.getProtectionDomain().getCodeSource().getLocation().toURI()));
+      for (File templateDirectory : templateDirectories) {
+        hash(digest, templateDirectory.toPath());
+      }
+      StringBuilder sb = new StringBuilder();
+      for (byte b : digest.digest()) {
+        sb.append(String.format("%02x", b));
+      }
+      return sb.toString();
+    } catch (IOException | NoSuchAlgorithmException | URISyntaxException e) {
+      throw new MojoExecutionException("Could not read the template directories", e);
+    }
+  }
+
+  /**
+   * Adds the file, or the paths and contents of all files within the directory, to the digest.
+   */
+  private static void hash(MessageDigest digest, Path path) throws IOException {
+    if (!Files.isDirectory(path)) {
+      digest.update(Files.readAllBytes(path));
+      return;
+    }
+    try (Stream<Path> files = Files.walk(path)) {
+      for (Path file : files.filter(Files::isRegularFile).sorted().collect(Collectors.toList())) {
+        digest.update(file.toString().getBytes(StandardCharsets.UTF_8));
+        digest.update(Files.readAllBytes(file));
+      }
+    }
+  }
+
+  private int getThreads() {
+    return threads > 0 ? threads : Runtime.getRuntime().availableProcessors();
+  }
+
+  private static String read(Path file) throws IOException {
+    return Files.exists(file) ? new String(Files.readAllBytes(file), StandardCharsets.UTF_8) : null;
+  }
+
+}
@@ -0,0 +1,81 @@
+/*
+ * Copyright 2019 by Daan van den Heuvel.
+ *
+ * This file is part of JavaForger.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package plugin;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A single generation within the configuration of the {@link GenerateMojo}, defining which configuration to execute for which input classes. Example:
+ *
+ * <pre>
+ * &lt;generation&gt;
+ *   &lt;configuration&gt;forToString&lt;/configuration&gt;
+ *   &lt;includes&gt;
+ *     &lt;include&gt;src/main/java/my/model/**&#47;*.java&lt;/include&gt;
+ *   &lt;/includes&gt;
+ * &lt;/generation&gt;
+ * </pre>
+ *
+ * @author Daan
+ */
+public class Generation {
+
+  /**
+   * The name of a method from {@link configuration.DefaultConfigurations}, for instance "forToString", or the name of a class with a public no-argument
+   * constructor implementing a {@link java.util.function.Supplier} of {@link configuration.JavaForgerConfiguration}. Such a class has to be added as dependency
+   * of the plugin.
+   */
+  private String configuration;
+
+  /** Glob patterns for the input classes, relative to the base directory of the project. */
+  private List<String> includes = new ArrayList<>();
+
+  /** Glob patterns for input classes to skip, relative to the base directory of the project. */
+  private List<String> excludes = new ArrayList<>();
+
+  public String getConfiguration() {
+    return configuration;
+  }
+
+  public void setConfiguration(String configuration) {
+    this.configuration = configuration;
+  }
+
+  public List<String> getIncludes() {
+    return includes;
+  }
+
+  public void setIncludes(List<String> includes) {
+    this.includes = includes;
+  }
+
+  public List<String> getExcludes() {
+    return excludes;
+  }
+
+  public void setExcludes(List<String> excludes) {
+    this.excludes = excludes;
+  }
+
+  @Override
+  public String toString() {
+    return configuration + " " + includes;
+  }
+
+}
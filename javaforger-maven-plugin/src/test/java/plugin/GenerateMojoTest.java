@@ -0,0 +1,153 @@
+/*
+ * Copyright 2019 by Daan van den Heuvel.
+ *
+ * This file is part of JavaForger.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package plugin;
+
+import java.io.IOException;
+import java.lang.reflect.Field;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import org.apache.maven.plugin.MojoExecutionException;
+import org.apache.maven.plugin.logging.SystemStreamLog;
+import org.apache.maven.project.MavenProject;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.sonatype.plexus.build.incremental.DefaultBuildContext;
+
+import configuration.FreeMarkerConfiguration;
+import configuration.StaticJavaForgerConfiguration;
+
+/**
+ * Unit test for {@link GenerateMojo}.
+ *
+ * @author Daan
+ */
+public class GenerateMojoTest {
+
+  @Rule
+  public TemporaryFolder folder = new TemporaryFolder();
+
+  private final List<String> logged = new ArrayList<>();
+  private Path base;
+  private Path person;
+  private Path stateDirectory;
+
+  @Before
+  public void setup() throws IOException {
+    base = folder.getRoot().toPath();
+    person = base.resolve("src/main/java/my/Person.java");
+    stateDirectory = base.resolve("target/javaforger");
+    Files.createDirectories(person.getParent());
+    Files.write(person, "package my;\n\npublic class Person {\n  private String name;\n}\n".getBytes(StandardCharsets.UTF_8));
+  }
+
+  @After
+  public void tearDown() {
+    StaticJavaForgerConfiguration.reset();
+  }
+
+  @Test
+  public void testExecute_upToDate() throws Exception {
+    createMojo(false).execute();
+    String generated = read(person);
+    int checkpointLines = Files.readAllLines(stateDirectory.resolve("generation-0.checkpoint")).size();
+    createMojo(false).execute();
+    createMojo(false).execute();
+
+    Assert.assertTrue(generated, generated.contains("public String toString()"));
+    Assert.assertEquals(generated, read(person));
+    Assert.assertEquals(checkpointLines, Files.readAllLines(stateDirectory.resolve("generation-0.checkpoint")).size());
+    Assert.assertEquals(3, logged.size());
+    Assert.assertTrue(logged.get(0), logged.get(0).startsWith("JavaForger executed 1 merges for 1 input classes"));
+    Assert.assertTrue(logged.get(1), logged.get(1).startsWith("JavaForger executed 0 merges for 1 input classes"));
+    Assert.assertTrue(logged.get(2), logged.get(2).startsWith("JavaForger executed 0 merges for 1 input classes"));
+  }
+
+  @Test
+  public void testExecute_withoutCheckpoint() throws Exception {
+    createMojo(false).execute();
+    Files.delete(stateDirectory.resolve("generation-0.checkpoint"));
+    createMojo(false).execute();
+    createMojo(true).execute();
+
+    Assert.assertEquals(3, logged.size());
+    for (String log : logged) {
+      Assert.assertTrue(log, log.startsWith("JavaForger executed 1 merges for 1 input classes"));
+    }
+  }
+
+  @Test
+  public void testExecute_resetsStaticConfiguration() throws Exception {
+    Path templates = base.resolve("templates");
+    Files.createDirectories(templates);
+    GenerateMojo mojo = createMojo(false);
+    set(mojo, "templateDirectories", Collections.singletonList(templates.toFile()));
+
+    mojo.execute();
+
+    StaticJavaForgerConfiguration staticConfig = StaticJavaForgerConfiguration.getConfig();
+    Assert.assertNull(staticConfig.getSourceCache());
+    Assert.assertEquals(FreeMarkerConfiguration.getDefaultConfig().getTemplateLoader().getClass(),
+        staticConfig.getFreeMarkerConfiguration().getTemplateLoader().getClass());
+  }
+
+  private GenerateMojo createMojo(boolean force) throws MojoExecutionException, ReflectiveOperationException {
+    MavenProject project = new MavenProject();
+    project.setFile(base.resolve("pom.xml").toFile());
+    project.addCompileSourceRoot(base.resolve("src/main/java").toString());
+    project.getBuild().setDirectory(base.resolve("target").toString());
+    project.getBuild().setOutputDirectory(base.resolve("target/classes").toString());
+
+    Generation generation = new Generation();
+    generation.setConfiguration("forToString");
+
+    GenerateMojo mojo = new GenerateMojo();
+    set(mojo, "project", project);
+    set(mojo, "buildContext", new DefaultBuildContext());
+    set(mojo, "generations", Collections.singletonList(generation));
+    set(mojo, "threads", 1);
+    set(mojo, "stateDirectory", stateDirectory.toFile());
+    set(mojo, "force", force);
+    mojo.setLog(new SystemStreamLog() {
+      @Override
+      public void info(CharSequence content) {
+        logged.add(content.toString());
+      }
+    });
+    return mojo;
+  }
+
+  private static void set(GenerateMojo mojo, String name, Object value) throws ReflectiveOperationException {
+    Field field = GenerateMojo.class.getDeclaredField(name);
+    field.setAccessible(true);
+    field.set(mojo, value);
+  }
+
+  private static String read(Path path) throws IOException {
+    return new String(Files.readAllBytes(path), StandardCharsets.UTF_8);
+  }
+
+}
@@ -21,6 +21,7 @@ import freemarker.core.PlainTextOutputFormat;
 import freemarker.template.Configuration;
 import freemarker.template.TemplateExceptionHandler;
 import generator.Generator;
+import generator.OutputDirective;
 
 /**
  * This class holds the default configurations for Freemarker.
@@ -67,6 +68,9 @@ public class FreeMarkerConfiguration {
     // This prevents special characters (like <>{}& ) from being escaped.
     config.setAutoEscapingPolicy(Configuration.DISABLE_AUTO_ESCAPING_POLICY);
 
+    // Lets a template emit code for multiple files within a single render.
+    config.setSharedVariable(OutputDirective.NAME, new OutputDirective());
+
     return config;
   }
 
@@ -19,7 +19,10 @@ package configuration;
 
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.function.BiConsumer;
 import java.util.function.Consumer;
 import java.util.stream.Collectors;
@@ -74,6 +77,18 @@ public class JavaForgerConfiguration {
    */
   private boolean override = false;
 
+  /**
+   * Additional input classes by name, they are read next to the input class and added to the template as the "classes" map. This makes it possible to
+   * generate code from multiple classes at once, like a mapper between an entity and a DTO.
+   */
+  private final Map<String, String> inputClasses = new LinkedHashMap<>();
+
+  /**
+   * Glob patterns like "src/main/java/org/example/model/*.java", all matching classes are added to the "classes" map with their class name as key. This makes
+   * it possible to generate code over a group of classes, like a registry of all classes within a package.
+   */
+  private final List<String> inputClassGlobs = new ArrayList<>();
+
   public JavaForgerConfiguration() {
     // Make Constructor visible
   }
@@ -89,6 +104,8 @@ public class JavaForgerConfiguration {
     this.createFileIfNotExists = builder.createFileIfNotExists;
     this.configIfFileDoesNotExist = builder.configIfFileDoesNotExist;
     this.override = (builder.override == null) ? this.override : builder.override;
+    this.inputClasses.putAll(builder.inputClasses);
+    this.inputClassGlobs.addAll(builder.inputClassGlobs);
   }
 
   public boolean isMerge() {
@@ -167,6 +184,13 @@ public class JavaForgerConfiguration {
     return parameters -> adjusters.stream().forEach(adj -> adj.accept(parameters));
   }
 
+  /**
+   * @return true if any {@link ClassContainerAdjuster} was added to this configuration.
+   */
+  public boolean hasAdjusters() {
+    return !adjusters.isEmpty();
+  }
+
   public void addParameterAdjusters(ClassContainerAdjuster... adjusters) {
     this.adjusters.addAll(Arrays.asList(adjusters));
   }
@@ -208,6 +232,41 @@ public class JavaForgerConfiguration {
     return override;
   }
 
+  /**
+   * @see JavaForgerConfiguration#inputClasses
+   */
+  public Map<String, String> getInputClasses() {
+    return Collections.unmodifiableMap(inputClasses);
+  }
+
+  /**
+   * Adds an input class to the "classes" map of the template.
+   *
+   * @param name The key within the "classes" map.
+   * @param inputClass The path to the class.
+   */
+  public void addInputClass(String name, String inputClass) {
+    this.inputClasses.put(name, inputClass);
+  }
+
+  /**
+   * @see JavaForgerConfiguration#inputClassGlobs
+   */
+  public List<String> getInputClassGlobs() {
+    return Collections.unmodifiableList(inputClassGlobs);
+  }
+
+  public void addInputClassGlob(String glob) {
+    this.inputClassGlobs.add(glob);
+  }
+
+  /**
+   * @return True if this configuration has any input classes for the "classes" map of the template.
+   */
+  public boolean hasInputClasses() {
+    return !inputClasses.isEmpty() || !inputClassGlobs.isEmpty();
+  }
+
   /**
    * Execute the given consumer on this {@link JavaForgerConfiguration} and all child configurations.
    *
@@ -266,6 +325,8 @@ public class JavaForgerConfiguration {
     private boolean createFileIfNotExists;
     private JavaForgerConfiguration configIfFileDoesNotExist;
     private Boolean override;
+    private Map<String, String> inputClasses = new LinkedHashMap<>();
+    private List<String> inputClassGlobs = new ArrayList<>();
 
     private Builder() {
       // Make constructor visible
@@ -277,6 +338,8 @@ public class JavaForgerConfiguration {
       this.mergeClassProvider = config.mergeClassProvider;
       this.childConfigs = config.childConfigs.stream().map(JavaForgerConfiguration::builder).map(Builder::build).collect(Collectors.toList());
       this.adjusters = new ArrayList<>(config.adjusters);
+      this.inputClasses = new LinkedHashMap<>(config.inputClasses);
+      this.inputClassGlobs = new ArrayList<>(config.inputClassGlobs);
     }
 
     public Builder template(String template) {
@@ -338,6 +401,22 @@ public class JavaForgerConfiguration {
       return this;
     }
 
+    /**
+     * @see JavaForgerConfiguration#addInputClass(String, String)
+     */
+    public Builder inputClass(String name, String inputClass) {
+      this.inputClasses.put(name, inputClass);
+      return this;
+    }
+
+    /**
+     * @see JavaForgerConfiguration#inputClassGlobs
+     */
+    public Builder inputClassGlob(String glob) {
+      this.inputClassGlobs.add(glob);
+      return this;
+    }
+
     public JavaForgerConfiguration build() {
       return new JavaForgerConfiguration(this);
     }
@@ -20,6 +20,9 @@ package configuration;
 import java.io.File;
 import java.io.IOException;
 import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
 import java.util.stream.Stream;
 
 import org.apache.commons.lang3.ArrayUtils;
@@ -30,6 +33,7 @@ import com.github.javaparser.StaticJavaParser;
 import com.github.javaparser.symbolsolver.JavaSymbolSolver;
 import com.github.javaparser.symbolsolver.model.resolution.TypeSolver;
 import com.github.javaparser.symbolsolver.resolution.typesolvers.CombinedTypeSolver;
+import com.github.javaparser.symbolsolver.resolution.typesolvers.JarTypeSolver;
 import com.github.javaparser.symbolsolver.resolution.typesolvers.JavaParserTypeSolver;
 import com.github.javaparser.symbolsolver.resolution.typesolvers.ReflectionTypeSolver;
 
@@ -38,10 +42,13 @@ import freemarker.cache.MultiTemplateLoader;
 import freemarker.cache.TemplateLoader;
 import freemarker.template.Configuration;
 import generator.JavaForger;
+import generator.RenderCache;
+import generator.TemplateProfiler;
 import initialization.InitializationService;
 import merger.CodeSnipitMerger;
 import merger.LineMerger;
 import reader.ClassContainerReader;
+import reader.SourceCache;
 
 /**
  * Contains all static configurations for {@link JavaForger}.
@@ -55,6 +62,12 @@ public class StaticJavaForgerConfiguration {
   private InitializationService initializer;
   private CodeSnipitMerger merger;
   private Configuration freeMarkerConfiguration;
+  /** If set, all templates are rendered through this profiler. */
+  private TemplateProfiler templateProfiler;
+  /** If set, rendered templates are reused for unchanged models. */
+  private RenderCache renderCache;
+  /** If set, source files are only read once until they change. */
+  private SourceCache sourceCache;
 
   /** Used to gather more data about a parsed class, such as resolving imports or super classes. */
   private JavaSymbolSolver symbolSolver;
@@ -101,6 +114,9 @@ public class StaticJavaForgerConfiguration {
     conf.setReader(new ClassContainerReader());
     conf.setMerger(new LineMerger());
     conf.setFreeMarkerConfiguration(FreeMarkerConfiguration.getDefaultConfig());
+    conf.setTemplateProfiler(null);
+    conf.setRenderCache(null);
+    conf.setSourceCache(null);
   }
 
   public static CodeSnipitMerger getMerger() {
@@ -119,6 +135,45 @@ public class StaticJavaForgerConfiguration {
     this.freeMarkerConfiguration = freeMarkerConfig;
   }
 
+  public TemplateProfiler getTemplateProfiler() {
+    return templateProfiler;
+  }
+
+  /**
+   * Sets the {@link TemplateProfiler} to profile all processed templates with, or null to stop profiling.
+   *
+   * @param templateProfiler The {@link TemplateProfiler}
+   */
+  public void setTemplateProfiler(TemplateProfiler templateProfiler) {
+    this.templateProfiler = templateProfiler;
+  }
+
+  public RenderCache getRenderCache() {
+    return renderCache;
+  }
+
+  /**
+   * Sets the {@link RenderCache} to reuse rendered templates from, or null to always render templates.
+   *
+   * @param renderCache The {@link RenderCache}
+   */
+  public void setRenderCache(RenderCache renderCache) {
+    this.renderCache = renderCache;
+  }
+
+  public SourceCache getSourceCache() {
+    return sourceCache;
+  }
+
+  /**
+   * Sets the {@link SourceCache} to reuse the content of source files from, or null to read a file every time it is needed.
+   *
+   * @param sourceCache The {@link SourceCache}
+   */
+  public void setSourceCache(SourceCache sourceCache) {
+    this.sourceCache = sourceCache;
+  }
+
   public void addTemplateLocation(String templateLocation) throws IOException {
     FileTemplateLoader loader = new FileTemplateLoader(new File(templateLocation));
     TemplateLoader original = this.getFreeMarkerConfiguration().getTemplateLoader();
@@ -152,6 +207,31 @@ public class StaticJavaForgerConfiguration {
     setSymbolSolver(symbolSolver);
   }
 
+  /**
+   * Sets the project paths and dependencies to be used to find classes related to an input class for {@link JavaForger}, as for
+   * {@link StaticJavaForgerConfiguration#setProjectPaths(String...)}. Types from the dependency jars can then also be resolved, for instance when the project
+   * paths come from a build tool that also knows the classpath.
+   *
+   * @param sourceFolders The full paths to the source folders of the project.
+   * @param jars The full paths to the jars the project depends on, other classpath entries are ignored.
+   */
+  public void setProjectPaths(Collection<String> sourceFolders, Collection<String> jars) {
+    List<TypeSolver> solvers = new ArrayList<>();
+    solvers.add(new ReflectionTypeSolver());
+    sourceFolders.stream().filter(p -> !Files.exists(new File(p).toPath())).forEach(p -> LOG.error("Could not find the folder located at: " + p));
+    sourceFolders.stream().filter(p -> Files.exists(new File(p).toPath())).map(JavaParserTypeSolver::new).forEach(solvers::add);
+    for (String jar : jars) {
+      if (jar.endsWith(".jar") && Files.isRegularFile(new File(jar).toPath())) {
+        try {
+          solvers.add(new JarTypeSolver(jar));
+        } catch (IOException e) {
+          LOG.warn("Could not read the dependency located at: " + jar, e);
+        }
+      }
+    }
+    setSymbolSolver(new JavaSymbolSolver(new CombinedTypeSolver(solvers.toArray(new TypeSolver[0]))));
+  }
+
   private final void setupSymbolSolver() {
     TypeSolver reflTypeSolver = new ReflectionTypeSolver();
     JavaSymbolSolver symbolSolver = new JavaSymbolSolver(reflTypeSolver);
@@ -0,0 +1,195 @@
+/*
+ * Copyright 2019 by Daan van den Heuvel.
+ *
+ * This file is part of JavaForger.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package execution;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import generator.JavaForger;
+import generator.JavaForgerException;
+
+/**
+ * Determines which input classes are affected by the changes within a git revision range, so that code generation can be limited to those classes. The
+ * changed files are determined by running the local git command line tool. Classes that (indirectly) depend on a changed class are also included, using a
+ * {@link SourceDependencyIndex}. The result can be passed to {@link JavaForger#execute(configuration.JavaForgerConfiguration, java.util.Collection)}, which
+ * executes the configuration for every class, including merging into the merge classes determined by its {@link configuration.ClassProvider}s.
+ *
+ * @author Daan
+ */
+public class GitChangeDetector {
+  private static final Logger LOG = LoggerFactory.getLogger(GitChangeDetector.class);
+
+  private final String repository;
+  private final String revisionRange;
+  private final List<String> sourceFolders;
+  private final boolean includeDependents;
+  private final String gitCommand;
+
+  private GitChangeDetector(Builder builder) {
+    this.repository = builder.repository;
+    this.revisionRange = builder.revisionRange;
+    this.sourceFolders = builder.sourceFolders.isEmpty() ? Collections.singletonList(repository + "/src/main/java") : builder.sourceFolders;
+    this.includeDependents = builder.includeDependents;
+    this.gitCommand = builder.gitCommand;
+  }
+
+  /**
+   * Determines the input classes affected by the configured revision range.
+   *
+   * @return The sorted absolute paths of all changed classes inside the source folders, including their dependents if configured.
+   */
+  public Set<String> getAffectedClasses() {
+    List<String> changed = getChangedFiles();
+    Set<String> affected;
+    if (includeDependents) {
+      affected = SourceDependencyIndex.build(sourceFolders).getAffectedClasses(changed);
+    } else {
+      List<String> folders = sourceFolders.stream().map(f -> SourceDependencyIndex.toPath(Paths.get(f)) + "/").collect(Collectors.toList());
+      affected = changed.stream().filter(c -> folders.stream().anyMatch(c::startsWith)).collect(Collectors.toCollection(TreeSet::new));
+    }
+    LOG.info("{} changed java files in {} affect {} classes", changed.size(), revisionRange == null ? "working tree" : revisionRange, affected.size());
+    return affected;
+  }
+
+  /**
+   * Runs git to determine the java files that were added, copied, modified or renamed within the revision range. Deleted files are ignored, since they cannot
+   * be used as input. If no revision range was set, the uncommitted changes compared to HEAD are returned, including untracked files that are not ignored.
+   *
+   * @return The absolute paths of the changed java files.
+   */
+  public List<String> getChangedFiles() {
+    List<String> command = new ArrayList<>(Arrays.asList(gitCommand, "diff", "--name-only", "--relative", "--diff-filter=ACMR"));
+    command.add(revisionRange == null ? "HEAD" : revisionRange);
+    command.addAll(Arrays.asList("--", "*.java"));
+    Stream<String> changed = Arrays.stream(run(command).split("\n"));
+    if (revisionRange == null) {
+      // New files are not part of the diff until they are staged
+      changed = Stream.concat(changed, Arrays.stream(run(Arrays.asList(gitCommand, "ls-files", "--others", "--exclude-standard", "--", "*.java")).split("\n")));
+    }
+    return changed.map(String::trim).filter(s -> !s.isEmpty()).distinct().map(s -> SourceDependencyIndex.toPath(Paths.get(repository, s)))
+        .collect(Collectors.toList());
+  }
+
+  private String run(List<String> command) {
+    try {
+      Process process = new ProcessBuilder(command).directory(new File(repository)).redirectErrorStream(true).start();
+      String output = readFully(process.getInputStream());
+      int exitCode = process.waitFor();
+      if (exitCode != 0) {
+        throw new JavaForgerException("Command '" + String.join(" ", command) + "' failed with exit code " + exitCode + ": " + output);
+      }
+      return output;
+    } catch (IOException e) {
+      throw new JavaForgerException(e, "Could not run git in " + repository);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new JavaForgerException(e, "Interrupted while running git in " + repository);
+    }
+  }
+
+  private static String readFully(InputStream in) throws IOException {
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    byte[] buffer = new byte[8192];
+    int read;
+    while ((read = in.read(buffer)) != -1) {
+      out.write(buffer, 0, read);
+    }
+    return new String(out.toByteArray(), StandardCharsets.UTF_8);
+  }
+
+  /**
+   * Creates builder to build {@link GitChangeDetector}.
+   *
+   * @param repository The path to the git repository, changed files are resolved relative to this path.
+   * @return created builder
+   */
+  public static Builder builder(String repository) {
+    return new Builder(repository);
+  }
+
+  /**
+   * Builder to build {@link GitChangeDetector}.
+   */
+  public static final class Builder {
+    private final String repository;
+    private String revisionRange;
+    private List<String> sourceFolders = new ArrayList<>();
+    private boolean includeDependents = true;
+    private String gitCommand = "git";
+
+    private Builder(String repository) {
+      this.repository = repository;
+    }
+
+    /**
+     * @param revisionRange The revision range as accepted by 'git diff', for instance 'origin/master...HEAD'. If not set the uncommitted changes are used.
+     * @return this builder
+     */
+    public Builder revisionRange(String revisionRange) {
+      this.revisionRange = revisionRange;
+      return this;
+    }
+
+    /**
+     * @param sourceFolders The source folders containing the input classes, defaults to 'src/main/java' inside the repository.
+     * @return this builder
+     */
+    public Builder sourceFolders(String... sourceFolders) {
+      this.sourceFolders.addAll(Arrays.asList(sourceFolders));
+      return this;
+    }
+
+    /**
+     * @param includeDependents True to also include classes depending on the changed classes, true by default.
+     * @return this builder
+     */
+    public Builder includeDependents(boolean includeDependents) {
+      this.includeDependents = includeDependents;
+      return this;
+    }
+
+    /**
+     * @param gitCommand The git executable, defaults to 'git' on the path.
+     * @return this builder
+     */
+    public Builder gitCommand(String gitCommand) {
+      this.gitCommand = gitCommand;
+      return this;
+    }
+
+    public GitChangeDetector build() {
+      return new GitChangeDetector(this);
+    }
+  }
+
+}
@@ -0,0 +1,402 @@
+/*
+ * Copyright 2019 by Daan van den Heuvel.
+ *
+ * This file is part of JavaForger.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package execution;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.FileSystems;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BiConsumer;
+import java.util.stream.Collectors;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import configuration.JavaForgerConfiguration;
+import configuration.StaticJavaForgerConfiguration;
+import generator.CodeSnipit;
+import generator.JavaForger;
+import reader.HierarchyIndex;
+
+/**
+ * Watches source folders and template folders for changes and re-executes the {@link JavaForgerConfiguration}s that are affected by them. Bursts of file
+ * system events, for instance caused by an IDE saving multiple files, are debounced so that every affected configuration is executed once. Since the
+ * watcher keeps running in the same JVM, the FreeMarker templates and the symbol solver stay warm between runs. Changes to files that were written by the
+ * watcher itself, such as merge classes, are ignored so that generation does not trigger itself.
+ *
+ * <pre>
+ * JavaForgerWatcher watcher = JavaForgerWatcher.builder().sourceFolders("C:/gitrepo/project/src/main/java").templateFolders("C:/gitrepo/templates")
+ *     .config(DefaultConfigurations.forToString()).build();
+ * watcher.run();
+ * </pre>
+ *
+ * @author Daan
+ */
+public class JavaForgerWatcher implements Runnable, Closeable {
+  private static final Logger LOG = LoggerFactory.getLogger(JavaForgerWatcher.class);
+
+  private final List<Path> sourceFolders;
+  private final List<Path> templateFolders;
+  private final long debounceMillis;
+  private final List<Job> jobs;
+  private final BiConsumer<String, CodeSnipit> listener;
+  /** Content hashes of files written during generation, used to ignore the events caused by the watcher itself. */
+  private final Map<String, Integer> generated = new ConcurrentHashMap<>();
+  private volatile WatchService watchService;
+  private volatile boolean running;
+
+  private JavaForgerWatcher(Builder builder) {
+    this.sourceFolders = toPaths(builder.sourceFolders);
+    this.templateFolders = toPaths(builder.templateFolders);
+    this.debounceMillis = builder.debounceMillis;
+    this.jobs = builder.jobs;
+    this.listener = builder.listener;
+  }
+
+  /**
+   * Watches the configured folders until {@link JavaForgerWatcher#close()} is called or the thread is interrupted.
+   */
+  @Override
+  public void run() {
+    try (WatchService service = FileSystems.getDefault().newWatchService()) {
+      this.watchService = service;
+      this.running = true;
+      Map<WatchKey, Path> keys = new HashMap<>();
+      for (Path folder : concat(sourceFolders, templateFolders)) {
+        registerAll(service, folder, keys);
+      }
+      LOG.info("Watching {} source folders and {} template folders", sourceFolders.size(), templateFolders.size());
+      while (running) {
+        Set<Path> changed = new LinkedHashSet<>();
+        WatchKey key = service.take();
+        // Keep collecting events until no new events arrive within the debounce time.
+        while (key != null) {
+          collect(service, key, keys, changed);
+          key = service.poll(debounceMillis, TimeUnit.MILLISECONDS);
+        }
+        processChanges(changed);
+      }
+    } catch (ClosedWatchServiceException e) {
+      LOG.info("Stopped watching");
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    } catch (IOException e) {
+      LOG.error("Could not watch folders", e);
+    } finally {
+      running = false;
+    }
+  }
+
+  /**
+   * Stops watching, the thread executing {@link JavaForgerWatcher#run()} will return.
+   */
+  @Override
+  public void close() throws IOException {
+    running = false;
+    WatchService service = watchService;
+    if (service != null) {
+      service.close();
+    }
+  }
+
+  public boolean isRunning() {
+    return running;
+  }
+
+  /**
+   * Executes all configurations affected by the given changed files. Changes to input classes only execute the configurations for that class. Changes to a
+   * template execute all configurations using that template for all input classes executed before. Changes to other files inside a template folder, like
+   * included templates, execute all configurations.
+   *
+   * @param changed The changed files.
+   * @return The number of executed configurations.
+   */
+  public int processChanges(Collection<Path> changed) {
+    Map<Job, Set<String>> toExecute = new LinkedHashMap<>();
+    boolean templateChanged = false;
+    for (Path path : changed) {
+      String file = SourceDependencyIndex.toPath(path);
+      HierarchyIndex hierarchy = StaticJavaForgerConfiguration.getReader().getHierarchyIndex();
+      if (hierarchy != null && file.endsWith(".java")) {
+        hierarchy.invalidate(file);
+      }
+      if (isGeneratedByWatcher(file)) {
+        continue;
+      }
+      String template = getTemplateName(path);
+      if (template != null) {
+        templateChanged = true;
+        List<Job> usingTemplate = jobs.stream().filter(j -> getTemplates(j.config).contains(template)).collect(Collectors.toList());
+        for (Job job : usingTemplate.isEmpty() ? jobs : usingTemplate) {
+          toExecute.computeIfAbsent(job, j -> new LinkedHashSet<>()).addAll(job.getExecutedInputClasses());
+        }
+      } else if (file.endsWith(".java") && isInside(path, sourceFolders)) {
+        jobs.stream().filter(j -> j.accepts(file)).forEach(j -> toExecute.computeIfAbsent(j, x -> new LinkedHashSet<>()).add(file));
+      }
+    }
+    if (templateChanged) {
+      StaticJavaForgerConfiguration.getConfig().getFreeMarkerConfiguration().clearTemplateCache();
+    }
+
+    int executed = 0;
+    for (Map.Entry<Job, Set<String>> entry : toExecute.entrySet()) {
+      for (String inputClass : entry.getValue()) {
+        execute(entry.getKey(), inputClass);
+        executed++;
+      }
+    }
+    return executed;
+  }
+
+  private void execute(Job job, String inputClass) {
+    LOG.info("Executing {} for {}", job.config.getTemplateName(), inputClass);
+    try {
+      CodeSnipit result = JavaForger.execute(job.config, inputClass);
+      job.executed.add(inputClass);
+      if (listener != null) {
+        listener.accept(inputClass, result);
+      }
+    } catch (RuntimeException e) {
+      // The watcher has to survive errors in templates or input classes, the next save will trigger a new attempt.
+      LOG.error("Could not execute " + job.config.getTemplateName() + " for " + inputClass, e);
+    }
+    for (String mergeClass : MergeTargets.of(job.config, inputClass)) {
+      Path path = Paths.get(mergeClass);
+      if (Files.exists(path)) {
+        generated.put(SourceDependencyIndex.toPath(path), hash(path));
+      }
+    }
+  }
+
+  private boolean isGeneratedByWatcher(String file) {
+    Integer hash = generated.get(file);
+    if (hash == null) {
+      return false;
+    }
+    Path path = Paths.get(file);
+    if (Files.exists(path) && hash == hash(path)) {
+      return true;
+    }
+    generated.remove(file);
+    return false;
+  }
+
+  private Set<String> getTemplates(JavaForgerConfiguration config) {
+    Set<String> templates = new LinkedHashSet<>();
+    templates.add(config.getTemplate());
+    if (config.getConfigIfFileDoesNotExist() != null) {
+      templates.addAll(getTemplates(config.getConfigIfFileDoesNotExist()));
+    }
+    config.getChildConfigs().forEach(child -> templates.addAll(getTemplates(child)));
+    return templates;
+  }
+
+  private String getTemplateName(Path path) {
+    Path absolute = path.toAbsolutePath().normalize();
+    return templateFolders.stream().filter(absolute::startsWith).findFirst().map(f -> f.relativize(absolute).toString().replace("\\", "/")).orElse(null);
+  }
+
+  private static boolean isInside(Path path, List<Path> folders) {
+    Path absolute = path.toAbsolutePath().normalize();
+    return folders.stream().anyMatch(absolute::startsWith);
+  }
+
+  private static void collect(WatchService service, WatchKey key, Map<WatchKey, Path> keys, Set<Path> changed) {
+    Path dir = keys.get(key);
+    for (WatchEvent<?> event : key.pollEvents()) {
+      if (dir == null || event.kind() == StandardWatchEventKinds.OVERFLOW) {
+        continue;
+      }
+      Path path = dir.resolve((Path) event.context());
+      if (event.kind() == StandardWatchEventKinds.ENTRY_CREATE && Files.isDirectory(path)) {
+        try {
+          registerAll(service, path, keys);
+        } catch (IOException e) {
+          LOG.error("Could not watch new folder " + path, e);
+        }
+      } else if (event.kind() != StandardWatchEventKinds.ENTRY_DELETE) {
+        changed.add(path);
+      }
+    }
+    if (!key.reset()) {
+      keys.remove(key);
+    }
+  }
+
+  private static void registerAll(WatchService service, Path folder, Map<WatchKey, Path> keys) throws IOException {
+    if (!Files.isDirectory(folder)) {
+      LOG.error("Could not find the folder located at: {}", folder);
+      return;
+    }
+    Files.walkFileTree(folder, new SimpleFileVisitor<Path>() {
+      @Override
+      public FileVisitResult preVisitDirectory(Path dir, BasicFileAttributes attrs) throws IOException {
+        WatchKey key = dir.register(service, StandardWatchEventKinds.ENTRY_CREATE, StandardWatchEventKinds.ENTRY_MODIFY, StandardWatchEventKinds.ENTRY_DELETE);
+        keys.put(key, dir);
+        return FileVisitResult.CONTINUE;
+      }
+    });
+  }
+
+  private static int hash(Path path) {
+    try {
+      return Arrays.hashCode(Files.readAllBytes(path));
+    } catch (IOException e) {
+      return 0;
+    }
+  }
+
+  private static List<Path> toPaths(List<String> folders) {
+    return folders.stream().map(f -> Paths.get(f).toAbsolutePath().normalize()).collect(Collectors.toList());
+  }
+
+  private static List<Path> concat(List<Path> first, List<Path> second) {
+    List<Path> all = new ArrayList<>(first);
+    all.addAll(second);
+    return all;
+  }
+
+  /**
+   * Creates builder to build {@link JavaForgerWatcher}.
+   *
+   * @return created builder
+   */
+  public static Builder builder() {
+    return new Builder();
+  }
+
+  /**
+   * A configuration to execute, either for a fixed set of input classes or for every changed class inside the source folders.
+   */
+  private static final class Job {
+    private final JavaForgerConfiguration config;
+    private final Set<String> inputClasses;
+    private final Set<String> executed = ConcurrentHashMap.newKeySet();
+
+    private Job(JavaForgerConfiguration config, Set<String> inputClasses) {
+      this.config = config;
+      this.inputClasses = inputClasses;
+    }
+
+    private boolean accepts(String inputClass) {
+      return inputClasses.isEmpty() || inputClasses.contains(inputClass);
+    }
+
+    private Set<String> getExecutedInputClasses() {
+      return inputClasses.isEmpty() ? executed : inputClasses;
+    }
+  }
+
+  /**
+   * Builder to build {@link JavaForgerWatcher}.
+   */
+  public static final class Builder {
+    private List<String> sourceFolders = new ArrayList<>();
+    private List<String> templateFolders = new ArrayList<>();
+    private long debounceMillis = 300;
+    private List<Job> jobs = new ArrayList<>();
+    private BiConsumer<String, CodeSnipit> listener;
+
+    private Builder() {
+      // Make constructor visible
+    }
+
+    public Builder sourceFolders(String... folders) {
+      this.sourceFolders.addAll(Arrays.asList(folders));
+      return this;
+    }
+
+    /**
+     * @param folders The folders containing the templates, these should also be added to the FreeMarker configuration via
+     *          {@link StaticJavaForgerConfiguration#addTemplateLocation(String)}.
+     * @return this builder
+     */
+    public Builder templateFolders(String... folders) {
+      this.templateFolders.addAll(Arrays.asList(folders));
+      return this;
+    }
+
+    /**
+     * @param debounceMillis The time in milliseconds without new events before the changes are processed, 300 by default.
+     * @return this builder
+     */
+    public Builder debounceMillis(long debounceMillis) {
+      this.debounceMillis = debounceMillis;
+      return this;
+    }
+
+    /**
+     * Adds a configuration that is executed for every changed class inside the source folders.
+     *
+     * @param config The {@link JavaForgerConfiguration} to execute.
+     * @return this builder
+     */
+    public Builder config(JavaForgerConfiguration config) {
+      this.jobs.add(new Job(config, new LinkedHashSet<>()));
+      return this;
+    }
+
+    /**
+     * Adds a configuration that is only executed for the given input classes.
+     *
+     * @param config The {@link JavaForgerConfiguration} to execute.
+     * @param inputClasses The paths to the input classes.
+     * @return this builder
+     */
+    public Builder config(JavaForgerConfiguration config, String... inputClasses) {
+      Set<String> paths = Arrays.stream(inputClasses).map(c -> SourceDependencyIndex.toPath(Paths.get(c))).collect(Collectors.toCollection(LinkedHashSet::new));
+      this.jobs.add(new Job(config, paths));
+      return this;
+    }
+
+    /**
+     * @param listener Called with the input class and the generated {@link CodeSnipit} after every successful execution.
+     * @return this builder
+     */
+    public Builder listener(BiConsumer<String, CodeSnipit> listener) {
+      this.listener = listener;
+      return this;
+    }
+
+    public JavaForgerWatcher build() {
+      return new JavaForgerWatcher(this);
+    }
+  }
+
+}
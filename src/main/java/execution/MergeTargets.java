@@ -0,0 +1,68 @@
+/*
+ * Copyright 2019 by Daan van den Heuvel.
+ *
+ * This file is part of JavaForger.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package execution;
+
+import java.util.LinkedHashSet;
+import java.util.Set;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import configuration.ClassProvider;
+import configuration.JavaForgerConfiguration;
+
+/**
+ * Determines the files that are changed when executing a {@link JavaForgerConfiguration}, by resolving the {@link ClassProvider}s of the configuration and all
+ * its children in the same way as the {@link generator.Generator} does.
+ *
+ * @author Daan
+ */
+final class MergeTargets {
+  private static final Logger LOG = LoggerFactory.getLogger(MergeTargets.class);
+
+  private MergeTargets() {
+    // Utility class
+  }
+
+  /**
+   * @param config The {@link JavaForgerConfiguration} to execute.
+   * @param inputClass The path to the input class.
+   * @return The paths to all merge classes of the configuration tree, in execution order.
+   */
+  static Set<String> of(JavaForgerConfiguration config, String inputClass) {
+    Set<String> mergeClasses = new LinkedHashSet<>();
+    add(config, inputClass, null, mergeClasses);
+    return mergeClasses;
+  }
+
+  private static void add(JavaForgerConfiguration config, String inputClass, String parentMergeClass, Set<String> mergeClasses) {
+    try {
+      ClassProvider provider = config.getMergeClassProvider();
+      String mergeClass = provider == null ? null : provider.provide(inputClass, parentMergeClass);
+      if (mergeClass != null && config.isMerge()) {
+        mergeClasses.add(mergeClass);
+      }
+      for (JavaForgerConfiguration child : config.getChildConfigs()) {
+        add(child, child.getInputClassProvider().provide(inputClass, mergeClass), mergeClass, mergeClasses);
+      }
+    } catch (RuntimeException e) {
+      LOG.debug("Could not determine merge classes for {}", inputClass, e);
+    }
+  }
+
+}
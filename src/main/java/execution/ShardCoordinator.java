@@ -0,0 +1,309 @@
+/*
+ * Copyright 2019 by Daan van den Heuvel.
+ *
+ * This file is part of JavaForger.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package execution;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import configuration.JavaForgerConfiguration;
+import generator.JavaForgerException;
+import generator.OutputDirective;
+import generator.TemplateInputNeeds;
+
+/**
+ * Executes a {@link JavaForgerConfiguration} for a large batch of input classes using multiple local worker JVMs, so that every JVM has its own heap and
+ * symbol solver. The input classes are split into work items that are written to a queue inside a shared work folder. Input classes that have a merge class
+ * in common are always put in the same item, so that no two workers ever change the same file. Configurations with a template using the
+ * {@link generator.OutputDirective} are rejected, since the files they change are only known after rendering. Every {@link ShardWorker} claims items from the
+ * queue until it
+ * is empty, after which the reports of all workers are merged into a single {@link Report}. The configuration cannot be passed to another JVM, so it is
+ * created in every worker by a {@link Supplier} class with a public no-argument constructor.
+ *
+ * @author Daan
+ */
+public class ShardCoordinator {
+  private static final Logger LOG = LoggerFactory.getLogger(ShardCoordinator.class);
+
+  private final Path workFolder;
+  private final int workers;
+  private final int itemsPerWorker;
+  private final Class<? extends Supplier<JavaForgerConfiguration>> configSupplier;
+  private final List<String> jvmArguments;
+
+  private ShardCoordinator(Builder builder) {
+    this.workFolder = builder.workFolder;
+    this.workers = builder.workers;
+    this.itemsPerWorker = builder.itemsPerWorker;
+    this.configSupplier = builder.configSupplier;
+    this.jvmArguments = builder.jvmArguments;
+  }
+
+  /**
+   * Splits the input classes into work items, launches the workers and waits for all of them to finish.
+   *
+   * @param inputClasses The paths to the input classes.
+   * @return The merged {@link Report} of all workers.
+   */
+  public Report run(Collection<String> inputClasses) {
+    try {
+      List<List<String>> items = createItems(inputClasses);
+      writeQueue(items);
+      List<Process> processes = new ArrayList<>();
+      for (int i = 0; i < workers; i++) {
+        processes.add(startWorker("worker-" + i));
+      }
+      for (Process process : processes) {
+        int exitCode = process.waitFor();
+        if (exitCode != 0) {
+          LOG.error("Worker exited with code {}, see the logs in {}", exitCode, workFolder.resolve("logs"));
+        }
+      }
+      return readReport(inputClasses);
+    } catch (IOException e) {
+      throw new JavaForgerException(e, "Could not execute shards in " + workFolder);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new JavaForgerException(e, "Interrupted while waiting for workers");
+    }
+  }
+
+  /**
+   * Groups input classes that share a merge class and packs the groups into work items. The number of items is a multiple of the number of workers, so that
+   * the work can be balanced when some items take longer than others.
+   *
+   * @param inputClasses The paths to the input classes.
+   * @return The work items, each containing the input classes to execute.
+   * @throws JavaForgerException If a template of the configuration uses the {@link generator.OutputDirective}.
+   */
+  List<List<String>> createItems(Collection<String> inputClasses) {
+    JavaForgerConfiguration config = createConfig();
+    if (new TemplateInputNeeds().usesOutputDirective(config)) {
+      throw new JavaForgerException("Template " + config.getTemplateName() + " or one of its children uses the " + OutputDirective.NAME
+          + " directive, which cannot be sharded because the files it changes are only known after rendering");
+    }
+    Map<String, String> parents = new HashMap<>();
+    Map<String, String> targetOwner = new HashMap<>();
+    for (String inputClass : inputClasses) {
+      parents.putIfAbsent(inputClass, inputClass);
+      for (String target : MergeTargets.of(config, inputClass)) {
+        String canonical = SourceDependencyIndex.toPath(Paths.get(target));
+        String owner = targetOwner.putIfAbsent(canonical, inputClass);
+        if (owner != null) {
+          union(parents, owner, inputClass);
+        }
+      }
+    }
+    Map<String, List<String>> groups = new LinkedHashMap<>();
+    inputClasses.stream().distinct().forEach(c -> groups.computeIfAbsent(find(parents, c), r -> new ArrayList<>()).add(c));
+
+    int itemCount = Math.max(1, Math.min(groups.size(), workers * itemsPerWorker));
+    List<List<String>> items = new ArrayList<>();
+    for (int i = 0; i < itemCount; i++) {
+      items.add(new ArrayList<>());
+    }
+    // Largest groups first, each to the currently smallest item
+    groups.values().stream().sorted((a, b) -> b.size() - a.size())
+        .forEach(group -> items.stream().min((a, b) -> a.size() - b.size()).ifPresent(item -> item.addAll(group)));
+    return items.stream().filter(i -> !i.isEmpty()).collect(Collectors.toList());
+  }
+
+  private void writeQueue(List<List<String>> items) throws IOException {
+    if (Files.exists(workFolder.resolve(ShardWorker.QUEUE)) || Files.exists(workFolder.resolve(ShardWorker.CLAIMED))) {
+      throw new JavaForgerException("Work folder " + workFolder + " is already in use, remove it before starting a new run");
+    }
+    Path queue = Files.createDirectories(workFolder.resolve(ShardWorker.QUEUE));
+    for (int i = 0; i < items.size(); i++) {
+      Path temp = workFolder.resolve(String.format("item-%05d.tmp", i));
+      Files.write(temp, items.get(i), StandardCharsets.UTF_8);
+      Files.move(temp, queue.resolve(String.format("item-%05d.txt", i)));
+    }
+    LOG.info("Queued {} items for {} workers in {}", items.size(), workers, workFolder);
+  }
+
+  private Process startWorker(String workerId) throws IOException {
+    Path logs = Files.createDirectories(workFolder.resolve("logs"));
+    List<String> command = new ArrayList<>();
+    command.add(Paths.get(System.getProperty("java.home"), "bin", "java").toString());
+    command.addAll(jvmArguments);
+    command.addAll(Arrays.asList("-cp", System.getProperty("java.class.path"), ShardWorker.class.getName(), workFolder.toString(), workerId,
+        configSupplier.getName()));
+    File log = logs.resolve(workerId + ".log").toFile();
+    return new ProcessBuilder(command).redirectErrorStream(true).redirectOutput(log).start();
+  }
+
+  private Report readReport(Collection<String> inputClasses) throws IOException {
+    Map<String, String> failed = new LinkedHashMap<>();
+    List<String> succeeded = new ArrayList<>();
+    Path reports = workFolder.resolve(ShardWorker.REPORTS);
+    if (Files.exists(reports)) {
+      try (Stream<Path> files = Files.list(reports)) {
+        for (Path report : files.sorted().collect(Collectors.toList())) {
+          for (String line : Files.readAllLines(report, StandardCharsets.UTF_8)) {
+            String[] split = line.split("\t", 3);
+            if (ShardWorker.SUCCESS.equals(split[0])) {
+              succeeded.add(split[1]);
+            } else if (split.length > 1) {
+              failed.put(split[1], split.length > 2 ? split[2] : "");
+            }
+          }
+        }
+      }
+    }
+    // Items that were never reported, for instance because a worker crashed
+    inputClasses.stream().filter(c -> !succeeded.contains(c) && !failed.containsKey(c)).forEach(c -> failed.put(c, "Not processed by any worker"));
+    return new Report(succeeded, failed);
+  }
+
+  private JavaForgerConfiguration createConfig() {
+    try {
+      return configSupplier.getConstructor().newInstance().get();
+    } catch (ReflectiveOperationException e) {
+      throw new JavaForgerException(e, "Could not create configuration from " + configSupplier.getName());
+    }
+  }
+
+  private static String find(Map<String, String> parents, String c) {
+    String root = c;
+    while (!parents.get(root).equals(root)) {
+      root = parents.get(root);
+    }
+    parents.put(c, root);
+    return root;
+  }
+
+  private static void union(Map<String, String> parents, String a, String b) {
+    String rootA = find(parents, a);
+    String rootB = find(parents, b);
+    if (!rootA.equals(rootB)) {
+      parents.put(rootB, rootA);
+    }
+  }
+
+  /**
+   * The merged results of all workers.
+   */
+  public static final class Report {
+    private final List<String> succeeded;
+    private final Map<String, String> failed;
+
+    private Report(List<String> succeeded, Map<String, String> failed) {
+      this.succeeded = Collections.unmodifiableList(succeeded);
+      this.failed = Collections.unmodifiableMap(failed);
+    }
+
+    public List<String> getSucceeded() {
+      return succeeded;
+    }
+
+    /**
+     * @return The input classes that failed with their error message.
+     */
+    public Map<String, String> getFailed() {
+      return failed;
+    }
+
+    public boolean isSuccess() {
+      return failed.isEmpty();
+    }
+
+    @Override
+    public String toString() {
+      return succeeded.size() + " succeeded, " + failed.size() + " failed";
+    }
+  }
+
+  /**
+   * Creates builder to build {@link ShardCoordinator}.
+   *
+   * @param workFolder The shared folder for the queue and reports, this folder should not be in use by another run.
+   * @param configSupplier The class creating the {@link JavaForgerConfiguration}, it needs a public no-argument constructor.
+   * @return created builder
+   */
+  public static Builder builder(Path workFolder, Class<? extends Supplier<JavaForgerConfiguration>> configSupplier) {
+    return new Builder(workFolder, configSupplier);
+  }
+
+  /**
+   * Builder to build {@link ShardCoordinator}.
+   */
+  public static final class Builder {
+    private final Path workFolder;
+    private final Class<? extends Supplier<JavaForgerConfiguration>> configSupplier;
+    private int workers = Math.max(1, Runtime.getRuntime().availableProcessors() / 2);
+    private int itemsPerWorker = 4;
+    private List<String> jvmArguments = new ArrayList<>();
+
+    private Builder(Path workFolder, Class<? extends Supplier<JavaForgerConfiguration>> configSupplier) {
+      this.workFolder = workFolder;
+      this.configSupplier = configSupplier;
+    }
+
+    /**
+     * @param workers The number of worker JVMs, by default half of the available processors.
+     * @return this builder
+     */
+    public Builder workers(int workers) {
+      this.workers = workers;
+      return this;
+    }
+
+    /**
+     * @param itemsPerWorker The number of work items per worker, more items balance better but have more overhead. The default is 4.
+     * @return this builder
+     */
+    public Builder itemsPerWorker(int itemsPerWorker) {
+      this.itemsPerWorker = itemsPerWorker;
+      return this;
+    }
+
+    /**
+     * @param jvmArguments Arguments for the worker JVMs, for instance '-Xmx2g'.
+     * @return this builder
+     */
+    public Builder jvmArguments(String... jvmArguments) {
+      this.jvmArguments.addAll(Arrays.asList(jvmArguments));
+      return this;
+    }
+
+    public ShardCoordinator build() {
+      if (workers < 1 || itemsPerWorker < 1) {
+        throw new JavaForgerException("At least 1 worker and 1 item per worker is required");
+      }
+      return new ShardCoordinator(this);
+    }
+  }
+
+}
@@ -0,0 +1,170 @@
+/*
+ * Copyright 2019 by Daan van den Heuvel.
+ *
+ * This file is part of JavaForger.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package execution;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import configuration.JavaForgerConfiguration;
+import generator.Generator;
+import generator.JavaForgerException;
+
+/**
+ * Worker for the {@link ShardCoordinator}, typically running in its own JVM. The worker claims work items from the queue folder by atomically moving them into
+ * its own claimed folder, so that every item is processed by exactly one worker. Every input class within an item is executed with a normal
+ * {@link Generator}, and the result is appended to the report of the worker. The worker stops when the queue is empty.
+ *
+ * @author Daan
+ */
+public class ShardWorker {
+  private static final Logger LOG = LoggerFactory.getLogger(ShardWorker.class);
+
+  static final String QUEUE = "queue";
+  static final String CLAIMED = "claimed";
+  static final String DONE = "done";
+  static final String REPORTS = "reports";
+  static final String SUCCESS = "OK";
+  static final String FAILURE = "FAILED";
+
+  private final Path workFolder;
+  private final String workerId;
+  private final JavaForgerConfiguration config;
+  private final Generator generator = new Generator();
+
+  /**
+   * Creates a new {@link ShardWorker}.
+   *
+   * @param workFolder The shared work folder created by the {@link ShardCoordinator}.
+   * @param workerId The unique id of this worker.
+   * @param config The {@link JavaForgerConfiguration} to execute for every input class.
+   */
+  public ShardWorker(Path workFolder, String workerId, JavaForgerConfiguration config) {
+    this.workFolder = workFolder;
+    this.workerId = workerId;
+    this.config = config;
+  }
+
+  /**
+   * Starts a worker. The arguments are the work folder, the worker id and the name of a class implementing {@link Supplier} of
+   * {@link JavaForgerConfiguration} with a public no-argument constructor. The supplier is called once and can also be used to setup the
+   * {@link configuration.StaticJavaForgerConfiguration}, for instance the project paths for the symbol solver.
+   *
+   * @param args The work folder, worker id and configuration supplier class.
+   */
+  public static void main(String[] args) {
+    if (args.length != 3) {
+      throw new JavaForgerException("Usage: ShardWorker <workFolder> <workerId> <configurationSupplierClass>");
+    }
+    new ShardWorker(Paths.get(args[0]), args[1], createConfig(args[2])).run();
+  }
+
+  /**
+   * Processes work items until the queue is empty.
+   *
+   * @return The number of processed items.
+   */
+  public int run() {
+    Path claimedFolder = workFolder.resolve(CLAIMED).resolve(workerId);
+    Path report = workFolder.resolve(REPORTS).resolve(workerId + ".txt");
+    int processed = 0;
+    try {
+      Files.createDirectories(claimedFolder);
+      Files.createDirectories(workFolder.resolve(DONE));
+      Files.createDirectories(report.getParent());
+      Path item;
+      while ((item = claim(claimedFolder)) != null) {
+        List<String> lines = new ArrayList<>();
+        for (String inputClass : Files.readAllLines(item, StandardCharsets.UTF_8)) {
+          lines.add(execute(inputClass));
+        }
+        Files.write(report, lines, StandardCharsets.UTF_8, StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+        Files.move(item, workFolder.resolve(DONE).resolve(item.getFileName()), StandardCopyOption.REPLACE_EXISTING);
+        processed++;
+      }
+    } catch (IOException e) {
+      throw new JavaForgerException(e, "Worker " + workerId + " could not process the queue in " + workFolder);
+    }
+    LOG.info("Worker {} processed {} items", workerId, processed);
+    return processed;
+  }
+
+  private String execute(String inputClass) {
+    try {
+      generator.execute(config, inputClass);
+      return SUCCESS + "\t" + inputClass;
+    } catch (Exception e) {
+      LOG.error("Worker {} could not execute {} for {}", workerId, config.getTemplateName(), inputClass, e);
+      String message = String.valueOf(e.getMessage()).replace('\n', ' ').replace('\t', ' ');
+      return FAILURE + "\t" + inputClass + "\t" + message;
+    }
+  }
+
+  /**
+   * Claims the next item by moving it from the queue into the claimed folder of this worker. If another worker claimed the same item first, the move fails and
+   * the next item is tried.
+   *
+   * @return The claimed item or null if the queue is empty.
+   */
+  private Path claim(Path claimedFolder) throws IOException {
+    for (Path item : listQueue()) {
+      Path claimed = claimedFolder.resolve(item.getFileName());
+      try {
+        Files.move(item, claimed, StandardCopyOption.ATOMIC_MOVE);
+        return claimed;
+      } catch (NoSuchFileException | FileAlreadyExistsException e) {
+        // Claimed by another worker
+      } catch (AtomicMoveNotSupportedException e) {
+        throw new JavaForgerException(e, "The work folder " + workFolder + " must support atomic renames");
+      }
+    }
+    return null;
+  }
+
+  private List<Path> listQueue() throws IOException {
+    try (Stream<Path> items = Files.list(workFolder.resolve(QUEUE))) {
+      return items.sorted().collect(Collectors.toList());
+    }
+  }
+
+  @SuppressWarnings("unchecked")
+  private static JavaForgerConfiguration createConfig(String supplierClass) {
+    try {
+      Supplier<JavaForgerConfiguration> supplier = (Supplier<JavaForgerConfiguration>) Class.forName(supplierClass).getConstructor().newInstance();
+      return supplier.get();
+    } catch (ReflectiveOperationException | ClassCastException e) {
+      throw new JavaForgerException(e, "Could not create configuration from " + supplierClass);
+    }
+  }
+
+}
@@ -0,0 +1,214 @@
+/*
+ * Copyright 2019 by Daan van den Heuvel.
+ *
+ * This file is part of JavaForger.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package execution;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayDeque;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import generator.JavaForgerException;
+
+/**
+ * Index of all java files inside one or more source folders, containing for each class which other classes depend on it. A class depends on another class if
+ * it imports it, or if it uses the simple name of a class from the same package or from a wildcard imported package. This is a lightweight approximation that
+ * does not require parsing or symbol solving, so that it can be build quickly for large repositories. Paths are stored as absolute paths with forward slashes,
+ * the same format that is used by the {@link configuration.ClassProvider}. Instances are immutable.
+ *
+ * @author Daan
+ */
+public final class SourceDependencyIndex {
+
+  private static final Pattern PACKAGE = Pattern.compile("^\\s*package\\s+([\\w.]+)\\s*;", Pattern.MULTILINE);
+  private static final Pattern IMPORT = Pattern.compile("^\\s*import\\s+(static\\s+)?([\\w.]+)(\\.\\*)?\\s*;", Pattern.MULTILINE);
+  private static final Pattern TYPE_NAME = Pattern.compile("\\b[A-Z][\\w]*\\b");
+
+  /** Fully qualified class name to path */
+  private final Map<String, String> classes;
+  private final Set<String> paths;
+  /** Path to the paths of all classes that directly depend on it */
+  private final Map<String, Set<String>> dependents;
+
+  private SourceDependencyIndex(Map<String, String> classes, Map<String, Set<String>> dependents) {
+    this.classes = Collections.unmodifiableMap(classes);
+    this.paths = new HashSet<>(classes.values());
+    this.dependents = Collections.unmodifiableMap(dependents);
+  }
+
+  /**
+   * Builds the index by reading all java files inside the given source folders.
+   *
+   * @param sourceFolders The source folders, for instance 'C:/gitrepo/project/src/main/java'.
+   * @return The created {@link SourceDependencyIndex}
+   */
+  public static SourceDependencyIndex build(Collection<String> sourceFolders) {
+    Map<String, String> classes = new HashMap<>();
+    Map<String, String> contents = new HashMap<>();
+    for (String folder : sourceFolders) {
+      Path root = Paths.get(folder);
+      if (!Files.isDirectory(root)) {
+        continue;
+      }
+      for (Path file : listJavaFiles(root)) {
+        String path = toPath(file);
+        String content = read(file);
+        contents.put(path, content);
+        classes.put(getClassName(content, file), path);
+      }
+    }
+
+    Map<String, List<String>> packages = classes.keySet().stream().collect(Collectors.groupingBy(SourceDependencyIndex::getPackage));
+    Map<String, Set<String>> dependents = new HashMap<>();
+    contents.forEach((path, content) -> {
+      for (String dependency : getDependencies(content, classes, packages)) {
+        String dependencyPath = classes.get(dependency);
+        if (!path.equals(dependencyPath)) {
+          dependents.computeIfAbsent(dependencyPath, p -> new HashSet<>()).add(path);
+        }
+      }
+    });
+    return new SourceDependencyIndex(classes, dependents);
+  }
+
+  /**
+   * Determines all classes that are affected by changes to the given classes: the given classes themselves and all classes that directly or indirectly depend
+   * on them. Paths not inside the indexed source folders are ignored.
+   *
+   * @param changedClasses Paths to the changed classes.
+   * @return The sorted paths of all affected classes.
+   */
+  public Set<String> getAffectedClasses(Collection<String> changedClasses) {
+    Set<String> affected = new TreeSet<>();
+    Deque<String> todo = new ArrayDeque<>();
+    changedClasses.stream().map(c -> toPath(Paths.get(c))).filter(paths::contains).forEach(todo::add);
+    while (!todo.isEmpty()) {
+      String path = todo.poll();
+      if (affected.add(path)) {
+        todo.addAll(dependents.getOrDefault(path, Collections.emptySet()));
+      }
+    }
+    return affected;
+  }
+
+  /**
+   * @param path The path to a class.
+   * @return The paths of the classes that directly depend on the given class.
+   */
+  public Set<String> getDependents(String path) {
+    return Collections.unmodifiableSet(dependents.getOrDefault(toPath(Paths.get(path)), Collections.emptySet()));
+  }
+
+  /**
+   * @param className The fully qualified name of a class.
+   * @return The path to the class, or null if it is not indexed.
+   */
+  public String getPath(String className) {
+    return classes.get(className);
+  }
+
+  /**
+   * Converts the given path to the format used within this index.
+   *
+   * @param path The path to convert.
+   * @return The absolute normalized path with forward slashes.
+   */
+  static String toPath(Path path) {
+    return path.toAbsolutePath().normalize().toString().replace("\\", "/");
+  }
+
+  private static Set<String> getDependencies(String content, Map<String, String> classes, Map<String, List<String>> packages) {
+    Set<String> usedNames = new HashSet<>();
+    Matcher names = TYPE_NAME.matcher(content);
+    while (names.find()) {
+      usedNames.add(names.group());
+    }
+
+    Set<String> dependencies = new LinkedHashSet<>();
+    Set<String> scannedPackages = new HashSet<>();
+    Matcher packageMatcher = PACKAGE.matcher(content);
+    scannedPackages.add(packageMatcher.find() ? packageMatcher.group(1) : "");
+    Matcher imports = IMPORT.matcher(content);
+    while (imports.find()) {
+      String imported = imports.group(2);
+      if (imports.group(3) != null && imports.group(1) == null) {
+        scannedPackages.add(imported);
+      } else {
+        // Static imports and imports of inner classes refer to a member of the indexed class, so we strip segments until we find a known class.
+        for (String name = imported; name.contains("."); name = name.substring(0, name.lastIndexOf('.'))) {
+          if (classes.containsKey(name)) {
+            dependencies.add(name);
+            break;
+          }
+        }
+      }
+    }
+    for (String pack : scannedPackages) {
+      packages.getOrDefault(pack, Collections.emptyList()).stream().filter(c -> usedNames.contains(getSimpleName(c))).forEach(dependencies::add);
+    }
+    return dependencies;
+  }
+
+  private static String getClassName(String content, Path file) {
+    String fileName = file.getFileName().toString();
+    String simpleName = fileName.substring(0, fileName.length() - ".java".length());
+    Matcher matcher = PACKAGE.matcher(content);
+    return matcher.find() ? matcher.group(1) + "." + simpleName : simpleName;
+  }
+
+  private static String getPackage(String className) {
+    int index = className.lastIndexOf('.');
+    return index < 0 ? "" : className.substring(0, index);
+  }
+
+  private static String getSimpleName(String className) {
+    return className.substring(className.lastIndexOf('.') + 1);
+  }
+
+  private static List<Path> listJavaFiles(Path root) {
+    try (Stream<Path> files = Files.walk(root)) {
+      return files.filter(f -> f.toString().endsWith(".java") && Files.isRegularFile(f)).collect(Collectors.toList());
+    } catch (IOException e) {
+      throw new JavaForgerException(e, "Could not list java files in " + root);
+    }
+  }
+
+  private static String read(Path file) {
+    try {
+      return new String(Files.readAllBytes(file), StandardCharsets.UTF_8);
+    } catch (IOException e) {
+      throw new JavaForgerException(e, "Could not read " + file);
+    }
+  }
+
+}
@@ -0,0 +1,280 @@
+/*
+ * Copyright 2019 by Daan van den Heuvel.
+ *
+ * This file is part of JavaForger.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package generator;
+
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Checkpoint file recording which units of a batch were completed, so that an interrupted batch can be resumed without redoing finished work. A unit is the
+ * execution of a single {@link configuration.JavaForgerConfiguration} for an input class that is merged into a target file. For every unit the hash of the
+ * input class is recorded, and for every target the hash after the last merge into it. The targets of a unit are its merge class and the files written by
+ * {@link OutputDirective}s of the template. Multiple units can merge into the same target, so a unit is skipped if its input class still has the recorded hash
+ * and all its targets still have the hash of the last recorded merge, so changes made in between are never lost. Every completed unit is appended and flushed
+ * to the file directly, so that the checkpoint survives a crash.
+ *
+ * <pre>
+ * try (Checkpoint checkpoint = Checkpoint.open(Paths.get("target/javaforger.checkpoint"))) {
+ *   JavaForger.execute(config, inputClasses, ExecutionOptions.builder().checkpoint(checkpoint).build());
+ *   checkpoint.delete();
+ * }
+ * </pre>
+ *
+ * @author Daan
+ */
+public final class Checkpoint implements Closeable {
+  private static final Logger LOG = LoggerFactory.getLogger(Checkpoint.class);
+
+  private static final String UNIT = "U";
+  private static final String TARGET = "T";
+
+  private final Path file;
+  /** Unit key to the hash of the input class */
+  private final Map<String, String> completed = new HashMap<>();
+  /** Unit key to the targets of its output directives */
+  private final Map<String, List<String>> outputs = new HashMap<>();
+  /** Target to its hash after the last completed unit that merged into it */
+  private final Map<String, String> targets = new HashMap<>();
+  /** Keys of the units that were skipped or completed since the checkpoint was opened */
+  private final Set<String> used = new HashSet<>();
+  private BufferedWriter writer;
+
+  private Checkpoint(Path file) {
+    this.file = file;
+  }
+
+  /**
+   * Opens the checkpoint file, all units recorded within the file are loaded. The file is created if it does not exist.
+   *
+   * @param file The path to the checkpoint file.
+   * @return The opened {@link Checkpoint}
+   * @throws IOException If the file could not be read or created.
+   */
+  public static Checkpoint open(Path file) throws IOException {
+    Checkpoint checkpoint = new Checkpoint(file);
+    if (Files.exists(file)) {
+      for (String line : Files.readAllLines(file, StandardCharsets.UTF_8)) {
+        String[] split = line.split("\t");
+        // An incomplete last line is the result of a crash while writing it, so that unit is simply not completed.
+        if (split.length >= 5 && split[0].equals(UNIT)) {
+          String key = key(split[2], split[3], split[4]);
+          checkpoint.completed.put(key, split[1]);
+          checkpoint.outputs.put(key, new ArrayList<>(Arrays.asList(split).subList(5, split.length)));
+        } else if (split.length == 3 && split[0].equals(TARGET)) {
+          checkpoint.targets.put(split[2], split[1]);
+        }
+      }
+      LOG.info("Resuming from checkpoint {} with {} completed units", file, checkpoint.completed.size());
+    } else if (file.getParent() != null) {
+      Files.createDirectories(file.getParent());
+    }
+    checkpoint.writer = Files.newBufferedWriter(file, StandardCharsets.UTF_8, StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+    return checkpoint;
+  }
+
+  /**
+   * Checks if the unit was completed and neither the input class nor any of its targets changed since the last completed unit.
+   *
+   * @param inputClass The path to the input class.
+   * @param template The template of the configuration.
+   * @param target The path to the merge class.
+   * @return True if the unit can be skipped.
+   */
+  public synchronized boolean isCompleted(String inputClass, String template, String target) {
+    String key = key(inputClass, template, target);
+    String inputHash = completed.get(key);
+    boolean isCompleted = inputHash != null && inputHash.equals(hash(inputClass))
+        && getTargets(key, target).stream().allMatch(t -> targets.containsKey(t) && targets.get(t).equals(hash(t)));
+    if (isCompleted) {
+      used.add(key);
+    }
+    return isCompleted;
+  }
+
+  /**
+   * Records the unit as completed, using the current content of the input class and target.
+   *
+   * @param inputClass The path to the input class.
+   * @param template The template of the configuration.
+   * @param target The path to the merge class.
+   * @throws IOException If the checkpoint file could not be written.
+   */
+  public void complete(String inputClass, String template, String target) throws IOException {
+    complete(inputClass, template, target, Collections.emptyList());
+  }
+
+  /**
+   * Records the unit as completed, using the current content of the input class and all targets.
+   *
+   * @param inputClass The path to the input class.
+   * @param template The template of the configuration.
+   * @param target The path to the merge class.
+   * @param outputTargets The paths to the files written by the {@link OutputDirective}s of the template, the merge class itself may be included.
+   * @throws IOException If the checkpoint file could not be written.
+   */
+  public synchronized void complete(String inputClass, String template, String target, Collection<String> outputTargets) throws IOException {
+    String key = key(inputClass, template, target);
+    String inputHash = hash(inputClass);
+    List<String> unitOutputs = new ArrayList<>(new LinkedHashSet<>(outputTargets));
+    unitOutputs.remove(nullToEmpty(target));
+    completed.put(key, inputHash);
+    outputs.put(key, unitOutputs);
+    used.add(key);
+    write(writer, UNIT, inputHash, unit(key));
+    for (String t : getTargets(key, target)) {
+      String targetHash = hash(t);
+      targets.put(t, targetHash);
+      write(writer, TARGET, targetHash, t);
+    }
+    writer.flush();
+  }
+
+  /**
+   * Rewrites the checkpoint file with only the units that were skipped or completed since it was opened, together with the hashes of their targets. Units of
+   * removed input classes or templates are dropped, so that a checkpoint that is kept over many runs does not keep growing. Only compact after a successful
+   * run, units that were not reached because of a failure are dropped as well.
+   *
+   * @throws IOException If the checkpoint file could not be written.
+   */
+  public synchronized void compact() throws IOException {
+    close();
+    Path temp = file.resolveSibling(file.getFileName() + ".tmp");
+    Set<String> usedTargets = new HashSet<>();
+    try (BufferedWriter out = Files.newBufferedWriter(temp, StandardCharsets.UTF_8)) {
+      for (String key : used) {
+        write(out, UNIT, completed.get(key), unit(key));
+        usedTargets.addAll(getTargets(key, key.substring(key.lastIndexOf('\t') + 1)));
+      }
+      for (String target : usedTargets) {
+        write(out, TARGET, targets.get(target), target);
+      }
+    }
+    Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING);
+    completed.keySet().retainAll(used);
+    outputs.keySet().retainAll(used);
+    targets.keySet().retainAll(usedTargets);
+    writer = Files.newBufferedWriter(file, StandardCharsets.UTF_8, StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+  }
+
+  /**
+   * @return The number of completed units.
+   */
+  public synchronized int size() {
+    return completed.size();
+  }
+
+  /**
+   * Deletes the checkpoint file, typically after the whole batch completed successfully.
+   *
+   * @throws IOException If the file could not be deleted.
+   */
+  public synchronized void delete() throws IOException {
+    close();
+    completed.clear();
+    outputs.clear();
+    targets.clear();
+    used.clear();
+    Files.deleteIfExists(file);
+  }
+
+  @Override
+  public synchronized void close() throws IOException {
+    if (writer != null) {
+      writer.close();
+      writer = null;
+    }
+  }
+
+  /**
+   * @return The merge class of the unit followed by the targets of its output directives.
+   */
+  private List<String> getTargets(String key, String target) {
+    List<String> unitTargets = new ArrayList<>();
+    unitTargets.add(nullToEmpty(target));
+    unitTargets.addAll(outputs.getOrDefault(key, Collections.emptyList()));
+    return unitTargets;
+  }
+
+  /**
+   * @return The key of the unit followed by the targets of its output directives, as written to the file.
+   */
+  private String unit(String key) {
+    StringBuilder unit = new StringBuilder(key);
+    outputs.getOrDefault(key, Collections.emptyList()).forEach(o -> unit.append('\t').append(o));
+    return unit.toString();
+  }
+
+  private static void write(BufferedWriter out, String type, String hash, String key) throws IOException {
+    out.write(type + "\t" + hash + "\t" + key);
+    out.newLine();
+  }
+
+  private static String key(String inputClass, String template, String target) {
+    return nullToEmpty(inputClass) + "\t" + nullToEmpty(template) + "\t" + nullToEmpty(target);
+  }
+
+  private static String nullToEmpty(String s) {
+    return s == null ? "" : s;
+  }
+
+  /**
+   * Calculates the SHA-256 hash of the file, reading it via the {@link FileTransaction} so that staged content is used within a transaction.
+   *
+   * @param path The path to the file.
+   * @return The hash as hexadecimal string, or '-' if the file does not exist.
+   */
+  static String hash(String path) {
+    if (path == null || path.isEmpty() || !FileTransaction.exists(path)) {
+      return "-";
+    }
+    try {
+      byte[] digest = MessageDigest.getInstance("SHA-256").digest(Files.readAllBytes(FileTransaction.resolve(path)));
+      StringBuilder sb = new StringBuilder();
+      for (byte b : digest) {
+        sb.append(String.format("%02x", b));
+      }
+      return sb.toString();
+    } catch (IOException e) {
+      throw new JavaForgerException(e, "Could not read " + path);
+    } catch (NoSuchAlgorithmException e) {
+      throw new JavaForgerException(e);
+    }
+  }
+
+}
@@ -17,7 +17,9 @@
  */
 package generator;
 
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
 import java.util.stream.Collectors;
 import java.util.stream.IntStream;
@@ -30,6 +32,8 @@ import java.util.stream.IntStream;
 public class CodeSnipit {
 
   private String code;
+  /** Sections of the code that are merged into other files, see {@link OutputDirective}. */
+  private final List<TemplateOutput> outputs = new ArrayList<>();
 
   public CodeSnipit(String codeString) {
     code = new String(codeString);
@@ -43,6 +47,14 @@ public class CodeSnipit {
     code = code + string;
   }
 
+  public List<TemplateOutput> getOutputs() {
+    return Collections.unmodifiableList(outputs);
+  }
+
+  public void addOutput(TemplateOutput output) {
+    outputs.add(output);
+  }
+
   public void print() {
     System.out.println(toString());
   }
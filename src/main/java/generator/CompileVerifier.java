@@ -0,0 +1,357 @@
+/*
+ * Copyright 2019 by Daan van den Heuvel.
+ *
+ * This file is part of JavaForger.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package generator;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+import javax.tools.Diagnostic;
+import javax.tools.DiagnosticCollector;
+import javax.tools.FileObject;
+import javax.tools.ForwardingJavaFileManager;
+import javax.tools.JavaCompiler;
+import javax.tools.JavaFileManager;
+import javax.tools.JavaFileObject;
+import javax.tools.JavaFileObject.Kind;
+import javax.tools.SimpleJavaFileObject;
+import javax.tools.StandardJavaFileManager;
+import javax.tools.ToolProvider;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import reader.SourceCache;
+
+/**
+ * Verifies that generated code compiles, without running a full build. Every merge executed by a {@link Generator} that was created with this verifier is
+ * recorded. {@link CompileVerifier#verify()} then compiles all merge classes within a single compiler task. The sources are read through the active
+ * {@link FileTransaction} if there is one, so that staged changes can be verified before they are committed. Class files are kept in memory and discarded.
+ * Each compiler error is mapped back to the template and {@link CodeSnipit} that generated the code on the reported line.
+ *
+ * @author Daan
+ */
+public class CompileVerifier {
+  private static final Logger LOG = LoggerFactory.getLogger(CompileVerifier.class);
+
+  private final List<String> classpath;
+  private final List<String> sourcepath;
+  private final List<String> options;
+  /** Merges per merge class, in the order in which they were executed. */
+  private final Map<String, List<Merge>> merges = new LinkedHashMap<>();
+
+  private CompileVerifier(Builder builder) {
+    this.classpath = builder.classpath;
+    this.sourcepath = builder.sourcepath;
+    this.options = builder.options;
+  }
+
+  /**
+   * Records that the given {@link CodeSnipit} was merged into the merge class. Only merge classes ending with ".java" are verified.
+   *
+   * @param mergeClassPath The path to the merge class.
+   * @param template The template that generated the code.
+   * @param codeSnipit The generated code.
+   */
+  public synchronized void record(String mergeClassPath, String template, CodeSnipit codeSnipit) {
+    if (mergeClassPath.endsWith(Kind.SOURCE.extension)) {
+      String path = new File(mergeClassPath).toPath().toAbsolutePath().normalize().toString();
+      merges.computeIfAbsent(path, p -> new ArrayList<>()).add(new Merge(template, codeSnipit));
+    }
+  }
+
+  /**
+   * @return The paths to all recorded merge classes.
+   */
+  public synchronized List<String> getMergeClasses() {
+    return new ArrayList<>(merges.keySet());
+  }
+
+  /**
+   * Compiles all recorded merge classes in memory.
+   *
+   * @return The errors and warnings reported by the compiler, empty if all code compiles without warnings.
+   */
+  public synchronized List<CompileDiagnostic> verify() {
+    if (merges.isEmpty()) {
+      return Collections.emptyList();
+    }
+    JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
+    if (compiler == null) {
+      throw new JavaForgerException("No java compiler available, verifying generated code requires a JDK");
+    }
+    Map<String, SourceFile> sources = new LinkedHashMap<>();
+    for (String path : merges.keySet()) {
+      sources.put(path, new SourceFile(path, read(path)));
+    }
+
+    DiagnosticCollector<JavaFileObject> diagnostics = new DiagnosticCollector<>();
+    try (StandardJavaFileManager standard = compiler.getStandardFileManager(diagnostics, Locale.ROOT, StandardCharsets.UTF_8);
+        JavaFileManager fileManager = new InMemoryFileManager(standard)) {
+      List<String> allOptions = new ArrayList<>(Arrays.asList("-proc:none", "-implicit:none", "-classpath", String.join(File.pathSeparator, classpath)));
+      if (!sourcepath.isEmpty()) {
+        allOptions.addAll(Arrays.asList("-sourcepath", String.join(File.pathSeparator, sourcepath)));
+      }
+      allOptions.addAll(options);
+      boolean success = compiler.getTask(null, fileManager, diagnostics, allOptions, null, sources.values()).call();
+      LOG.info("Verified {} merge classes, compilation {}", sources.size(), success ? "succeeded" : "failed");
+    } catch (IOException e) {
+      throw new JavaForgerException(e, "Could not verify generated code");
+    }
+
+    return diagnostics.getDiagnostics().stream().filter(d -> d.getKind() != Diagnostic.Kind.NOTE).map(d -> toDiagnostic(d, sources))
+        .collect(Collectors.toList());
+  }
+
+  private CompileDiagnostic toDiagnostic(Diagnostic<? extends JavaFileObject> diagnostic, Map<String, SourceFile> sources) {
+    String path = null;
+    String line = null;
+    Merge merge = null;
+    if (diagnostic.getSource() instanceof SourceFile) {
+      SourceFile source = (SourceFile) diagnostic.getSource();
+      path = source.path;
+      line = source.getLine(diagnostic.getLineNumber());
+      merge = findMerge(merges.get(path), line);
+    } else if (diagnostic.getSource() != null) {
+      path = diagnostic.getSource().toUri().getPath();
+    }
+    return new CompileDiagnostic(diagnostic.getKind(), path, diagnostic.getLineNumber(), diagnostic.getColumnNumber(), diagnostic.getMessage(Locale.ROOT),
+        line, merge == null ? null : merge.template, merge == null ? null : merge.codeSnipit);
+  }
+
+  /**
+   * The merged code can be formatted differently and interleaved with existing code, so a line is matched on its trimmed content. The last merge containing
+   * the line wins, since it overrides code from earlier merges.
+   */
+  private static Merge findMerge(List<Merge> candidates, String line) {
+    if (line == null || line.trim().isEmpty()) {
+      return null;
+    }
+    String trimmed = line.trim();
+    Merge found = null;
+    for (Merge merge : candidates) {
+      if (merge.codeSnipit.getCode().contains(trimmed)) {
+        found = merge;
+      }
+    }
+    return found;
+  }
+
+  private static String read(String path) {
+    try {
+      return SourceCache.load(path);
+    } catch (IOException e) {
+      throw new JavaForgerException(e, "Could not read merge class " + path);
+    }
+  }
+
+  /**
+   * A single error or warning reported by the compiler.
+   */
+  public static final class CompileDiagnostic {
+    private final Diagnostic.Kind kind;
+    private final String path;
+    private final long line;
+    private final long column;
+    private final String message;
+    private final String code;
+    private final String template;
+    private final CodeSnipit codeSnipit;
+
+    private CompileDiagnostic(Diagnostic.Kind kind, String path, long line, long column, String message, String code, String template,
+        CodeSnipit codeSnipit) {
+      this.kind = kind;
+      this.path = path;
+      this.line = line;
+      this.column = column;
+      this.message = message;
+      this.code = code;
+      this.template = template;
+      this.codeSnipit = codeSnipit;
+    }
+
+    public Diagnostic.Kind getKind() {
+      return kind;
+    }
+
+    public boolean isError() {
+      return kind == Diagnostic.Kind.ERROR;
+    }
+
+    public String getPath() {
+      return path;
+    }
+
+    public long getLine() {
+      return line;
+    }
+
+    public long getColumn() {
+      return column;
+    }
+
+    public String getMessage() {
+      return message;
+    }
+
+    /**
+     * @return The line of code on which the problem was reported, or null if it is not within a merge class.
+     */
+    public String getCode() {
+      return code;
+    }
+
+    /**
+     * @return The template that generated the code on the reported line, or null if the line was not generated.
+     */
+    public String getTemplate() {
+      return template;
+    }
+
+    /**
+     * @return The {@link CodeSnipit} containing the code on the reported line, or null if the line was not generated.
+     */
+    public CodeSnipit getCodeSnipit() {
+      return codeSnipit;
+    }
+
+    @Override
+    public String toString() {
+      return kind + " " + path + ":" + line + ":" + column + " " + message + (template == null ? "" : " (generated by " + template + ")");
+    }
+  }
+
+  private static final class Merge {
+    private final String template;
+    private final CodeSnipit codeSnipit;
+
+    private Merge(String template, CodeSnipit codeSnipit) {
+      this.template = template;
+      this.codeSnipit = codeSnipit;
+    }
+  }
+
+  /**
+   * Source file served from memory, so that the compiler sees the content from the {@link FileTransaction} instead of the file on disk.
+   */
+  private static final class SourceFile extends SimpleJavaFileObject {
+    private final String path;
+    private final String content;
+
+    private SourceFile(String path, String content) {
+      super(URI.create("memory:///" + path.replaceFirst("^/", "")), Kind.SOURCE);
+      this.path = path;
+      this.content = content;
+    }
+
+    @Override
+    public CharSequence getCharContent(boolean ignoreEncodingErrors) {
+      return content;
+    }
+
+    private String getLine(long lineNumber) {
+      String[] lines = content.split("\\r?\\n", -1);
+      return lineNumber >= 1 && lineNumber <= lines.length ? lines[(int) lineNumber - 1] : null;
+    }
+  }
+
+  /**
+   * Keeps all class files in memory, nothing is written to disk.
+   */
+  private static final class InMemoryFileManager extends ForwardingJavaFileManager<StandardJavaFileManager> {
+
+    private InMemoryFileManager(StandardJavaFileManager fileManager) {
+      super(fileManager);
+    }
+
+    @Override
+    public JavaFileObject getJavaFileForOutput(Location location, String className, Kind kind, FileObject sibling) {
+      return new SimpleJavaFileObject(URI.create("memory:///" + className.replace('.', '/') + kind.extension), kind) {
+        @Override
+        public OutputStream openOutputStream() {
+          return new ByteArrayOutputStream();
+        }
+      };
+    }
+  }
+
+  /**
+   * Creates builder to build {@link CompileVerifier}.
+   *
+   * @return created builder
+   */
+  public static Builder builder() {
+    return new Builder();
+  }
+
+  /**
+   * Builder to build {@link CompileVerifier}.
+   */
+  public static final class Builder {
+    private List<String> classpath = new ArrayList<>();
+    private List<String> sourcepath = new ArrayList<>();
+    private List<String> options = new ArrayList<>();
+
+    private Builder() {
+      classpath.add(System.getProperty("java.class.path"));
+    }
+
+    /**
+     * @param entries Jars or class folders the merge classes depend on, added to the classpath of the current JVM.
+     * @return this builder
+     */
+    public Builder classpath(String... entries) {
+      this.classpath.addAll(Arrays.asList(entries));
+      return this;
+    }
+
+    /**
+     * @param folders Source folders containing the other classes the merge classes depend on, typically the project paths.
+     * @return this builder
+     */
+    public Builder sourcepath(String... folders) {
+      this.sourcepath.addAll(Arrays.asList(folders));
+      return this;
+    }
+
+    /**
+     * @param options Additional compiler options, for instance "-Xlint:all".
+     * @return this builder
+     */
+    public Builder options(String... options) {
+      this.options.addAll(Arrays.asList(options));
+      return this;
+    }
+
+    public CompileVerifier build() {
+      return new CompileVerifier(this);
+    }
+  }
+
+}
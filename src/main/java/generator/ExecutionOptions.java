@@ -0,0 +1,131 @@
+/*
+ * Copyright 2019 by Daan van den Heuvel.
+ *
+ * This file is part of JavaForger.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package generator;
+
+import java.nio.file.Path;
+
+/**
+ * Options for executing a {@link configuration.JavaForgerConfiguration} for a batch of input classes with
+ * {@link JavaForger#execute(configuration.JavaForgerConfiguration, java.util.Collection, ExecutionOptions)}. All options can be combined, for instance to
+ * resume a batch from a {@link Checkpoint} within a single {@link FileTransaction} while recording the merges in a {@link CompileVerifier}:
+ *
+ * <pre>
+ * ExecutionOptions options = ExecutionOptions.builder().checkpoint(checkpoint).verifier(verifier).transaction(true).build();
+ * JavaForger.execute(config, inputClasses, options);
+ * </pre>
+ *
+ * @author Daan
+ */
+public final class ExecutionOptions {
+
+  private final Checkpoint checkpoint;
+  private final CompileVerifier verifier;
+  private final boolean transaction;
+  private final Path transactionFolder;
+
+  private ExecutionOptions(Builder builder) {
+    this.checkpoint = builder.checkpoint;
+    this.verifier = builder.verifier;
+    this.transaction = builder.transaction || builder.transactionFolder != null;
+    this.transactionFolder = builder.transactionFolder;
+  }
+
+  public Checkpoint getCheckpoint() {
+    return checkpoint;
+  }
+
+  public CompileVerifier getVerifier() {
+    return verifier;
+  }
+
+  public boolean isTransaction() {
+    return transaction;
+  }
+
+  /**
+   * @return The staging folder of the {@link FileTransaction}, the {@link FileTransaction#getDefaultStagingFolder()} if none was set.
+   */
+  public Path getTransactionFolder() {
+    return transactionFolder == null ? FileTransaction.getDefaultStagingFolder() : transactionFolder;
+  }
+
+  /**
+   * Creates builder to build {@link ExecutionOptions}.
+   *
+   * @return created builder
+   */
+  public static Builder builder() {
+    return new Builder();
+  }
+
+  /**
+   * Builder to build {@link ExecutionOptions}.
+   */
+  public static final class Builder {
+    private Checkpoint checkpoint;
+    private CompileVerifier verifier;
+    private boolean transaction;
+    private Path transactionFolder;
+
+    private Builder() {
+    }
+
+    /**
+     * @param checkpoint The {@link Checkpoint} to resume from and record progress in, merges that were already completed are skipped.
+     * @return this builder
+     */
+    public Builder checkpoint(Checkpoint checkpoint) {
+      this.checkpoint = checkpoint;
+      return this;
+    }
+
+    /**
+     * @param verifier The {@link CompileVerifier} to record all merges in, so that the generated code can be verified with {@link CompileVerifier#verify()}.
+     * @return this builder
+     */
+    public Builder verifier(CompileVerifier verifier) {
+      this.verifier = verifier;
+      return this;
+    }
+
+    /**
+     * @param transaction True to execute all input classes within a single {@link FileTransaction}, so that either all generated code is written or if
+     *          anything fails none of the files are changed. False by default.
+     * @return this builder
+     */
+    public Builder transaction(boolean transaction) {
+      this.transaction = transaction;
+      return this;
+    }
+
+    /**
+     * @param transactionFolder The staging folder of the {@link FileTransaction}, which enables the transaction. If a commit into this folder was interrupted
+     *          by a crash, it is rolled back before the next execution with the same folder starts.
+     * @return this builder
+     */
+    public Builder transactionFolder(Path transactionFolder) {
+      this.transactionFolder = transactionFolder;
+      return this;
+    }
+
+    public ExecutionOptions build() {
+      return new ExecutionOptions(this);
+    }
+  }
+
+}
@@ -0,0 +1,129 @@
+/*
+ * Copyright 2019 by Daan van den Heuvel.
+ *
+ * This file is part of JavaForger.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package generator;
+
+import java.io.IOException;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.stream.Collectors;
+
+import freemarker.template.TemplateException;
+
+/**
+ * Directed acyclic graph of {@link ExecutionStep}s compiled from a {@link configuration.JavaForgerConfiguration} tree by the {@link ExecutionPlanCompiler}.
+ * The steps are stored in a topological order, so executing them in order always satisfies their dependencies. Steps that do not depend on each other can be
+ * executed in parallel with {@link ExecutionPlan#execute(ExecutorService)}.
+ *
+ * @author Daan
+ */
+public final class ExecutionPlan {
+
+  private final List<ExecutionStep> steps;
+
+  ExecutionPlan(List<ExecutionStep> steps) {
+    this.steps = Collections.unmodifiableList(steps);
+  }
+
+  public List<ExecutionStep> getSteps() {
+    return steps;
+  }
+
+  /**
+   * Executes all steps one by one in the current thread.
+   *
+   * @return The {@link CodeSnipit}s of all processed templates in the order in which the configurations are defined.
+   */
+  public List<CodeSnipit> execute() {
+    for (ExecutionStep step : steps) {
+      executeStep(step);
+    }
+    return getCodeSnipits();
+  }
+
+  /**
+   * Executes all steps on the given {@link ExecutorService}, where every step is started as soon as all steps it depends on are finished. Note that the
+   * {@link reader.ClassContainerReader} and the {@link merger.CodeSnipitMerger} from the {@link configuration.StaticJavaForgerConfiguration} should support
+   * being called from multiple threads.
+   *
+   * @param executor The {@link ExecutorService} to execute the steps on.
+   * @return The {@link CodeSnipit}s of all processed templates in the order in which the configurations are defined.
+   */
+  public List<CodeSnipit> execute(ExecutorService executor) {
+    Map<ExecutionStep, CompletableFuture<Void>> futures = new HashMap<>();
+    for (ExecutionStep step : steps) {
+      List<CompletableFuture<Void>> dependencies = step.getDependencies().stream().map(futures::get).collect(Collectors.toList());
+      futures.put(step, CompletableFuture.allOf(toArray(dependencies)).thenRunAsync(() -> executeStep(step), executor));
+    }
+    try {
+      CompletableFuture.allOf(toArray(futures.values())).join();
+    } catch (CompletionException e) {
+      throw e.getCause() instanceof JavaForgerException ? (JavaForgerException) e.getCause() : new JavaForgerException(e);
+    }
+    return getCodeSnipits();
+  }
+
+  /**
+   * Converts the futures to an array for {@link CompletableFuture#allOf(CompletableFuture...)}. An array of the wildcard type can be created without raw
+   * types, unlike an array of CompletableFuture&lt;Void&gt;.
+   */
+  private static CompletableFuture<?>[] toArray(Collection<CompletableFuture<Void>> futures) {
+    return futures.toArray(new CompletableFuture<?>[futures.size()]);
+  }
+
+  /**
+   * @return A human readable description of all steps and their dependencies.
+   */
+  public String explain() {
+    StringBuilder sb = new StringBuilder();
+    sb.append("Execution plan with ").append(steps.size()).append(" steps:\n");
+    steps.forEach(step -> sb.append(step).append('\n'));
+    return sb.toString();
+  }
+
+  /**
+   * @return This plan in the graphviz dot format, so that it can be visualized.
+   */
+  public String toDot() {
+    StringBuilder sb = new StringBuilder("digraph ExecutionPlan {\n");
+    for (ExecutionStep step : steps) {
+      sb.append("  s").append(step.getId()).append(" [label=\"").append(step.getKind()).append("\\n").append(step.getDescription().replace("\"", "\\\""))
+          .append("\"];\n");
+      step.getDependencies().forEach(d -> sb.append("  s").append(d.getId()).append(" -> s").append(step.getId()).append(";\n"));
+    }
+    return sb.append("}\n").toString();
+  }
+
+  private List<CodeSnipit> getCodeSnipits() {
+    return steps.stream().filter(s -> s.getKind() == ExecutionStep.Kind.RENDER).map(s -> (CodeSnipit) s.getResult()).collect(Collectors.toList());
+  }
+
+  private void executeStep(ExecutionStep step) {
+    try {
+      step.execute();
+    } catch (IOException | TemplateException e) {
+      throw new JavaForgerException(e, "Could not execute step " + step);
+    }
+  }
+
+}
@@ -0,0 +1,178 @@
+/*
+ * Copyright 2019 by Daan van den Heuvel.
+ *
+ * This file is part of JavaForger.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package generator;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import configuration.JavaForgerConfiguration;
+import generator.ExecutionStep.Kind;
+import templateInput.ClassContainer;
+import templateInput.TemplateInputParameters;
+
+/**
+ * Compiles a {@link JavaForgerConfiguration} tree together with a set of input classes into an {@link ExecutionPlan}. The plan contains the same work that the
+ * {@link Generator} would do, split up into steps with explicit dependencies:
+ * <ul>
+ * <li>An input class is read once and shared by all configurations without adjusters. Configurations with adjusters get their own read, because adjusters
+ * change the {@link ClassContainer}. Method bodies are only read if any configuration sharing the read requires them, see {@link TemplateInputNeeds}.</li>
+ * <li>Merges into the same file are executed in the order of the configuration tree, and a file is only read after all earlier merges into it.</li>
+ * <li>The same configuration with the same input and merge class is only added once.</li>
+ * <li>If any template of the tree uses the {@link OutputDirective}, every step depends on the step before it. The files written by that directive are only
+ * known after rendering, so they cannot be ordered by explicit dependencies.</li>
+ * </ul>
+ *
+ * @author Daan
+ */
+public class ExecutionPlanCompiler {
+
+  private final Generator generator = new Generator();
+  private final TemplateInputParametersService inputService = new TemplateInputParametersService();
+
+  /**
+   * Compiles the plan for executing the given {@link JavaForgerConfiguration} for every input class.
+   *
+   * @param config The {@link JavaForgerConfiguration} to execute, including its child configurations.
+   * @param inputClasses The paths to the input classes.
+   * @return The compiled {@link ExecutionPlan}
+   */
+  public ExecutionPlan compile(JavaForgerConfiguration config, Collection<String> inputClasses) {
+    Compilation compilation = new Compilation(inputService.usesOutputDirective(config));
+    inputClasses.forEach(inputClass -> compilation.add(config, inputClass, null));
+    return new ExecutionPlan(compilation.steps);
+  }
+
+  /**
+   * Compiles the plan for executing the given {@link JavaForgerConfiguration} for every input class.
+   *
+   * @param config The {@link JavaForgerConfiguration} to execute, including its child configurations.
+   * @param inputClasses The paths to the input classes.
+   * @return The compiled {@link ExecutionPlan}
+   */
+  public ExecutionPlan compile(JavaForgerConfiguration config, String... inputClasses) {
+    return compile(config, Arrays.asList(inputClasses));
+  }
+
+  /**
+   * The state of a single compilation.
+   */
+  private final class Compilation {
+    private final List<ExecutionStep> steps = new ArrayList<>();
+    /** Shared read steps, keyed by the path and the number of merges into that path done before the read. */
+    private final Map<String, ExecutionStep> reads = new HashMap<>();
+    /** The last merge step for every merge class. */
+    private final Map<String, ExecutionStep> lastMerges = new HashMap<>();
+    /** The number of merges into every merge class. */
+    private final Map<String, Integer> mergeCounts = new HashMap<>();
+    /** The read steps for every path since the last merge into it. */
+    private final Map<String, List<ExecutionStep>> readsSinceMerge = new HashMap<>();
+    /** Shared read steps to whether any configuration sharing them requires method bodies, keyed like {@link #reads}. */
+    private final Map<String, AtomicBoolean> readMethodBodies = new HashMap<>();
+    private final Set<List<Object>> added = new HashSet<>();
+    private final boolean serial;
+
+    private Compilation(boolean serial) {
+      this.serial = serial;
+    }
+
+    private void add(JavaForgerConfiguration config, String inputClass, String parentMergeClass) {
+      String mergeClass = generator.getMergeClass(inputClass, parentMergeClass, config);
+      if (!added.add(Arrays.asList(config, inputClass, mergeClass))) {
+        return;
+      }
+      String name = config.getTemplateName() + (inputClass == null || inputClass.isEmpty() ? "" : " for " + inputClass);
+
+      ExecutionStep read = inputService.requiresInputClass(config, inputClass) ? getRead(inputClass, config) : null;
+      ExecutionStep adjust = addStep(Kind.ADJUST, name, read == null ? new ArrayList<>() : listOf(read), () -> {
+        ClassContainer claz = read == null ? null : (ClassContainer) read.getResult();
+        if (claz != null) {
+          config.getAdjuster().accept(claz);
+        }
+        return inputService.getInputParameters(config, claz, mergeClass);
+      });
+      ExecutionStep render =
+          addStep(Kind.RENDER, name, listOf(adjust), () -> generator.processTemplate(config, (TemplateInputParameters) adjust.getResult()));
+      if (mergeClass != null && config.isMerge()) {
+        List<ExecutionStep> dependencies = listOf(render);
+        if (lastMerges.containsKey(mergeClass)) {
+          dependencies.add(lastMerges.get(mergeClass));
+        }
+        // Reads of the merge class have to be finished before it is changed.
+        dependencies.addAll(readsSinceMerge.getOrDefault(mergeClass, new ArrayList<>()));
+        ExecutionStep merge = addStep(Kind.MERGE, mergeClass + " with " + config.getTemplateName(), dependencies, () -> {
+          generator.merge(config, (CodeSnipit) render.getResult(), inputClass, mergeClass, (TemplateInputParameters) adjust.getResult());
+          return null;
+        });
+        lastMerges.put(mergeClass, merge);
+        mergeCounts.merge(mergeClass, 1, Integer::sum);
+        readsSinceMerge.remove(mergeClass);
+      }
+
+      for (JavaForgerConfiguration child : config.getChildConfigs()) {
+        add(child, child.getInputClassProvider().provide(inputClass, mergeClass), mergeClass);
+      }
+    }
+
+    private ExecutionStep getRead(String inputClass, JavaForgerConfiguration config) {
+      boolean shared = !config.hasAdjusters();
+      boolean methodBodies = inputService.requiresMethodBodies(config);
+      String key = inputClass + "@" + mergeCounts.getOrDefault(inputClass, 0);
+      ExecutionStep read = shared ? reads.get(key) : null;
+      if (read == null) {
+        List<ExecutionStep> dependencies = new ArrayList<>();
+        if (lastMerges.containsKey(inputClass)) {
+          dependencies.add(lastMerges.get(inputClass));
+        }
+        AtomicBoolean readBodies = new AtomicBoolean(methodBodies);
+        read = addStep(Kind.READ, inputClass + (shared ? "" : " (private copy for adjusters)"), dependencies,
+            () -> inputService.read(inputClass, readBodies.get()));
+        readsSinceMerge.computeIfAbsent(inputClass, c -> new ArrayList<>()).add(read);
+        if (shared) {
+          reads.put(key, read);
+          readMethodBodies.put(key, readBodies);
+        }
+      } else if (methodBodies) {
+        readMethodBodies.get(key).set(true);
+      }
+      return read;
+    }
+
+    private ExecutionStep addStep(Kind kind, String description, List<ExecutionStep> dependencies, ExecutionStep.Action action) {
+      if (serial && !steps.isEmpty() && !dependencies.contains(steps.get(steps.size() - 1))) {
+        dependencies.add(steps.get(steps.size() - 1));
+      }
+      ExecutionStep step = new ExecutionStep(steps.size() + 1, kind, description, dependencies, action);
+      steps.add(step);
+      return step;
+    }
+
+    private List<ExecutionStep> listOf(ExecutionStep step) {
+      List<ExecutionStep> list = new ArrayList<>();
+      list.add(step);
+      return list;
+    }
+  }
+
+}
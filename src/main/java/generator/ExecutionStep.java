@@ -0,0 +1,105 @@
+/*
+ * Copyright 2019 by Daan van den Heuvel.
+ *
+ * This file is part of JavaForger.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package generator;
+
+import java.io.IOException;
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import freemarker.template.TemplateException;
+
+/**
+ * A single step within an {@link ExecutionPlan}. A step can only be executed after all steps it depends on have been executed. The result of the step is
+ * available to the steps depending on it.
+ *
+ * @author Daan
+ */
+public final class ExecutionStep {
+
+  /**
+   * The type of work done within an {@link ExecutionStep}.
+   */
+  public enum Kind {
+    /** Reading and initializing an input class. */
+    READ,
+    /** Applying the adjusters of a configuration and creating the input parameters for the template. */
+    ADJUST,
+    /** Processing a template. */
+    RENDER,
+    /** Merging the processed template into the merge class. */
+    MERGE
+  }
+
+  /**
+   * The work to execute within an {@link ExecutionStep}.
+   */
+  @FunctionalInterface
+  interface Action {
+    Object execute() throws IOException, TemplateException;
+  }
+
+  private final int id;
+  private final Kind kind;
+  private final String description;
+  private final List<ExecutionStep> dependencies;
+  private final Action action;
+  private volatile Object result;
+
+  ExecutionStep(int id, Kind kind, String description, List<ExecutionStep> dependencies, Action action) {
+    this.id = id;
+    this.kind = kind;
+    this.description = description;
+    this.dependencies = Collections.unmodifiableList(dependencies);
+    this.action = action;
+  }
+
+  public int getId() {
+    return id;
+  }
+
+  public Kind getKind() {
+    return kind;
+  }
+
+  public String getDescription() {
+    return description;
+  }
+
+  public List<ExecutionStep> getDependencies() {
+    return dependencies;
+  }
+
+  /**
+   * @return The result of this step, or null if it was not yet executed or does not have a result.
+   */
+  public Object getResult() {
+    return result;
+  }
+
+  void execute() throws IOException, TemplateException {
+    result = action.execute();
+  }
+
+  @Override
+  public String toString() {
+    String dependsOn = dependencies.isEmpty() ? "" : " <- " + dependencies.stream().map(d -> "#" + d.id).collect(Collectors.joining(", "));
+    return "#" + id + " " + kind + " " + description + dependsOn;
+  }
+
+}
@@ -0,0 +1,321 @@
+/*
+ * Copyright 2019 by Daan van den Heuvel.
+ *
+ * This file is part of JavaForger.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package generator;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Transaction for all files written by {@link JavaForger} while it is active. New file contents are written to a staging folder instead of to the actual
+ * files, and reading a file returns the staged content if it was changed within the transaction. On {@link FileTransaction#commit()} the original files are
+ * backed up into the staging folder and a journal is written, after which every staged file is moved to its target with an atomic rename. If the commit fails,
+ * all files are restored from their backups. If the JVM dies during the commit, the next transaction that begins with the same staging folder rolls back
+ * using the journal, see {@link FileTransaction#recover(Path)}. The staging folder is therefore stable: by default it only depends on the working directory.
+ * <p>
+ * Only one transaction can be active at a time, and it is global to the JVM: it is shared between all threads so that parallel runs can be part of the same
+ * transaction. This also means that files written by JavaForger from any other thread while the transaction is active, for instance by a watcher or a
+ * language server running in the same JVM, are staged in the transaction as well. Do not run such callers concurrently with a transaction.
+ *
+ * <pre>
+ * try (FileTransaction transaction = FileTransaction.begin()) {
+ *   JavaForger.execute(config, inputClass);
+ *   transaction.commit();
+ * }
+ * </pre>
+ *
+ * @author Daan
+ */
+public final class FileTransaction implements Closeable {
+  private static final Logger LOG = LoggerFactory.getLogger(FileTransaction.class);
+
+  /** The journal file inside the staging folder, listing every target and its backup. It only exists while committing. */
+  static final String JOURNAL = "journal.txt";
+  private static final String NEW_FILE = "<new>";
+
+  private static volatile FileTransaction active;
+
+  private enum State {
+    ACTIVE, COMMITTED, ROLLED_BACK
+  }
+
+  private final Path stagingFolder;
+  /** The target path to the staged path, in the order in which they were first written. */
+  private final Map<Path, Path> staged = new LinkedHashMap<>();
+  private State state = State.ACTIVE;
+
+  private FileTransaction(Path stagingFolder) {
+    this.stagingFolder = stagingFolder;
+  }
+
+  /**
+   * Begins a transaction with the {@link FileTransaction#getDefaultStagingFolder()}, so that a commit interrupted by a crash is rolled back by the next
+   * transaction started from the same working directory.
+   *
+   * @return The started {@link FileTransaction}
+   * @throws IOException If the staging folder could not be created or recovered.
+   */
+  public static FileTransaction begin() throws IOException {
+    return begin(getDefaultStagingFolder());
+  }
+
+  /**
+   * @return The staging folder in the temporary directory that is used for all transactions started from the current working directory.
+   */
+  public static Path getDefaultStagingFolder() {
+    String workingDirectory = Paths.get("").toAbsolutePath().normalize().toString();
+    return Paths.get(System.getProperty("java.io.tmpdir"), "javaforger-transaction-" + Integer.toHexString(workingDirectory.hashCode()));
+  }
+
+  /**
+   * Begins a transaction using the given staging folder. If the folder contains the journal of an earlier transaction that did not finish its commit, that
+   * transaction is rolled back first.
+   *
+   * @param stagingFolder The folder to stage new file contents in.
+   * @return The started {@link FileTransaction}
+   * @throws IOException If the staging folder could not be created or recovered.
+   */
+  public static synchronized FileTransaction begin(Path stagingFolder) throws IOException {
+    if (active != null) {
+      throw new JavaForgerException("Another FileTransaction is already active with staging folder " + active.stagingFolder);
+    }
+    recover(stagingFolder);
+    Files.createDirectories(stagingFolder);
+    active = new FileTransaction(stagingFolder);
+    return active;
+  }
+
+  /**
+   * @return The active {@link FileTransaction} or null if no transaction is active.
+   */
+  public static FileTransaction getActive() {
+    return active;
+  }
+
+  /**
+   * Gets the path to read the given file from. This is the staged file if it was written within the active transaction.
+   *
+   * @param path The path to the file.
+   * @return The {@link Path} to read from.
+   */
+  public static Path resolve(String path) {
+    FileTransaction transaction = active;
+    Path target = toTarget(path);
+    if (transaction != null) {
+      synchronized (transaction) {
+        Path stagedPath = transaction.staged.get(target);
+        if (stagedPath != null) {
+          return stagedPath;
+        }
+      }
+    }
+    return Paths.get(path);
+  }
+
+  /**
+   * Gets the path to write the given file to. If a transaction is active, this is a file in the staging folder which initially contains the current content of
+   * the file. Otherwise it is the path itself, of which the parent folders are created if needed.
+   *
+   * @param path The path to the file.
+   * @return The {@link Path} to write to.
+   * @throws IOException If the file could not be staged.
+   */
+  public static Path resolveForWrite(String path) throws IOException {
+    FileTransaction transaction = active;
+    if (transaction == null) {
+      Path target = Paths.get(path);
+      if (target.getParent() != null) {
+        Files.createDirectories(target.getParent());
+      }
+      return target;
+    }
+    return transaction.stage(toTarget(path));
+  }
+
+  /**
+   * @param path The path to the file.
+   * @return True if the file exists or was created within the active transaction.
+   */
+  public static boolean exists(String path) {
+    return Files.exists(resolve(path));
+  }
+
+  /**
+   * Moves all staged files to their targets. If this fails, all targets are restored and the exception is thrown.
+   *
+   * @throws IOException If the files could not be committed.
+   */
+  public synchronized void commit() throws IOException {
+    checkActive();
+    Path journal = stagingFolder.resolve(JOURNAL);
+    List<String> lines = new ArrayList<>();
+    int i = 0;
+    for (Path target : staged.keySet()) {
+      String backup = NEW_FILE;
+      if (Files.exists(target)) {
+        Path backupPath = stagingFolder.resolve("backup-" + i++);
+        Files.copy(target, backupPath, StandardCopyOption.REPLACE_EXISTING);
+        backup = backupPath.toString();
+      }
+      lines.add(target + "\t" + backup);
+    }
+    Files.write(journal, lines, StandardCharsets.UTF_8);
+    try {
+      for (Map.Entry<Path, Path> entry : staged.entrySet()) {
+        moveToTarget(entry.getValue(), entry.getKey());
+      }
+    } catch (IOException | RuntimeException e) {
+      LOG.error("Commit failed, restoring {} files", staged.size(), e);
+      recover(stagingFolder);
+      finish(State.ROLLED_BACK);
+      throw e;
+    }
+    LOG.info("Committed {} files", staged.size());
+    finish(State.COMMITTED);
+  }
+
+  /**
+   * Discards all staged files, the target files are left untouched.
+   */
+  public synchronized void rollback() {
+    checkActive();
+    LOG.info("Rolled back {} files", staged.size());
+    finish(State.ROLLED_BACK);
+  }
+
+  /**
+   * Rolls back the transaction if it was not committed.
+   */
+  @Override
+  public synchronized void close() {
+    if (state == State.ACTIVE) {
+      rollback();
+    }
+  }
+
+  /**
+   * Rolls back a transaction that did not complete its commit, by restoring all files listed in the journal inside the staging folder. The staging folder is
+   * deleted afterwards. This does nothing if the staging folder does not contain a journal.
+   *
+   * @param stagingFolder The staging folder of the transaction.
+   * @throws IOException If the files could not be restored.
+   */
+  public static void recover(Path stagingFolder) throws IOException {
+    Path journal = stagingFolder.resolve(JOURNAL);
+    if (!Files.exists(journal)) {
+      return;
+    }
+    for (String line : Files.readAllLines(journal, StandardCharsets.UTF_8)) {
+      String[] split = line.split("\t");
+      Path target = Paths.get(split[0]);
+      if (NEW_FILE.equals(split[1])) {
+        Files.deleteIfExists(target);
+      } else {
+        moveToTarget(Paths.get(split[1]), target);
+      }
+    }
+    Files.delete(journal);
+    LOG.info("Recovered files from journal in {}", stagingFolder);
+    deleteFolder(stagingFolder);
+  }
+
+  public Path getStagingFolder() {
+    return stagingFolder;
+  }
+
+  private synchronized Path stage(Path target) throws IOException {
+    checkActive();
+    Path stagedPath = staged.get(target);
+    if (stagedPath == null) {
+      stagedPath = stagingFolder.resolve("staged-" + staged.size() + "-" + target.getFileName());
+      if (Files.exists(target)) {
+        Files.copy(target, stagedPath, StandardCopyOption.REPLACE_EXISTING);
+      }
+      staged.put(target, stagedPath);
+    }
+    return stagedPath;
+  }
+
+  private void checkActive() {
+    if (state != State.ACTIVE) {
+      throw new JavaForgerException("FileTransaction is already " + state);
+    }
+  }
+
+  private void finish(State newState) {
+    state = newState;
+    synchronized (FileTransaction.class) {
+      if (active == this) {
+        active = null;
+      }
+    }
+    try {
+      deleteFolder(stagingFolder);
+    } catch (IOException e) {
+      LOG.error("Could not delete staging folder {}", stagingFolder, e);
+    }
+  }
+
+  /**
+   * Moves the source to the target, by first copying it next to the target so that the final rename is atomic, also if the staging folder is on a different
+   * file system.
+   */
+  private static void moveToTarget(Path source, Path target) throws IOException {
+    if (target.getParent() != null) {
+      Files.createDirectories(target.getParent());
+    }
+    Path temp = target.resolveSibling("." + target.getFileName() + ".javaforger-tmp");
+    Files.copy(source, temp, StandardCopyOption.REPLACE_EXISTING);
+    try {
+      Files.move(temp, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+    } catch (AtomicMoveNotSupportedException e) {
+      Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING);
+    }
+  }
+
+  private static Path toTarget(String path) {
+    return new File(path).getAbsoluteFile().toPath().normalize();
+  }
+
+  private static void deleteFolder(Path folder) throws IOException {
+    if (!Files.exists(folder)) {
+      return;
+    }
+    try (Stream<Path> files = Files.walk(folder)) {
+      for (Path file : (Iterable<Path>) files.sorted(Comparator.reverseOrder())::iterator) {
+        Files.delete(file);
+      }
+    }
+  }
+
+}
@@ -17,22 +17,30 @@
  */
 package generator;
 
-import java.io.File;
 import java.io.IOException;
 import java.io.PrintWriter;
 import java.io.StringWriter;
 import java.io.Writer;
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.locks.Lock;
 
 import configuration.ClassProvider;
 import configuration.JavaForgerConfiguration;
 import configuration.StaticJavaForgerConfiguration;
 import freemarker.core.ParseException;
 import freemarker.template.MalformedTemplateNameException;
+import freemarker.template.ObjectWrapper;
+import freemarker.template.Template;
 import freemarker.template.TemplateException;
 import freemarker.template.TemplateNotFoundException;
 import merger.CodeSnipitMerger;
+import merger.MergeLockManager;
+import reader.SourceCache;
 import templateInput.TemplateInputParameters;
 
 /**
@@ -45,6 +53,20 @@ public class Generator {
   private CodeSnipitMerger merger = StaticJavaForgerConfiguration.getMerger();
   private TemplateInputParametersService inputService = new TemplateInputParametersService();
   private StaticJavaForgerConfiguration staticConfig = StaticJavaForgerConfiguration.getConfig();
+  private CompileVerifier verifier;
+
+  public Generator() {
+    // Default constructor
+  }
+
+  /**
+   * Creates a {@link Generator} that records every merge in the given {@link CompileVerifier}.
+   *
+   * @param verifier The {@link CompileVerifier} to record the merges in.
+   */
+  public Generator(CompileVerifier verifier) {
+    this.verifier = verifier;
+  }
 
   public CodeSnipit execute(String template, TemplateInputParameters inputParameters) throws IOException, TemplateException {
     return execute(template, null, inputParameters);
@@ -63,38 +85,125 @@ public class Generator {
   }
 
   public CodeSnipit execute(JavaForgerConfiguration config, String inputClass) throws IOException, TemplateException {
-    return execute(config, inputClass, null);
+    return execute(config, inputClass, null, null);
   }
 
-  private CodeSnipit execute(JavaForgerConfiguration config, String inputClass, String parentMergeClass) throws IOException, TemplateException {
+  /**
+   * Executes the {@link JavaForgerConfiguration} for the input class, skipping all merges that were already completed according to the {@link Checkpoint}.
+   * Completed merges are recorded in the checkpoint. Skipped configurations result in an empty {@link CodeSnipit}.
+   *
+   * @param config The {@link JavaForgerConfiguration} to execute.
+   * @param inputClass The full path to the input class.
+   * @param checkpoint The {@link Checkpoint} to resume from and record progress in.
+   * @return The {@link CodeSnipit} containing the generated code.
+   * @throws IOException
+   * @throws TemplateException
+   */
+  public CodeSnipit execute(JavaForgerConfiguration config, String inputClass, Checkpoint checkpoint) throws IOException, TemplateException {
+    return execute(config, inputClass, null, checkpoint);
+  }
+
+  private CodeSnipit execute(JavaForgerConfiguration config, String inputClass, String parentMergeClass, Checkpoint checkpoint)
+      throws IOException, TemplateException {
     String mergeClassPath = getMergeClass(inputClass, parentMergeClass, config);
+    boolean checkpointed = checkpoint != null && mergeClassPath != null && config.isMerge();
 
-    TemplateInputParameters inputParameters = inputService.getInputParameters(config, inputClass, mergeClassPath);
-    CodeSnipit codeSnipit = processTemplate(config, inputParameters);
-    merge(config, codeSnipit, mergeClassPath, inputParameters);
-    executeChildren(config, inputClass, codeSnipit, mergeClassPath);
+    CodeSnipit codeSnipit;
+    if (checkpointed && checkpoint.isCompleted(inputClass, config.getTemplate(), mergeClassPath)) {
+      codeSnipit = new CodeSnipit("");
+    } else {
+      TemplateInputParameters inputParameters = inputService.getInputParameters(config, inputClass, mergeClassPath);
+      codeSnipit = processTemplate(config, inputParameters);
+      Set<String> targets = merge(config, codeSnipit, inputClass, mergeClassPath, inputParameters);
+      if (checkpointed) {
+        checkpoint.complete(inputClass, config.getTemplate(), mergeClassPath, targets);
+      }
+    }
+    executeChildren(config, inputClass, codeSnipit, mergeClassPath, checkpoint);
     return codeSnipit;
   }
 
-  private void merge(JavaForgerConfiguration config, CodeSnipit codeSnipit, String mergeClassPath, TemplateInputParameters inputParameters)
+  /**
+   * Merges the {@link CodeSnipit} into the merge class and every {@link TemplateOutput} of it into its own target, see
+   * {@link #groupByTarget(CodeSnipit, String, String)}.
+   *
+   * @return The paths to all files that were merged into.
+   */
+  Set<String> merge(JavaForgerConfiguration config, CodeSnipit codeSnipit, String inputClass, String mergeClassPath, TemplateInputParameters inputParameters)
       throws IOException, TemplateException {
-    if (mergeClassPath != null && config.isMerge()) {
-      boolean exists = new File(mergeClassPath).exists();
-      if (!exists) {
-        if (!config.isCreateFileIfNotExists()) {
-          throw new JavaForgerException("Merge file '" + mergeClassPath + "' does not exist and JavaForgerConfiguration for template "
-              + config.getTemplateName() + " is not setup to create it. ");
-        }
-        if (config.getConfigIfFileDoesNotExist() == null) {
-          createAndFillFile(mergeClassPath, codeSnipit);
-        } else {
-          CodeSnipit codeSnipitInit = processTemplate(config.getConfigIfFileDoesNotExist(), inputParameters);
-          createAndFillFile(mergeClassPath, codeSnipitInit);
-          executeMerge(config, codeSnipit, mergeClassPath);
-        }
+    if (!config.isMerge()) {
+      return Collections.emptySet();
+    }
+    Map<String, CodeSnipit> targets = groupByTarget(codeSnipit, inputClass, mergeClassPath);
+    for (Map.Entry<String, CodeSnipit> target : targets.entrySet()) {
+      merge(config, target.getValue(), target.getKey(), inputParameters, target.getKey().equals(mergeClassPath));
+    }
+    return targets.keySet();
+  }
+
+  /**
+   * Groups the code to merge per target file, so that every file is only merged once per render. Outputs to the merge class itself are added to the
+   * {@link CodeSnipit}, outputs to the same target are added together in the order of rendering.
+   *
+   * @param codeSnipit The rendered {@link CodeSnipit}, which is not changed.
+   * @param inputClass The input class of the configuration.
+   * @param mergeClassPath The merge class of the configuration, can be null.
+   * @return The code per target, starting with the merge class if there is code for it.
+   */
+  Map<String, CodeSnipit> groupByTarget(CodeSnipit codeSnipit, String inputClass, String mergeClassPath) {
+    Map<String, CodeSnipit> targets = new LinkedHashMap<>();
+    if (codeSnipit.getOutputs().isEmpty()) {
+      if (mergeClassPath != null) {
+        targets.put(mergeClassPath, codeSnipit);
+      }
+      return targets;
+    }
+    // A template that only consists of output directives has nothing left for the merge class, except for the white space between the directives.
+    if (mergeClassPath != null && !codeSnipit.getCode().trim().isEmpty()) {
+      targets.put(mergeClassPath, new CodeSnipit(codeSnipit.getCode()));
+    }
+    for (TemplateOutput output : codeSnipit.getOutputs()) {
+      targets.computeIfAbsent(output.resolve(inputClass, mergeClassPath), t -> new CodeSnipit("")).add(output.getCodeSnipit().getCode());
+    }
+    return targets;
+  }
+
+  private void merge(JavaForgerConfiguration config, CodeSnipit codeSnipit, String mergeClassPath, TemplateInputParameters inputParameters,
+      boolean mergeClass) throws IOException, TemplateException {
+    // Checking if the file exists and creating it has to be done within the same lock as the merge itself.
+    Lock lock = MergeLockManager.getDefault().getLock(mergeClassPath);
+    lock.lock();
+    try {
+      mergeLocked(config, codeSnipit, mergeClassPath, inputParameters, mergeClass);
+    } finally {
+      lock.unlock();
+    }
+    if (verifier != null) {
+      verifier.record(mergeClassPath, config.getTemplate(), codeSnipit);
+    }
+  }
+
+  /**
+   * @param mergeClass True if the merge is into the merge class of the config, false for a {@link TemplateOutput}. New files for a {@link TemplateOutput} are
+   *          only filled with the output itself, since the configIfFileDoesNotExist is meant for the merge class.
+   */
+  private void mergeLocked(JavaForgerConfiguration config, CodeSnipit codeSnipit, String mergeClassPath, TemplateInputParameters inputParameters,
+      boolean mergeClass) throws IOException, TemplateException {
+    boolean exists = FileTransaction.exists(mergeClassPath);
+    if (!exists) {
+      if (!config.isCreateFileIfNotExists()) {
+        throw new JavaForgerException("Merge file '" + mergeClassPath + "' does not exist and JavaForgerConfiguration for template "
+            + config.getTemplateName() + " is not setup to create it. ");
+      }
+      if (!mergeClass || config.getConfigIfFileDoesNotExist() == null) {
+        createAndFillFile(mergeClassPath, codeSnipit);
       } else {
+        CodeSnipit codeSnipitInit = processTemplate(config.getConfigIfFileDoesNotExist(), inputParameters);
+        createAndFillFile(mergeClassPath, codeSnipitInit);
         executeMerge(config, codeSnipit, mergeClassPath);
       }
+    } else {
+      executeMerge(config, codeSnipit, mergeClassPath);
     }
   }
 
@@ -110,22 +219,19 @@ public class Generator {
     }
   }
 
-  private String getMergeClass(String inputClass, String parentMergeClass, JavaForgerConfiguration config) {
+  String getMergeClass(String inputClass, String parentMergeClass, JavaForgerConfiguration config) {
     ClassProvider provider = config.getMergeClassProvider();
     return (provider == null) ? null : provider.provide(inputClass, parentMergeClass);
   }
 
   private void createAndFillFile(String mergeClassPath, CodeSnipit codeSnipit) throws IOException {
-    File f = new File(mergeClassPath);
-    if (!f.exists()) {
-      f.getParentFile().mkdirs();
-    }
-    try (PrintWriter writer = new PrintWriter(mergeClassPath, "UTF-8")) {
+    try (PrintWriter writer = new PrintWriter(FileTransaction.resolveForWrite(mergeClassPath).toFile(), "UTF-8")) {
       writer.write(codeSnipit.toString());
     }
+    SourceCache.changed(mergeClassPath);
   }
 
-  private void executeChildren(JavaForgerConfiguration config, String parentInputClass, CodeSnipit codeSnipit, String parentMergeClass)
+  private void executeChildren(JavaForgerConfiguration config, String parentInputClass, CodeSnipit codeSnipit, String parentMergeClass, Checkpoint checkpoint)
       throws IOException, TemplateException {
     // forloop needed because we cannot throw exceptions from within a stream
     // TODO let execute only throw our own unchecked exception and replace the forloop with stream below.
@@ -133,7 +239,7 @@ public class Generator {
     List<CodeSnipit> codeSnipits = new ArrayList<>();
     for (JavaForgerConfiguration conf : config.getChildConfigs()) {
       String inputClass = conf.getInputClassProvider().provide(parentInputClass, parentMergeClass);
-      codeSnipits.add(execute(conf, inputClass, parentMergeClass));
+      codeSnipits.add(execute(conf, inputClass, parentMergeClass, checkpoint));
     }
     codeSnipits.forEach(s -> {
       codeSnipit.add("\n======================================================================\n");
@@ -141,12 +247,25 @@ public class Generator {
     });
   }
 
-  private CodeSnipit processTemplate(JavaForgerConfiguration config, TemplateInputParameters inputParameters)
+  CodeSnipit processTemplate(JavaForgerConfiguration config, TemplateInputParameters inputParameters)
       throws IOException, TemplateNotFoundException, MalformedTemplateNameException, ParseException, TemplateException {
-    Writer writer = new StringWriter();
+    Template template = staticConfig.getFreeMarkerConfiguration().getTemplate(config.getTemplate());
+    RenderCache cache = staticConfig.getRenderCache();
+    if (cache == null) {
+      return OutputDirective.split(render(template, inputParameters, null));
+    }
+    return OutputDirective.split(cache.render(template, inputParameters, wrapper -> render(template, inputParameters, wrapper)));
+  }
 
-    staticConfig.getFreeMarkerConfiguration().getTemplate(config.getTemplate()).process(inputParameters, writer);
-    return new CodeSnipit(writer.toString());
+  private String render(Template template, TemplateInputParameters inputParameters, ObjectWrapper wrapper) throws IOException, TemplateException {
+    Writer writer = new StringWriter();
+    TemplateProfiler profiler = staticConfig.getTemplateProfiler();
+    if (profiler == null) {
+      template.createProcessingEnvironment(inputParameters, writer, wrapper).process();
+    } else {
+      profiler.process(template, inputParameters, writer, wrapper);
+    }
+    return writer.toString();
   }
 
 }
@@ -0,0 +1,132 @@
+/*
+ * Copyright 2019 by Daan van den Heuvel.
+ *
+ * This file is part of JavaForger.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package generator;
+
+import java.io.IOException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import com.github.javaparser.ast.CompilationUnit;
+
+import configuration.JavaForgerConfiguration;
+import freemarker.template.TemplateException;
+import merger.LineMerger;
+import templateInput.ClassContainer;
+import templateInput.TemplateInputParameters;
+
+/**
+ * Executes a {@link JavaForgerConfiguration} in the same way as the {@link Generator}, but without reading or writing any file directly. The input classes and
+ * merge classes are retrieved from a {@link Sources}, so that for instance unsaved editor content can be used. Instead of writing the merged code, the new
+ * content of every merge class is returned. Merging is done with the {@link LineMerger}.
+ *
+ * @author Daan
+ */
+public class InMemoryGenerator {
+
+  private final Generator generator = new Generator();
+  private final TemplateInputParametersService inputService = new TemplateInputParametersService();
+  private final LineMerger merger = new LineMerger();
+
+  /**
+   * Executes the {@link JavaForgerConfiguration} and all its children for the input class.
+   *
+   * @param config The {@link JavaForgerConfiguration} to execute.
+   * @param inputClass The path to the input class.
+   * @param sources The {@link Sources} to read the input and merge classes from.
+   * @return The new content per merge class, in the order in which they were first changed.
+   * @throws IOException
+   * @throws TemplateException
+   */
+  public Map<String, String> execute(JavaForgerConfiguration config, String inputClass, Sources sources) throws IOException, TemplateException {
+    Map<String, String> contents = new LinkedHashMap<>();
+    execute(config, inputClass, null, sources, contents);
+    return contents;
+  }
+
+  private void execute(JavaForgerConfiguration config, String inputClass, String parentMergeClass, Sources sources, Map<String, String> contents)
+      throws IOException, TemplateException {
+    String mergeClassPath = generator.getMergeClass(inputClass, parentMergeClass, config);
+    TemplateInputParameters inputParameters = getInputParameters(config, inputClass, mergeClassPath, sources, contents);
+    CodeSnipit codeSnipit = generator.processTemplate(config, inputParameters);
+    if (config.isMerge()) {
+      for (Map.Entry<String, CodeSnipit> target : generator.groupByTarget(codeSnipit, inputClass, mergeClassPath).entrySet()) {
+        merge(config, target.getValue(), target.getKey(), target.getKey().equals(mergeClassPath), inputParameters, sources, contents);
+      }
+    }
+    for (JavaForgerConfiguration child : config.getChildConfigs()) {
+      execute(child, child.getInputClassProvider().provide(inputClass, mergeClassPath), mergeClassPath, sources, contents);
+    }
+  }
+
+  private TemplateInputParameters getInputParameters(JavaForgerConfiguration config, String inputClass, String mergeClassPath, Sources sources,
+      Map<String, String> contents) throws IOException {
+    ClassContainer claz = null;
+    if (inputService.requiresInputClass(config, inputClass)) {
+      // The input class can be the result of an earlier merge, for instance when a child uses the merge class of its parent as input.
+      CompilationUnit cu = contents.containsKey(inputClass) ? sources.parse(contents.get(inputClass)) : sources.getCompilationUnit(inputClass);
+      claz = inputService.read(cu);
+      config.getAdjuster().accept(claz);
+    }
+    return inputService.getInputParameters(config, claz, mergeClassPath);
+  }
+
+  private void merge(JavaForgerConfiguration config, CodeSnipit codeSnipit, String mergeClassPath, boolean mergeClass, TemplateInputParameters inputParameters,
+      Sources sources, Map<String, String> contents) throws IOException, TemplateException {
+    String existing = contents.containsKey(mergeClassPath) ? contents.get(mergeClassPath) : sources.getContent(mergeClassPath);
+    if (existing == null) {
+      if (!config.isCreateFileIfNotExists()) {
+        throw new JavaForgerException("Merge file '" + mergeClassPath + "' does not exist and JavaForgerConfiguration for template "
+            + config.getTemplateName() + " is not setup to create it. ");
+      }
+      // The configIfFileDoesNotExist is meant for the merge class, new files for a TemplateOutput only contain the output.
+      if (!mergeClass || config.getConfigIfFileDoesNotExist() == null) {
+        contents.put(mergeClassPath, codeSnipit.toString());
+        return;
+      }
+      existing = generator.processTemplate(config.getConfigIfFileDoesNotExist(), inputParameters).toString();
+    }
+    contents.put(mergeClassPath, merger.merge(config, codeSnipit, mergeClassPath, existing));
+  }
+
+  /**
+   * Provides the content of input and merge classes.
+   */
+  public interface Sources {
+
+    /**
+     * @param path The path to the class.
+     * @return The content of the class, or null if it does not exist.
+     * @throws IOException
+     */
+    String getContent(String path) throws IOException;
+
+    /**
+     * @param path The path to the class.
+     * @return The parsed class.
+     * @throws IOException
+     */
+    CompilationUnit getCompilationUnit(String path) throws IOException;
+
+    /**
+     * @param content The content of a class.
+     * @return The parsed class.
+     */
+    CompilationUnit parse(String content);
+  }
+
+}
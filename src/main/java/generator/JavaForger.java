@@ -18,6 +18,9 @@
 package generator;
 
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
 
 import configuration.JavaForgerConfiguration;
 import freemarker.template.TemplateException;
@@ -92,4 +95,43 @@ public class JavaForger {
     throw new JavaForgerException(caught);
   }
 
+  /**
+   * Executes the given {@link JavaForgerConfiguration} for each of the given input classes, for instance the classes affected by a change as determined by
+   * the {@link execution.GitChangeDetector}. The generated code is merged into the merge classes defined within the configuration.
+   *
+   * @param config The Configuration containing the template and settings for how to process the input class to generate code.
+   * @param inputClasses The full paths to the classes to be used as input for the template.
+   * @return The {@link CodeSnipit}s containing the generated code, in the same order as the input classes.
+   */
+  public static List<CodeSnipit> execute(JavaForgerConfiguration config, Collection<String> inputClasses) {
+    return execute(config, inputClasses, null);
+  }
+
+  /**
+   * Executes the given {@link JavaForgerConfiguration} for each of the given input classes with the given {@link ExecutionOptions}, for instance to resume
+   * from a {@link Checkpoint}, to verify the generated code with a {@link CompileVerifier} or to execute all input classes within a single
+   * {@link FileTransaction}. The generated code is merged into the merge classes defined within the configuration.
+   *
+   * @param config The Configuration containing the template and settings for how to process the input class to generate code.
+   * @param inputClasses The full paths to the classes to be used as input for the template.
+   * @param options The {@link ExecutionOptions}, null to use the defaults.
+   * @return The {@link CodeSnipit}s containing the generated code, in the same order as the input classes.
+   */
+  public static List<CodeSnipit> execute(JavaForgerConfiguration config, Collection<String> inputClasses, ExecutionOptions options) {
+    ExecutionOptions opts = options == null ? ExecutionOptions.builder().build() : options;
+    Generator executor = opts.getVerifier() == null ? generator : new Generator(opts.getVerifier());
+    List<CodeSnipit> result = new ArrayList<>();
+    try (FileTransaction transaction = opts.isTransaction() ? FileTransaction.begin(opts.getTransactionFolder()) : null) {
+      for (String inputClass : inputClasses) {
+        result.add(executor.execute(config, inputClass, opts.getCheckpoint()));
+      }
+      if (transaction != null) {
+        transaction.commit();
+      }
+    } catch (IOException | TemplateException e) {
+      throw new JavaForgerException(e);
+    }
+    return result;
+  }
+
 }
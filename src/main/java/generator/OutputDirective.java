@@ -0,0 +1,132 @@
+/*
+ * Copyright 2019 by Daan van den Heuvel.
+ *
+ * This file is part of JavaForger.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package generator;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import freemarker.core.Environment;
+import freemarker.template.TemplateDirectiveBody;
+import freemarker.template.TemplateDirectiveModel;
+import freemarker.template.TemplateException;
+import freemarker.template.TemplateModel;
+import freemarker.template.TemplateModelException;
+import freemarker.template.TemplateScalarModel;
+
+/**
+ * FreeMarker directive that lets a single template render emit code for multiple files. The body of the directive is sent to the file given by the target
+ * parameter, or to the file provided by the static {@link configuration.ClassProvider} method given by the provider parameter:
+ *
+ * <pre>
+ * &lt;@output provider="forMavenUnitTestFromInput"&gt;
+ *   ...
+ * &lt;/@output&gt;
+ * </pre>
+ *
+ * The directive is available in every template as "output". It only marks the sections within the rendered output, so that rendering stays independent of the
+ * merge targets. {@link OutputDirective#split(String)} separates the sections again after rendering.
+ *
+ * @author Daan
+ */
+public final class OutputDirective implements TemplateDirectiveModel {
+
+  public static final String NAME = "output";
+
+  private static final String TARGET = "target";
+  private static final String PROVIDER = "provider";
+  private static final String START = "\u0000JavaForger-output:";
+  private static final String HEADER_END = "\u0000";
+  private static final String END = "\u0000JavaForger-output-end\u0000";
+  /** Identity key for the custom state of the {@link Environment} that is set while rendering the body of an output directive. */
+  private static final Object ACTIVE = new Object();
+
+  @Override
+  public void execute(Environment env, @SuppressWarnings("rawtypes") Map params, TemplateModel[] loopVars, TemplateDirectiveBody body)
+      throws TemplateException, IOException {
+    if (body == null) {
+      throw new TemplateModelException("The " + NAME + " directive requires a body");
+    }
+    for (Object key : params.keySet()) {
+      if (!TARGET.equals(key) && !PROVIDER.equals(key)) {
+        throw new TemplateModelException("Unknown parameter '" + key + "' for the " + NAME + " directive, only " + TARGET + " and " + PROVIDER + " are allowed");
+      }
+    }
+    String target = getString(params, TARGET);
+    String provider = getString(params, PROVIDER);
+    if ((target == null) == (provider == null)) {
+      throw new TemplateModelException("The " + NAME + " directive requires either a " + TARGET + " or a " + PROVIDER + " parameter");
+    }
+    if (env.getCustomState(ACTIVE) != null) {
+      throw new TemplateException("The " + NAME + " directive cannot be nested", env);
+    }
+    env.setCustomState(ACTIVE, Boolean.TRUE);
+    try {
+      Writer out = env.getOut();
+      out.write(START + (target != null ? TARGET + ":" + target : PROVIDER + ":" + provider) + HEADER_END);
+      body.render(out);
+      out.write(END);
+    } finally {
+      env.setCustomState(ACTIVE, null);
+    }
+  }
+
+  /**
+   * Separates the sections written by the {@link OutputDirective} from the rendered template.
+   *
+   * @param rendered The output of the template.
+   * @return A {@link CodeSnipit} containing everything outside of output directives, with a {@link TemplateOutput} for every output directive in the order
+   *         of rendering.
+   */
+  public static CodeSnipit split(String rendered) {
+    if (!rendered.contains(START)) {
+      return new CodeSnipit(rendered);
+    }
+    StringBuilder main = new StringBuilder();
+    List<TemplateOutput> outputs = new ArrayList<>();
+    int index = 0;
+    int start;
+    while ((start = rendered.indexOf(START, index)) >= 0) {
+      main.append(rendered, index, start);
+      int headerEnd = rendered.indexOf(HEADER_END, start + START.length());
+      int end = rendered.indexOf(END, headerEnd);
+      String[] header = rendered.substring(start + START.length(), headerEnd).split(":", 2);
+      String content = rendered.substring(headerEnd + HEADER_END.length(), end);
+      outputs.add(TARGET.equals(header[0]) ? TemplateOutput.toTarget(header[1], content) : TemplateOutput.fromProvider(header[1], content));
+      index = end + END.length();
+    }
+    main.append(rendered, index, rendered.length());
+    CodeSnipit codeSnipit = new CodeSnipit(main.toString());
+    outputs.forEach(codeSnipit::addOutput);
+    return codeSnipit;
+  }
+
+  private static String getString(@SuppressWarnings("rawtypes") Map params, String name) throws TemplateModelException {
+    Object value = params.get(name);
+    if (value == null) {
+      return null;
+    }
+    if (!(value instanceof TemplateScalarModel)) {
+      throw new TemplateModelException("The " + name + " parameter of the " + NAME + " directive must be a string");
+    }
+    return ((TemplateScalarModel) value).getAsString();
+  }
+
+}
@@ -0,0 +1,377 @@
+/*
+ * Copyright 2019 by Daan van den Heuvel.
+ *
+ * This file is part of JavaForger.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package generator;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BiConsumer;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.github.javaparser.ast.CompilationUnit;
+
+import configuration.JavaForgerConfiguration;
+import configuration.StaticJavaForgerConfiguration;
+import freemarker.template.TemplateException;
+import reader.ClassContainerReader;
+import templateInput.ClassContainer;
+import templateInput.TemplateInputParameters;
+
+/**
+ * Executes a {@link JavaForgerConfiguration} for a large number of input classes as a pipeline of 4 stages: parse, model, render and merge. The stages are
+ * linked by bounded queues, so that a slow stage blocks the stages before it instead of letting work pile up in memory. Every stage has its own number of
+ * threads. Additionally the estimated memory of all input classes in flight is limited by a memory budget, the estimate is based on the size of the source
+ * file. Child configurations are executed after the merge of their parent, by feeding them back into the parse stage. The stage bodies are the
+ * {@link ClassContainerReader}, the {@link Generator} and the {@link merger.CodeSnipitMerger} from the {@link StaticJavaForgerConfiguration}, which should
+ * support being called from multiple threads if a stage has more than one thread.
+ *
+ * @author Daan
+ */
+public class PipelineRunner {
+  private static final Logger LOG = LoggerFactory.getLogger(PipelineRunner.class);
+
+  /** Rough estimate of the number of bytes in memory for the AST and model per byte of source code. */
+  static final int MEMORY_PER_SOURCE_BYTE = 20;
+  private static final long POLL_MILLIS = 20;
+
+  private final JavaForgerConfiguration config;
+  private final int parseThreads;
+  private final int modelThreads;
+  private final int renderThreads;
+  private final int mergeThreads;
+  private final int queueCapacity;
+  private final long memoryBudget;
+  private final BiConsumer<String, CodeSnipit> listener;
+  private final Checkpoint checkpoint;
+
+  private final Generator generator = new Generator();
+  private final TemplateInputParametersService inputService = new TemplateInputParametersService();
+  private final ClassContainerReader reader = StaticJavaForgerConfiguration.getReader();
+
+  private PipelineRunner(Builder builder) {
+    this.config = builder.config;
+    this.parseThreads = builder.parseThreads;
+    this.modelThreads = builder.modelThreads;
+    this.renderThreads = builder.renderThreads;
+    this.mergeThreads = builder.mergeThreads;
+    this.queueCapacity = builder.queueCapacity;
+    this.memoryBudget = builder.memoryBudget;
+    this.listener = builder.listener;
+    this.checkpoint = builder.checkpoint;
+  }
+
+  /**
+   * Executes the configuration for all given input classes. Failures for one input class do not stop the others, they are thrown together after all input
+   * classes were processed.
+   *
+   * @param inputClasses The paths to the input classes.
+   * @return The number of executed configurations, including child configurations and excluding configurations skipped by the {@link Checkpoint}.
+   */
+  public int run(Collection<String> inputClasses) {
+    return new Run().execute(inputClasses);
+  }
+
+  /**
+   * The state of a single execution of a {@link JavaForgerConfiguration} for an input class as it flows through the pipeline.
+   */
+  private static final class Item {
+    private final JavaForgerConfiguration config;
+    private final String inputClass;
+    private final String parentMergeClass;
+    private String mergeClass;
+    private int memoryPermits;
+    private CompilationUnit compilationUnit;
+    /** False if the templates of the config do not use method bodies, so that only the declarations of the input class are parsed. */
+    private boolean methodBodies;
+    private TemplateInputParameters inputParameters;
+    private CodeSnipit codeSnipit;
+    /** True if the {@link Checkpoint} marks this item as completed, only its children are executed. */
+    private boolean skipped;
+
+    private Item(JavaForgerConfiguration config, String inputClass, String parentMergeClass) {
+      this.config = config;
+      this.inputClass = inputClass;
+      this.parentMergeClass = parentMergeClass;
+    }
+  }
+
+  /**
+   * The queues and threads of a single call to {@link PipelineRunner#run(Collection)}.
+   */
+  private final class Run {
+    private final BlockingQueue<Item> inputs = new ArrayBlockingQueue<>(queueCapacity);
+    /** Child configurations are not bounded, because the merge stage adding them may never block on an earlier stage. */
+    private final BlockingQueue<Item> children = new LinkedBlockingQueue<>();
+    private final BlockingQueue<Item> parsed = new ArrayBlockingQueue<>(queueCapacity);
+    private final BlockingQueue<Item> modelled = new ArrayBlockingQueue<>(queueCapacity);
+    private final BlockingQueue<Item> rendered = new ArrayBlockingQueue<>(queueCapacity);
+    /** The memory budget in kilobytes. */
+    private final int budget = (int) Math.min(Integer.MAX_VALUE, Math.max(1, memoryBudget / 1024));
+    private final Semaphore memory = new Semaphore(budget);
+    private final AtomicInteger pending = new AtomicInteger();
+    private final AtomicInteger executed = new AtomicInteger();
+    private final Queue<Exception> failures = new ConcurrentLinkedQueue<>();
+    private volatile boolean allInputsAdded;
+
+    private int execute(Collection<String> inputClasses) {
+      List<Thread> threads = new ArrayList<>();
+      startStage("parse", parseThreads, this::nextInput, parsed, this::parse, threads);
+      startStage("model", modelThreads, () -> parsed.poll(POLL_MILLIS, TimeUnit.MILLISECONDS), modelled, this::model, threads);
+      startStage("render", renderThreads, () -> modelled.poll(POLL_MILLIS, TimeUnit.MILLISECONDS), rendered, this::render, threads);
+      startStage("merge", mergeThreads, () -> rendered.poll(POLL_MILLIS, TimeUnit.MILLISECONDS), null, this::merge, threads);
+      try {
+        for (String inputClass : inputClasses) {
+          pending.incrementAndGet();
+          inputs.put(new Item(config, inputClass, null));
+        }
+        allInputsAdded = true;
+        for (Thread thread : threads) {
+          thread.join();
+        }
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        threads.forEach(Thread::interrupt);
+        throw new JavaForgerException(e, "Interrupted while executing pipeline");
+      }
+      if (!failures.isEmpty()) {
+        JavaForgerException exception = new JavaForgerException(failures.size() + " executions failed, first failure: " + failures.peek().getMessage());
+        failures.forEach(exception::addSuppressed);
+        throw exception;
+      }
+      return executed.get();
+    }
+
+    private Item nextInput() throws InterruptedException {
+      Item child = children.poll();
+      return child != null ? child : inputs.poll(POLL_MILLIS, TimeUnit.MILLISECONDS);
+    }
+
+    private void parse(Item item) throws IOException, InterruptedException {
+      item.mergeClass = generator.getMergeClass(item.inputClass, item.parentMergeClass, item.config);
+      item.skipped = isCheckpointed(item) && checkpoint.isCompleted(item.inputClass, item.config.getTemplate(), item.mergeClass);
+      if (!item.skipped && inputService.requiresInputClass(item.config, item.inputClass)) {
+        long estimate = new File(item.inputClass).length() * MEMORY_PER_SOURCE_BYTE / 1024;
+        // A single class larger than the budget is allowed on its own, otherwise it would never be processed.
+        item.memoryPermits = (int) Math.max(1, Math.min(budget, estimate));
+        memory.acquire(item.memoryPermits);
+        item.methodBodies = inputService.requiresMethodBodies(item.config);
+        item.compilationUnit = reader.parse(item.inputClass, item.methodBodies);
+      }
+    }
+
+    private boolean isCheckpointed(Item item) {
+      return checkpoint != null && item.mergeClass != null && item.config.isMerge();
+    }
+
+    private void model(Item item) {
+      if (item.skipped) {
+        return;
+      }
+      ClassContainer claz = null;
+      if (item.compilationUnit != null) {
+        claz = inputService.read(item.compilationUnit, item.methodBodies);
+        item.compilationUnit = null;
+        item.config.getAdjuster().accept(claz);
+      }
+      item.inputParameters = inputService.getInputParameters(item.config, claz, item.mergeClass);
+    }
+
+    private void render(Item item) throws IOException, TemplateException {
+      item.codeSnipit = item.skipped ? new CodeSnipit("") : generator.processTemplate(item.config, item.inputParameters);
+    }
+
+    private void merge(Item item) throws IOException, TemplateException {
+      if (!item.skipped) {
+        // Merges into the same file are serialized by the merger.MergeLockManager
+        Set<String> targets = generator.merge(item.config, item.codeSnipit, item.inputClass, item.mergeClass, item.inputParameters);
+        if (isCheckpointed(item)) {
+          checkpoint.complete(item.inputClass, item.config.getTemplate(), item.mergeClass, targets);
+        }
+        executed.incrementAndGet();
+        if (listener != null) {
+          listener.accept(item.inputClass, item.codeSnipit);
+        }
+      }
+      for (JavaForgerConfiguration child : item.config.getChildConfigs()) {
+        pending.incrementAndGet();
+        children.add(new Item(child, child.getInputClassProvider().provide(item.inputClass, item.mergeClass), item.mergeClass));
+      }
+      finish(item);
+    }
+
+    private void finish(Item item) {
+      memory.release(item.memoryPermits);
+      item.memoryPermits = 0;
+      pending.decrementAndGet();
+    }
+
+    private boolean isFinished() {
+      return allInputsAdded && pending.get() == 0;
+    }
+
+    private void startStage(String name, int threadCount, Source source, BlockingQueue<Item> output, Body body, List<Thread> threads) {
+      for (int i = 0; i < threadCount; i++) {
+        Thread thread = new Thread(() -> runStage(source, output, body), "JavaForger-" + name + "-" + i);
+        thread.setDaemon(true);
+        thread.start();
+        threads.add(thread);
+      }
+    }
+
+    private void runStage(Source source, BlockingQueue<Item> output, Body body) {
+      try {
+        while (!isFinished()) {
+          Item item = source.next();
+          if (item == null) {
+            continue;
+          }
+          try {
+            body.accept(item);
+          } catch (IOException | TemplateException | RuntimeException e) {
+            LOG.error("Could not execute {} for {}", item.config.getTemplateName(), item.inputClass, e);
+            failures.add(e);
+            finish(item);
+            continue;
+          }
+          if (output != null) {
+            output.put(item);
+          }
+        }
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+      }
+    }
+  }
+
+  @FunctionalInterface
+  private interface Source {
+    Item next() throws InterruptedException;
+  }
+
+  @FunctionalInterface
+  private interface Body {
+    void accept(Item item) throws IOException, TemplateException, InterruptedException;
+  }
+
+  /**
+   * Creates builder to build {@link PipelineRunner}.
+   *
+   * @param config The {@link JavaForgerConfiguration} to execute.
+   * @return created builder
+   */
+  public static Builder builder(JavaForgerConfiguration config) {
+    return new Builder(config);
+  }
+
+  /**
+   * Builder to build {@link PipelineRunner}.
+   */
+  public static final class Builder {
+    private final JavaForgerConfiguration config;
+    private int parseThreads = Runtime.getRuntime().availableProcessors();
+    private int modelThreads = Runtime.getRuntime().availableProcessors();
+    private int renderThreads = Runtime.getRuntime().availableProcessors();
+    private int mergeThreads = 1;
+    private int queueCapacity = 64;
+    private long memoryBudget = Runtime.getRuntime().maxMemory() / 2;
+    private BiConsumer<String, CodeSnipit> listener;
+    private Checkpoint checkpoint;
+
+    private Builder(JavaForgerConfiguration config) {
+      this.config = config;
+    }
+
+    public Builder parseThreads(int parseThreads) {
+      this.parseThreads = parseThreads;
+      return this;
+    }
+
+    public Builder modelThreads(int modelThreads) {
+      this.modelThreads = modelThreads;
+      return this;
+    }
+
+    public Builder renderThreads(int renderThreads) {
+      this.renderThreads = renderThreads;
+      return this;
+    }
+
+    public Builder mergeThreads(int mergeThreads) {
+      this.mergeThreads = mergeThreads;
+      return this;
+    }
+
+    /**
+     * @param queueCapacity The maximum number of items waiting between 2 stages, 64 by default.
+     * @return this builder
+     */
+    public Builder queueCapacity(int queueCapacity) {
+      this.queueCapacity = queueCapacity;
+      return this;
+    }
+
+    /**
+     * @param memoryBudget The maximum estimated memory in bytes used by input classes in flight, half of the maximum heap size by default.
+     * @return this builder
+     */
+    public Builder memoryBudget(long memoryBudget) {
+      this.memoryBudget = memoryBudget;
+      return this;
+    }
+
+    /**
+     * @param listener Called with the input class and the generated {@link CodeSnipit} after every execution.
+     * @return this builder
+     */
+    public Builder listener(BiConsumer<String, CodeSnipit> listener) {
+      this.listener = listener;
+      return this;
+    }
+
+    /**
+     * @param checkpoint The {@link Checkpoint} to skip already completed merges with, completed merges are recorded in it. Children of skipped configurations
+     *          are still executed.
+     * @return this builder
+     */
+    public Builder checkpoint(Checkpoint checkpoint) {
+      this.checkpoint = checkpoint;
+      return this;
+    }
+
+    public PipelineRunner build() {
+      if (parseThreads < 1 || modelThreads < 1 || renderThreads < 1 || mergeThreads < 1 || queueCapacity < 1) {
+        throw new JavaForgerException("Every stage requires at least 1 thread and a queue capacity of at least 1");
+      }
+      return new PipelineRunner(this);
+    }
+  }
+
+}
@@ -0,0 +1,253 @@
+/*
+ * Copyright 2019 by Daan van den Heuvel.
+ *
+ * This file is part of JavaForger.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package generator;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.StringReader;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Objects;
+import java.util.Set;
+
+import org.apache.commons.io.IOUtils;
+
+import freemarker.cache.TemplateLoader;
+
+/**
+ * {@link TemplateLoader} used by the {@link TemplateProfiler}, wrapping the {@link TemplateLoader} of a configuration. Every template is instrumented while it
+ * is loaded, by wrapping includes, macro and function bodies, list, if and switch blocks and optionally interpolations in the {@link TemplateProfiler}
+ * directive. The directive only gets the id of the frame, so that nothing has to be escaped. The instrumentation does not add any lines, so that the line
+ * numbers in error messages stay the same. Templates using the square bracket syntax are not instrumented.
+ *
+ * @author Daan
+ */
+final class ProfilingTemplateLoader implements TemplateLoader {
+
+  private static final Set<String> BLOCKS = new HashSet<>(Arrays.asList("list", "if", "switch"));
+  private static final Set<String> BODIES = new HashSet<>(Arrays.asList("macro", "function"));
+  private static final String INCLUDE = "include";
+
+  private final TemplateLoader delegate;
+  private final TemplateProfiler profiler;
+  private final boolean interpolations;
+
+  ProfilingTemplateLoader(TemplateLoader delegate, TemplateProfiler profiler, boolean interpolations) {
+    this.delegate = delegate;
+    this.profiler = profiler;
+    this.interpolations = interpolations;
+  }
+
+  @Override
+  public Object findTemplateSource(String name) throws IOException {
+    Object source = delegate.findTemplateSource(name);
+    return source == null ? null : new Source(name, source);
+  }
+
+  @Override
+  public long getLastModified(Object templateSource) {
+    return delegate.getLastModified(((Source) templateSource).source);
+  }
+
+  @Override
+  public Reader getReader(Object templateSource, String encoding) throws IOException {
+    Source source = (Source) templateSource;
+    try (Reader reader = delegate.getReader(source.source, encoding)) {
+      return new StringReader(instrument(source.name, IOUtils.toString(reader)));
+    }
+  }
+
+  @Override
+  public void closeTemplateSource(Object templateSource) throws IOException {
+    delegate.closeTemplateSource(((Source) templateSource).source);
+  }
+
+  /**
+   * @param name The name of the template.
+   * @param code The source of the template.
+   * @return The source with all profiled parts wrapped in the profiler directive.
+   */
+  String instrument(String name, String code) {
+    if (code.trim().startsWith("[#")) {
+      return code;
+    }
+    StringBuilder sb = new StringBuilder(code.length() * 2);
+    int line = 1;
+    int i = 0;
+    while (i < code.length()) {
+      int end;
+      if (code.startsWith("<#--", i)) {
+        end = endOf(code, "-->", i);
+        sb.append(code, i, end);
+      } else if (code.startsWith("<#noparse", i)) {
+        end = endOf(code, "</#noparse>", i);
+        sb.append(code, i, end);
+      } else if (code.startsWith("</#", i)) {
+        end = tagEnd(code, i);
+        String directive = directiveName(code, i + 3);
+        if (BODIES.contains(directive)) {
+          sb.append(close());
+        }
+        sb.append(code, i, end);
+        if (BLOCKS.contains(directive)) {
+          sb.append(close());
+        }
+      } else if (code.startsWith("<#", i)) {
+        end = tagEnd(code, i);
+        String directive = directiveName(code, i + 2);
+        String frame = frame(name, line, code.substring(i + 1, end - 1));
+        boolean wrapped = BLOCKS.contains(directive) || INCLUDE.equals(directive);
+        if (wrapped) {
+          sb.append(open(frame));
+        }
+        sb.append(code, i, end);
+        if (INCLUDE.equals(directive)) {
+          sb.append(close());
+        } else if (BODIES.contains(directive)) {
+          sb.append(open(frame));
+        }
+      } else if (code.startsWith("<@", i) || code.startsWith("</@", i)) {
+        // Interpolations within the arguments of a user directive are part of an expression, so they are never wrapped.
+        end = tagEnd(code, i);
+        sb.append(code, i, end);
+      } else if (interpolations && code.startsWith("${", i)) {
+        end = interpolationEnd(code, i);
+        sb.append(open(frame(name, line, code.substring(i, end)))).append(code, i, end).append(close());
+      } else {
+        end = i + 1;
+        sb.append(code.charAt(i));
+      }
+      line += countLines(code, i, end);
+      i = end;
+    }
+    return sb.toString();
+  }
+
+  private String frame(String name, int line, String description) {
+    return name + ":" + line + " " + description.replace(';', ',').replaceAll("\\s+", " ").trim();
+  }
+
+  private String open(String frame) {
+    return "<@" + TemplateProfiler.DIRECTIVE + " id=" + profiler.getFrameId(frame) + ">";
+  }
+
+  private static String close() {
+    return "</@" + TemplateProfiler.DIRECTIVE + ">";
+  }
+
+  private static String directiveName(String code, int start) {
+    int end = start;
+    while (end < code.length() && Character.isJavaIdentifierPart(code.charAt(end))) {
+      end++;
+    }
+    return code.substring(start, end);
+  }
+
+  private static int endOf(String code, String terminator, int start) {
+    int end = code.indexOf(terminator, start);
+    return end < 0 ? code.length() : end + terminator.length();
+  }
+
+  /**
+   * @return The index after the closing '&gt;' of the tag starting at the given index. A '&gt;' within parentheses or a string does not close the tag.
+   */
+  private static int tagEnd(String code, int start) {
+    int depth = 0;
+    int i = start;
+    while (i < code.length()) {
+      char c = code.charAt(i);
+      if (c == '"' || c == '\'') {
+        i = stringEnd(code, i);
+        continue;
+      }
+      if (c == '(') {
+        depth++;
+      } else if (c == ')') {
+        depth--;
+      } else if (c == '>' && depth <= 0) {
+        return i + 1;
+      }
+      i++;
+    }
+    return code.length();
+  }
+
+  /**
+   * @return The index after the closing brace of the interpolation starting at the given index.
+   */
+  private static int interpolationEnd(String code, int start) {
+    int depth = 0;
+    int i = start + 1;
+    while (i < code.length()) {
+      char c = code.charAt(i);
+      if (c == '"' || c == '\'') {
+        i = stringEnd(code, i);
+        continue;
+      }
+      if (c == '{') {
+        depth++;
+      } else if (c == '}' && --depth == 0) {
+        return i + 1;
+      }
+      i++;
+    }
+    return code.length();
+  }
+
+  private static int stringEnd(String code, int start) {
+    char quote = code.charAt(start);
+    int i = start + 1;
+    while (i < code.length() && code.charAt(i) != quote) {
+      i += code.charAt(i) == '\\' ? 2 : 1;
+    }
+    return Math.min(i + 1, code.length());
+  }
+
+  private static int countLines(String code, int start, int end) {
+    int lines = 0;
+    for (int i = start; i < end; i++) {
+      char c = code.charAt(i);
+      if (c == '\n' || (c == '\r' && (i + 1 == code.length() || code.charAt(i + 1) != '\n'))) {
+        lines++;
+      }
+    }
+    return lines;
+  }
+
+  /** The source of the delegate together with the name it was found by, which is needed to instrument it. */
+  private static final class Source {
+    private final String name;
+    private final Object source;
+
+    private Source(String name, Object source) {
+      this.name = name;
+      this.source = source;
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+      return obj instanceof Source && ((Source) obj).name.equals(name) && ((Source) obj).source.equals(source);
+    }
+
+    @Override
+    public int hashCode() {
+      return Objects.hash(name, source);
+    }
+  }
+
+}
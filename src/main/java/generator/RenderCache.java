@@ -0,0 +1,655 @@
+/*
+ * Copyright 2019 by Daan van den Heuvel.
+ *
+ * This file is part of JavaForger.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package generator;
+
+import java.beans.IntrospectionException;
+import java.beans.Introspector;
+import java.beans.PropertyDescriptor;
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.lang.reflect.Array;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.lang.reflect.Proxy;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.WeakHashMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import org.apache.commons.lang3.ClassUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import freemarker.ext.util.WrapperTemplateModel;
+import freemarker.template.AdapterTemplateModel;
+import freemarker.template.Configuration;
+import freemarker.template.ObjectWrapper;
+import freemarker.template.ObjectWrapperAndUnwrapper;
+import freemarker.template.Template;
+import freemarker.template.TemplateCollectionModel;
+import freemarker.template.TemplateException;
+import freemarker.template.TemplateHashModel;
+import freemarker.template.TemplateHashModelEx2.KeyValuePair;
+import freemarker.template.TemplateHashModelEx2.KeyValuePairIterator;
+import freemarker.template.TemplateMethodModelEx;
+import freemarker.template.TemplateModel;
+import freemarker.template.TemplateModelException;
+import freemarker.template.TemplateModelIterator;
+import freemarker.template.TemplateSequenceModel;
+
+/**
+ * Cache for the output of rendering a template, so that a template is not rendered again for a model that did not change. When set on the
+ * {@link configuration.StaticJavaForgerConfiguration}, the {@link Generator} looks up every template in this cache before rendering it. The key consists of:
+ * <ul>
+ * <li>The hash of the template and all templates it includes or imports.</li>
+ * <li>A fingerprint of only the model properties that the template read during its last render. The reads are tracked through the {@link ObjectWrapper}, so
+ * changing a property that the template does not use does not change the key.</li>
+ * </ul>
+ * The output is only reused if the new model has the same values for all properties read by an earlier render, in which case rendering would read exactly
+ * the same values again. Templates that include other templates by a dynamic name or use ?interpret are never cached. The number of entries is bounded, the
+ * least recently used entries are evicted first. The cache can be saved to a file and loaded again in a next run.
+ *
+ * @author Daan
+ */
+public class RenderCache {
+  private static final Logger LOG = LoggerFactory.getLogger(RenderCache.class);
+
+  /** Key used for reading all properties of an object, for instance when iterating over a map. */
+  private static final String ALL = "*";
+  private static final String TO_STRING = "toString";
+  /** Class name under which reads from models that do not expose the object they wrap are recorded, the output of such a render is never cached. */
+  private static final String UNKNOWN = "?";
+  private static final int FILE_VERSION = 1;
+  /** The number of different sets of read properties kept per template, a template can read different properties depending on the model. */
+  private static final int MAX_READS_PER_TEMPLATE = 8;
+  /** The models through which the template can reach other parts of the model, these are proxied to track the reads. */
+  private static final List<Class<?>> TRACKED = Arrays.asList(TemplateHashModel.class, TemplateSequenceModel.class, TemplateCollectionModel.class,
+      TemplateMethodModelEx.class, TemplateModelIterator.class, KeyValuePairIterator.class, KeyValuePair.class);
+  /** An include or import, the first group is the name of the template or null if the name is not a constant. */
+  private static final Pattern INCLUDE = Pattern.compile("<#(?:include|import)\\s+(?:\"([^\"$]+)\"(?=[\\s/>]))?");
+  private static final Pattern UNPARSED = Pattern.compile("<#--.*?-->|<#noparse>.*?</#noparse>", Pattern.DOTALL);
+
+  private final int maxEntries;
+  private final Path file;
+  private final Map<String, String> outputs;
+  /** Per template hash, the properties read per class name during recent renders, most recent first. */
+  private final Map<String, List<Map<String, Set<String>>>> reads = new HashMap<>();
+  private final Map<Template, String> templateHashes = new WeakHashMap<>();
+  private final Map<Class<?>, Map<String, Method>> accessors = new ConcurrentHashMap<>();
+  private final ThreadLocal<Map<String, Set<String>>> recording = new ThreadLocal<>();
+  private final Map<ObjectWrapper, TrackingObjectWrapper> wrappers = new WeakHashMap<>();
+  private int hits;
+  private int misses;
+
+  private RenderCache(Builder builder) {
+    this.maxEntries = builder.maxEntries;
+    this.file = builder.file;
+    this.outputs = new LinkedHashMap<String, String>(16, 0.75f, true) {
+      private static final long serialVersionUID = 1L;
+
+      @Override
+      protected boolean removeEldestEntry(Map.Entry<String, String> eldest) {
+        return size() > RenderCache.this.maxEntries;
+      }
+    };
+  }
+
+  /**
+   * Renders the template or returns the cached output if the template was already rendered for a model with the same values for all properties the template
+   * reads.
+   *
+   * @param template The {@link Template} to render.
+   * @param model The model to fill in the template.
+   * @param renderer Renders the template with the given {@link ObjectWrapper}.
+   * @return The output of the template.
+   * @throws IOException
+   * @throws TemplateException
+   */
+  public String render(Template template, Object model, Renderer renderer) throws IOException, TemplateException {
+    String templateHash = getTemplateHash(template);
+    if (templateHash == null) {
+      return renderer.render(null);
+    }
+    String cached = lookup(templateHash, model);
+    if (cached != null) {
+      return cached;
+    }
+
+    Map<String, Set<String>> read = new TreeMap<>();
+    recording.set(read);
+    String output;
+    try {
+      output = renderer.render(getWrapper(template.getConfiguration()));
+    } finally {
+      recording.remove();
+    }
+    store(templateHash, read, model, output);
+    return output;
+  }
+
+  private synchronized String lookup(String templateHash, Object model) {
+    for (Map<String, Set<String>> read : reads.getOrDefault(templateHash, new ArrayList<>())) {
+      String fingerprint = fingerprint(model, read);
+      String output = fingerprint == null ? null : outputs.get(templateHash + ":" + fingerprint);
+      if (output != null) {
+        hits++;
+        return output;
+      }
+    }
+    misses++;
+    return null;
+  }
+
+  private synchronized void store(String templateHash, Map<String, Set<String>> read, Object model, String output) {
+    if (read.containsKey(UNKNOWN)) {
+      LOG.debug("Not caching the output of {}, properties were read from a model that does not expose the object it wraps", templateHash);
+      return;
+    }
+    String fingerprint = fingerprint(model, read);
+    if (fingerprint == null) {
+      return;
+    }
+    List<Map<String, Set<String>>> templateReads = reads.computeIfAbsent(templateHash, h -> new ArrayList<>());
+    templateReads.remove(read);
+    templateReads.add(0, read);
+    if (templateReads.size() > MAX_READS_PER_TEMPLATE) {
+      templateReads.remove(templateReads.size() - 1);
+    }
+    outputs.put(templateHash + ":" + fingerprint, output);
+  }
+
+  public synchronized int size() {
+    return outputs.size();
+  }
+
+  public synchronized int getHits() {
+    return hits;
+  }
+
+  public synchronized int getMisses() {
+    return misses;
+  }
+
+  /**
+   * Removes all entries from this cache, the file is not changed until the cache is saved.
+   */
+  public synchronized void clear() {
+    outputs.clear();
+    reads.clear();
+  }
+
+  /**
+   * Saves this cache to the file it was created with. Does nothing if no file was given.
+   */
+  public synchronized void save() {
+    if (file == null) {
+      return;
+    }
+    try {
+      Files.createDirectories(file.toAbsolutePath().getParent());
+      Path temp = file.resolveSibling(file.getFileName() + ".tmp");
+      try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temp)))) {
+        out.writeInt(FILE_VERSION);
+        out.writeInt(reads.size());
+        for (Map.Entry<String, List<Map<String, Set<String>>>> entry : reads.entrySet()) {
+          out.writeUTF(entry.getKey());
+          out.writeInt(entry.getValue().size());
+          for (Map<String, Set<String>> read : entry.getValue()) {
+            out.writeInt(read.size());
+            for (Map.Entry<String, Set<String>> classRead : read.entrySet()) {
+              out.writeUTF(classRead.getKey());
+              out.writeUTF(String.join("\t", classRead.getValue()));
+            }
+          }
+        }
+        out.writeInt(outputs.size());
+        for (Map.Entry<String, String> entry : outputs.entrySet()) {
+          out.writeUTF(entry.getKey());
+          byte[] bytes = entry.getValue().getBytes(StandardCharsets.UTF_8);
+          out.writeInt(bytes.length);
+          out.write(bytes);
+        }
+      }
+      Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING);
+    } catch (IOException e) {
+      throw new JavaForgerException(e, "Could not save render cache to " + file);
+    }
+  }
+
+  private void load() {
+    try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file)))) {
+      if (in.readInt() != FILE_VERSION) {
+        LOG.info("Ignoring render cache {} written by another version", file);
+        return;
+      }
+      int templates = in.readInt();
+      for (int i = 0; i < templates; i++) {
+        String templateHash = in.readUTF();
+        List<Map<String, Set<String>>> templateReads = new ArrayList<>();
+        int readCount = in.readInt();
+        for (int j = 0; j < readCount; j++) {
+          Map<String, Set<String>> read = new TreeMap<>();
+          int classes = in.readInt();
+          for (int k = 0; k < classes; k++) {
+            String className = in.readUTF();
+            read.put(className, new TreeSet<>(Arrays.asList(in.readUTF().split("\t"))));
+          }
+          templateReads.add(read);
+        }
+        reads.put(templateHash, templateReads);
+      }
+      int entries = in.readInt();
+      for (int i = 0; i < entries; i++) {
+        String key = in.readUTF();
+        byte[] bytes = new byte[in.readInt()];
+        in.readFully(bytes);
+        outputs.put(key, new String(bytes, StandardCharsets.UTF_8));
+      }
+    } catch (IOException e) {
+      LOG.warn("Could not load render cache from {}, starting with an empty cache", file, e);
+      clear();
+    }
+  }
+
+  /**
+   * @return The hash of the template and all templates it includes or imports, or null if the template cannot be cached.
+   */
+  synchronized String getTemplateHash(Template template) throws IOException {
+    StringBuilder content = new StringBuilder();
+    if (!appendTemplate(template, content, new HashSet<>())) {
+      return null;
+    }
+    return sha256(content.toString());
+  }
+
+  private boolean appendTemplate(Template template, StringBuilder content, Set<String> visited) throws IOException {
+    if (!visited.add(template.getName())) {
+      return true;
+    }
+    String hash = templateHashes.get(template);
+    if (hash == null) {
+      hash = sha256(template.toString());
+      templateHashes.put(template, hash);
+    }
+    content.append(template.getName()).append('=').append(hash).append('\n');
+    List<String> includes = new ArrayList<>();
+    if (!findIncludes(template, includes)) {
+      return false;
+    }
+    for (String include : includes) {
+      if (!appendTemplate(template.getConfiguration().getTemplate(resolve(template.getName(), include)), content, visited)) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  /**
+   * Finds the templates included or imported by the template, by scanning its canonical form. Text within comments and noparse blocks is skipped.
+   *
+   * @param template The {@link Template} to scan.
+   * @param includes The list to add the names of the included and imported templates to.
+   * @return False if the template includes a template by a dynamic name or uses ?interpret, true otherwise.
+   */
+  static boolean findIncludes(Template template, List<String> includes) {
+    String code = UNPARSED.matcher(template.toString()).replaceAll("");
+    if (code.contains("?interpret")) {
+      return false;
+    }
+    Matcher matcher = INCLUDE.matcher(code);
+    while (matcher.find()) {
+      if (matcher.group(1) == null) {
+        return false;
+      }
+      includes.add(matcher.group(1));
+    }
+    return true;
+  }
+
+  static String resolve(String templateName, String include) {
+    if (include.startsWith("/")) {
+      return include.substring(1);
+    }
+    int lastSlash = templateName.lastIndexOf('/');
+    return lastSlash < 0 ? include : templateName.substring(0, lastSlash + 1) + include;
+  }
+
+  /**
+   * Determines the fingerprint of the model for the given read properties.
+   *
+   * @return The fingerprint, or null if one of the read properties cannot be determined without rendering.
+   */
+  String fingerprint(Object model, Map<String, Set<String>> read) {
+    StringBuilder sb = new StringBuilder();
+    try {
+      append(model, read, sb, new IdentityHashMap<>());
+    } catch (ReflectiveOperationException | IntrospectionException | RuntimeException e) {
+      LOG.debug("Could not determine the fingerprint of {}", model, e);
+      return null;
+    }
+    return sha256(sb.toString());
+  }
+
+  private void append(Object o, Map<String, Set<String>> read, StringBuilder sb, Map<Object, Boolean> visited)
+      throws ReflectiveOperationException, IntrospectionException {
+    if (o == null) {
+      sb.append("null;");
+      return;
+    }
+    Class<?> type = o.getClass();
+    if (o instanceof CharSequence || o instanceof Number || o instanceof Boolean || o instanceof Character || o instanceof Enum || o instanceof Date
+        || o instanceof Class) {
+      sb.append(type.getName()).append(':').append(o).append(';');
+      return;
+    }
+    if (visited.put(o, Boolean.TRUE) != null) {
+      sb.append("cycle;");
+      return;
+    }
+    if (o instanceof Collection || type.isArray()) {
+      List<Object> elements = new ArrayList<>();
+      if (type.isArray()) {
+        for (int i = 0; i < Array.getLength(o); i++) {
+          elements.add(Array.get(o, i));
+        }
+      } else {
+        elements.addAll((Collection<?>) o);
+      }
+      sb.append('[').append(elements.size()).append(';');
+      for (Object element : elements) {
+        append(element, read, sb, visited);
+      }
+      sb.append(']');
+    } else if (o instanceof Map) {
+      Map<?, ?> map = (Map<?, ?>) o;
+      Set<String> keys = read.getOrDefault(type.getName(), new TreeSet<>());
+      sb.append('{');
+      if (keys.contains(ALL)) {
+        for (Map.Entry<?, ?> entry : map.entrySet()) {
+          sb.append(entry.getKey()).append('=');
+          append(entry.getValue(), read, sb, visited);
+        }
+      } else {
+        for (String key : keys) {
+          sb.append(key).append(map.containsKey(key) ? "=" : "!");
+          append(map.get(key), read, sb, visited);
+        }
+      }
+      sb.append('}');
+    } else {
+      Set<String> keys = read.getOrDefault(type.getName(), new TreeSet<>());
+      Map<String, Method> typeAccessors = getAccessors(type);
+      sb.append(type.getName()).append('{');
+      for (String key : keys.contains(ALL) ? new TreeSet<>(typeAccessors.keySet()) : keys) {
+        Method accessor = TO_STRING.equals(key) ? type.getMethod(TO_STRING) : typeAccessors.get(key);
+        if (accessor == null) {
+          throw new NoSuchMethodException("No accessor without parameters for " + key + " in " + type.getName());
+        }
+        sb.append(key).append('=');
+        try {
+          append(accessor.invoke(o), read, sb, visited);
+        } catch (InvocationTargetException e) {
+          sb.append("exception:").append(e.getCause()).append(';');
+        }
+      }
+      sb.append('}');
+    }
+    visited.remove(o);
+  }
+
+  /**
+   * @return The public methods without parameters by the names that FreeMarker exposes them with: the property name for getters and the method name.
+   */
+  private Map<String, Method> getAccessors(Class<?> type) throws IntrospectionException {
+    Map<String, Method> typeAccessors = accessors.get(type);
+    if (typeAccessors == null) {
+      typeAccessors = new TreeMap<>();
+      for (Method method : type.getMethods()) {
+        if (method.getParameterCount() == 0 && !Modifier.isStatic(method.getModifiers()) && method.getReturnType() != void.class) {
+          typeAccessors.put(method.getName(), publicMethod(method));
+        }
+      }
+      for (PropertyDescriptor property : Introspector.getBeanInfo(type).getPropertyDescriptors()) {
+        if (property.getReadMethod() != null) {
+          typeAccessors.put(property.getName(), publicMethod(property.getReadMethod()));
+        }
+      }
+      typeAccessors.remove("class");
+      typeAccessors.remove("getClass");
+      accessors.put(type, typeAccessors);
+    }
+    return typeAccessors;
+  }
+
+  /**
+   * Methods of non-public classes have to be called through the public interface or super class that declares them.
+   */
+  private static Method publicMethod(Method method) {
+    if (Modifier.isPublic(method.getDeclaringClass().getModifiers())) {
+      return method;
+    }
+    List<Class<?>> candidates = new ArrayList<>(ClassUtils.getAllInterfaces(method.getDeclaringClass()));
+    candidates.addAll(ClassUtils.getAllSuperclasses(method.getDeclaringClass()));
+    for (Class<?> candidate : candidates) {
+      if (Modifier.isPublic(candidate.getModifiers())) {
+        try {
+          return candidate.getMethod(method.getName());
+        } catch (NoSuchMethodException e) {
+          // Not declared by this candidate
+        }
+      }
+    }
+    method.setAccessible(true);
+    return method;
+  }
+
+  private synchronized ObjectWrapper getWrapper(Configuration configuration) {
+    return wrappers.computeIfAbsent(configuration.getObjectWrapper(), TrackingObjectWrapper::new);
+  }
+
+  private void record(Object o, String key) {
+    Map<String, Set<String>> read = recording.get();
+    if (read != null) {
+      read.computeIfAbsent(o == null ? UNKNOWN : o.getClass().getName(), c -> new TreeSet<>()).add(key);
+    }
+  }
+
+  private static String sha256(String content) {
+    try {
+      byte[] digest = MessageDigest.getInstance("SHA-256").digest(content.getBytes(StandardCharsets.UTF_8));
+      StringBuilder sb = new StringBuilder();
+      for (byte b : digest) {
+        sb.append(String.format("%02x", b));
+      }
+      return sb.toString();
+    } catch (NoSuchAlgorithmException e) {
+      throw new JavaForgerException(e);
+    }
+  }
+
+  /**
+   * {@link ObjectWrapper} recording which properties of the model are read. The model is wrapped by the {@link ObjectWrapper} of the configuration, after
+   * which every hash model is wrapped in a proxy that records the keys that are read from it. The models returned by a proxy, for instance the elements of a
+   * sequence or the value of a property, are proxied again, so reads are tracked for the whole object graph.
+   */
+  private final class TrackingObjectWrapper implements ObjectWrapperAndUnwrapper {
+    private final ObjectWrapper delegate;
+
+    private TrackingObjectWrapper(ObjectWrapper delegate) {
+      this.delegate = delegate;
+    }
+
+    @Override
+    public TemplateModel wrap(Object obj) throws TemplateModelException {
+      return (TemplateModel) track(delegate.wrap(obj), obj);
+    }
+
+    @Override
+    public Object unwrap(TemplateModel tm) throws TemplateModelException {
+      return getUnwrapper().unwrap(tm);
+    }
+
+    @Override
+    public Object tryUnwrapTo(TemplateModel tm, Class<?> targetClass) throws TemplateModelException {
+      return getUnwrapper().tryUnwrapTo(tm, targetClass);
+    }
+
+    private ObjectWrapperAndUnwrapper getUnwrapper() throws TemplateModelException {
+      if (!(delegate instanceof ObjectWrapperAndUnwrapper)) {
+        throw new TemplateModelException("The object wrapper " + delegate.getClass().getName() + " does not support unwrapping");
+      }
+      return (ObjectWrapperAndUnwrapper) delegate;
+    }
+
+    /**
+     * @param value The value returned by the delegate or a proxy.
+     * @param obj The object wrapped by the value, or null if it is unknown. If it cannot be determined from the value either, reads from a hash model make
+     *          the render uncacheable.
+     * @return The proxy tracking the value, or the value itself if no reads can be tracked through it.
+     */
+    private Object track(Object value, Object obj) {
+      if (recording.get() == null || !TRACKED.stream().anyMatch(t -> t.isInstance(value))) {
+        return value;
+      }
+      Object wrapped = obj != null ? obj : unwrapped(value);
+      Class<?>[] interfaces = ClassUtils.getAllInterfaces(value.getClass()).toArray(new Class<?>[0]);
+      InvocationHandler handler = (proxy, method, args) -> {
+        if (value instanceof TemplateHashModel) {
+          switch (method.getName()) {
+          case "get":
+            record(wrapped, String.valueOf(args[0]));
+            break;
+          case "getAsString":
+            record(wrapped, TO_STRING);
+            break;
+          case "keys":
+          case "values":
+          case "keyValuePairIterator":
+          case "size":
+          case "isEmpty":
+            record(wrapped, ALL);
+            break;
+          default:
+            break;
+          }
+        }
+        try {
+          return track(method.invoke(value, args), null);
+        } catch (InvocationTargetException e) {
+          throw e.getCause();
+        }
+      };
+      return Proxy.newProxyInstance(RenderCache.class.getClassLoader(), interfaces, handler);
+    }
+
+    private Object unwrapped(Object value) {
+      if (value instanceof WrapperTemplateModel) {
+        return ((WrapperTemplateModel) value).getWrappedObject();
+      }
+      return value instanceof AdapterTemplateModel ? ((AdapterTemplateModel) value).getAdaptedObject(Object.class) : null;
+    }
+  }
+
+  /**
+   * Renders a template with the given {@link ObjectWrapper}.
+   */
+  @FunctionalInterface
+  public interface Renderer {
+    /**
+     * @param wrapper The {@link ObjectWrapper} to use for the model, or null for the default of the template.
+     * @return The output of the template.
+     * @throws IOException
+     * @throws TemplateException
+     */
+    String render(ObjectWrapper wrapper) throws IOException, TemplateException;
+  }
+
+  /**
+   * Creates builder to build {@link RenderCache}.
+   *
+   * @return created builder
+   */
+  public static Builder builder() {
+    return new Builder();
+  }
+
+  /**
+   * Builder to build {@link RenderCache}.
+   */
+  public static final class Builder {
+    private int maxEntries = 10_000;
+    private Path file;
+
+    private Builder() {
+    }
+
+    /**
+     * @param maxEntries The maximum number of rendered outputs to keep, 10000 by default.
+     * @return this builder
+     */
+    public Builder maxEntries(int maxEntries) {
+      this.maxEntries = maxEntries;
+      return this;
+    }
+
+    /**
+     * @param file The file to load the cache from if it exists, and to save it to with {@link RenderCache#save()}.
+     * @return this builder
+     */
+    public Builder file(Path file) {
+      this.file = file;
+      return this;
+    }
+
+    public RenderCache build() {
+      if (maxEntries < 1) {
+        throw new JavaForgerException("The render cache needs room for at least 1 entry");
+      }
+      RenderCache cache = new RenderCache(this);
+      if (file != null && Files.exists(file)) {
+        cache.load();
+      }
+      return cache;
+    }
+  }
+
+}
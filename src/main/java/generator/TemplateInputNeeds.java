@@ -0,0 +1,130 @@
+/*
+ * Copyright 2019 by Daan van den Heuvel.
+ *
+ * This file is part of JavaForger.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package generator;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.WeakHashMap;
+import java.util.regex.Pattern;
+
+import configuration.JavaForgerConfiguration;
+import configuration.StaticJavaForgerConfiguration;
+import freemarker.template.Template;
+
+/**
+ * Determines which input a {@link JavaForgerConfiguration} needs from the input class, based on the variables used within its template and all templates it
+ * includes. Field driven templates like equals, hashCode and toString never use the data derived from method bodies, so the bodies do not have to be parsed
+ * for them. It also determines if a template can write to other files than its merge class through the {@link OutputDirective}. Templates that include other
+ * templates by a dynamic name or use ?interpret or ?eval cannot be analyzed and are considered to need everything and to use the {@link OutputDirective}.
+ *
+ * @author Daan
+ */
+public class TemplateInputNeeds {
+
+  /** The properties of {@link templateInput.definition.MethodDefinition} that are derived from method bodies. */
+  private static final Pattern METHOD_BODY_PROPERTIES =
+      Pattern.compile("\\b(changedFields|inputMethods|outputMethods|expectedReturn|returnSignature|instance)\\b|\\?(interpret|eval)\\b");
+  private static final Pattern OUTPUT_DIRECTIVE = Pattern.compile("<@" + OutputDirective.NAME + "\\b|\\?(interpret|eval)\\b");
+
+  private final Map<Template, Boolean> methodBodies = new WeakHashMap<>();
+
+  /**
+   * Determines if the input class has to be read including its method bodies for the given configuration. This includes the template that is used if the merge
+   * file does not exist, since it receives the same input.
+   *
+   * @param config The {@link JavaForgerConfiguration}
+   * @return True if any template of the configuration uses data derived from method bodies, false otherwise.
+   */
+  public boolean requiresMethodBodies(JavaForgerConfiguration config) {
+    JavaForgerConfiguration ifNotExists = config.getConfigIfFileDoesNotExist();
+    return requiresMethodBodies(config.getTemplate()) || (ifNotExists != null && requiresMethodBodies(ifNotExists.getTemplate()));
+  }
+
+  /**
+   * @param templateName The name of the template.
+   * @return True if the template or any template it includes uses data derived from method bodies, false otherwise.
+   */
+  public boolean requiresMethodBodies(String templateName) {
+    if (templateName == null) {
+      return true;
+    }
+    try {
+      Template template = StaticJavaForgerConfiguration.getConfig().getFreeMarkerConfiguration().getTemplate(templateName);
+      Boolean result = getCached(template);
+      if (result == null) {
+        result = matches(template, METHOD_BODY_PROPERTIES, new HashSet<>());
+        putCached(template, result);
+      }
+      return result;
+    } catch (IOException e) {
+      // The error will surface when the template is processed
+      return true;
+    }
+  }
+
+  /**
+   * Determines if any template of the configuration or its children uses the {@link OutputDirective}, in which case the files that are changed by the
+   * configuration are only known after rendering.
+   *
+   * @param config The {@link JavaForgerConfiguration}
+   * @return True if any template of the configuration tree uses the {@link OutputDirective}, false otherwise.
+   */
+  public boolean usesOutputDirective(JavaForgerConfiguration config) {
+    JavaForgerConfiguration ifNotExists = config.getConfigIfFileDoesNotExist();
+    return usesOutputDirective(config.getTemplate()) || (ifNotExists != null && usesOutputDirective(ifNotExists))
+        || config.getChildConfigs().stream().anyMatch(this::usesOutputDirective);
+  }
+
+  private boolean usesOutputDirective(String templateName) {
+    if (templateName == null) {
+      return false;
+    }
+    try {
+      Template template = StaticJavaForgerConfiguration.getConfig().getFreeMarkerConfiguration().getTemplate(templateName);
+      return matches(template, OUTPUT_DIRECTIVE, new HashSet<>());
+    } catch (IOException e) {
+      // The error will surface when the template is processed
+      return false;
+    }
+  }
+
+  private boolean matches(Template template, Pattern pattern, Set<String> visited) throws IOException {
+    if (!visited.add(template.getName())) {
+      return false;
+    }
+    List<String> includes = new ArrayList<>();
+    boolean result = !RenderCache.findIncludes(template, includes) || pattern.matcher(template.toString()).find();
+    for (int i = 0; !result && i < includes.size(); i++) {
+      result = matches(template.getConfiguration().getTemplate(RenderCache.resolve(template.getName(), includes.get(i))), pattern, visited);
+    }
+    return result;
+  }
+
+  private synchronized Boolean getCached(Template template) {
+    return methodBodies.get(template);
+  }
+
+  private synchronized void putCached(Template template, boolean result) {
+    methodBodies.put(template, result);
+  }
+
+}
@@ -18,6 +18,24 @@
 package generator;
 
 import java.io.IOException;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.PathMatcher;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import com.github.javaparser.ast.CompilationUnit;
 
 import configuration.JavaForgerConfiguration;
 import configuration.PathConverter;
@@ -35,8 +53,17 @@ import templateInput.TemplateInputParameters;
  */
 public class TemplateInputParametersService {
 
+  /** Shared between all instances, reading is IO and CPU bound so there is no use in more threads than processors. */
+  private static final AtomicInteger READER_COUNT = new AtomicInteger();
+  private static final ExecutorService READERS = Executors.newFixedThreadPool(Runtime.getRuntime().availableProcessors(), r -> {
+    Thread thread = new Thread(r, "JavaForger-reader-" + READER_COUNT.getAndIncrement());
+    thread.setDaemon(true);
+    return thread;
+  });
+
   private ClassContainerReader reader = StaticJavaForgerConfiguration.getReader();
   private InitializationService initializer = StaticJavaForgerConfiguration.getInitializer();
+  private TemplateInputNeeds needs = new TemplateInputNeeds();
 
   /**
    * Gets the {@link TemplateInputParameters} from the {@link JavaForgerConfiguration} and inserts all missing input parameters given by
@@ -49,29 +76,125 @@ public class TemplateInputParametersService {
    * @throws IOException
    */
   public TemplateInputParameters getInputParameters(JavaForgerConfiguration config, String inputClass, String mergeClassPath) throws IOException {
+    ClassContainer claz = null;
+    if (requiresInputClass(config, inputClass)) {
+      claz = read(inputClass, requiresMethodBodies(config));
+      config.getAdjuster().accept(claz);
+    }
+    return getInputParameters(config, claz, mergeClassPath);
+  }
+
+  /**
+   * Determines if the input class needs to be read to fill in the {@link TemplateInputParameters} for the given {@link JavaForgerConfiguration}.
+   *
+   * @param config The {@link JavaForgerConfiguration}
+   * @param inputClass The class that will be parsed to construct the input parameters.
+   * @return true if the input class should be read, false otherwise.
+   */
+  public boolean requiresInputClass(JavaForgerConfiguration config, String inputClass) {
     TemplateInputParameters inputParameters = config.getInputParameters();
+    return inputClass != null && !inputClass.isEmpty()
+        && (!inputParameters.containsKey(TemplateInputDefaults.FIELDS.getName()) || !inputParameters.containsKey(TemplateInputDefaults.CLASS.getName())
+            || !inputParameters.containsKey(TemplateInputDefaults.METHODS.getName())
+            || !inputParameters.containsKey(TemplateInputDefaults.CONSTRUCTORS.getName()));
+  }
 
-    if (inputClass != null && !inputClass.isEmpty()) {
-      if (!inputParameters.containsKey(TemplateInputDefaults.FIELDS.getName()) || !inputParameters.containsKey(TemplateInputDefaults.CLASS.getName())
-          || !inputParameters.containsKey(TemplateInputDefaults.METHODS.getName())
-          || !inputParameters.containsKey(TemplateInputDefaults.CONSTRUCTORS.getName())) {
+  /**
+   * Determines if the method bodies of the input class have to be read for the given {@link JavaForgerConfiguration}, see {@link TemplateInputNeeds}.
+   *
+   * @param config The {@link JavaForgerConfiguration}
+   * @return true if the templates of the config use data derived from method bodies, false otherwise.
+   */
+  public boolean requiresMethodBodies(JavaForgerConfiguration config) {
+    return needs.requiresMethodBodies(config);
+  }
 
-        ClassContainer claz = reader.read(inputClass);
-        initializer.init(claz);
-        config.getAdjuster().accept(claz);
-        if (!inputParameters.containsKey(TemplateInputDefaults.FIELDS.getName())) {
-          inputParameters.put(TemplateInputDefaults.FIELDS.getName(), claz.getFields());
-        }
-        if (!inputParameters.containsKey(TemplateInputDefaults.CLASS.getName())) {
-          inputParameters.put(TemplateInputDefaults.CLASS.getName(), claz);
-        }
-        if (!inputParameters.containsKey(TemplateInputDefaults.METHODS.getName())) {
-          inputParameters.put(TemplateInputDefaults.METHODS.getName(), claz.getMethods());
-        }
-        if (!inputParameters.containsKey(TemplateInputDefaults.CONSTRUCTORS.getName())) {
-          inputParameters.put(TemplateInputDefaults.CONSTRUCTORS.getName(), claz.getConstructors());
-        }
+  /**
+   * Determines if any template of the configuration tree uses the {@link OutputDirective}, see {@link TemplateInputNeeds}.
+   *
+   * @param config The {@link JavaForgerConfiguration}
+   * @return true if the files changed by the configuration are only known after rendering, false otherwise.
+   */
+  public boolean usesOutputDirective(JavaForgerConfiguration config) {
+    return needs.usesOutputDirective(config);
+  }
+
+  /**
+   * Reads and initializes the input class, the result is not yet adjusted by the adjusters of any {@link JavaForgerConfiguration}.
+   *
+   * @param inputClass The class that will be parsed.
+   * @return The {@link ClassContainer}
+   * @throws IOException
+   */
+  public ClassContainer read(String inputClass) throws IOException {
+    return read(inputClass, true);
+  }
+
+  /**
+   * Reads and initializes the input class, only reading the declarations if the method bodies are not required.
+   *
+   * @param inputClass The class that will be parsed.
+   * @param methodBodies True if data derived from method bodies is required, false otherwise.
+   * @return The {@link ClassContainer}
+   * @throws IOException
+   */
+  public ClassContainer read(String inputClass, boolean methodBodies) throws IOException {
+    ClassContainer claz = reader.read(inputClass, methodBodies);
+    initializer.init(claz);
+    return claz;
+  }
+
+  /**
+   * Reads and initializes the already parsed input class, the result is not yet adjusted by the adjusters of any {@link JavaForgerConfiguration}.
+   *
+   * @param cu The parsed input class.
+   * @return The {@link ClassContainer}
+   */
+  public ClassContainer read(CompilationUnit cu) {
+    return read(cu, true);
+  }
+
+  /**
+   * Reads and initializes the already parsed input class, the result is not yet adjusted by the adjusters of any {@link JavaForgerConfiguration}.
+   *
+   * @param cu The parsed input class.
+   * @param methodBodies True if data derived from method bodies is required, false otherwise.
+   * @return The {@link ClassContainer}
+   */
+  public ClassContainer read(CompilationUnit cu, boolean methodBodies) {
+    ClassContainer claz = reader.read(cu, methodBodies);
+    initializer.init(claz);
+    return claz;
+  }
+
+  /**
+   * Gets the {@link TemplateInputParameters} from the {@link JavaForgerConfiguration} and inserts all missing input parameters given by
+   * {@link TemplateInputDefaults}, using the already read and adjusted {@link ClassContainer}.
+   *
+   * @param config The {@link JavaForgerConfiguration}
+   * @param claz The {@link ClassContainer} of the input class, or null if there is no input class.
+   * @param mergeClassPath The class to which the template from the config will be merged to.
+   * @return {@link TemplateInputParameters}
+   */
+  public TemplateInputParameters getInputParameters(JavaForgerConfiguration config, ClassContainer claz, String mergeClassPath) {
+    TemplateInputParameters inputParameters = config.getInputParameters();
+
+    if (claz != null) {
+      if (!inputParameters.containsKey(TemplateInputDefaults.FIELDS.getName())) {
+        inputParameters.put(TemplateInputDefaults.FIELDS.getName(), claz.getFields());
+      }
+      if (!inputParameters.containsKey(TemplateInputDefaults.CLASS.getName())) {
+        inputParameters.put(TemplateInputDefaults.CLASS.getName(), claz);
       }
+      if (!inputParameters.containsKey(TemplateInputDefaults.METHODS.getName())) {
+        inputParameters.put(TemplateInputDefaults.METHODS.getName(), claz.getMethods());
+      }
+      if (!inputParameters.containsKey(TemplateInputDefaults.CONSTRUCTORS.getName())) {
+        inputParameters.put(TemplateInputDefaults.CONSTRUCTORS.getName(), claz.getConstructors());
+      }
+    }
+    if (config.hasInputClasses() && !inputParameters.containsKey(TemplateInputDefaults.CLASSES.getName())) {
+      inputParameters.put(TemplateInputDefaults.CLASSES.getName(), readClasses(config));
     }
     if (mergeClassPath != null) {
       if (!inputParameters.containsKey(TemplateInputDefaults.PACKAGE.getName())) {
@@ -88,4 +211,72 @@ public class TemplateInputParametersService {
     return inputParameters;
   }
 
+  /**
+   * Reads all input classes of the {@link JavaForgerConfiguration} in parallel, see {@link JavaForgerConfiguration#getInputClasses()} and
+   * {@link JavaForgerConfiguration#getInputClassGlobs()}. Every class is initialized and adjusted by the adjusters of the config.
+   *
+   * @param config The {@link JavaForgerConfiguration}
+   * @return The {@link ClassContainer}s by name, in the order of the named input classes followed by the classes matching the globs.
+   */
+  public Map<String, ClassContainer> readClasses(JavaForgerConfiguration config) {
+    Map<String, String> inputClasses = getInputClasses(config);
+    boolean methodBodies = requiresMethodBodies(config);
+    Map<String, Future<ClassContainer>> futures = new LinkedHashMap<>();
+    inputClasses.forEach((name, inputClass) -> futures.put(name, READERS.submit(() -> {
+      ClassContainer claz = read(inputClass, methodBodies);
+      config.getAdjuster().accept(claz);
+      return claz;
+    })));
+
+    Map<String, ClassContainer> classes = new LinkedHashMap<>();
+    for (Map.Entry<String, Future<ClassContainer>> future : futures.entrySet()) {
+      try {
+        classes.put(future.getKey(), future.getValue().get());
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        futures.values().forEach(f -> f.cancel(true));
+        throw new JavaForgerException(e, "Interrupted while reading input classes for " + config);
+      } catch (ExecutionException e) {
+        futures.values().forEach(f -> f.cancel(true));
+        if (e.getCause() instanceof JavaForgerException) {
+          throw (JavaForgerException) e.getCause();
+        }
+        throw new JavaForgerException(e, "Could not read input class " + inputClasses.get(future.getKey()));
+      }
+    }
+    return classes;
+  }
+
+  /**
+   * @return The paths of the named input classes, followed by the classes matching the globs with the class name as key.
+   */
+  private Map<String, String> getInputClasses(JavaForgerConfiguration config) {
+    Map<String, String> inputClasses = new LinkedHashMap<>(config.getInputClasses());
+    for (String glob : config.getInputClassGlobs()) {
+      for (String inputClass : findFiles(glob)) {
+        String fileName = Paths.get(inputClass).getFileName().toString();
+        inputClasses.putIfAbsent(fileName.substring(0, fileName.lastIndexOf('.')), inputClass);
+      }
+    }
+    return inputClasses;
+  }
+
+  /**
+   * Finds all files matching the glob, only walking the folder before the first wildcard.
+   */
+  private List<String> findFiles(String glob) {
+    String normalized = glob.replace('\\', '/');
+    int wildcard = Stream.of("*", "?", "[", "{").mapToInt(normalized::indexOf).filter(i -> i >= 0).min().orElse(normalized.length());
+    Path base = Paths.get(normalized.substring(0, normalized.lastIndexOf('/', wildcard) + 1));
+    PathMatcher matcher = FileSystems.getDefault().getPathMatcher("glob:" + normalized);
+    if (!Files.isDirectory(base)) {
+      return new ArrayList<>();
+    }
+    try (Stream<Path> files = Files.walk(base)) {
+      return files.filter(Files::isRegularFile).filter(matcher::matches).map(Path::toString).sorted().collect(Collectors.toList());
+    } catch (IOException e) {
+      throw new JavaForgerException(e, "Could not find input classes for " + glob);
+    }
+  }
+
 }
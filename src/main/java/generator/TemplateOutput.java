@@ -0,0 +1,98 @@
+/*
+ * Copyright 2019 by Daan van den Heuvel.
+ *
+ * This file is part of JavaForger.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package generator;
+
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+
+import configuration.ClassProvider;
+
+/**
+ * A section of a rendered template that has to be merged into another file than the merge class of the {@link configuration.JavaForgerConfiguration}. Created
+ * by the {@link OutputDirective}.
+ *
+ * @author Daan
+ */
+public class TemplateOutput {
+
+  /** The path to merge the code into, null if the path is determined by the provider. */
+  private final String target;
+  /** The name of a static method without parameters of {@link ClassProvider}, null if the target is set. */
+  private final String provider;
+  private final CodeSnipit codeSnipit;
+
+  private TemplateOutput(String target, String provider, String code) {
+    this.target = target;
+    this.provider = provider;
+    this.codeSnipit = new CodeSnipit(code);
+  }
+
+  public static TemplateOutput toTarget(String target, String code) {
+    return new TemplateOutput(target, null, code);
+  }
+
+  public static TemplateOutput fromProvider(String provider, String code) {
+    return new TemplateOutput(null, provider, code);
+  }
+
+  public String getTarget() {
+    return target;
+  }
+
+  public String getProvider() {
+    return provider;
+  }
+
+  public CodeSnipit getCodeSnipit() {
+    return codeSnipit;
+  }
+
+  /**
+   * Determines the path to merge this output into. The provider receives the merge class of the configuration as parent merge class, so that for instance
+   * {@link ClassProvider#forMavenUnitTestFromParent()} gives the test of the class that the template was merged into.
+   *
+   * @param inputClass The input class of the configuration.
+   * @param mergeClass The merge class of the configuration, can be null.
+   * @return The path to merge this output into.
+   */
+  public String resolve(String inputClass, String mergeClass) {
+    if (target != null) {
+      return target;
+    }
+    Method method;
+    try {
+      method = ClassProvider.class.getMethod(provider);
+    } catch (NoSuchMethodException e) {
+      throw new JavaForgerException(e, "Output provider '" + provider + "' is not a method of ClassProvider without parameters");
+    }
+    if (!Modifier.isStatic(method.getModifiers()) || !ClassProvider.class.equals(method.getReturnType())) {
+      throw new JavaForgerException("Output provider '" + provider + "' is not a static method of ClassProvider returning a ClassProvider");
+    }
+    try {
+      return ((ClassProvider) method.invoke(null)).provide(inputClass, mergeClass);
+    } catch (ReflectiveOperationException e) {
+      throw new JavaForgerException(e, "Could not invoke output provider '" + provider + "'");
+    }
+  }
+
+  @Override
+  public String toString() {
+    return (target != null ? "target " + target : "provider " + provider) + ":\n" + codeSnipit;
+  }
+
+}
@@ -0,0 +1,356 @@
+/*
+ * Copyright 2019 by Daan van den Heuvel.
+ *
+ * This file is part of JavaForger.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package generator;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.WeakHashMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+
+import freemarker.cache.SoftCacheStorage;
+import freemarker.cache.TemplateLoader;
+import freemarker.core.Environment;
+import freemarker.template.Configuration;
+import freemarker.template.ObjectWrapper;
+import freemarker.template.Template;
+import freemarker.template.TemplateDirectiveBody;
+import freemarker.template.TemplateDirectiveModel;
+import freemarker.template.TemplateException;
+import freemarker.template.TemplateModel;
+import freemarker.template.TemplateNotFoundException;
+import freemarker.template.TemplateNumberModel;
+
+/**
+ * Profiler for finding out why a template is slow. When set on the {@link configuration.StaticJavaForgerConfiguration}, every template processed by the
+ * {@link Generator} is rendered through {@link TemplateProfiler#process(Template, Object, Writer)}. Templates are rendered from a copy of their
+ * {@link Configuration} that instruments every template while loading it: includes, macro and function bodies, list, if and switch blocks and interpolations
+ * are wrapped in a directive that measures them. Every measured part is a frame, identified by its template, line and directive. Per frame the number of
+ * invocations and the time including and excluding nested frames are counted. Model getters are attributed to the interpolation or block calling them.
+ *
+ * @author Daan
+ */
+public class TemplateProfiler {
+
+  /** The name of the directive measuring a frame, added as shared variable to the instrumented configurations. */
+  static final String DIRECTIVE = "javaforger_profile";
+
+  private final boolean interpolations;
+  private final Map<Configuration, Configuration> configurations = new WeakHashMap<>();
+  private final Map<String, Integer> frameIds = new HashMap<>();
+  private final List<String> frameNames = new ArrayList<>();
+  private final ThreadLocal<Render> current = new ThreadLocal<>();
+  /** Per main template, the statistics per frame. */
+  private final Map<String, Map<String, FrameStats>> frames = new ConcurrentHashMap<>();
+  /** Per main template, the time excluding nested frames per complete stack for flame graphs. */
+  private final Map<String, Map<String, Long>> stacks = new ConcurrentHashMap<>();
+  private final Map<String, TemplateStats> templates = new ConcurrentHashMap<>();
+  private final TemplateDirectiveModel directive = this::measure;
+
+  private TemplateProfiler(Builder builder) {
+    this.interpolations = builder.interpolations;
+  }
+
+  /**
+   * Processes the template while it is being profiled.
+   *
+   * @param template The {@link Template} to process.
+   * @param dataModel The model to fill in the template.
+   * @param out The {@link Writer} to write the result to.
+   * @throws TemplateException
+   * @throws IOException
+   */
+  public void process(Template template, Object dataModel, Writer out) throws TemplateException, IOException {
+    process(template, dataModel, out, null);
+  }
+
+  /**
+   * Processes the template with the given {@link ObjectWrapper} while it is being profiled. Templates that were not loaded by a {@link TemplateLoader} cannot
+   * be instrumented, for those only the total render time is measured.
+   *
+   * @param template The {@link Template} to process.
+   * @param dataModel The model to fill in the template.
+   * @param out The {@link Writer} to write the result to.
+   * @param wrapper The {@link ObjectWrapper} for the model, or null to use the default of the template.
+   * @throws TemplateException
+   * @throws IOException
+   */
+  public void process(Template template, Object dataModel, Writer out, ObjectWrapper wrapper) throws TemplateException, IOException {
+    Template instrumented = getInstrumented(template);
+    Render previous = current.get();
+    current.set(new Render(template.getName()));
+    long start = System.nanoTime();
+    try {
+      instrumented.createProcessingEnvironment(dataModel, out, wrapper).process();
+    } finally {
+      current.set(previous);
+      templates.computeIfAbsent(template.getName(), t -> new TemplateStats()).add(System.nanoTime() - start);
+    }
+  }
+
+  private Template getInstrumented(Template template) throws IOException {
+    Configuration configuration;
+    synchronized (configurations) {
+      configuration = configurations.computeIfAbsent(template.getConfiguration(), this::instrument);
+    }
+    if (configuration.getTemplateLoader() == null) {
+      return template;
+    }
+    try {
+      return configuration.getTemplate(template.getName(), template.getLocale());
+    } catch (TemplateNotFoundException e) {
+      return template;
+    }
+  }
+
+  private Configuration instrument(Configuration configuration) {
+    Configuration instrumented = (Configuration) configuration.clone();
+    // A clone shares the cache storage with the original, so without a storage of its own it would return the templates that were not instrumented.
+    instrumented.setCacheStorage(new SoftCacheStorage());
+    if (configuration.getTemplateLoader() != null) {
+      instrumented.setTemplateLoader(new ProfilingTemplateLoader(configuration.getTemplateLoader(), this, interpolations));
+    }
+    instrumented.setSharedVariable(DIRECTIVE, directive);
+    return instrumented;
+  }
+
+  /**
+   * @param frame The description of the frame.
+   * @return The id of the frame to pass to the profiler directive.
+   */
+  synchronized int getFrameId(String frame) {
+    return frameIds.computeIfAbsent(frame, f -> {
+      frameNames.add(f);
+      return frameNames.size() - 1;
+    });
+  }
+
+  private synchronized String getFrameName(int id) {
+    return frameNames.get(id);
+  }
+
+  private void measure(Environment env, @SuppressWarnings("rawtypes") Map params, TemplateModel[] loopVars, TemplateDirectiveBody body)
+      throws TemplateException, IOException {
+    if (body == null) {
+      return;
+    }
+    Render render = current.get();
+    TemplateModel id = (TemplateModel) params.get("id");
+    if (render == null || !(id instanceof TemplateNumberModel)) {
+      body.render(env.getOut());
+      return;
+    }
+    render.enter(getFrameName(((TemplateNumberModel) id).getAsNumber().intValue()));
+    long start = System.nanoTime();
+    try {
+      body.render(env.getOut());
+    } finally {
+      render.exit(System.nanoTime() - start);
+    }
+  }
+
+  /**
+   * Creates a report per template with the total render time and the frames sorted by inclusive time.
+   *
+   * @return The report.
+   */
+  public String report() {
+    StringBuilder sb = new StringBuilder();
+    templates.entrySet().stream().sorted(Map.Entry.comparingByKey()).forEach(t -> {
+      TemplateStats stats = t.getValue();
+      sb.append(String.format("Template %s: %d renders, %.3f ms total, %.3f ms average%n", t.getKey(), stats.renders, toMillis(stats.nanos),
+          toMillis(stats.nanos) / stats.renders));
+      sb.append(String.format("  %12s %12s %10s  %s%n", "total ms", "self ms", "calls", "frame"));
+      getFrames(t.getKey())
+          .forEach((frame, f) -> sb.append(String.format("  %12.3f %12.3f %10d  %s%n", toMillis(f.nanos), toMillis(f.selfNanos), f.invocations, frame)));
+    });
+    return sb.toString();
+  }
+
+  /**
+   * Writes the time per stack in the collapsed stack format, one line per distinct stack with its frames separated by semicolons followed by the time spent in
+   * the last frame in microseconds. This is the input format of flamegraph.pl and is supported by most flame graph viewers.
+   *
+   * @param out The {@link Writer} to write to.
+   * @throws IOException
+   */
+  public void writeFlameGraph(Writer out) throws IOException {
+    List<String> lines = new ArrayList<>();
+    stacks.forEach((template, perStack) -> perStack.forEach((stack, nanos) -> {
+      if (nanos >= 1000) {
+        lines.add(stack + " " + nanos / 1000);
+      }
+    }));
+    for (String line : lines.stream().sorted().collect(Collectors.toList())) {
+      out.write(line);
+      out.write("\n");
+    }
+    out.flush();
+  }
+
+  /**
+   * @param template The name of the main template.
+   * @return The statistics per frame, sorted by inclusive time.
+   */
+  public Map<String, FrameStats> getFrames(String template) {
+    return frames.getOrDefault(template, new LinkedHashMap<>()).entrySet().stream().sorted(Comparator.comparing(e -> -e.getValue().nanos))
+        .collect(Collectors.toMap(Map.Entry::getKey, Map.Entry::getValue, (a, b) -> a, LinkedHashMap::new));
+  }
+
+  /**
+   * @param template The name of the main template.
+   * @return The number of times the template was rendered while profiling.
+   */
+  public int getRenders(String template) {
+    TemplateStats stats = templates.get(template);
+    return stats == null ? 0 : stats.renders;
+  }
+
+  private static double toMillis(long nanos) {
+    return nanos / 1_000_000.0;
+  }
+
+  /**
+   * A template that is currently being rendered, only accessed from the rendering thread.
+   */
+  private final class Render {
+    private final String template;
+    private final Deque<Call> stack = new ArrayDeque<>();
+
+    private Render(String template) {
+      this.template = template;
+    }
+
+    private void enter(String frame) {
+      stack.push(new Call(frame));
+    }
+
+    private void exit(long nanos) {
+      Call call = stack.pop();
+      if (!stack.isEmpty()) {
+        stack.peek().childNanos += nanos;
+      }
+      // Recursive macros can have the same frame multiple times on the stack, inclusive time is only counted for the outermost call.
+      boolean recursive = stack.stream().anyMatch(c -> c.frame.equals(call.frame));
+      long selfNanos = nanos - call.childNanos;
+      frames.computeIfAbsent(template, t -> new ConcurrentHashMap<>()).computeIfAbsent(call.frame, f -> new FrameStats()).add(recursive ? 0 : nanos,
+          selfNanos);
+      StringBuilder folded = new StringBuilder(template);
+      stack.descendingIterator().forEachRemaining(c -> folded.append(';').append(c.frame));
+      folded.append(';').append(call.frame);
+      stacks.computeIfAbsent(template, t -> new ConcurrentHashMap<>()).merge(folded.toString(), selfNanos, Long::sum);
+    }
+  }
+
+  private static final class Call {
+    private final String frame;
+    private long childNanos;
+
+    private Call(String frame) {
+      this.frame = frame;
+    }
+  }
+
+  /**
+   * Statistics for a single frame, being a line and directive within a template.
+   */
+  public static final class FrameStats {
+    private long nanos;
+    private long selfNanos;
+    private long invocations;
+
+    private synchronized void add(long inclusive, long self) {
+      nanos += inclusive;
+      selfNanos += self;
+      invocations++;
+    }
+
+    /**
+     * @return The time spent in this frame including all nested frames.
+     */
+    public synchronized long getNanos() {
+      return nanos;
+    }
+
+    /**
+     * @return The time spent in this frame excluding nested frames.
+     */
+    public synchronized long getSelfNanos() {
+      return selfNanos;
+    }
+
+    /**
+     * @return The number of times this frame was executed.
+     */
+    public synchronized long getInvocations() {
+      return invocations;
+    }
+  }
+
+  private static final class TemplateStats {
+    private int renders;
+    private long nanos;
+
+    private synchronized void add(long duration) {
+      renders++;
+      nanos += duration;
+    }
+  }
+
+  /**
+   * Creates builder to build {@link TemplateProfiler}.
+   *
+   * @return created builder
+   */
+  public static Builder builder() {
+    return new Builder();
+  }
+
+  /**
+   * Builder to build {@link TemplateProfiler}.
+   */
+  public static final class Builder {
+    private boolean interpolations = true;
+
+    private Builder() {
+    }
+
+    /**
+     * @param interpolations True to measure every interpolation, false to only measure includes, macros and blocks, which costs less for templates that
+     *          interpolate many values. The default is true.
+     * @return this builder
+     */
+    public Builder interpolations(boolean interpolations) {
+      this.interpolations = interpolations;
+      return this;
+    }
+
+    public TemplateProfiler build() {
+      return new TemplateProfiler(this);
+    }
+  }
+
+}
@@ -17,60 +17,61 @@
  */
 package initialization;
 
-import java.util.ArrayList;
-import java.util.List;
-
-import generator.JavaForgerException;
-
 /**
- * Converts strings for the initialization of fields in templates from {@link InitDefaultValues} so that numbers or random strings are filled in.
+ * Converts strings for the initialization of fields in templates from {@link InitDefaultValues} so that numbers or random strings are filled in. The values
+ * filled in are determined by an {@link InitCounter}. Since the same pattern is typically converted many times, prefer
+ * {@link InitConverter#convert(InitValue, InitCounter)} which uses the precompiled {@link InitPattern}.
  *
  * @author Daan
  */
 public class InitConverter {
 
-  private InitDefaultValues defaults = new InitDefaultValues();
-
-  private int i = 1;
-  private char c = 'a';
+  /** Only used by the methods that do not receive an {@link InitCounter}. */
+  private final InitCounter counter = new InitCounter();
 
   /**
    * Resets the initialization values to the first possible value. This method should be called as a start of any session so that for that session the
    * initialization values are predictable.
+   *
+   * @deprecated Use a new {@link InitCounter} per session instead.
    */
+  @Deprecated
   public void reset() {
-    i = 1;
-    c = 'a';
+    counter.reset();
   }
 
+  /**
+   * Converts the given pattern using the counter owned by this converter.
+   *
+   * @param s The pattern to convert.
+   * @return The converted pattern.
+   * @deprecated Use {@link InitConverter#convert(InitValue, InitCounter)} instead.
+   */
+  @Deprecated
   public String convert(String s) {
-    return String.format(s, getArgsFor(s));
+    return convert(s, counter);
   }
 
-  private Object[] getArgsFor(String s) {
-    List<Object> parameters = new ArrayList<>();
-
-    int index = s.indexOf("%");
-    String substring = s;
-
-    while (index >= 0) {
-      String type = substring.substring(index + 1, index + 2);
-      switch (type) {
-      case "d":
-        parameters.add(new Integer(i++));
-        break;
-      case "s":
-        parameters.add(c);
-        c = (char) (c + 1);
-        break;
-      default:
-        throw new JavaForgerException("type " + type + "is not supported");
-      }
+  /**
+   * Fills in the placeholders of the pattern with the next values from the {@link InitCounter}.
+   *
+   * @param s The pattern to convert.
+   * @param counter The {@link InitCounter} holding the state of the current session.
+   * @return The converted pattern.
+   */
+  public String convert(String s, InitCounter counter) {
+    return InitPattern.compile(s).apply(counter);
+  }
 
-      substring = substring.substring(index + 2);
-      index = substring.indexOf("%");
-    }
-    return parameters.toArray();
+  /**
+   * Fills in the placeholders of the precompiled pattern from the {@link InitValue} with the next values from the {@link InitCounter}.
+   *
+   * @param value The {@link InitValue} to convert.
+   * @param counter The {@link InitCounter} holding the state of the current session.
+   * @return The converted value.
+   */
+  public String convert(InitValue value, InitCounter counter) {
+    return value.getPattern().apply(counter);
   }
 
 }
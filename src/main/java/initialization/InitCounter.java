@@ -0,0 +1,90 @@
+/*
+ * Copyright 2019 by Daan van den Heuvel.
+ *
+ * This file is part of JavaForger.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package initialization;
+
+/**
+ * Holds the state for generating distinct initialization values within a single session, typically the initialization of a single class. Each session should
+ * use its own {@link InitCounter} so that the generated values are predictable, also when multiple classes are initialized in parallel. This class is not
+ * thread safe.
+ *
+ * @author Daan
+ */
+public class InitCounter {
+
+  private int i = 1;
+  private char c = 'a';
+  private final StringBuilder builder = new StringBuilder();
+
+  /**
+   * @return The next integer, starting at 1.
+   */
+  public int nextInt() {
+    return i++;
+  }
+
+  /**
+   * @return The next character, starting at 'a'.
+   */
+  public char nextChar() {
+    char next = c;
+    c = (char) (c + 1);
+    return next;
+  }
+
+  /**
+   * Resets the initialization values to the first possible value.
+   */
+  public void reset() {
+    i = 1;
+    c = 'a';
+  }
+
+  /**
+   * @return The integer that will be returned by the next call to {@link InitCounter#nextInt()}.
+   */
+  int peekInt() {
+    return i;
+  }
+
+  /**
+   * @return The character that will be returned by the next call to {@link InitCounter#nextChar()}.
+   */
+  char peekChar() {
+    return c;
+  }
+
+  /**
+   * Advances this counter as if {@link InitCounter#nextInt()} and {@link InitCounter#nextChar()} were called the given number of times.
+   *
+   * @param ints The number of integers to skip.
+   * @param chars The number of characters to skip.
+   */
+  void advance(int ints, int chars) {
+    i += ints;
+    c = (char) (c + chars);
+  }
+
+  /**
+   * @return An empty {@link StringBuilder} that is reused by every call to this method.
+   */
+  StringBuilder builder() {
+    builder.setLength(0);
+    return builder;
+  }
+
+}
@@ -0,0 +1,119 @@
+/*
+ * Copyright 2019 by Daan van den Heuvel.
+ *
+ * This file is part of JavaForger.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package initialization;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import generator.JavaForgerException;
+
+/**
+ * Compiled form of a pattern from an {@link InitValue}. The pattern is split once into literal parts and placeholders, so that filling it in only requires
+ * appending to a {@link StringBuilder}. Supported placeholders are '%d' which is replaced by {@link InitCounter#nextInt()} and '%s' which is replaced by
+ * {@link InitCounter#nextChar()}. Instances are immutable and can be shared between threads.
+ *
+ * @author Daan
+ */
+public final class InitPattern {
+
+  private static final char NUMBER = 'd';
+  private static final char CHARACTER = 's';
+
+  private final String pattern;
+  /** The literal parts of the pattern, the literal with index i is placed directly before placeholder i. The last literal comes after all placeholders. */
+  private final String[] literals;
+  private final char[] placeholders;
+
+  private InitPattern(String pattern, String[] literals, char[] placeholders) {
+    this.pattern = pattern;
+    this.literals = literals;
+    this.placeholders = placeholders;
+  }
+
+  /**
+   * Compiles the given pattern.
+   *
+   * @param pattern The pattern containing zero or more placeholders.
+   * @return The compiled {@link InitPattern}.
+   * @throws JavaForgerException if the pattern contains an unsupported placeholder.
+   */
+  public static InitPattern compile(String pattern) {
+    List<String> literals = new ArrayList<>();
+    StringBuilder placeholders = new StringBuilder();
+    int start = 0;
+    int index = pattern.indexOf('%');
+    while (index >= 0) {
+      char type = index + 1 < pattern.length() ? pattern.charAt(index + 1) : ' ';
+      if (type != NUMBER && type != CHARACTER) {
+        throw new JavaForgerException("type " + type + " is not supported in pattern " + pattern);
+      }
+      literals.add(pattern.substring(start, index));
+      placeholders.append(type);
+      start = index + 2;
+      index = pattern.indexOf('%', start);
+    }
+    literals.add(pattern.substring(start));
+    return new InitPattern(pattern, literals.toArray(new String[0]), placeholders.toString().toCharArray());
+  }
+
+  /**
+   * Appends this pattern to the {@link StringBuilder}, filling in the placeholders with the next values from the counter.
+   *
+   * @param sb The {@link StringBuilder} to append to.
+   * @param counter The {@link InitCounter} providing the values for the placeholders.
+   */
+  public void appendTo(StringBuilder sb, InitCounter counter) {
+    for (int i = 0; i < placeholders.length; i++) {
+      sb.append(literals[i]);
+      if (placeholders[i] == NUMBER) {
+        sb.append(counter.nextInt());
+      } else {
+        sb.append(counter.nextChar());
+      }
+    }
+    sb.append(literals[placeholders.length]);
+  }
+
+  /**
+   * Fills in this pattern with the next values from the counter.
+   *
+   * @param counter The {@link InitCounter} providing the values for the placeholders.
+   * @return The filled in pattern.
+   */
+  public String apply(InitCounter counter) {
+    if (placeholders.length == 0) {
+      return pattern;
+    }
+    StringBuilder sb = counter.builder();
+    appendTo(sb, counter);
+    return sb.toString();
+  }
+
+  /**
+   * @return True if this pattern contains placeholders, false otherwise.
+   */
+  public boolean hasPlaceholders() {
+    return placeholders.length > 0;
+  }
+
+  @Override
+  public String toString() {
+    return pattern;
+  }
+
+}
@@ -30,6 +30,8 @@ import java.util.List;
 public class InitValue {
 
   private final String value;
+  /** The compiled form of the value, so that placeholders do not have to be searched for every initialized variable. */
+  private final InitPattern pattern;
   private final List<String> imports = new ArrayList<>();
 
   /**
@@ -40,6 +42,7 @@ public class InitValue {
    */
   public InitValue(String value, String... imports) {
     this.value = value;
+    this.pattern = InitPattern.compile(value);
     this.imports.addAll(Arrays.asList(imports));
   }
 
@@ -50,14 +53,24 @@ public class InitValue {
    */
   public InitValue(String value) {
     this.value = value;
+    this.pattern = InitPattern.compile(value);
   }
 
   public String getValue() {
     return value;
   }
 
+  public InitPattern getPattern() {
+    return pattern;
+  }
+
   public List<String> getImports() {
     return Collections.unmodifiableList(imports);
   }
 
+  @Override
+  public String toString() {
+    return imports.isEmpty() ? value : value + " " + imports;
+  }
+
 }
@@ -17,10 +17,9 @@
  */
 package initialization;
 
-import java.util.ArrayList;
 import java.util.List;
-import java.util.stream.Collectors;
 
+import initialization.ParsedTypeCache.InitResult;
 import templateInput.ClassContainer;
 import templateInput.definition.InitializedTypeDefinition;
 import templateInput.definition.MethodDefinition;
@@ -33,164 +32,53 @@ import templateInput.definition.VariableDefinition;
  */
 public class InitializationService {
 
-  private InitDefaultValues defaults = new InitDefaultValues();
-  private InitConverter converter = new InitConverter();
+  private final ParsedTypeCache cache;
 
-  public void init(ClassContainer claz) {
-    converter.reset();
-    initVariables(claz.getFields());
-    initMethods(claz.getMethods());
-    initMethods(claz.getConstructors());
-  }
-
-  public void init(InitializedTypeDefinition var) {
-    converter.reset();
-    initialize(var);
-  }
-
-  private void initialize(InitializedTypeDefinition var) {
-    if (defaults.containsDefaultValue(var.getType().toString())) {
-      setDefaultInit1(var);
-      setDefaultInit2(var);
-      setNoInit(var);
-    } else if (var.getType().toString().contains("<")) {
-      initParameterized(var);
-    } else {
-      // TODO the stuff below should be replaced by a call to the Generator with a custom "builderUsage.javat" file defining the start and end of a builder.
-      String init = var.getType() + ".builder().build()";
-      var.setInit1(init);
-      var.setInit2(init);
-      var.setNoInit(defaults.getNoInitFor(var.getType().toString()));
-    }
-    var.setDefaultInit(defaults.containsEmptyInit(var.getTypeWithoutParameters()) ? defaults.getEmptyInit(var.getTypeWithoutParameters()).getValue() : null);
-    var.setCollection(defaults.isCollection(var.getTypeWithoutParameters()));
+  public InitializationService() {
+    this(TypeDefaultRegistry.getDefault());
   }
 
-  private void initMethods(List<? extends MethodDefinition> methods) {
-    methods.forEach(this::initialize);
-    methods.forEach(m -> initVariables(m.getParameters()));
-    methods.forEach(t -> t.getInputMethods().forEach(this::initialize));
-    methods.forEach(t -> t.getOutputMethods().forEach(this::initialize));
-  }
-
-  private void initVariables(List<? extends VariableDefinition> list) {
-    list.stream().forEach(this::initialize);
-  }
-
-  private void setNoInit(InitializedTypeDefinition var) {
-    if (defaults.containsTestNoInit(var.getType().toString())) {
-      InitValue value = defaults.getTestNoInit(var.getType().toString());
-      var.setNoInit(value.getValue());
-      var.addInitImports(value.getImports());
-    } else {
-      var.setNoInit("null");
-    }
+  /**
+   * Constructor for {@link InitializationService} using custom defaults.
+   *
+   * @param registry The {@link TypeDefaultRegistry} containing the defaults for initializing types.
+   */
+  public InitializationService(TypeDefaultRegistry registry) {
+    this.cache = new ParsedTypeCache(registry, new InitConverter());
   }
 
-  private void setDefaultInit1(InitializedTypeDefinition var) {
-    if (defaults.containsDefaultValue(var.getType().toString())) {
-      InitValue value = defaults.getDefaultValue1(var.getType().toString());
-      var.setInit1(converter.convert(value.getValue()));
-      var.addInitImports(value.getImports());
-    }
+  public void init(ClassContainer claz) {
+    InitCounter counter = new InitCounter();
+    initVariables(claz.getFields(), counter);
+    initMethods(claz.getMethods(), counter);
+    initMethods(claz.getConstructors(), counter);
+    initVariables(claz.getInheritedFields(), counter);
+    initMethods(claz.getInheritedMethods(), counter);
   }
 
-  private void setDefaultInit2(InitializedTypeDefinition var) {
-    if (defaults.containsDefaultValue(var.getType().toString())) {
-      InitValue value = defaults.getDefaultValue2(var.getType().toString());
-      var.setInit2(converter.convert(value.getValue()));
-      var.addInitImports(value.getImports());
-    }
+  public void init(InitializedTypeDefinition var) {
+    initialize(var, new InitCounter());
   }
 
-  private void initParameterized(InitializedTypeDefinition var) {
-    String mainType = var.getTypeWithoutParameters();
-    StringBuilder sb1 = new StringBuilder();
-    StringBuilder sb2 = new StringBuilder();
-    if (defaults.isParameterizedVariable(mainType)) {
-      InitValue value = defaults.getParameterizedVariable(mainType);
-      sb1.append(value.getValue());
-      sb2.append(value.getValue());
-      var.addInitImports(value.getImports());
-      List<VariableDefinition> subTypes = getSubTypes(var);
-
-      String init1 = subTypes.stream().map(VariableDefinition::getInit1).collect(Collectors.joining(", "));
-      String init2 = subTypes.stream().map(VariableDefinition::getInit2).collect(Collectors.joining(", "));
-
-      sb1.append(init1 + ")");
-      sb2.append(init2 + ")");
-
-      subTypes.stream().forEach(v -> var.addInitImports(v.getInitImports()));
-
-    } else {
-      sb1.append(mainType + ".builder().build()");
-      sb2.append(mainType + ".builder().build()");
-    }
-    var.setInit1(sb1.toString());
-    var.setInit2(sb2.toString());
-    var.setNoInit(defaults.getNoInitFor(mainType));
+  private void initialize(InitializedTypeDefinition var, InitCounter counter) {
+    InitResult result = cache.init(var.getType().toString(), counter);
+    var.setInit1(result.getInit1());
+    var.setInit2(result.getInit2());
+    var.setNoInit(result.getNoInit());
+    var.addInitImports(result.getImports());
+    var.setDefaultInit(result.getDefaultInit());
+    var.setCollection(result.isCollection());
   }
 
-  private List<VariableDefinition> getSubTypes(InitializedTypeDefinition var) {
-    int indexOf = var.getType().toString().indexOf("<");
-    String subString = var.getType().toString().substring(indexOf + 1, var.getType().toString().length() - 1);
-    List<String> subVariableTypes = splitSubTypes(subString);
-    List<VariableDefinition> subTypes =
-        subVariableTypes.stream().map(subType -> VariableDefinition.builder().type(subType).build()).collect(Collectors.toList());
-    // This is a recursive call, to the caller
-    subTypes.forEach(subVar -> initialize(subVar));
-    return subTypes;
+  private void initMethods(List<? extends MethodDefinition> methods, InitCounter counter) {
+    methods.forEach(m -> initialize(m, counter));
+    methods.forEach(m -> initVariables(m.getParameters(), counter));
+    methods.forEach(t -> t.getInputMethods().forEach(m -> initialize(m, counter)));
+    methods.forEach(t -> t.getOutputMethods().forEach(m -> initialize(m, counter)));
   }
 
-  /**
-   * This method receives the inner type of a parmeterized type (e.g. 'InnerType1, ? extends InnerType2' which originates from 'ParameterizedType<InnerType1, ?
-   * extends InnerType2>'). All comma-seperated types are then split into subStrings and returned. This method does not split any inner parameterized types,
-   * this should be done by recursively calling this method on inner types.
-   *
-   * @param type The comma-separated inner type of a parameterized type.
-   * @return
-   */
-  private List<String> splitSubTypes(String type) {
-    List<String> subVariableTypes = new ArrayList<>();
-    int withinBrackets = 0;
-    StringBuilder currentVar = new StringBuilder();
-
-    for (char c : type.toCharArray()) {
-      if (withinBrackets > 0) {
-        currentVar.append(c);
-        if (c == '>') {
-          withinBrackets--;
-          if (withinBrackets <= 0) {
-            subVariableTypes.add(currentVar.toString());
-            currentVar = new StringBuilder();
-          }
-        }
-      } else if (c == '<') {
-        currentVar.append(c);
-        withinBrackets++;
-      } else if (Character.isLetter(c) || Character.isDigit(c)) {
-        currentVar.append(c);
-      } else if (c == '?') {
-        // This has to be added so that the if statement checking 'extends' can safely remove it.
-        subVariableTypes.add("?");
-      } else if (currentVar.length() > 0) {
-        String current = currentVar.toString();
-        if (current.equals("extends")) {
-          // We do not want to store extends
-          // If this variable is the keyword extends, then the previous variable does not define a type
-          subVariableTypes.remove(subVariableTypes.size() - 1);
-          currentVar = new StringBuilder();
-        } else {
-          subVariableTypes.add(current);
-          currentVar = new StringBuilder();
-        }
-      }
-    }
-
-    if (currentVar.length() > 0) {
-      subVariableTypes.add(currentVar.toString());
-    }
-    return subVariableTypes;
+  private void initVariables(List<? extends VariableDefinition> list, InitCounter counter) {
+    list.stream().forEach(v -> initialize(v, counter));
   }
 
 }
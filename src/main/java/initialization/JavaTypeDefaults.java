@@ -0,0 +1,119 @@
+/*
+ * Copyright 2019 by Daan van den Heuvel.
+ *
+ * This file is part of JavaForger.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package initialization;
+
+/**
+ * {@link TypeDefaultProvider} containing the defaults for common java types.
+ *
+ * @author Daan
+ */
+public class JavaTypeDefaults implements TypeDefaultProvider {
+
+  @Override
+  public void register(TypeDefaultRegistry.Builder registry) {
+    registerDefaults(registry);
+    registerEmptyInit(registry);
+    registerNoInit(registry);
+    registerParameterized(registry);
+    registerCollections(registry);
+  }
+
+  private void registerDefaults(TypeDefaultRegistry.Builder registry) {
+    registry.type("int").init("%d");
+    registry.type("Integer").init("%d");
+    registry.type("boolean").init1("true").init2("false");
+    registry.type("Boolean").init1("false").init2("true");
+    registry.type("long").init("%dL");
+    registry.type("Long").init("%dL");
+    registry.type("double").init("%d.%d");
+    registry.type("Double").init("%d.%d");
+    registry.type("float").init("%d.%d");
+    registry.type("Float").init("%d.%d");
+    registry.type("String").init("\"%s\"");
+    registry.type("Object").init("new Object()");
+
+    // Special ones
+    // TODO The init2 needs to be removed at some point since we now have the InitConverter. But we have to come up with a solution for Date because the
+    // random numbers need to be modulo 12 (months), 24 (hours), 60 (minutes)
+    registry.type("LocalDateTime").init1("LocalDateTime.of(%d, 3, 25, 0, 0)").init2("LocalDateTime.of(%d, 4, 26, 1, 1)");
+    registry.type("BigDecimal").init("BigDecimal.valueOf(%d)", "java.math.BigDecimal");
+    registry.type("ZonedDateTime")
+        .init1("ZonedDateTime.of(%d, 4, 25, 10, 0, 0, 0, TimeZone.getTimeZone(\"UTC\").toZoneId())", "java.time.ZonedDateTime", "java.util.TimeZone")
+        .init2("ZonedDateTime.of(%d, 5, 26, 11, 0, 0, 0, TimeZone.getTimeZone(\"UTC\").toZoneId())", "java.time.ZonedDateTime", "java.util.TimeZone");
+    registry.type("Date")
+        .init1("Date.from(ZonedDateTime.of(%d, 4, 25, 10, 0, 0, 0, TimeZone.getTimeZone(\"UTC\").toZoneId()).toInstant())", "java.time.ZonedDateTime",
+            "java.util.TimeZone")
+        .init2("Date.from(ZonedDateTime.of(%d, 5, 26, 11, 0, 0, 0, TimeZone.getTimeZone(\"UTC\").toZoneId()).toInstant())", "java.time.ZonedDateTime",
+            "java.util.TimeZone");
+    registry.type("Length").init1("SI.METER", "javax.measure.unit.SI").init2("SI.KILOMETER", "javax.measure.unit.SI");
+    registry.type("Volume").init("SI.CUBIC_METRE", "javax.measure.unit.SI"); // no alternative
+    registry.type("Mass").init("SI.KILOGRAM", "javax.measure.unit.SI");
+    registry.type("Duration").init("Duration.ofDays(%d);", " java.time.Duration");
+  }
+
+  private void registerEmptyInit(TypeDefaultRegistry.Builder registry) {
+    registry.type("Collection").emptyInit("new ArrayList<>()");
+    registry.type("Optional").emptyInit("Optional.empty()");
+    registry.type("List").emptyInit("new ArrayList<>()");
+    registry.type("HashMap").emptyInit("new HashMap<>()", "java.util.HashMap");
+    registry.type("Map").emptyInit("new HashMap<>()", "java.util.HashMap");
+    registry.type("Set").emptyInit("new HashSet<>()", "java.util.HashSet");
+    registry.type("HashSet").emptyInit("new HashSet<>()", "java.util.HashSet");
+    registry.type("ArrayListValuedHashMap").emptyInit("new ArrayListValuedHashMap<>()");
+  }
+
+  private void registerNoInit(TypeDefaultRegistry.Builder registry) {
+    registry.type("int").noInit("0");
+    registry.type("boolean").noInit("false");
+    registry.type("long").noInit("0L");
+    registry.type("double").noInit("0.0");
+    registry.type("float").noInit("0.0");
+    registry.type("Optional").noInit("Optional.empty()");
+    registry.type("Collection").noInit("Collections.emptyList()", "java.util.Collections");
+    registry.type("List").noInit("Collections.emptyList()", "java.util.Collections");
+    registry.type("ArrayList").noInit("Collections.emptyList()", "java.util.Collections");
+    registry.type("HashMap").noInit("Collections.emptyMap()", "java.util.Collections");
+    registry.type("Map").noInit("Collections.emptyMap()", "java.util.Collections");
+    registry.type("Set").noInit("Collections.emptySet()", "java.util.Collections");
+    registry.type("HashSet").noInit("Collections.emptySet()", "java.util.Collections");
+  }
+
+  private void registerParameterized(TypeDefaultRegistry.Builder registry) {
+    registry.type("Collection").parameterized("Collections.singletonList(", "java.util.Collections");
+    registry.type("List").parameterized("Collections.singletonList(", "java.util.Collections");
+    // This will not compile, but better than creating a builder for it.
+    registry.type("ArrayList").parameterized("Collections.singletonList(", "java.util.Collections");
+    registry.type("Map").parameterized("Collections.singletonMap(", "java.util.Collections");
+    registry.type("HashMap").parameterized("Collections.singletonMap(", "java.util.Collections");
+    registry.type("Set").parameterized("Collections.singleton(", "java.util.Collections");
+    registry.type("HashSet").parameterized("Collections.singleton(", "java.util.Collections");
+    registry.type("ArrayListValuedHashMap").parameterized("new ArrayListValuedHashMap<>(");
+
+    // Special ones
+    registry.type("DecimalMeasure").parameterized("DecimalMeasure.valueOf(BigDecimal.TEN, ", "java.math.BigDecimal");
+  }
+
+  private void registerCollections(TypeDefaultRegistry.Builder registry) {
+    registry.type("List").collection(true);
+    registry.type("ArrayList").collection(true);
+    registry.type("Set").collection(true);
+    registry.type("HashSet").collection(true);
+    registry.type("Collection").collection(true);
+  }
+
+}
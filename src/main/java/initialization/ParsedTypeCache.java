@@ -0,0 +1,358 @@
+/*
+ * Copyright 2019 by Daan van den Heuvel.
+ *
+ * This file is part of JavaForger.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package initialization;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+
+/**
+ * Cache for initializing types as written in java code. The decomposition of a type into its parameterized sub types is done once per type string and stored
+ * as a tree of {@link ParsedType}s. The init expressions and imports computed for a type are stored per type string and counter position, so that
+ * initializing the same type starting at the same {@link InitCounter} position reuses the earlier result. This class is thread safe.
+ *
+ * @author Daan
+ */
+class ParsedTypeCache {
+
+  /** The maximum number of cached {@link InitResult}s, the cache is cleared when it grows beyond this size. */
+  static final int MAX_RESULTS = 10_000;
+
+  private final TypeDefaultRegistry registry;
+  private final InitConverter converter;
+  private final Map<String, ParsedType> types = new ConcurrentHashMap<>();
+  private final Map<ResultKey, InitResult> results = new ConcurrentHashMap<>();
+
+  ParsedTypeCache(TypeDefaultRegistry registry, InitConverter converter) {
+    this.registry = registry;
+    this.converter = converter;
+  }
+
+  /**
+   * Initializes the given type, the counter is advanced exactly as much as it would have been without this cache.
+   *
+   * @param type The type as written in java code.
+   * @param counter The {@link InitCounter} for the current initialization session.
+   * @return The {@link InitResult} for the given type.
+   */
+  InitResult init(String type, InitCounter counter) {
+    return init(getParsedType(type), counter);
+  }
+
+  /**
+   * @param type The type as written in java code.
+   * @return The decomposed {@link ParsedType}, which is parsed on the first call for the type string.
+   */
+  ParsedType getParsedType(String type) {
+    ParsedType parsed = types.get(type);
+    if (parsed == null) {
+      // Not using computeIfAbsent, because parsing recursively adds the sub types to the same map.
+      parsed = parse(type);
+      ParsedType existing = types.putIfAbsent(type, parsed);
+      parsed = existing == null ? parsed : existing;
+    }
+    return parsed;
+  }
+
+  int size() {
+    return results.size();
+  }
+
+  void clear() {
+    types.clear();
+    results.clear();
+  }
+
+  private InitResult init(ParsedType type, InitCounter counter) {
+    ResultKey key = new ResultKey(type.getType(), counter.peekInt(), counter.peekChar());
+    InitResult result = results.get(key);
+    if (result != null) {
+      counter.advance(result.getInts(), result.getChars());
+    } else {
+      result = compute(type, counter, key);
+      if (results.size() >= MAX_RESULTS) {
+        results.clear();
+      }
+      results.put(key, result);
+    }
+    return result;
+  }
+
+  private InitResult compute(ParsedType type, InitCounter counter, ResultKey start) {
+    TypeDefault typeDefault = type.getTypeDefault();
+    TypeDefault mainTypeDefault = type.getMainTypeDefault();
+    Set<String> imports = new LinkedHashSet<>();
+    String init1;
+    String init2;
+    String noInit;
+    if (typeDefault != null && typeDefault.hasInit()) {
+      init1 = converter.convert(typeDefault.getInit1(), counter);
+      imports.addAll(typeDefault.getInit1().getImports());
+      init2 = converter.convert(typeDefault.getInit2(), counter);
+      imports.addAll(typeDefault.getInit2().getImports());
+      InitValue value = typeDefault.getNoInit();
+      if (value != null) {
+        noInit = value.getValue();
+        imports.addAll(value.getImports());
+      } else {
+        noInit = "null";
+      }
+    } else if (type.isParameterized()) {
+      if (mainTypeDefault != null && mainTypeDefault.getParameterized() != null) {
+        InitValue value = mainTypeDefault.getParameterized();
+        imports.addAll(value.getImports());
+        // This is a recursive call, to the caller
+        List<InitResult> subTypes = type.getSubTypes().stream().map(sub -> init(sub, counter)).collect(Collectors.toList());
+        init1 = subTypes.stream().map(InitResult::getInit1).collect(Collectors.joining(", ", value.getValue(), ")"));
+        init2 = subTypes.stream().map(InitResult::getInit2).collect(Collectors.joining(", ", value.getValue(), ")"));
+        subTypes.forEach(sub -> imports.addAll(sub.getImports()));
+      } else {
+        init1 = type.getMainType() + ".builder().build()";
+        init2 = init1;
+      }
+      noInit = mainTypeDefault == null ? "null" : mainTypeDefault.getNoInitValue();
+    } else {
+      // TODO the stuff below should be replaced by a call to the Generator with a custom "builderUsage.javat" file defining the start and end of a builder.
+      init1 = type.getType() + ".builder().build()";
+      init2 = init1;
+      noInit = typeDefault == null ? "null" : typeDefault.getNoInitValue();
+    }
+    String defaultInit = mainTypeDefault != null && mainTypeDefault.getEmptyInit() != null ? mainTypeDefault.getEmptyInit().getValue() : null;
+    boolean collection = mainTypeDefault != null && mainTypeDefault.isCollection();
+    int ints = counter.peekInt() - start.getInt();
+    int chars = counter.peekChar() - start.getChar();
+    return new InitResult(init1, init2, noInit, defaultInit, collection, Collections.unmodifiableSet(imports), ints, chars);
+  }
+
+  private ParsedType parse(String type) {
+    String mainType = getTypeWithoutParameters(type);
+    TypeDefault typeDefault = registry.get(type);
+    TypeDefault mainTypeDefault = type.equals(mainType) ? typeDefault : registry.get(mainType);
+    boolean parameterized = type.contains("<");
+    List<ParsedType> subTypes = Collections.emptyList();
+    if (parameterized && (typeDefault == null || !typeDefault.hasInit()) && mainTypeDefault != null && mainTypeDefault.getParameterized() != null) {
+      int indexOf = type.indexOf("<");
+      String subString = type.substring(indexOf + 1, type.length() - 1);
+      subTypes = Collections.unmodifiableList(splitSubTypes(subString).stream().map(this::getParsedType).collect(Collectors.toList()));
+    }
+    return new ParsedType(type, mainType, typeDefault, mainTypeDefault, parameterized, subTypes);
+  }
+
+  private static String getTypeWithoutParameters(String type) {
+    int indexOf = type.indexOf("<");
+    indexOf = indexOf < 1 ? type.length() : indexOf;
+    return type.substring(0, indexOf);
+  }
+
+  /**
+   * This method receives the inner type of a parmeterized type (e.g. 'InnerType1, ? extends InnerType2' which originates from 'ParameterizedType<InnerType1, ?
+   * extends InnerType2>'). All comma-seperated types are then split into subStrings and returned. This method does not split any inner parameterized types,
+   * this should be done by recursively calling this method on inner types.
+   *
+   * @param type The comma-separated inner type of a parameterized type.
+   * @return
+   */
+  static List<String> splitSubTypes(String type) {
+    List<String> subVariableTypes = new ArrayList<>();
+    int withinBrackets = 0;
+    StringBuilder currentVar = new StringBuilder();
+
+    for (char c : type.toCharArray()) {
+      if (withinBrackets > 0) {
+        currentVar.append(c);
+        if (c == '>') {
+          withinBrackets--;
+          if (withinBrackets <= 0) {
+            subVariableTypes.add(currentVar.toString());
+            currentVar = new StringBuilder();
+          }
+        }
+      } else if (c == '<') {
+        currentVar.append(c);
+        withinBrackets++;
+      } else if (Character.isLetter(c) || Character.isDigit(c)) {
+        currentVar.append(c);
+      } else if (c == '?') {
+        // This has to be added so that the if statement checking 'extends' can safely remove it.
+        subVariableTypes.add("?");
+      } else if (currentVar.length() > 0) {
+        String current = currentVar.toString();
+        if (current.equals("extends")) {
+          // We do not want to store extends
+          // If this variable is the keyword extends, then the previous variable does not define a type
+          subVariableTypes.remove(subVariableTypes.size() - 1);
+          currentVar = new StringBuilder();
+        } else {
+          subVariableTypes.add(current);
+          currentVar = new StringBuilder();
+        }
+      }
+    }
+
+    if (currentVar.length() > 0) {
+      subVariableTypes.add(currentVar.toString());
+    }
+    return subVariableTypes;
+  }
+
+  /**
+   * Immutable node of a decomposed type, containing the {@link TypeDefault}s that apply to it and its parameterized sub types.
+   */
+  static final class ParsedType {
+    private final String type;
+    private final String mainType;
+    private final TypeDefault typeDefault;
+    private final TypeDefault mainTypeDefault;
+    private final boolean parameterized;
+    private final List<ParsedType> subTypes;
+
+    private ParsedType(String type, String mainType, TypeDefault typeDefault, TypeDefault mainTypeDefault, boolean parameterized, List<ParsedType> subTypes) {
+      this.type = type;
+      this.mainType = mainType;
+      this.typeDefault = typeDefault;
+      this.mainTypeDefault = mainTypeDefault;
+      this.parameterized = parameterized;
+      this.subTypes = subTypes;
+    }
+
+    public String getType() {
+      return type;
+    }
+
+    public String getMainType() {
+      return mainType;
+    }
+
+    public TypeDefault getTypeDefault() {
+      return typeDefault;
+    }
+
+    public TypeDefault getMainTypeDefault() {
+      return mainTypeDefault;
+    }
+
+    public boolean isParameterized() {
+      return parameterized;
+    }
+
+    public List<ParsedType> getSubTypes() {
+      return subTypes;
+    }
+  }
+
+  /**
+   * Immutable result of initializing a type, including how far the {@link InitCounter} was advanced to compute it.
+   */
+  static final class InitResult {
+    private final String init1;
+    private final String init2;
+    private final String noInit;
+    private final String defaultInit;
+    private final boolean collection;
+    private final Set<String> imports;
+    private final int ints;
+    private final int chars;
+
+    private InitResult(String init1, String init2, String noInit, String defaultInit, boolean collection, Set<String> imports, int ints, int chars) {
+      this.init1 = init1;
+      this.init2 = init2;
+      this.noInit = noInit;
+      this.defaultInit = defaultInit;
+      this.collection = collection;
+      this.imports = imports;
+      this.ints = ints;
+      this.chars = chars;
+    }
+
+    public String getInit1() {
+      return init1;
+    }
+
+    public String getInit2() {
+      return init2;
+    }
+
+    public String getNoInit() {
+      return noInit;
+    }
+
+    public String getDefaultInit() {
+      return defaultInit;
+    }
+
+    public boolean isCollection() {
+      return collection;
+    }
+
+    public Set<String> getImports() {
+      return imports;
+    }
+
+    public int getInts() {
+      return ints;
+    }
+
+    public int getChars() {
+      return chars;
+    }
+  }
+
+  private static final class ResultKey {
+    private final String type;
+    private final int i;
+    private final char c;
+
+    private ResultKey(String type, int i, char c) {
+      this.type = type;
+      this.i = i;
+      this.c = c;
+    }
+
+    public int getInt() {
+      return i;
+    }
+
+    public char getChar() {
+      return c;
+    }
+
+    @Override
+    public int hashCode() {
+      return Objects.hash(type, i, c);
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+      if (this == obj) {
+        return true;
+      }
+      if (obj == null || getClass() != obj.getClass()) {
+        return false;
+      }
+      ResultKey other = (ResultKey) obj;
+      return i == other.i && c == other.c && type.equals(other.type);
+    }
+  }
+
+}
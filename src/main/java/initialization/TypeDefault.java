@@ -0,0 +1,218 @@
+/*
+ * Copyright 2019 by Daan van den Heuvel.
+ *
+ * This file is part of JavaForger.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package initialization;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import org.apache.commons.lang3.builder.ToStringBuilder;
+import org.apache.commons.lang3.builder.ToStringStyle;
+
+/**
+ * Immutable record containing all defaults for initializing a single java type inside a template. Retrieved from the {@link TypeDefaultRegistry}.
+ *
+ * @author Daan
+ */
+public final class TypeDefault {
+
+  private final String type;
+  /** The first value that can be used to initialize the type. */
+  private final InitValue init1;
+  /** The second value that can be used to initialize the type. This value is different from init1. */
+  private final InitValue init2;
+  /** The value to be used when testing if a variable of this type is not initialized. */
+  private final InitValue noInit;
+  /** The default initialization for a field of this type, especially used for initializing collections. */
+  private final InitValue emptyInit;
+  /** The start of the initialization of a parameterized type, the initialized parameters and a closing bracket are appended to it. */
+  private final InitValue parameterized;
+  private final boolean collection;
+
+  private TypeDefault(Builder builder) {
+    this.type = builder.type;
+    this.init1 = builder.init1;
+    this.init2 = builder.init2;
+    this.noInit = builder.noInit;
+    this.emptyInit = builder.emptyInit;
+    this.parameterized = builder.parameterized;
+    this.collection = builder.collection;
+  }
+
+  public String getType() {
+    return type;
+  }
+
+  /**
+   * @return True if this type can be initialized directly with {@link TypeDefault#getInit1()} and {@link TypeDefault#getInit2()}.
+   */
+  public boolean hasInit() {
+    return init1 != null;
+  }
+
+  public InitValue getInit1() {
+    return init1;
+  }
+
+  public InitValue getInit2() {
+    return init2;
+  }
+
+  public InitValue getNoInit() {
+    return noInit;
+  }
+
+  /**
+   * @return The value from {@link TypeDefault#getNoInit()} or "null" if it was not defined.
+   */
+  public String getNoInitValue() {
+    return noInit == null ? "null" : noInit.getValue();
+  }
+
+  public InitValue getEmptyInit() {
+    return emptyInit;
+  }
+
+  public InitValue getParameterized() {
+    return parameterized;
+  }
+
+  public boolean isCollection() {
+    return collection;
+  }
+
+  /**
+   * @return All imports required by any of the values within this {@link TypeDefault}, in a consistent order.
+   */
+  public Set<String> getImports() {
+    Set<String> imports = Stream.of(init1, init2, noInit, emptyInit, parameterized).filter(v -> v != null).map(InitValue::getImports)
+        .flatMap(List::stream).collect(Collectors.toCollection(LinkedHashSet::new));
+    return Collections.unmodifiableSet(imports);
+  }
+
+  @Override
+  public String toString() {
+    return new ToStringBuilder(this, ToStringStyle.SHORT_PREFIX_STYLE).append("type", type).append("init1", init1).append("init2", init2)
+        .append("noInit", noInit).append("emptyInit", emptyInit).append("parameterized", parameterized).append("collection", collection).build();
+  }
+
+  /**
+   * Creates builder to build {@link TypeDefault}.
+   *
+   * @param type The type for which the defaults are defined.
+   * @return created builder
+   */
+  public static Builder builder(String type) {
+    return new Builder(type);
+  }
+
+  /**
+   * Builder to build {@link TypeDefault}. Setting a value that was already set will override it, so that user defined defaults can replace the java defaults.
+   */
+  public static final class Builder {
+    private final String type;
+    private InitValue init1;
+    private InitValue init2;
+    private InitValue noInit;
+    private InitValue emptyInit;
+    private InitValue parameterized;
+    private boolean collection;
+
+    private Builder(String type) {
+      this.type = type;
+    }
+
+    /**
+     * Sets both init values to the same pattern, the values will still be distinct if the pattern contains placeholders. See {@link InitPattern}.
+     *
+     * @param value {@link TypeDefault#init1} and {@link TypeDefault#init2}
+     * @param imports The imports required for the value.
+     * @return this builder
+     */
+    public Builder init(String value, String... imports) {
+      return init1(value, imports).init2(value, imports);
+    }
+
+    public Builder init1(String value, String... imports) {
+      return init1(new InitValue(value, imports));
+    }
+
+    public Builder init2(String value, String... imports) {
+      return init2(new InitValue(value, imports));
+    }
+
+    public Builder init1(InitValue init1) {
+      this.init1 = init1;
+      return this;
+    }
+
+    public Builder init2(InitValue init2) {
+      this.init2 = init2;
+      return this;
+    }
+
+    public Builder noInit(String value, String... imports) {
+      this.noInit = new InitValue(value, imports);
+      return this;
+    }
+
+    public Builder emptyInit(String value, String... imports) {
+      this.emptyInit = new InitValue(value, imports);
+      return this;
+    }
+
+    public Builder parameterized(String value, String... imports) {
+      this.parameterized = new InitValue(value, imports);
+      return this;
+    }
+
+    public Builder collection(boolean collection) {
+      this.collection = collection;
+      return this;
+    }
+
+    public Builder imports(String... imports) {
+      this.init1 = withImports(init1, imports);
+      this.init2 = withImports(init2, imports);
+      this.noInit = withImports(noInit, imports);
+      this.emptyInit = withImports(emptyInit, imports);
+      this.parameterized = withImports(parameterized, imports);
+      return this;
+    }
+
+    public TypeDefault build() {
+      if (init1 != null && init2 == null) {
+        init2 = init1;
+      }
+      return new TypeDefault(this);
+    }
+
+    private InitValue withImports(InitValue value, String... imports) {
+      if (value == null) {
+        return null;
+      }
+      String[] all = Stream.concat(value.getImports().stream(), Arrays.stream(imports)).distinct().toArray(String[]::new);
+      return new InitValue(value.getValue(), all);
+    }
+  }
+
+}
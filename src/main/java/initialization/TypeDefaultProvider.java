@@ -0,0 +1,38 @@
+/*
+ * Copyright 2019 by Daan van den Heuvel.
+ *
+ * This file is part of JavaForger.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package initialization;
+
+import java.util.ServiceLoader;
+
+/**
+ * Provides {@link TypeDefault}s for the {@link TypeDefaultRegistry}. Custom providers can be registered via the {@link ServiceLoader} by listing the
+ * implementing class in a file named 'META-INF/services/initialization.TypeDefaultProvider' on the classpath. Providers are applied after the java defaults
+ * so that they can override them.
+ *
+ * @author Daan
+ */
+public interface TypeDefaultProvider {
+
+  /**
+   * Registers the defaults of this provider.
+   *
+   * @param registry The {@link TypeDefaultRegistry.Builder} to register the defaults to.
+   */
+  void register(TypeDefaultRegistry.Builder registry);
+
+}
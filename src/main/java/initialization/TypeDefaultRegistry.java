@@ -0,0 +1,256 @@
+/*
+ * Copyright 2019 by Daan van den Heuvel.
+ *
+ * This file is part of JavaForger.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package initialization;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.Reader;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Collections;
+import java.util.Enumeration;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Properties;
+import java.util.ServiceLoader;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import generator.JavaForgerException;
+
+/**
+ * Immutable registry of {@link TypeDefault}s, used to initialize variables inside templates. The registry is built once and can be shared between threads.
+ * The default registry contains the {@link JavaTypeDefaults}, extended with all {@link TypeDefaultProvider}s found via the {@link ServiceLoader} and all
+ * configuration files on the classpath located at {@link TypeDefaultRegistry#CONFIG_FILE}.
+ *
+ * @author Daan
+ */
+public final class TypeDefaultRegistry {
+  private static final Logger LOG = LoggerFactory.getLogger(TypeDefaultRegistry.class);
+
+  /**
+   * The location of configuration files on the classpath that are loaded into the default registry. A configuration file is a properties file with keys of the
+   * form 'type.property'. The supported properties are init1, init2, init (sets both init1 and init2), noInit, emptyInit, parameterized, collection and imports.
+   * The imports are a comma separated list that is added to all values defined for that type in the same file. For example:
+   *
+   * <pre>
+   * Money.init1=Money.of(%d)
+   * Money.init2=Money.of(%d)
+   * Money.imports=com.example.Money
+   * </pre>
+   */
+  public static final String CONFIG_FILE = "javaforger/typeDefaults.properties";
+
+  private final Map<String, TypeDefault> defaults;
+
+  private TypeDefaultRegistry(Map<String, TypeDefault> defaults) {
+    this.defaults = Collections.unmodifiableMap(defaults);
+  }
+
+  /**
+   * @return The default {@link TypeDefaultRegistry}, which is created the first time this method is called.
+   */
+  public static TypeDefaultRegistry getDefault() {
+    return DefaultHolder.INSTANCE;
+  }
+
+  /**
+   * Gets all defaults for the given type with a single lookup.
+   *
+   * @param type The type as written in java code, without package.
+   * @return The {@link TypeDefault} or null if no defaults are registered for the type.
+   */
+  public TypeDefault get(String type) {
+    return type == null ? null : defaults.get(type);
+  }
+
+  /**
+   * @return All registered {@link TypeDefault}s with the type as key.
+   */
+  public Map<String, TypeDefault> getAll() {
+    return defaults;
+  }
+
+  /**
+   * Creates an empty builder to build a {@link TypeDefaultRegistry}.
+   *
+   * @return created builder
+   */
+  public static Builder builder() {
+    return new Builder();
+  }
+
+  /**
+   * Creates a builder that is filled with the {@link JavaTypeDefaults}.
+   *
+   * @return created builder
+   */
+  public static Builder javaDefaults() {
+    return builder().add(new JavaTypeDefaults());
+  }
+
+  /**
+   * Lazily initialized holder for the default registry, the JVM guarantees this is thread safe.
+   */
+  private static final class DefaultHolder {
+    private static final TypeDefaultRegistry INSTANCE = javaDefaults().addServiceLoaderProviders().loadClasspathConfig().build();
+  }
+
+  /**
+   * Builder to build {@link TypeDefaultRegistry}. Not thread safe.
+   */
+  public static final class Builder {
+    private final Map<String, TypeDefault.Builder> types = new LinkedHashMap<>();
+
+    private Builder() {
+      // Make constructor visible
+    }
+
+    /**
+     * Gets the builder for the given type, so that its defaults can be added or overridden.
+     *
+     * @param type The type to define defaults for.
+     * @return The {@link TypeDefault.Builder} for the given type.
+     */
+    public TypeDefault.Builder type(String type) {
+      return types.computeIfAbsent(type, TypeDefault::builder);
+    }
+
+    public Builder add(TypeDefaultProvider provider) {
+      provider.register(this);
+      return this;
+    }
+
+    /**
+     * Adds all {@link TypeDefaultProvider}s registered via the {@link ServiceLoader}.
+     *
+     * @return this builder
+     */
+    public Builder addServiceLoaderProviders() {
+      ServiceLoader.load(TypeDefaultProvider.class).forEach(this::add);
+      return this;
+    }
+
+    /**
+     * Loads all configuration files found on the classpath at {@link TypeDefaultRegistry#CONFIG_FILE}.
+     *
+     * @return this builder
+     */
+    public Builder loadClasspathConfig() {
+      try {
+        Enumeration<URL> resources = TypeDefaultRegistry.class.getClassLoader().getResources(CONFIG_FILE);
+        while (resources.hasMoreElements()) {
+          URL url = resources.nextElement();
+          try (InputStream in = url.openStream()) {
+            Properties properties = new Properties();
+            properties.load(in);
+            load(properties);
+          }
+        }
+      } catch (IOException e) {
+        LOG.error("Could not load type defaults from {}: {}", CONFIG_FILE, e.getMessage());
+      }
+      return this;
+    }
+
+    /**
+     * Loads the configuration file at the given path, see {@link TypeDefaultRegistry#CONFIG_FILE} for the format.
+     *
+     * @param path The path to the properties file.
+     * @return this builder
+     * @throws IOException If the file could not be read.
+     */
+    public Builder load(Path path) throws IOException {
+      try (Reader reader = Files.newBufferedReader(path, StandardCharsets.UTF_8)) {
+        Properties properties = new Properties();
+        properties.load(reader);
+        load(properties);
+      }
+      return this;
+    }
+
+    /**
+     * Loads the defaults from the given properties, see {@link TypeDefaultRegistry#CONFIG_FILE} for the format.
+     *
+     * @param properties The properties to load.
+     * @return this builder
+     */
+    public Builder load(Properties properties) {
+      Map<String, String[]> imports = new HashMap<>();
+      for (String key : properties.stringPropertyNames()) {
+        if (key.endsWith(".imports")) {
+          String[] split = properties.getProperty(key).split(",");
+          for (int i = 0; i < split.length; i++) {
+            split[i] = split[i].trim();
+          }
+          imports.put(key.substring(0, key.lastIndexOf('.')), split);
+        }
+      }
+      for (String key : properties.stringPropertyNames()) {
+        int index = key.lastIndexOf('.');
+        if (index <= 0) {
+          throw new JavaForgerException("Invalid type default '" + key + "', expected the form 'type.property'");
+        }
+        String typeName = key.substring(0, index);
+        String property = key.substring(index + 1);
+        String value = properties.getProperty(key);
+        String[] typeImports = imports.getOrDefault(typeName, new String[0]);
+        TypeDefault.Builder type = type(typeName);
+        switch (property) {
+        case "init":
+          type.init(value, typeImports);
+          break;
+        case "init1":
+          type.init1(value, typeImports);
+          break;
+        case "init2":
+          type.init2(value, typeImports);
+          break;
+        case "noInit":
+          type.noInit(value, typeImports);
+          break;
+        case "emptyInit":
+          type.emptyInit(value, typeImports);
+          break;
+        case "parameterized":
+          type.parameterized(value, typeImports);
+          break;
+        case "collection":
+          type.collection(Boolean.parseBoolean(value.trim()));
+          break;
+        case "imports":
+          break;
+        default:
+          throw new JavaForgerException("Unsupported property '" + property + "' for type default '" + key + "'");
+        }
+      }
+      return this;
+    }
+
+    public TypeDefaultRegistry build() {
+      Map<String, TypeDefault> defaults = new HashMap<>();
+      types.forEach((name, builder) -> defaults.put(name, builder.build()));
+      return new TypeDefaultRegistry(defaults);
+    }
+  }
+
+}
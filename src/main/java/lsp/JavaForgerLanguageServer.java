@@ -0,0 +1,588 @@
+/*
+ * Copyright 2019 by Daan van den Heuvel.
+ *
+ * This file is part of JavaForger.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package lsp;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.github.javaparser.StaticJavaParser;
+import com.github.javaparser.ast.CompilationUnit;
+
+import configuration.DefaultConfigurations;
+import configuration.JavaForgerConfiguration;
+import configuration.StaticJavaForgerConfiguration;
+import freemarker.template.TemplateException;
+import generator.InMemoryGenerator;
+import generator.JavaForgerException;
+import reader.HierarchyIndex;
+
+/**
+ * Language server that makes JavaForger available within editors. It communicates over stdio using the Language Server Protocol and offers every registered
+ * {@link JavaForgerConfiguration} as code action on a java class. The {@link DefaultConfigurations} are registered by default. The result of a code action is
+ * a workspace edit that is computed in memory with the {@link InMemoryGenerator}, nothing is written to disk by the server itself. The text of open
+ * documents is kept up to date from change notifications, and parsed in the background after every change so that code actions can be computed directly.
+ * The edit is only computed for the action that is chosen: if the client supports resolving code actions it is computed on resolve, otherwise the action
+ * carries a command that computes the edit and sends it to the client with a workspace/applyEdit request. Only clients that support neither get the edits of
+ * all actions directly.
+ *
+ * @author Daan
+ */
+public class JavaForgerLanguageServer {
+  private static final Logger LOG = LoggerFactory.getLogger(JavaForgerLanguageServer.class);
+
+  static final String ACTION_KIND = "source.javaforger";
+  static final String COMMAND = "javaforger.generate";
+  private static final int METHOD_NOT_FOUND = -32601;
+  private static final int INTERNAL_ERROR = -32603;
+  private static final int SERVER_NOT_INITIALIZED = -32002;
+  /** Merging code for large classes recurses deeply through the parsed code, for instance over a toString concatenating all fields */
+  private static final long GENERATOR_STACK_SIZE = 64L * 1024 * 1024;
+
+  private final InputStream in;
+  private final OutputStream out;
+  private final Map<String, Supplier<JavaForgerConfiguration>> configurations = new LinkedHashMap<>();
+  private final Map<String, OpenDocument> documents = new ConcurrentHashMap<>();
+  private final ExecutorService parser = Executors.newSingleThreadExecutor(r -> {
+    Thread thread = new Thread(r, "JavaForger-LSP-parser");
+    thread.setDaemon(true);
+    return thread;
+  });
+  private final ExecutorService generation = Executors.newSingleThreadExecutor(r -> {
+    Thread thread = new Thread(null, r, "JavaForger-LSP-generator", GENERATOR_STACK_SIZE);
+    thread.setDaemon(true);
+    return thread;
+  });
+  private final InMemoryGenerator generator = new InMemoryGenerator();
+  private final AtomicLong requestIds = new AtomicLong();
+  private boolean initialized;
+  private boolean shutdown;
+  private boolean exit;
+  private boolean resolveSupport;
+  private boolean applyEditSupport;
+  private boolean documentChangesSupport;
+
+  /**
+   * Creates a new {@link JavaForgerLanguageServer} with all {@link DefaultConfigurations} registered.
+   *
+   * @param in The stream to read messages from the client from.
+   * @param out The stream to write messages to the client to.
+   */
+  public JavaForgerLanguageServer(InputStream in, OutputStream out) {
+    this.in = in;
+    this.out = out;
+    register("Generate equals", DefaultConfigurations::forEquals);
+    register("Generate equals and test", DefaultConfigurations::forEqualsAndTest);
+    register("Generate hashCode", DefaultConfigurations::forHashCode);
+    register("Generate hashCode and test", DefaultConfigurations::forHashCodeAndTest);
+    register("Generate toString", DefaultConfigurations::forToString);
+    register("Generate builder", DefaultConfigurations::forBuilder);
+    register("Generate builder and test", DefaultConfigurations::forBuilderAndTest);
+    register("Generate extendable builder and test", DefaultConfigurations::forExtendableBuilderAndTest);
+    register("Generate state-full class test", DefaultConfigurations::forStateFullClassTest);
+    register("Generate state-less class test", DefaultConfigurations::forStatelessClassTest);
+  }
+
+  /**
+   * Starts the server on stdio. Every argument is the name of a class with a public no-argument constructor that implements a {@link Supplier} of a map from
+   * code action title to {@link JavaForgerConfiguration}, for registering custom configurations. The supplier can also be used to setup the
+   * {@link configuration.StaticJavaForgerConfiguration}.
+   *
+   * @param args The names of the configuration suppliers.
+   */
+  public static void main(String[] args) {
+    PrintStream stdout = System.out;
+    // Anything else printed to stdout would corrupt the protocol
+    System.setOut(System.err);
+    JavaForgerLanguageServer server = new JavaForgerLanguageServer(System.in, stdout);
+    for (String supplierClass : args) {
+      for (Map.Entry<String, JavaForgerConfiguration> entry : createConfigurations(supplierClass).entrySet()) {
+        JavaForgerConfiguration config = entry.getValue();
+        server.register(entry.getKey(), () -> JavaForgerConfiguration.builder(config).build());
+      }
+    }
+    System.exit(server.run());
+  }
+
+  /**
+   * Registers a {@link JavaForgerConfiguration} as code action. A registered action with the same title is replaced.
+   *
+   * @param title The title of the code action.
+   * @param configuration Creates the {@link JavaForgerConfiguration} to execute when the code action is chosen.
+   */
+  public void register(String title, Supplier<JavaForgerConfiguration> configuration) {
+    configurations.put(title, configuration);
+  }
+
+  /**
+   * Handles messages until the client sends the exit notification or closes the stream.
+   *
+   * @return The exit code, 0 if the client requested a shutdown before exiting and 1 otherwise.
+   */
+  public int run() {
+    try {
+      String message;
+      while (!exit && (message = readMessage()) != null) {
+        Map<String, Object> response = handleMessage(message);
+        if (response != null) {
+          writeMessage(response);
+        }
+      }
+    } catch (IOException e) {
+      LOG.error("Connection with the client failed", e);
+    } finally {
+      parser.shutdownNow();
+      generation.shutdownNow();
+    }
+    return shutdown ? 0 : 1;
+  }
+
+  private Map<String, Object> handleMessage(String message) {
+    Map<String, Object> request;
+    try {
+      request = asMap(Json.parse(message));
+    } catch (JavaForgerException e) {
+      LOG.error("Could not parse message {}", message, e);
+      return error(null, INTERNAL_ERROR, e.getMessage());
+    }
+    return handle(request);
+  }
+
+  /**
+   * Handles a single request or notification.
+   *
+   * @param message The parsed JSON-RPC message.
+   * @return The response, or null for notifications.
+   */
+  Map<String, Object> handle(Map<String, Object> message) {
+    Object id = message.get("id");
+    String method = (String) message.get("method");
+    if (method == null) {
+      // A response to a workspace/applyEdit request of this server
+      if (message.containsKey("error") || Boolean.FALSE.equals(asMap(message.get("result")).get("applied"))) {
+        LOG.warn("The client did not apply the edit of request {}: {}", id, message);
+      }
+      return null;
+    }
+    Map<String, Object> params = message.get("params") instanceof Map ? asMap(message.get("params")) : Collections.emptyMap();
+    try {
+      if (!initialized && !"initialize".equals(method) && !"exit".equals(method)) {
+        return id == null ? null : error(id, SERVER_NOT_INITIALIZED, "The server is not initialized");
+      }
+      Object result;
+      switch (method) {
+      case "initialize":
+        result = initialize(params);
+        break;
+      case "shutdown":
+        shutdown = true;
+        result = null;
+        break;
+      case "exit":
+        exit = true;
+        return null;
+      case "textDocument/didOpen":
+        didOpen(asMap(params.get("textDocument")));
+        return null;
+      case "textDocument/didChange":
+        didChange(params);
+        return null;
+      case "textDocument/didSave":
+        didSave(asMap(params.get("textDocument")));
+        return null;
+      case "textDocument/didClose":
+        documents.remove(asMap(params.get("textDocument")).get("uri"));
+        return null;
+      case "textDocument/codeAction":
+        result = codeActions(params);
+        break;
+      case "codeAction/resolve":
+        result = resolve(params);
+        break;
+      case "workspace/executeCommand":
+        result = executeCommand(params);
+        break;
+      default:
+        return id == null ? null : error(id, METHOD_NOT_FOUND, "Unsupported method " + method);
+      }
+      return id == null ? null : response(id, result);
+    } catch (Exception | StackOverflowError e) {
+      // A single request must never stop the server, the client can still use all other actions
+      LOG.error("Could not handle {}", method, e);
+      return id == null ? null : error(id, INTERNAL_ERROR, String.valueOf(e.getMessage()));
+    }
+  }
+
+  private Map<String, Object> initialize(Map<String, Object> params) {
+    initialized = true;
+    Map<String, Object> capabilities = asMap(params.getOrDefault("capabilities", Collections.emptyMap()));
+    Map<String, Object> codeAction = path(capabilities, "textDocument", "codeAction");
+    Map<String, Object> resolve = asMap(codeAction.getOrDefault("resolveSupport", Collections.emptyMap()));
+    resolveSupport = resolve.get("properties") instanceof List && ((List<?>) resolve.get("properties")).contains("edit");
+    applyEditSupport = Boolean.TRUE.equals(path(capabilities, "workspace").get("applyEdit"));
+    documentChangesSupport = Boolean.TRUE.equals(path(capabilities, "workspace", "workspaceEdit").get("documentChanges"));
+
+    Map<String, Object> sync = map("openClose", true, "change", 2, "save", true);
+    Map<String, Object> actionProvider = map("codeActionKinds", Collections.singletonList(ACTION_KIND), "resolveProvider", true);
+    Map<String, Object> commandProvider = map("commands", Collections.singletonList(COMMAND));
+    return map("capabilities", map("textDocumentSync", sync, "codeActionProvider", actionProvider, "executeCommandProvider", commandProvider), "serverInfo",
+        map("name", "JavaForger"));
+  }
+
+  private void didOpen(Map<String, Object> textDocument) {
+    String uri = (String) textDocument.get("uri");
+    OpenDocument document = new OpenDocument(uri, toPath(uri), (String) textDocument.get("text"), ((Number) textDocument.get("version")).longValue());
+    documents.put(uri, document);
+    parseInBackground(document);
+  }
+
+  @SuppressWarnings("unchecked")
+  private void didChange(Map<String, Object> params) {
+    Map<String, Object> textDocument = asMap(params.get("textDocument"));
+    OpenDocument document = documents.get(textDocument.get("uri"));
+    if (document == null) {
+      LOG.warn("Received changes for document {} that is not open", textDocument.get("uri"));
+      return;
+    }
+    document.change((List<Map<String, Object>>) params.get("contentChanges"), ((Number) textDocument.get("version")).longValue());
+    parseInBackground(document);
+  }
+
+  /**
+   * Supertypes are read from disk, so they only change once a document is saved.
+   */
+  private void didSave(Map<String, Object> textDocument) {
+    HierarchyIndex hierarchy = StaticJavaForgerConfiguration.getReader().getHierarchyIndex();
+    if (hierarchy != null) {
+      hierarchy.invalidate(toPath((String) textDocument.get("uri")));
+    }
+  }
+
+  private void parseInBackground(OpenDocument document) {
+    long version = document.getVersion();
+    parser.execute(() -> {
+      // Skip versions that are already outdated, the latest version is parsed by the task of that version
+      if (document.getVersion() == version) {
+        document.getCompilationUnit();
+      }
+    });
+  }
+
+  private List<Map<String, Object>> codeActions(Map<String, Object> params) throws IOException {
+    String uri = (String) asMap(params.get("textDocument")).get("uri");
+    OpenDocument document = documents.get(uri);
+    List<Map<String, Object>> actions = new ArrayList<>();
+    if (document == null || !document.getPath().endsWith(".java") || document.getCompilationUnit() == null) {
+      return actions;
+    }
+    List<?> only = (List<?>) asMap(params.getOrDefault("context", Collections.emptyMap())).get("only");
+    if (only != null && only.stream().noneMatch(kind -> ACTION_KIND.startsWith(String.valueOf(kind)))) {
+      return actions;
+    }
+    for (String title : configurations.keySet()) {
+      Map<String, Object> action = map("title", title, "kind", ACTION_KIND, "data", map("uri", uri, "title", title));
+      if (resolveSupport) {
+        actions.add(action);
+      } else if (applyEditSupport) {
+        action.put("command", map("title", title, "command", COMMAND, "arguments", Collections.singletonList(action.get("data"))));
+        actions.add(action);
+      } else {
+        // Without resolve or applyEdit support, the edit can only be given to the client together with the action.
+        try {
+          actions.add(resolve(action));
+        } catch (RuntimeException | StackOverflowError e) {
+          // Configurations that cannot be applied to this class are not offered
+          LOG.debug("Code action {} is not available for {}", title, uri, e);
+        }
+      }
+    }
+    return actions;
+  }
+
+  private Map<String, Object> resolve(Map<String, Object> action) throws IOException {
+    Map<String, Object> data = asMap(action.get("data"));
+    OpenDocument document = documents.get(data.get("uri"));
+    Supplier<JavaForgerConfiguration> configuration = configurations.get(data.get("title"));
+    if (document == null || configuration == null) {
+      throw new JavaForgerException("The document or configuration of code action " + data.get("title") + " is not available anymore");
+    }
+    Map<String, String> contents = generate(configuration.get(), document.getPath(), String.valueOf(data.get("title")));
+    Map<String, Object> resolved = new LinkedHashMap<>(action);
+    resolved.put("edit", toWorkspaceEdit(contents));
+    return resolved;
+  }
+
+  /**
+   * Executes the configuration on the generator thread, which has a larger stack than the thread handling the messages.
+   */
+  private Map<String, String> generate(JavaForgerConfiguration configuration, String path, String title) throws IOException {
+    Future<Map<String, String>> result = generation.submit(() -> generator.execute(configuration, path, new DocumentSources()));
+    try {
+      return result.get();
+    } catch (InterruptedException e) {
+      result.cancel(true);
+      Thread.currentThread().interrupt();
+      throw new JavaForgerException(e, "Interrupted while generating " + title);
+    } catch (ExecutionException e) {
+      Throwable cause = e.getCause();
+      if (cause instanceof IOException) {
+        throw (IOException) cause;
+      } else if (cause instanceof TemplateException) {
+        throw new JavaForgerException((Exception) cause, "Could not process template for " + title);
+      } else if (cause instanceof RuntimeException) {
+        throw (RuntimeException) cause;
+      } else if (cause instanceof Error) {
+        throw (Error) cause;
+      }
+      throw new JavaForgerException((Exception) cause, "Could not generate " + title);
+    }
+  }
+
+  /**
+   * Computes the edit of the code action given as argument of the command, and sends it to the client with a workspace/applyEdit request.
+   */
+  private Object executeCommand(Map<String, Object> params) throws IOException {
+    List<?> arguments = (List<?>) params.get("arguments");
+    if (!COMMAND.equals(params.get("command")) || arguments == null || arguments.isEmpty()) {
+      throw new JavaForgerException("Unsupported command " + params.get("command") + " with arguments " + arguments);
+    }
+    Map<String, Object> data = asMap(arguments.get(0));
+    Map<String, Object> resolved = resolve(map("title", data.get("title"), "data", data));
+    Map<String, Object> applyEdit = map("label", data.get("title"), "edit", resolved.get("edit"));
+    writeMessage(map("jsonrpc", "2.0", "id", "javaforger-" + requestIds.incrementAndGet(), "method", "workspace/applyEdit", "params", applyEdit));
+    return null;
+  }
+
+  private Map<String, Object> toWorkspaceEdit(Map<String, String> contents) throws IOException {
+    List<Object> documentChanges = new ArrayList<>();
+    Map<String, Object> changes = new LinkedHashMap<>();
+    for (Map.Entry<String, String> entry : contents.entrySet()) {
+      OpenDocument open = findDocument(entry.getKey());
+      String uri = open == null ? Paths.get(entry.getKey()).toUri().toString() : open.getUri();
+      String existing = open == null ? readFile(entry.getKey()) : open.getText();
+      if (existing == null) {
+        if (!documentChangesSupport) {
+          LOG.warn("Cannot create {} because the client does not support document changes", uri);
+          continue;
+        }
+        documentChanges.add(map("kind", "create", "uri", uri, "options", map("ignoreIfExists", true)));
+        existing = "";
+      }
+      if (existing.equals(entry.getValue())) {
+        continue;
+      }
+      List<Object> edits = Collections.singletonList(toTextEdit(existing, entry.getValue()));
+      Long version = open == null ? null : open.getVersion();
+      documentChanges.add(map("textDocument", map("uri", uri, "version", version), "edits", edits));
+      changes.put(uri, edits);
+    }
+    return documentChangesSupport ? map("documentChanges", documentChanges) : map("changes", changes);
+  }
+
+  /**
+   * Creates a single edit replacing the lines that differ between the old and new text.
+   */
+  static Map<String, Object> toTextEdit(String oldText, String newText) {
+    int max = Math.min(oldText.length(), newText.length());
+    int prefix = 0;
+    while (prefix < max && oldText.charAt(prefix) == newText.charAt(prefix)) {
+      prefix++;
+    }
+    prefix = oldText.lastIndexOf('\n', prefix - 1) + 1;
+    int suffix = 0;
+    while (suffix < max - prefix && oldText.charAt(oldText.length() - 1 - suffix) == newText.charAt(newText.length() - 1 - suffix)) {
+      suffix++;
+    }
+    while (suffix > 0 && oldText.charAt(oldText.length() - suffix - 1) != '\n') {
+      suffix--;
+    }
+    Map<String, Object> range = map("start", toPosition(oldText, prefix), "end", toPosition(oldText, oldText.length() - suffix));
+    return map("range", range, "newText", newText.substring(prefix, newText.length() - suffix));
+  }
+
+  private static Map<String, Object> toPosition(String text, int offset) {
+    int line = 0;
+    int lineStart = 0;
+    for (int i = text.indexOf('\n'); i >= 0 && i < offset; i = text.indexOf('\n', i + 1)) {
+      line++;
+      lineStart = i + 1;
+    }
+    return map("line", line, "character", offset - lineStart);
+  }
+
+  private OpenDocument findDocument(String path) {
+    return documents.values().stream().filter(d -> samePath(d.getPath(), path)).findFirst().orElse(null);
+  }
+
+  private static boolean samePath(String a, String b) {
+    return Paths.get(a).toAbsolutePath().normalize().equals(Paths.get(b).toAbsolutePath().normalize());
+  }
+
+  private static String readFile(String path) throws IOException {
+    Path file = Paths.get(path);
+    return Files.exists(file) ? new String(Files.readAllBytes(file), StandardCharsets.UTF_8) : null;
+  }
+
+  private static String toPath(String uri) {
+    try {
+      return Paths.get(URI.create(uri)).toString();
+    } catch (IllegalArgumentException e) {
+      return uri;
+    }
+  }
+
+  /**
+   * Reads open documents from memory and all other classes from disk.
+   */
+  private final class DocumentSources implements InMemoryGenerator.Sources {
+
+    @Override
+    public String getContent(String path) throws IOException {
+      OpenDocument document = findDocument(path);
+      return document == null ? readFile(path) : document.getText();
+    }
+
+    @Override
+    public CompilationUnit getCompilationUnit(String path) throws IOException {
+      OpenDocument document = findDocument(path);
+      CompilationUnit cu = document == null ? null : document.getCompilationUnit();
+      if (cu == null) {
+        String content = getContent(path);
+        if (content == null) {
+          throw new JavaForgerException("Could not find class " + path);
+        }
+        cu = parse(content);
+      }
+      return cu;
+    }
+
+    @Override
+    public CompilationUnit parse(String content) {
+      return StaticJavaParser.parse(content);
+    }
+  }
+
+  private String readMessage() throws IOException {
+    int contentLength = -1;
+    String header;
+    while (!(header = readHeaderLine()).isEmpty()) {
+      if (header.toLowerCase().startsWith("content-length:")) {
+        contentLength = Integer.parseInt(header.substring("content-length:".length()).trim());
+      }
+    }
+    if (contentLength < 0) {
+      return null;
+    }
+    byte[] content = new byte[contentLength];
+    int read = 0;
+    while (read < contentLength) {
+      int count = in.read(content, read, contentLength - read);
+      if (count < 0) {
+        return null;
+      }
+      read += count;
+    }
+    return new String(content, StandardCharsets.UTF_8);
+  }
+
+  /**
+   * @return The header line without line terminator, an empty string at the end of the headers or the stream.
+   */
+  private String readHeaderLine() throws IOException {
+    ByteArrayOutputStream line = new ByteArrayOutputStream();
+    int c;
+    while ((c = in.read()) >= 0 && c != '\n') {
+      if (c != '\r') {
+        line.write(c);
+      }
+    }
+    return new String(line.toByteArray(), StandardCharsets.US_ASCII);
+  }
+
+  private synchronized void writeMessage(Map<String, Object> message) throws IOException {
+    byte[] content = Json.write(message).getBytes(StandardCharsets.UTF_8);
+    out.write(("Content-Length: " + content.length + "\r\n\r\n").getBytes(StandardCharsets.US_ASCII));
+    out.write(content);
+    out.flush();
+  }
+
+  private static Map<String, Object> response(Object id, Object result) {
+    return map("jsonrpc", "2.0", "id", id, "result", result);
+  }
+
+  private static Map<String, Object> error(Object id, int code, String message) {
+    return map("jsonrpc", "2.0", "id", id, "error", map("code", code, "message", message));
+  }
+
+  @SuppressWarnings("unchecked")
+  private static Map<String, Object> asMap(Object value) {
+    return value == null ? Collections.emptyMap() : (Map<String, Object>) value;
+  }
+
+  private static Map<String, Object> path(Map<String, Object> map, String... keys) {
+    Map<String, Object> current = map;
+    for (String key : keys) {
+      current = current.get(key) instanceof Map ? asMap(current.get(key)) : Collections.emptyMap();
+    }
+    return current;
+  }
+
+  /**
+   * @param keyValues Alternating keys and values.
+   * @return A map with the keys and values in the given order.
+   */
+  static Map<String, Object> map(Object... keyValues) {
+    Map<String, Object> map = new LinkedHashMap<>();
+    for (int i = 0; i < keyValues.length; i += 2) {
+      map.put((String) keyValues[i], keyValues[i + 1]);
+    }
+    return map;
+  }
+
+  @SuppressWarnings("unchecked")
+  private static Map<String, JavaForgerConfiguration> createConfigurations(String supplierClass) {
+    try {
+      return ((Supplier<Map<String, JavaForgerConfiguration>>) Class.forName(supplierClass).getConstructor().newInstance()).get();
+    } catch (ReflectiveOperationException | ClassCastException e) {
+      throw new JavaForgerException(e, "Could not create configurations from " + supplierClass);
+    }
+  }
+
+}
@@ -0,0 +1,300 @@
+/*
+ * Copyright 2019 by Daan van den Heuvel.
+ *
+ * This file is part of JavaForger.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package lsp;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import generator.JavaForgerException;
+
+/**
+ * Minimal JSON reader and writer for the messages of the {@link JavaForgerLanguageServer}. Objects are read as {@link LinkedHashMap}, arrays as
+ * {@link ArrayList}, numbers as {@link Long} or {@link Double}. Writing supports maps, collections, strings, numbers, booleans and null.
+ *
+ * @author Daan
+ */
+final class Json {
+
+  private final String text;
+  private int index;
+
+  private Json(String text) {
+    this.text = text;
+  }
+
+  /**
+   * @param text The JSON to parse.
+   * @return The parsed value.
+   */
+  static Object parse(String text) {
+    Json json = new Json(text);
+    Object value = json.readValue();
+    json.skipWhitespace();
+    if (json.index < text.length()) {
+      throw json.error("Unexpected content after value");
+    }
+    return value;
+  }
+
+  /**
+   * @param value The value to write.
+   * @return The JSON representation of the value.
+   */
+  static String write(Object value) {
+    StringBuilder sb = new StringBuilder();
+    write(value, sb);
+    return sb.toString();
+  }
+
+  private static void write(Object value, StringBuilder sb) {
+    if (value == null) {
+      sb.append("null");
+    } else if (value instanceof Map) {
+      sb.append('{');
+      boolean first = true;
+      for (Map.Entry<?, ?> entry : ((Map<?, ?>) value).entrySet()) {
+        if (!first) {
+          sb.append(',');
+        }
+        first = false;
+        writeString(String.valueOf(entry.getKey()), sb);
+        sb.append(':');
+        write(entry.getValue(), sb);
+      }
+      sb.append('}');
+    } else if (value instanceof Collection) {
+      sb.append('[');
+      boolean first = true;
+      for (Object element : (Collection<?>) value) {
+        if (!first) {
+          sb.append(',');
+        }
+        first = false;
+        write(element, sb);
+      }
+      sb.append(']');
+    } else if (value instanceof Number || value instanceof Boolean) {
+      sb.append(value);
+    } else {
+      writeString(value.toString(), sb);
+    }
+  }
+
+  private static void writeString(String s, StringBuilder sb) {
+    sb.append('"');
+    for (int i = 0; i < s.length(); i++) {
+      char c = s.charAt(i);
+      switch (c) {
+      case '"':
+        sb.append("\\\"");
+        break;
+      case '\\':
+        sb.append("\\\\");
+        break;
+      case '\n':
+        sb.append("\\n");
+        break;
+      case '\r':
+        sb.append("\\r");
+        break;
+      case '\t':
+        sb.append("\\t");
+        break;
+      default:
+        if (c < 0x20) {
+          sb.append(String.format("\\u%04x", (int) c));
+        } else {
+          sb.append(c);
+        }
+      }
+    }
+    sb.append('"');
+  }
+
+  private Object readValue() {
+    skipWhitespace();
+    if (index >= text.length()) {
+      throw error("Unexpected end of input");
+    }
+    char c = text.charAt(index);
+    switch (c) {
+    case '{':
+      return readObject();
+    case '[':
+      return readArray();
+    case '"':
+      return readString();
+    case 't':
+      return readLiteral("true", Boolean.TRUE);
+    case 'f':
+      return readLiteral("false", Boolean.FALSE);
+    case 'n':
+      return readLiteral("null", null);
+    default:
+      return readNumber();
+    }
+  }
+
+  private Map<String, Object> readObject() {
+    Map<String, Object> map = new LinkedHashMap<>();
+    index++;
+    skipWhitespace();
+    if (peek() == '}') {
+      index++;
+      return map;
+    }
+    while (true) {
+      skipWhitespace();
+      if (peek() != '"') {
+        throw error("Expected a string as key");
+      }
+      String key = readString();
+      skipWhitespace();
+      expect(':');
+      map.put(key, readValue());
+      skipWhitespace();
+      if (peek() == ',') {
+        index++;
+      } else {
+        expect('}');
+        return map;
+      }
+    }
+  }
+
+  private List<Object> readArray() {
+    List<Object> list = new ArrayList<>();
+    index++;
+    skipWhitespace();
+    if (peek() == ']') {
+      index++;
+      return list;
+    }
+    while (true) {
+      list.add(readValue());
+      skipWhitespace();
+      if (peek() == ',') {
+        index++;
+      } else {
+        expect(']');
+        return list;
+      }
+    }
+  }
+
+  private String readString() {
+    StringBuilder sb = new StringBuilder();
+    index++;
+    while (true) {
+      char c = next();
+      if (c == '"') {
+        return sb.toString();
+      }
+      if (c != '\\') {
+        sb.append(c);
+        continue;
+      }
+      char escaped = next();
+      switch (escaped) {
+      case 'b':
+        sb.append('\b');
+        break;
+      case 'f':
+        sb.append('\f');
+        break;
+      case 'n':
+        sb.append('\n');
+        break;
+      case 'r':
+        sb.append('\r');
+        break;
+      case 't':
+        sb.append('\t');
+        break;
+      case 'u':
+        if (index + 4 > text.length()) {
+          throw error("Invalid unicode escape");
+        }
+        sb.append((char) Integer.parseInt(text.substring(index, index + 4), 16));
+        index += 4;
+        break;
+      default:
+        sb.append(escaped);
+      }
+    }
+  }
+
+  private Object readLiteral(String literal, Object value) {
+    if (!text.startsWith(literal, index)) {
+      throw error("Unexpected character");
+    }
+    index += literal.length();
+    return value;
+  }
+
+  private Number readNumber() {
+    int start = index;
+    while (index < text.length() && "+-0123456789.eE".indexOf(text.charAt(index)) >= 0) {
+      index++;
+    }
+    String number = text.substring(start, index);
+    if (number.isEmpty()) {
+      throw error("Unexpected character");
+    }
+    try {
+      if (number.contains(".") || number.contains("e") || number.contains("E")) {
+        return Double.valueOf(number);
+      }
+      return Long.valueOf(number);
+    } catch (NumberFormatException e) {
+      throw error("Invalid number " + number);
+    }
+  }
+
+  private void expect(char c) {
+    if (peek() != c) {
+      throw error("Expected '" + c + "'");
+    }
+    index++;
+  }
+
+  private char peek() {
+    return index < text.length() ? text.charAt(index) : 0;
+  }
+
+  private char next() {
+    if (index >= text.length()) {
+      throw error("Unexpected end of input");
+    }
+    return text.charAt(index++);
+  }
+
+  private void skipWhitespace() {
+    while (index < text.length() && Character.isWhitespace(text.charAt(index))) {
+      index++;
+    }
+  }
+
+  private JavaForgerException error(String message) {
+    return new JavaForgerException(message + " at position " + index);
+  }
+
+}
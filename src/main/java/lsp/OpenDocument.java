@@ -0,0 +1,136 @@
+/*
+ * Copyright 2019 by Daan van den Heuvel.
+ *
+ * This file is part of JavaForger.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package lsp;
+
+import java.util.List;
+import java.util.Map;
+
+import com.github.javaparser.ParseProblemException;
+import com.github.javaparser.StaticJavaParser;
+import com.github.javaparser.ast.CompilationUnit;
+
+/**
+ * A document that is opened in the editor. The text is updated with every change, the {@link CompilationUnit} is parsed again when it is needed for a newer
+ * version of the text. Parsing is normally triggered in the background after a change, so that it is ready when a code action is requested.
+ *
+ * @author Daan
+ */
+final class OpenDocument {
+
+  private final String uri;
+  private final String path;
+  private String text;
+  private long version;
+  private CompilationUnit compilationUnit;
+  private long parsedVersion = -1;
+
+  OpenDocument(String uri, String path, String text, long version) {
+    this.uri = uri;
+    this.path = path;
+    this.text = text;
+    this.version = version;
+  }
+
+  String getUri() {
+    return uri;
+  }
+
+  String getPath() {
+    return path;
+  }
+
+  synchronized String getText() {
+    return text;
+  }
+
+  synchronized long getVersion() {
+    return version;
+  }
+
+  /**
+   * Applies the changes from a didChange notification. A change with a range replaces that range, a change without a range replaces the whole text.
+   *
+   * @param changes The contentChanges from the notification.
+   * @param newVersion The version of the document after the changes.
+   */
+  synchronized void change(List<Map<String, Object>> changes, long newVersion) {
+    for (Map<String, Object> change : changes) {
+      String newText = (String) change.get("text");
+      @SuppressWarnings("unchecked")
+      Map<String, Object> range = (Map<String, Object>) change.get("range");
+      if (range == null) {
+        text = newText;
+      } else {
+        int start = toOffset(position(range, "start"));
+        int end = toOffset(position(range, "end"));
+        text = text.substring(0, start) + newText + text.substring(Math.max(start, end));
+      }
+    }
+    version = newVersion;
+  }
+
+  /**
+   * @return The parsed text of the current version, or null if the current text cannot be parsed.
+   */
+  CompilationUnit getCompilationUnit() {
+    String parseText;
+    long parseVersion;
+    synchronized (this) {
+      if (parsedVersion == version) {
+        return compilationUnit;
+      }
+      parseText = text;
+      parseVersion = version;
+    }
+    CompilationUnit cu;
+    try {
+      cu = StaticJavaParser.parse(parseText);
+    } catch (ParseProblemException e) {
+      cu = null;
+    }
+    synchronized (this) {
+      if (parseVersion >= parsedVersion) {
+        compilationUnit = cu;
+        parsedVersion = parseVersion;
+      }
+      return parseVersion == version ? cu : null;
+    }
+  }
+
+  /**
+   * Converts an LSP position to an offset in the text. Characters are counted in UTF-16 code units, the same as java strings.
+   */
+  synchronized int toOffset(int[] position) {
+    int offset = 0;
+    for (int line = 0; line < position[0]; line++) {
+      int newLine = text.indexOf('\n', offset);
+      if (newLine < 0) {
+        return text.length();
+      }
+      offset = newLine + 1;
+    }
+    return Math.min(offset + position[1], text.length());
+  }
+
+  @SuppressWarnings("unchecked")
+  private static int[] position(Map<String, Object> range, String key) {
+    Map<String, Object> position = (Map<String, Object>) range.get(key);
+    return new int[] {((Number) position.get("line")).intValue(), ((Number) position.get("character")).intValue()};
+  }
+
+}
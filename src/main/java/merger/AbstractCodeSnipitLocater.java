@@ -17,7 +17,8 @@
  */
 package merger;
 
-import java.util.LinkedHashMap;
+import java.util.AbstractMap.SimpleEntry;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
 import java.util.stream.Collectors;
@@ -30,12 +31,13 @@ import com.github.javaparser.ast.expr.SimpleName;
 import generator.JavaForgerException;
 
 /**
- * Determines the location of code to be added, within existing code. Receives code that is already parsed. Ordering is based on the order defined within the
- * {@link NodeComparator}.
+ * Determines where the nodes of new code have to be inserted within existing code. Ordering is based on the order defined within the {@link NodeComparator}.
+ * Subclasses define how a location within the existing code is represented.
  *
  * @author Daan
+ * @param <L> The type of the location within the existing code.
  */
-public class CodeSnipitLocater {
+abstract class AbstractCodeSnipitLocater<L extends Comparable<L>> {
 
   NodeComparator comparator = new NodeComparator();
 
@@ -46,17 +48,14 @@ public class CodeSnipitLocater {
    *
    * @param existingCode {@link CompilationUnit} representing the existing class
    * @param newCode {@link CompilationUnit} representing the code to be added
-   * @return An {@link LinkedHashMap} with as keys a {@link CodeSnipitLocation} of code to be added and as value a {@link CodeSnipitLocation} where in the
-   *         existing class the code should be added. The map is ordered on increasing insert locations (map values).
+   * @return The nodes of the new code together with the location where they should be added to the existing code, ordered on increasing location.
    */
-  public LinkedHashMap<CodeSnipitLocation, CodeSnipitLocation> locate(CompilationUnit existingCode, Node newCode) {
-    LinkedHashMap<CodeSnipitLocation, CodeSnipitLocation> locations = recursiveLocator(existingCode.getChildNodes(), newCode.getChildNodes());
+  protected List<Map.Entry<Node, L>> locateNodes(CompilationUnit existingCode, Node newCode) {
+    List<Map.Entry<Node, L>> locations = locateRecursively(existingCode.getChildNodes(), newCode.getChildNodes());
 
     // locations may not be sorted on increasing insertLocation if an existing code block will be overridden and occurs before the last determined insert
     // location. So we need to sort them here.
-    locations = locations.entrySet().stream().sorted(Map.Entry.comparingByValue())
-        .collect(Collectors.toMap(Map.Entry::getKey, Map.Entry::getValue, (a, b) -> a, LinkedHashMap::new));
-
+    locations.sort(Map.Entry.comparingByValue());
     return locations;
   }
 
@@ -66,10 +65,10 @@ public class CodeSnipitLocater {
    *
    * @param existingNodes The nodes from the existing class. May not be empty.
    * @param insertNodes The nodes from the class to be inserted. May not be empty.
-   * @return The map of where insertion-code (from) needs to be inserted (to).
+   * @return The insert nodes together with the location where they need to be inserted.
    */
-  protected LinkedHashMap<CodeSnipitLocation, CodeSnipitLocation> recursiveLocator(List<Node> existingNodes, List<Node> insertNodes) {
-    LinkedHashMap<CodeSnipitLocation, CodeSnipitLocation> locations = new LinkedHashMap<>();
+  protected List<Map.Entry<Node, L>> locateRecursively(List<Node> existingNodes, List<Node> insertNodes) {
+    List<Map.Entry<Node, L>> locations = new ArrayList<>();
 
     // -1 indicates that the new node needs to be inserted before the first node within the existing nodes.
     int insertAfter = -1;
@@ -79,47 +78,70 @@ public class CodeSnipitLocater {
     for (Node insertNode : supportedInsertNodes) {
       int equalNodeIndex = findEqualNode(existingNodes, insertNode);
       if (equalNodeIndex >= 0) {
-        locations.putAll(handleEqualNodesRecursively(insertNode, existingNodes.get(equalNodeIndex)));
+        locations.addAll(handleEqualNodesRecursively(insertNode, existingNodes.get(equalNodeIndex)));
         insertAfter = Integer.max(insertAfter, equalNodeIndex);
       } else {
         insertAfter = findInsertAfterIndex(existingNodes, insertAfter, insertNode);
         if (insertAfter < 0) {
-          locations.put(CodeSnipitLocation.of(insertNode), CodeSnipitLocation.before(existingNodes.get(0)));
+          locations.add(new SimpleEntry<>(insertNode, before(existingNodes.get(0))));
         } else {
-          locations.put(CodeSnipitLocation.of(insertNode), CodeSnipitLocation.after(existingNodes.get(insertAfter)));
+          locations.add(new SimpleEntry<>(insertNode, after(existingNodes.get(insertAfter))));
         }
       }
     }
     return locations;
   }
 
-  private LinkedHashMap<CodeSnipitLocation, CodeSnipitLocation> handleEqualNodesRecursively(Node insertNode, Node existingNode) {
-    LinkedHashMap<CodeSnipitLocation, CodeSnipitLocation> loc = new LinkedHashMap<>();
+  /**
+   * @param existingNode The existing node to replace.
+   * @return The location of the existing node, including its comment.
+   */
+  protected abstract L replace(Node existingNode);
+
+  /**
+   * @param existingNode The existing node to insert before.
+   * @return The empty location directly before the existing node.
+   */
+  protected abstract L before(Node existingNode);
+
+  /**
+   * @param existingNode The existing node to insert after.
+   * @return The empty location directly after the existing node.
+   */
+  protected abstract L after(Node existingNode);
+
+  /**
+   * @param existingClass The existing class without any members.
+   * @param name The name of the existing class.
+   * @return The empty location for the first member of the class.
+   */
+  protected abstract L first(ClassOrInterfaceDeclaration existingClass, SimpleName name);
+
+  private List<Map.Entry<Node, L>> handleEqualNodesRecursively(Node insertNode, Node existingNode) {
+    List<Map.Entry<Node, L>> loc = new ArrayList<>();
     if (isClass(existingNode) && isClass(insertNode)) {
       List<Node> insertNodes = getChildNodes(insertNode);
       List<Node> existingNodes = getChildNodes(existingNode);
       if (!insertNodes.isEmpty()) {
         if (existingNodes.isEmpty()) {
-          CodeSnipitLocation firstInsertLocation = getFirstInsertLocation((ClassOrInterfaceDeclaration) existingNode);
-          loc = insertNodes.stream().collect(Collectors.toMap(CodeSnipitLocation::of, c -> firstInsertLocation, (a, b) -> a, LinkedHashMap::new));
+          ClassOrInterfaceDeclaration existingClass = (ClassOrInterfaceDeclaration) existingNode;
+          L firstInsertLocation = first(existingClass, getName(existingClass));
+          insertNodes.forEach(node -> loc.add(new SimpleEntry<>(node, firstInsertLocation)));
         } else {
           // Recursive call
-          loc = recursiveLocator(existingNodes, insertNodes);
+          loc.addAll(locateRecursively(existingNodes, insertNodes));
         }
       }
     } else {
-      loc.put(CodeSnipitLocation.of(insertNode), CodeSnipitLocation.of(existingNode));
+      loc.add(new SimpleEntry<>(insertNode, replace(existingNode)));
     }
     return loc;
   }
 
-  private CodeSnipitLocation getFirstInsertLocation(ClassOrInterfaceDeclaration existingNode) {
-    return CodeSnipitLocation.after(getNodeAfterToInsert(existingNode));
-  }
-
-  private Node getNodeAfterToInsert(ClassOrInterfaceDeclaration existingNode) {
-    return existingNode.getChildNodes().stream().filter(node -> SimpleName.class.isAssignableFrom(node.getClass())).findFirst().orElseThrow(
-        () -> new JavaForgerException("Cannot insert code into a class without a simpleName defined. Existing node is: " + existingNode.toString()));
+  private SimpleName getName(ClassOrInterfaceDeclaration existingNode) {
+    return existingNode.getChildNodes().stream().filter(node -> SimpleName.class.isAssignableFrom(node.getClass())).map(SimpleName.class::cast).findFirst()
+        .orElseThrow(
+            () -> new JavaForgerException("Cannot insert code into a class without a simpleName defined. Existing node is: " + existingNode.toString()));
   }
 
   private boolean isClass(Node existingNode) {
@@ -0,0 +1,157 @@
+/*
+ * Copyright 2019 by Daan van den Heuvel.
+ *
+ * This file is part of JavaForger.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package merger;
+
+import java.util.List;
+
+import org.apache.commons.lang3.builder.ToStringBuilder;
+import org.apache.commons.lang3.builder.ToStringStyle;
+
+import generator.JavaForgerException;
+
+/**
+ * Replacement of a character range within a buffer, with an inclusive start offset and an exclusive end offset. An edit with an equal start and end inserts
+ * its text without removing anything.
+ *
+ * @author Daan
+ */
+public final class CodeSnipitEdit implements Comparable<CodeSnipitEdit> {
+
+  private final int start;
+  private final int end;
+  /** The text to replace the range with, null if this edit is only used as location. */
+  private final String text;
+
+  private CodeSnipitEdit(int start, int end, String text) {
+    if (start < 0 || end < start) {
+      throw new IllegalArgumentException("Invalid range from " + start + " to " + end);
+    }
+    this.start = start;
+    this.end = end;
+    this.text = text;
+  }
+
+  /**
+   * Creates a {@link CodeSnipitEdit} that only defines a range, the text can be set via {@link CodeSnipitEdit#withText(String)}.
+   *
+   * @param start The inclusive start offset.
+   * @param end The exclusive end offset.
+   * @return new {@link CodeSnipitEdit}
+   */
+  public static CodeSnipitEdit of(int start, int end) {
+    return new CodeSnipitEdit(start, end, null);
+  }
+
+  /**
+   * @param start The offset to insert at.
+   * @return new {@link CodeSnipitEdit} with an empty range.
+   */
+  public static CodeSnipitEdit at(int start) {
+    return of(start, start);
+  }
+
+  public CodeSnipitEdit withText(String text) {
+    return new CodeSnipitEdit(start, end, text);
+  }
+
+  public int getStart() {
+    return start;
+  }
+
+  public int getEnd() {
+    return end;
+  }
+
+  public String getText() {
+    return text;
+  }
+
+  /**
+   * @return {@code true} if this edit removes existing characters, {@code false} if it only inserts.
+   */
+  public boolean containsCode() {
+    return end > start;
+  }
+
+  /**
+   * Applies the edits to the buffer with a single copy of the buffer.
+   *
+   * @param buffer The buffer to apply the edits to, it is not changed.
+   * @param edits The edits ordered on increasing offsets, the ranges may not overlap.
+   * @return The buffer with all edits applied.
+   */
+  public static String apply(CharSequence buffer, List<CodeSnipitEdit> edits) {
+    int size = buffer.length();
+    for (CodeSnipitEdit edit : edits) {
+      size += edit.text.length() - (edit.end - edit.start);
+    }
+    StringBuilder result = new StringBuilder(size);
+    int index = 0;
+    for (CodeSnipitEdit edit : edits) {
+      if (edit.start < index || edit.end > buffer.length()) {
+        throw new JavaForgerException("Edit " + edit + " overlaps with an earlier edit or lies outside of the buffer with length " + buffer.length());
+      }
+      result.append(buffer, index, edit.start).append(edit.text);
+      index = edit.end;
+    }
+    result.append(buffer, index, buffer.length());
+    return result.toString();
+  }
+
+  @Override
+  public int compareTo(CodeSnipitEdit that) {
+    return start != that.start ? Integer.compare(start, that.start) : Integer.compare(end, that.end);
+  }
+
+  @Override
+  public int hashCode() {
+    final int prime = 31;
+    int result = 1;
+    result = prime * result + end;
+    result = prime * result + start;
+    result = prime * result + ((text == null) ? 0 : text.hashCode());
+    return result;
+  }
+
+  @Override
+  public boolean equals(Object obj) {
+    if (this == obj)
+      return true;
+    if (obj == null)
+      return false;
+    if (getClass() != obj.getClass())
+      return false;
+    CodeSnipitEdit other = (CodeSnipitEdit) obj;
+    if (end != other.end)
+      return false;
+    if (start != other.start)
+      return false;
+    if (text == null) {
+      if (other.text != null)
+        return false;
+    } else if (!text.equals(other.text))
+      return false;
+    return true;
+  }
+
+  @Override
+  public String toString() {
+    return new ToStringBuilder(this, ToStringStyle.SHORT_PREFIX_STYLE).append("start", start).append("end", end).append("text", text).build();
+  }
+
+}
@@ -0,0 +1,240 @@
+/*
+ * Copyright 2019 by Daan van den Heuvel.
+ *
+ * This file is part of JavaForger.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package merger;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+
+import com.github.javaparser.JavaToken;
+import com.github.javaparser.TokenRange;
+import com.github.javaparser.ast.CompilationUnit;
+import com.github.javaparser.ast.Node;
+import com.github.javaparser.ast.body.BodyDeclaration;
+import com.github.javaparser.ast.body.ClassOrInterfaceDeclaration;
+import com.github.javaparser.ast.comments.Comment;
+import com.github.javaparser.ast.expr.SimpleName;
+
+import generator.JavaForgerException;
+
+/**
+ * Determines the character ranges within existing code where new code has to be inserted, based on the token ranges of {@link com.github.javaparser.JavaParser}.
+ * Comments and members that share a line with other code are handled as well. A node is extended to whole lines if it is the only code on its lines, so that
+ * indentation and line breaks are retained. A member inserted after an existing member that is preceded by an empty line, is preceded by an empty line as
+ * well. Every instance is bound to the {@link LineIndex} of a single buffer.
+ *
+ * @author Daan
+ */
+public class CodeSnipitEditLocater extends AbstractCodeSnipitLocater<CodeSnipitEdit> {
+
+  private final LineIndex index;
+  /** Offsets after existing members that are preceded by an empty line, members inserted there are separated in the same way */
+  private final Set<Integer> separated = new HashSet<>();
+
+  /**
+   * @param index The {@link LineIndex} of the existing code that will be located in.
+   */
+  public CodeSnipitEditLocater(LineIndex index) {
+    this.index = index;
+  }
+
+  /**
+   * Determines the edits to merge the new code into the existing code.
+   *
+   * @param existingCode {@link CompilationUnit} parsed from the buffer of the {@link LineIndex}.
+   * @param newCode {@link CompilationUnit} representing the code to be added.
+   * @param override True if existing nodes that are equal to new nodes should be replaced, false to only insert new nodes.
+   * @return The {@link CodeSnipitEdit}s to apply to the existing code, ordered on increasing offsets.
+   */
+  public List<CodeSnipitEdit> locate(CompilationUnit existingCode, Node newCode, boolean override) {
+    List<CodeSnipitEdit> edits = new ArrayList<>();
+    for (Map.Entry<Node, CodeSnipitEdit> location : locateNodes(existingCode, newCode)) {
+      CodeSnipitEdit edit = location.getValue();
+      if (override || !edit.containsCode()) {
+        edits.add(edit(location.getKey(), edit));
+      }
+    }
+    return edits;
+  }
+
+  @Override
+  protected CodeSnipitEdit replace(Node existingNode) {
+    return CodeSnipitEdit.of(getStart(firstToken(existingNode)), getEnd(lastToken(existingNode)));
+  }
+
+  @Override
+  protected CodeSnipitEdit before(Node existingNode) {
+    return CodeSnipitEdit.at(getStart(firstToken(existingNode)));
+  }
+
+  @Override
+  protected CodeSnipitEdit after(Node existingNode) {
+    CodeSnipitEdit edit = CodeSnipitEdit.at(getEnd(lastToken(existingNode)));
+    if (existingNode instanceof BodyDeclaration && followsEmptyLine(skipWhitespaceBackwards(firstToken(existingNode)))) {
+      separated.add(edit.getStart());
+    }
+    return edit;
+  }
+
+  @Override
+  protected CodeSnipitEdit first(ClassOrInterfaceDeclaration existingClass, SimpleName name) {
+    Optional<JavaToken> token = Optional.of(lastToken(name));
+    while (token.isPresent() && token.get().getKind() != JavaToken.Kind.LBRACE.getKind()) {
+      token = token.get().getNextToken();
+    }
+    return CodeSnipitEdit.at(getEnd(token.orElseThrow(() -> new JavaForgerException("Cannot find the body of class " + name))));
+  }
+
+  /**
+   * @param insertNode The node to insert, parsed from new code.
+   * @param location The location within the existing code, from {@link #replace(Node)}, {@link #before(Node)}, {@link #after(Node)} or
+   *          {@link #first(ClassOrInterfaceDeclaration, SimpleName)}.
+   * @return The {@link CodeSnipitEdit} inserting the code of the node at the location.
+   */
+  CodeSnipitEdit edit(Node insertNode, CodeSnipitEdit location) {
+    return location.withText(getText(insertNode, location));
+  }
+
+  /**
+   * @return The code of the node including its comment and indentation, ending with a line break. If the edit inserts within a line, the line break is moved
+   *         to the front so that the inserted code starts on a new line.
+   */
+  private String getText(Node insertNode, CodeSnipitEdit edit) {
+    JavaToken first = skipWhitespaceBackwards(firstToken(insertNode));
+    JavaToken last = lastToken(insertNode);
+    // Trailing white space is only part of the node if it is the last code on its line, the line break itself is added below.
+    Optional<JavaToken> next = last.getNextToken();
+    JavaToken trailing = last;
+    while (next.isPresent() && next.get().getCategory().isWhitespaceButNotEndOfLine()) {
+      trailing = next.get();
+      next = trailing.getNextToken();
+    }
+    if (next.isPresent() && next.get().getCategory().isEndOfLine()) {
+      last = trailing;
+    }
+    String text = new TokenRange(first, last).toString().replaceAll("\r\n|\r|\n", index.getLineSeparator());
+    if (!edit.containsCode() && insertNode instanceof BodyDeclaration && separated.contains(edit.getStart())) {
+      text = index.getLineSeparator() + text;
+    }
+    if (!edit.containsCode() && !index.isLineStart(edit.getStart())) {
+      return index.getLineSeparator() + text;
+    }
+    return text + index.getLineSeparator();
+  }
+
+  /**
+   * @return True if the token is at the start of a line that directly follows an empty line.
+   */
+  private static boolean followsEmptyLine(JavaToken token) {
+    Optional<JavaToken> previous = token.getPreviousToken();
+    if (!previous.isPresent() || !previous.get().getCategory().isEndOfLine()) {
+      return false;
+    }
+    previous = previous.get().getPreviousToken();
+    while (previous.isPresent() && previous.get().getCategory().isWhitespaceButNotEndOfLine()) {
+      previous = previous.get().getPreviousToken();
+    }
+    return previous.isPresent() && previous.get().getCategory().isEndOfLine();
+  }
+
+  private static JavaToken skipWhitespaceBackwards(JavaToken token) {
+    JavaToken first = token;
+    while (first.getPreviousToken().isPresent() && first.getPreviousToken().get().getCategory().isWhitespaceButNotEndOfLine()) {
+      first = first.getPreviousToken().get();
+    }
+    return first;
+  }
+
+  /**
+   * @return The offset of the token, or the start of its line if only white space precedes it.
+   */
+  private int getStart(JavaToken token) {
+    JavaToken first = token;
+    Optional<JavaToken> previous = token.getPreviousToken();
+    while (previous.isPresent() && previous.get().getCategory().isWhitespaceButNotEndOfLine()) {
+      first = previous.get();
+      previous = first.getPreviousToken();
+    }
+    return !previous.isPresent() || previous.get().getCategory().isEndOfLine() ? getOffset(first) : getOffset(token);
+  }
+
+  /**
+   * @return The offset after the token, or the start of the next line if only white space follows it.
+   */
+  private int getEnd(JavaToken token) {
+    Optional<JavaToken> next = token.getNextToken();
+    while (next.isPresent() && next.get().getCategory().isWhitespaceButNotEndOfLine()) {
+      next = next.get().getNextToken();
+    }
+    if (next.isPresent() && next.get().getCategory().isEndOfLine()) {
+      return getOffset(next.get()) + next.get().getText().length();
+    }
+    return getOffset(token) + token.getText().length();
+  }
+
+  private int getOffset(JavaToken token) {
+    return index.getOffset(token.getRange().orElseThrow(() -> new JavaForgerException("Token " + token + " has no position")).begin);
+  }
+
+  /**
+   * @return The first token of the node or of its comment, if the comment is directly before the node.
+   */
+  private static JavaToken firstToken(Node node) {
+    JavaToken first = getTokenRange(node).getBegin();
+    Optional<TokenRange> comment = node.getComment().flatMap(Comment::getTokenRange);
+    if (comment.isPresent() && isBefore(comment.get().getBegin(), first) && onlyWhitespaceBetween(comment.get().getEnd(), first)) {
+      first = comment.get().getBegin();
+    }
+    return first;
+  }
+
+  /**
+   * @return The last token of the node or of its comment, if the comment directly follows the node on the same line.
+   */
+  private static JavaToken lastToken(Node node) {
+    JavaToken last = getTokenRange(node).getEnd();
+    Optional<TokenRange> comment = node.getComment().flatMap(Comment::getTokenRange);
+    if (comment.isPresent() && isBefore(last, comment.get().getBegin()) && onlyWhitespaceBetween(last, comment.get().getBegin())) {
+      last = comment.get().getEnd();
+    }
+    return last;
+  }
+
+  private static boolean onlyWhitespaceBetween(JavaToken from, JavaToken to) {
+    Optional<JavaToken> token = from.getNextToken();
+    while (token.isPresent() && token.get() != to) {
+      if (!token.get().getCategory().isWhitespace()) {
+        return false;
+      }
+      token = token.get().getNextToken();
+    }
+    return token.isPresent();
+  }
+
+  private static boolean isBefore(JavaToken a, JavaToken b) {
+    return a.getRange().isPresent() && b.getRange().isPresent() && a.getRange().get().begin.isBefore(b.getRange().get().begin);
+  }
+
+  private static TokenRange getTokenRange(Node node) {
+    return node.getTokenRange().orElseThrow(() -> new JavaForgerException("Cannot locate node without tokens: " + node));
+  }
+
+}
@@ -17,13 +17,15 @@
  */
 package merger;
 
-import java.io.File;
 import java.io.IOException;
+import java.util.concurrent.locks.Lock;
 
 import configuration.JavaForgerConfiguration;
 import configuration.StaticJavaForgerConfiguration;
 import generator.CodeSnipit;
+import generator.FileTransaction;
 import generator.JavaForgerException;
+import reader.SourceCache;
 
 /**
  * Responsible for merging {@link CodeSnipit}s into java classes. The current default implementation is {@link LineMerger}. The default can be changed within
@@ -33,10 +35,29 @@ import generator.JavaForgerException;
  */
 public abstract class CodeSnipitMerger {
 
+  /**
+   * Merges the {@link CodeSnipit} into the merge class. Merges into the same file are serialized by the {@link MergeLockManager}, so that concurrent merges do
+   * not overwrite each others changes.
+   *
+   * @param config The {@link JavaForgerConfiguration} containing the merge settings.
+   * @param codeSnipit The {@link CodeSnipit} to merge.
+   * @param mergeClassPath The path to the class to merge into.
+   * @throws IOException If the merge class could not be read or written.
+   */
   public void merge(JavaForgerConfiguration config, CodeSnipit codeSnipit, String mergeClassPath) throws IOException {
     if (validate(codeSnipit, mergeClassPath)) {
-      executeMerge(config, codeSnipit, mergeClassPath);
-      format(config, mergeClassPath);
+      Lock lock = MergeLockManager.getDefault().getLock(mergeClassPath);
+      lock.lock();
+      try {
+        try {
+          executeMerge(config, codeSnipit, mergeClassPath);
+        } finally {
+          SourceCache.changed(mergeClassPath);
+        }
+        format(config, mergeClassPath);
+      } finally {
+        lock.unlock();
+      }
     }
   }
 
@@ -50,7 +71,7 @@ public abstract class CodeSnipitMerger {
     if (mergeClassPath.isEmpty()) {
       throw new JavaForgerException("merge class path may not be empty");
     }
-    if (!new File(mergeClassPath).exists()) {
+    if (!FileTransaction.exists(mergeClassPath)) {
       throw new JavaForgerException("merge class path does not point to existing file: " + mergeClassPath);
     }
     if (codeSnipit.getCode().isEmpty()) {
@@ -17,8 +17,6 @@
  */
 package merger;
 
-import java.io.FileInputStream;
-import java.io.FileNotFoundException;
 import java.io.IOException;
 
 import com.github.javaparser.JavaParser;
@@ -36,6 +34,7 @@ import com.github.javaparser.printer.lexicalpreservation.LexicalPreservingPrinte
 import configuration.PathConverter;
 import generator.CodeSnipit;
 import reader.Parser;
+import reader.SourceCache;
 
 /**
  * Reads a {@link CodeSnipit} and turns it into a {@link CompilationUnit} by using {@link JavaParser}.
@@ -123,7 +122,7 @@ public class CodeSnipitReader {
     code.append(string.substring(0, index));
     boolean hasClassDefined = hasClassDefined(string.substring(index));
     if (!hasClassDefined) {
-      // Don't add any lines otherwise the CodeSnipitInserter cannot know the line number anymore
+      // Don't add any lines, so that the positions of the nodes stay equal to the lines of the code snipit
       code.append("public class " + PathConverter.toClassName(mergeClassPath) + " {");
     }
     code.append(string.substring(index));
@@ -152,13 +151,7 @@ public class CodeSnipitReader {
   }
 
   protected CompilationUnit read(String className) throws IOException {
-    CompilationUnit cu = null;
-    try (FileInputStream in = new FileInputStream(className)) {
-      cu = StaticJavaParser.parse(in);
-      in.close();
-    } catch (FileNotFoundException e) {
-      e.printStackTrace();
-    }
+    CompilationUnit cu = StaticJavaParser.parse(SourceCache.load(className));
     // Needed to preserve the original formatting
     LexicalPreservingPrinter.setup(cu);
     return cu;
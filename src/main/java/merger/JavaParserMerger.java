@@ -17,12 +17,9 @@
  */
 package merger;
 
+import java.io.File;
 import java.io.IOException;
 import java.io.PrintWriter;
-import java.nio.charset.Charset;
-import java.nio.charset.StandardCharsets;
-import java.nio.file.Files;
-import java.nio.file.Paths;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Optional;
@@ -46,6 +43,8 @@ import com.github.javaparser.printer.lexicalpreservation.LexicalPreservingPrinte
 
 import configuration.JavaForgerConfiguration;
 import generator.CodeSnipit;
+import generator.FileTransaction;
+import reader.SourceCache;
 
 /**
  * Class for merging generated {@link CodeSnipit}s into java lass files.
@@ -69,11 +68,13 @@ public class JavaParserMerger extends CodeSnipitMerger {
    */
   @Override
   protected void executeMerge(JavaForgerConfiguration config, CodeSnipit codeSnipit, String mergeClassPath) throws IOException {
-    CompilationUnit existingCode = reader.read(mergeClassPath);
+    // The same content is used for parsing and as backup, so that the merge class is only read once.
+    String existing = SourceCache.load(mergeClassPath);
+    CompilationUnit existingCode = reader.readClass(existing);
     String completeClass = reader.toCompleteClass(codeSnipit, mergeClassPath);
     CompilationUnit newCode = reader.readClass(completeClass);
     merge(existingCode, newCode);
-    write(mergeClassPath, existingCode);
+    write(mergeClassPath, existingCode, existing);
   }
 
   private void merge(CompilationUnit existingCode, CompilationUnit newCode) {
@@ -99,7 +100,7 @@ public class JavaParserMerger extends CodeSnipitMerger {
     });
   }
 
-  private int findInsertionLocation(NodeList<BodyDeclaration<?>> existingMembers, BodyDeclaration<?> member) {
+  protected int findInsertionLocation(List<BodyDeclaration<?>> existingMembers, BodyDeclaration<?> member) {
     int index = 0;
     for (int i = 0; i < existingMembers.size(); i++) {
       if (existingMembers.get(i).getClass().equals(member.getClass())) {
@@ -151,7 +152,7 @@ public class JavaParserMerger extends CodeSnipitMerger {
     return Optional.ofNullable(modifiers);
   }
 
-  private int findReplacementNode(NodeList<BodyDeclaration<?>> existingMembers, BodyDeclaration<?> member) {
+  protected int findReplacementNode(List<BodyDeclaration<?>> existingMembers, BodyDeclaration<?> member) {
     int index = -1;
     for (int i = 0; i < existingMembers.size(); i++) {
       BodyDeclaration<?> exists = existingMembers.get(i);
@@ -221,14 +222,14 @@ public class JavaParserMerger extends CodeSnipitMerger {
     return parentNode;
   }
 
-  protected void write(String className, CompilationUnit existingCode) throws IOException {
+  protected void write(String className, CompilationUnit existingCode, String backupFile) throws IOException {
     // If LexicalPreservingPrinter fails we don't want the file to get lost.
-    String backupFile = readFile(className, StandardCharsets.UTF_8);
-    try (PrintWriter writer = new PrintWriter(className, "UTF-8")) {
+    File target = FileTransaction.resolveForWrite(className).toFile();
+    try (PrintWriter writer = new PrintWriter(target, "UTF-8")) {
       write(existingCode, writer);
       writer.close();
     } catch (Exception e) {
-      try (PrintWriter writer2 = new PrintWriter(className, "UTF-8")) {
+      try (PrintWriter writer2 = new PrintWriter(target, "UTF-8")) {
         writer2.append(backupFile);
         writer2.close();
       }
@@ -241,9 +242,4 @@ public class JavaParserMerger extends CodeSnipitMerger {
     LexicalPreservingPrinter.print(existingCode, writer);
   }
 
-  private String readFile(String path, Charset encoding) throws IOException {
-    byte[] encoded = Files.readAllBytes(Paths.get(path));
-    return new String(encoded, encoding);
-  }
-
 }
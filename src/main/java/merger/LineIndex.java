@@ -0,0 +1,116 @@
+/*
+ * Copyright 2019 by Daan van den Heuvel.
+ *
+ * This file is part of JavaForger.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package merger;
+
+import java.util.Arrays;
+
+import com.github.javaparser.Position;
+
+/**
+ * Index of the start offsets of all lines within a buffer, so that a {@link Position} of {@link com.github.javaparser.JavaParser} can be converted to a
+ * character offset without scanning the buffer again. Line breaks are "\r\n", "\r" or "\n", the same as within JavaParser.
+ *
+ * @author Daan
+ */
+public final class LineIndex {
+
+  /** The offset of the first character of every line, index 0 is the first line. */
+  private final int[] lineStarts;
+  private final int length;
+  /** The first line break within the buffer, or "\n" if it does not contain any. */
+  private final String lineSeparator;
+
+  private LineIndex(int[] lineStarts, int length, String lineSeparator) {
+    this.lineStarts = lineStarts;
+    this.length = length;
+    this.lineSeparator = lineSeparator;
+  }
+
+  /**
+   * Creates the {@link LineIndex} for the buffer in a single pass.
+   *
+   * @param buffer The buffer to index.
+   * @return new {@link LineIndex}
+   */
+  public static LineIndex of(CharSequence buffer) {
+    int[] starts = new int[16];
+    int lines = 1;
+    int length = buffer.length();
+    String lineSeparator = null;
+    for (int i = 0; i < length; i++) {
+      char c = buffer.charAt(i);
+      if (c == '\n' || c == '\r') {
+        int start = i;
+        if (c == '\r' && i + 1 < length && buffer.charAt(i + 1) == '\n') {
+          i++;
+        }
+        if (lineSeparator == null) {
+          lineSeparator = buffer.subSequence(start, i + 1).toString();
+        }
+        if (lines == starts.length) {
+          starts = Arrays.copyOf(starts, lines * 2);
+        }
+        starts[lines++] = i + 1;
+      }
+    }
+    return new LineIndex(Arrays.copyOf(starts, lines), length, lineSeparator == null ? "\n" : lineSeparator);
+  }
+
+  /**
+   * @return The number of lines, a buffer ending with a line break has an empty last line.
+   */
+  public int getLineCount() {
+    return lineStarts.length;
+  }
+
+  public String getLineSeparator() {
+    return lineSeparator;
+  }
+
+  /**
+   * @param line The line number, starting at 1.
+   * @return The offset of the first character of the line.
+   */
+  public int getLineStart(int line) {
+    if (line < 1 || line > lineStarts.length) {
+      throw new IndexOutOfBoundsException("Line " + line + " is not within 1 and " + lineStarts.length);
+    }
+    return lineStarts[line - 1];
+  }
+
+  /**
+   * @param position The {@link Position} with a line and column starting at 1, tabs count as a single column.
+   * @return The offset of the character at the position.
+   */
+  public int getOffset(Position position) {
+    int offset = getLineStart(position.line) + position.column - 1;
+    if (offset > length) {
+      throw new IndexOutOfBoundsException("Position " + position + " is outside of the buffer with length " + length);
+    }
+    return offset;
+  }
+
+  /**
+   * @param offset An offset within the buffer.
+   * @return True if the offset is the start of a line.
+   */
+  public boolean isLineStart(int offset) {
+    return Arrays.binarySearch(lineStarts, offset) >= 0;
+  }
+
+}
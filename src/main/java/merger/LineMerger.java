@@ -18,32 +18,52 @@
 package merger;
 
 import java.io.IOException;
-import java.util.LinkedHashMap;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.List;
 
+import com.github.javaparser.StaticJavaParser;
 import com.github.javaparser.ast.CompilationUnit;
 
 import configuration.JavaForgerConfiguration;
 import generator.CodeSnipit;
+import generator.FileTransaction;
+import reader.SourceCache;
 
 /**
- * Class to merge new code into an existing class, on line per line basis.
+ * Class to merge new code into an existing class, on the character ranges of the existing and new members.
  *
  * @author Daan
  */
 public class LineMerger extends CodeSnipitMerger {
 
-  private CodeSnipitLocater locater = new CodeSnipitLocater();
-  private CodeSnipitInserter inserter = new CodeSnipitInserter();
   private CodeSnipitReader reader = new CodeSnipitReader();
 
   @Override
   protected void executeMerge(JavaForgerConfiguration config, CodeSnipit codeSnipit, String mergeClassPath) throws IOException {
-    CompilationUnit existingCode = reader.read(mergeClassPath);
+    String existingCode = SourceCache.load(mergeClassPath);
+    String merged = merge(config, codeSnipit, mergeClassPath, existingCode);
+    Files.write(FileTransaction.resolveForWrite(mergeClassPath), merged.getBytes(StandardCharsets.UTF_8));
+  }
+
+  /**
+   * Merges the {@link CodeSnipit} into the given code in the same way as it would be merged into a file, without reading or writing any file. The code is
+   * located on character offsets by the {@link CodeSnipitEditLocater}, everything outside of the edited ranges is kept as is.
+   *
+   * @param config The {@link JavaForgerConfiguration} containing the merge settings.
+   * @param codeSnipit The {@link CodeSnipit} to merge.
+   * @param mergeClassPath The path to the class to merge into, used to determine the class name if the {@link CodeSnipit} does not contain a class.
+   * @param existingCode The current code of the merge class.
+   * @return The merged code.
+   */
+  public String merge(JavaForgerConfiguration config, CodeSnipit codeSnipit, String mergeClassPath, String existingCode) {
+    if (codeSnipit.getCode().isEmpty()) {
+      return existingCode;
+    }
+    CompilationUnit existing = StaticJavaParser.parse(existingCode);
     CompilationUnit newCode = reader.read(codeSnipit, mergeClassPath);
-    // TODO Currently there is a bug where the locator does not order the insertLocations if it overrides earlier defined code.
-    // Solution: let locator except normal unsorted hashmap and sort it inside.
-    LinkedHashMap<CodeSnipitLocation, CodeSnipitLocation> newCodeInsertionLocations = locater.locate(existingCode, newCode);
-    inserter.insert(config, mergeClassPath, codeSnipit.toString(), newCodeInsertionLocations);
+    List<CodeSnipitEdit> edits = new CodeSnipitEditLocater(LineIndex.of(existingCode)).locate(existing, newCode, config.isOverride());
+    return CodeSnipitEdit.apply(existingCode, edits);
   }
 
 }
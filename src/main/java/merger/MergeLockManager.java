@@ -0,0 +1,103 @@
+/*
+ * Copyright 2019 by Daan van den Heuvel.
+ *
+ * This file is part of JavaForger.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package merger;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Serializes merges into the same file, while merges into different files can be executed in parallel. Locks are looked up by the canonical path of the merge
+ * class, so that different notations of the same path use the same lock. A fixed number of striped locks is used, so memory does not grow with the number of
+ * merge classes. Different files can share a stripe, in which case their merges are serialized as well. The locks are reentrant, so a merge can call other
+ * code that locks the same file.
+ *
+ * @author Daan
+ */
+public final class MergeLockManager {
+
+  /** The number of stripes used by the default {@link MergeLockManager}. */
+  public static final int DEFAULT_STRIPES = 64;
+
+  private static final MergeLockManager DEFAULT = new MergeLockManager(DEFAULT_STRIPES);
+
+  private final ReentrantLock[] locks;
+
+  /**
+   * Creates a new {@link MergeLockManager}.
+   *
+   * @param stripes The number of locks, rounded up to a power of 2.
+   */
+  public MergeLockManager(int stripes) {
+    int size = Integer.highestOneBit(Math.max(1, stripes - 1)) << 1;
+    this.locks = new ReentrantLock[stripes <= 1 ? 1 : size];
+    for (int i = 0; i < locks.length; i++) {
+      locks[i] = new ReentrantLock();
+    }
+  }
+
+  /**
+   * @return The {@link MergeLockManager} shared by all merges within this JVM.
+   */
+  public static MergeLockManager getDefault() {
+    return DEFAULT;
+  }
+
+  /**
+   * Gets the lock for the given merge class, the caller is responsible for locking and unlocking it.
+   *
+   * @param mergeClassPath The path to the merge class.
+   * @return The {@link Lock} for the canonical path of the merge class.
+   */
+  public Lock getLock(String mergeClassPath) {
+    return locks[stripe(toCanonicalPath(mergeClassPath))];
+  }
+
+  /**
+   * @return The number of stripes.
+   */
+  public int getStripes() {
+    return locks.length;
+  }
+
+  int stripe(String canonicalPath) {
+    int h = canonicalPath.hashCode();
+    // Spread the higher bits, so that paths only differing at the end still spread over the stripes.
+    h ^= (h >>> 16);
+    return h & (locks.length - 1);
+  }
+
+  /**
+   * Converts the path to its canonical form. If the canonical path cannot be determined, the absolute path is used.
+   *
+   * @param path The path to convert.
+   * @return The canonical path with forward slashes.
+   */
+  static String toCanonicalPath(String path) {
+    File file = new File(path);
+    String canonical;
+    try {
+      canonical = file.getCanonicalPath();
+    } catch (IOException e) {
+      canonical = file.getAbsoluteFile().toPath().normalize().toString();
+    }
+    return canonical.replace("\\", "/");
+  }
+
+}
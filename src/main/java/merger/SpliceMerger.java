@@ -0,0 +1,165 @@
+/*
+ * Copyright 2019 by Daan van den Heuvel.
+ *
+ * This file is part of JavaForger.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package merger;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import com.github.javaparser.ast.CompilationUnit;
+import com.github.javaparser.ast.ImportDeclaration;
+import com.github.javaparser.ast.Node;
+import com.github.javaparser.ast.body.BodyDeclaration;
+import com.github.javaparser.ast.body.ClassOrInterfaceDeclaration;
+import com.github.javaparser.ast.body.TypeDeclaration;
+
+import configuration.JavaForgerConfiguration;
+import generator.CodeSnipit;
+import generator.FileTransaction;
+import generator.JavaForgerException;
+import reader.Parser;
+import reader.SourceCache;
+
+/**
+ * Merges members in the same way as the {@link JavaParserMerger}, but without printing the merged {@link CompilationUnit}. The source text of every new member
+ * is spliced into the original code at the token ranges of the existing members, so that the {@link com.github.javaparser.printer.lexicalpreservation
+ * .LexicalPreservingPrinter} does not have to be setup for the merge class and the {@link CodeSnipit}. Only the replaced and inserted members change, all
+ * other code is kept as is.
+ *
+ * @author Daan
+ */
+public class SpliceMerger extends JavaParserMerger {
+
+  private CodeSnipitReader reader = new CodeSnipitReader();
+
+  @Override
+  protected void executeMerge(JavaForgerConfiguration config, CodeSnipit codeSnipit, String mergeClassPath) throws IOException {
+    String existingCode = SourceCache.load(mergeClassPath);
+    String merged = merge(codeSnipit, mergeClassPath, existingCode);
+    Files.write(FileTransaction.resolveForWrite(mergeClassPath), merged.getBytes(StandardCharsets.UTF_8));
+  }
+
+  /**
+   * Merges the {@link CodeSnipit} into the given code, without reading or writing any file.
+   *
+   * @param codeSnipit The {@link CodeSnipit} to merge.
+   * @param mergeClassPath The path to the class to merge into, used to determine the class name if the {@link CodeSnipit} does not contain a class.
+   * @param existingCode The current code of the merge class.
+   * @return The merged code.
+   */
+  public String merge(CodeSnipit codeSnipit, String mergeClassPath, String existingCode) {
+    CompilationUnit existing = Parser.parse(existingCode);
+    CompilationUnit newCode = Parser.parse(reader.toCompleteClass(codeSnipit, mergeClassPath));
+    CodeSnipitEditLocater locater = new CodeSnipitEditLocater(LineIndex.of(existingCode));
+
+    List<CodeSnipitEdit> edits = new ArrayList<>();
+    edits.addAll(mergeImports(locater, existing, newCode));
+    edits.addAll(mergeMembers(locater, findClass(existing), findClass(newCode)));
+    // Stable sort, so that members inserted at the same location keep their order.
+    edits.sort(null);
+    return CodeSnipitEdit.apply(existingCode, edits);
+  }
+
+  private List<CodeSnipitEdit> mergeImports(CodeSnipitEditLocater locater, CompilationUnit existing, CompilationUnit newCode) {
+    Set<ImportDeclaration> existingSet = new HashSet<>(existing.getImports());
+    List<ImportDeclaration> newImports = newCode.getImports().stream().filter(existingSet::add).collect(Collectors.toList());
+    if (newImports.isEmpty()) {
+      return new ArrayList<>();
+    }
+    CodeSnipitEdit location;
+    if (existing.getImports().isNonEmpty()) {
+      location = locater.after(existing.getImports().get(existing.getImports().size() - 1));
+    } else if (existing.getPackageDeclaration().isPresent()) {
+      location = locater.after(existing.getPackageDeclaration().get());
+    } else {
+      location = locater.before(existing.getType(0));
+    }
+    return newImports.stream().map(imp -> locater.edit(imp, location)).collect(Collectors.toList());
+  }
+
+  /**
+   * Determines the members in the same way as {@link JavaParserMerger}, then converts the result to edits. New members are inserted after the closest existing
+   * member before them, or before the first existing member if there is none.
+   */
+  private List<CodeSnipitEdit> mergeMembers(CodeSnipitEditLocater locater, ClassOrInterfaceDeclaration existingClass, ClassOrInterfaceDeclaration newClass) {
+    List<Slot> slots = existingClass.getMembers().stream().map(Slot::new).collect(Collectors.toList());
+    for (BodyDeclaration<?> member : newClass.getMembers()) {
+      List<BodyDeclaration<?>> members = slots.stream().map(s -> s.member).collect(Collectors.toList());
+      int replacementIndex = findReplacementNode(members, member);
+      if (replacementIndex >= 0) {
+        slots.get(replacementIndex).member = member;
+      } else {
+        Slot slot = new Slot(null);
+        slot.member = member;
+        slots.add(findInsertionLocation(members, member), slot);
+      }
+    }
+
+    List<CodeSnipitEdit> edits = new ArrayList<>();
+    Node previous = null;
+    for (int i = 0; i < slots.size(); i++) {
+      Slot slot = slots.get(i);
+      if (slot.existing != null) {
+        if (slot.member != slot.existing) {
+          edits.add(locater.edit(slot.member, locater.replace(slot.existing)));
+        }
+        previous = slot.existing;
+      } else {
+        edits.add(locater.edit(slot.member, getInsertLocation(locater, existingClass, previous, slots.subList(i + 1, slots.size()))));
+      }
+    }
+    return edits;
+  }
+
+  private CodeSnipitEdit getInsertLocation(CodeSnipitEditLocater locater, ClassOrInterfaceDeclaration existingClass, Node previous, List<Slot> next) {
+    if (previous != null) {
+      return locater.after(previous);
+    }
+    return next.stream().filter(s -> s.existing != null).findFirst().map(s -> locater.before(s.existing))
+        .orElseGet(() -> locater.first(existingClass, existingClass.getName()));
+  }
+
+  private ClassOrInterfaceDeclaration findClass(CompilationUnit cu) {
+    for (TypeDeclaration<?> type : cu.getTypes()) {
+      if (type instanceof ClassOrInterfaceDeclaration) {
+        return (ClassOrInterfaceDeclaration) type;
+      }
+    }
+    throw new JavaForgerException("Cannot merge into code without a class: " + cu);
+  }
+
+  /**
+   * A member of the merged class, with the existing member it replaces if any.
+   */
+  private static final class Slot {
+    /** The member within the existing code, null if the member is new. */
+    private final BodyDeclaration<?> existing;
+    private BodyDeclaration<?> member;
+
+    private Slot(BodyDeclaration<?> existing) {
+      this.existing = existing;
+      this.member = existing;
+    }
+  }
+
+}
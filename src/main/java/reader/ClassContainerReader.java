@@ -17,9 +17,8 @@
  */
 package reader;
 
-import java.io.FileInputStream;
-import java.io.FileNotFoundException;
 import java.io.IOException;
+import java.nio.file.NoSuchFileException;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Optional;
@@ -61,28 +60,105 @@ public class ClassContainerReader {
   private DataFlowGraphFactory dfgFactory = new DataFlowGraphFactory();
   private MethodDefinitionFactory methodFactory = new MethodDefinitionFactory();
   private VariableDefintionFactory fieldFactory = new VariableDefintionFactory();
+  private HierarchyIndex hierarchyIndex;
 
   public ClassContainer read(String inputClass) throws IOException {
-    CompilationUnit cu = getCompilationUnit(inputClass);
+    return read(inputClass, true);
+  }
+
+  /**
+   * Reads all data from the given input class.
+   *
+   * @param inputClass The path to the input class.
+   * @param methodBodies False if only the declarations have to be read, see {@link ClassContainerReader#parse(String, boolean)}.
+   * @return The {@link ClassContainer} containing the data of the class.
+   * @throws IOException If the file could not be read.
+   */
+  public ClassContainer read(String inputClass, boolean methodBodies) throws IOException {
+    return read(parse(inputClass, methodBodies), methodBodies);
+  }
+
+  /**
+   * Reads all data from the given {@link CompilationUnit}, so that parsing and reading can be done separately.
+   *
+   * @param cu The parsed input class.
+   * @return The {@link ClassContainer} containing the data of the class.
+   */
+  public ClassContainer read(CompilationUnit cu) {
+    return read(cu, true);
+  }
+
+  /**
+   * Reads all data from the given {@link CompilationUnit}. If the method bodies are not read, the {@link DataFlowGraph} is not created and the
+   * {@link MethodDefinition}s will not contain any data derived from their body, like the changed fields and the called methods.
+   *
+   * @param cu The parsed input class.
+   * @param methodBodies True if the data derived from method bodies has to be read, false otherwise.
+   * @return The {@link ClassContainer} containing the data of the class.
+   */
+  public ClassContainer read(CompilationUnit cu, boolean methodBodies) {
     DataFlowGraph dfg = null;
-    try {
-      dfg = dfgFactory.create(cu);
-    } catch (Exception e) {
-      LOG.error("Error creating dataFlowGraph: {}", e);
+    if (methodBodies) {
+      try {
+        dfg = dfgFactory.create(cu);
+      } catch (Exception e) {
+        LOG.error("Error creating dataFlowGraph: {}", e);
+      }
     }
     ClassContainer claz = readCompilationUnit(cu, dfg);
+    if (hierarchyIndex != null) {
+      hierarchyIndex.aggregate(claz, cu);
+    }
     return claz;
   }
 
-  private CompilationUnit getCompilationUnit(String inputClass) throws IOException {
-    CompilationUnit cu = null;
-    try (FileInputStream in = new FileInputStream(inputClass)) {
-      cu = StaticJavaParser.parse(in);
-      in.close();
-    } catch (FileNotFoundException e) {
+  /**
+   * Parses the given input class.
+   *
+   * @param inputClass The path to the input class.
+   * @return The parsed {@link CompilationUnit}
+   * @throws IOException If the file could not be read.
+   */
+  public CompilationUnit parse(String inputClass) throws IOException {
+    return StaticJavaParser.parse(load(inputClass));
+  }
+
+  /**
+   * Parses the given input class. If the method bodies are not needed, they are blanked out before parsing, which is a lot faster for large classes. All
+   * declarations, signatures, annotations and field initializers are still parsed, at the same position as in the original file.
+   *
+   * @param inputClass The path to the input class.
+   * @param methodBodies False if the bodies of methods, constructors and initializer blocks can be left empty.
+   * @return The parsed {@link CompilationUnit}
+   * @throws IOException If the file could not be read.
+   */
+  public CompilationUnit parse(String inputClass, boolean methodBodies) throws IOException {
+    if (methodBodies) {
+      return parse(inputClass);
+    }
+    return Parser.parse(MethodBodyEraser.erase(load(inputClass)));
+  }
+
+  private String load(String inputClass) throws IOException {
+    try {
+      return SourceCache.load(inputClass);
+    } catch (NoSuchFileException e) {
       throw new JavaForgerException(e, "Could not parse " + inputClass);
     }
-    return cu;
+  }
+
+  public HierarchyIndex getHierarchyIndex() {
+    return hierarchyIndex;
+  }
+
+  /**
+   * Sets the {@link HierarchyIndex} used to add the inherited fields and methods to every {@link ClassContainer} that is read. By default no index is set and
+   * inherited members are not read.
+   *
+   * @param hierarchyIndex The {@link HierarchyIndex}, or null to disable reading inherited members.
+   */
+  public void setHierarchyIndex(HierarchyIndex hierarchyIndex) {
+    this.hierarchyIndex = hierarchyIndex;
   }
 
   private ClassContainer readCompilationUnit(CompilationUnit cu, DataFlowGraph dfg) {
@@ -0,0 +1,403 @@
+/*
+ * Copyright 2019 by Daan van den Heuvel.
+ *
+ * This file is part of JavaForger.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package reader;
+
+import java.io.ByteArrayInputStream;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import generator.JavaForgerException;
+
+/**
+ * Lightweight parser for class files, see chapter 4 of the Java Virtual Machine Specification. Only the data needed for a {@link templateInput.ClassContainer}
+ * is kept: the declared type, fields and methods with their access flags, descriptors, generic signatures, annotations, constant values and parameter names.
+ * Bytecode is skipped.
+ *
+ * @author Daan
+ */
+final class ClassFile {
+
+  static final int ACC_PUBLIC = 0x0001;
+  static final int ACC_PRIVATE = 0x0002;
+  static final int ACC_PROTECTED = 0x0004;
+  static final int ACC_STATIC = 0x0008;
+  static final int ACC_FINAL = 0x0010;
+  static final int ACC_SYNCHRONIZED = 0x0020;
+  static final int ACC_VOLATILE = 0x0040;
+  static final int ACC_BRIDGE = 0x0040;
+  static final int ACC_TRANSIENT = 0x0080;
+  static final int ACC_NATIVE = 0x0100;
+  static final int ACC_INTERFACE = 0x0200;
+  static final int ACC_ABSTRACT = 0x0400;
+  static final int ACC_SYNTHETIC = 0x1000;
+  static final int ACC_ENUM = 0x4000;
+
+  private static final int MAGIC = 0xCAFEBABE;
+
+  private int access;
+  private String name;
+  private String superName;
+  private final List<String> interfaces = new ArrayList<>();
+  private final List<String> annotations = new ArrayList<>();
+  private final List<Member> fields = new ArrayList<>();
+  private final List<Member> methods = new ArrayList<>();
+
+  private ClassFile() {
+    // Created by parse
+  }
+
+  /**
+   * Parses the given class file.
+   *
+   * @param bytes The content of the class file.
+   * @return The parsed {@link ClassFile}.
+   * @throws IOException If the class file is truncated.
+   */
+  static ClassFile parse(byte[] bytes) throws IOException {
+    DataInputStream in = new DataInputStream(new ByteArrayInputStream(bytes));
+    if (in.readInt() != MAGIC) {
+      throw new JavaForgerException("Not a class file, the magic number is missing");
+    }
+    in.readUnsignedShort();
+    in.readUnsignedShort();
+    ConstantPool pool = new ConstantPool(in);
+
+    ClassFile classFile = new ClassFile();
+    classFile.access = in.readUnsignedShort();
+    classFile.name = pool.className(in.readUnsignedShort());
+    classFile.superName = pool.className(in.readUnsignedShort());
+    int interfaceCount = in.readUnsignedShort();
+    for (int i = 0; i < interfaceCount; i++) {
+      classFile.interfaces.add(pool.className(in.readUnsignedShort()));
+    }
+    readMembers(in, pool, classFile.fields);
+    readMembers(in, pool, classFile.methods);
+    Member attributes = new Member(0, null, null);
+    readAttributes(in, pool, attributes);
+    classFile.annotations.addAll(attributes.annotations);
+    return classFile;
+  }
+
+  private static void readMembers(DataInputStream in, ConstantPool pool, List<Member> members) throws IOException {
+    int count = in.readUnsignedShort();
+    for (int i = 0; i < count; i++) {
+      Member member = new Member(in.readUnsignedShort(), pool.utf8(in.readUnsignedShort()), pool.utf8(in.readUnsignedShort()));
+      readAttributes(in, pool, member);
+      members.add(member);
+    }
+  }
+
+  private static void readAttributes(DataInputStream in, ConstantPool pool, Member member) throws IOException {
+    int count = in.readUnsignedShort();
+    for (int i = 0; i < count; i++) {
+      String attribute = pool.utf8(in.readUnsignedShort());
+      int length = in.readInt();
+      switch (attribute) {
+      case "Signature":
+        member.signature = pool.utf8(in.readUnsignedShort());
+        break;
+      case "ConstantValue":
+        member.constantValue = pool.constant(in.readUnsignedShort());
+        break;
+      case "RuntimeVisibleAnnotations":
+      case "RuntimeInvisibleAnnotations":
+        int annotationCount = in.readUnsignedShort();
+        for (int j = 0; j < annotationCount; j++) {
+          member.annotations.add(readAnnotation(in, pool));
+        }
+        break;
+      case "MethodParameters":
+        int parameterCount = in.readUnsignedByte();
+        for (int j = 0; j < parameterCount; j++) {
+          int nameIndex = in.readUnsignedShort();
+          in.readUnsignedShort();
+          member.parameterNames.add(nameIndex == 0 ? null : pool.utf8(nameIndex));
+        }
+        break;
+      case "Code":
+        readCode(in, pool, member);
+        break;
+      default:
+        skip(in, length);
+        break;
+      }
+    }
+  }
+
+  /**
+   * Reads the Code attribute, only to get the parameter names from the LocalVariableTable in case the MethodParameters attribute is missing.
+   */
+  private static void readCode(DataInputStream in, ConstantPool pool, Member member) throws IOException {
+    in.readUnsignedShort();
+    in.readUnsignedShort();
+    skip(in, in.readInt());
+    skip(in, in.readUnsignedShort() * 8);
+    int count = in.readUnsignedShort();
+    for (int i = 0; i < count; i++) {
+      String attribute = pool.utf8(in.readUnsignedShort());
+      int length = in.readInt();
+      if (attribute.equals("LocalVariableTable")) {
+        int variables = in.readUnsignedShort();
+        for (int j = 0; j < variables; j++) {
+          int startPc = in.readUnsignedShort();
+          in.readUnsignedShort();
+          String variableName = pool.utf8(in.readUnsignedShort());
+          in.readUnsignedShort();
+          int slot = in.readUnsignedShort();
+          if (startPc == 0) {
+            member.localVariables.add(new LocalVariable(slot, variableName));
+          }
+        }
+      } else {
+        skip(in, length);
+      }
+    }
+  }
+
+  /**
+   * Reads an annotation, skipping its element values.
+   *
+   * @return The descriptor of the annotation type.
+   */
+  private static String readAnnotation(DataInputStream in, ConstantPool pool) throws IOException {
+    String type = pool.utf8(in.readUnsignedShort());
+    int pairs = in.readUnsignedShort();
+    for (int i = 0; i < pairs; i++) {
+      in.readUnsignedShort();
+      skipElementValue(in, pool);
+    }
+    return type;
+  }
+
+  private static void skipElementValue(DataInputStream in, ConstantPool pool) throws IOException {
+    char tag = (char) in.readUnsignedByte();
+    switch (tag) {
+    case 'e':
+      skip(in, 4);
+      break;
+    case '@':
+      readAnnotation(in, pool);
+      break;
+    case '[':
+      int count = in.readUnsignedShort();
+      for (int i = 0; i < count; i++) {
+        skipElementValue(in, pool);
+      }
+      break;
+    default:
+      skip(in, 2);
+      break;
+    }
+  }
+
+  private static void skip(DataInputStream in, int bytes) throws IOException {
+    in.readFully(new byte[bytes]);
+  }
+
+  int getAccess() {
+    return access;
+  }
+
+  boolean is(int flag) {
+    return (access & flag) != 0;
+  }
+
+  /**
+   * @return The internal name of the class, like <code>java/util/List</code>.
+   */
+  String getName() {
+    return name;
+  }
+
+  /**
+   * @return The internal name of the super class, null for {@link Object}.
+   */
+  String getSuperName() {
+    return superName;
+  }
+
+  List<String> getInterfaces() {
+    return Collections.unmodifiableList(interfaces);
+  }
+
+  /**
+   * @return The descriptors of the annotations with class or runtime retention.
+   */
+  List<String> getAnnotations() {
+    return Collections.unmodifiableList(annotations);
+  }
+
+  List<Member> getFields() {
+    return Collections.unmodifiableList(fields);
+  }
+
+  List<Member> getMethods() {
+    return Collections.unmodifiableList(methods);
+  }
+
+  /**
+   * A field or method within a class file.
+   */
+  static final class Member {
+    private final int access;
+    private final String name;
+    private final String descriptor;
+    private String signature;
+    private Object constantValue;
+    private final List<String> annotations = new ArrayList<>();
+    private final List<String> parameterNames = new ArrayList<>();
+    private final List<LocalVariable> localVariables = new ArrayList<>();
+
+    private Member(int access, String name, String descriptor) {
+      this.access = access;
+      this.name = name;
+      this.descriptor = descriptor;
+    }
+
+    int getAccess() {
+      return access;
+    }
+
+    boolean is(int flag) {
+      return (access & flag) != 0;
+    }
+
+    String getName() {
+      return name;
+    }
+
+    String getDescriptor() {
+      return descriptor;
+    }
+
+    /**
+     * @return The generic signature, or null if the member does not use generics.
+     */
+    String getSignature() {
+      return signature;
+    }
+
+    /**
+     * @return The value of a constant field as {@link Integer}, {@link Long}, {@link Float}, {@link Double} or {@link String}, null otherwise.
+     */
+    Object getConstantValue() {
+      return constantValue;
+    }
+
+    List<String> getAnnotations() {
+      return Collections.unmodifiableList(annotations);
+    }
+
+    /**
+     * Determines the name of a parameter, from the MethodParameters attribute or from the local variables if the class was compiled with debug information.
+     *
+     * @param index The index of the parameter.
+     * @param slot The local variable slot of the parameter.
+     * @return The name of the parameter, or null if it is not present in the class file.
+     */
+    String getParameterName(int index, int slot) {
+      if (index < parameterNames.size()) {
+        return parameterNames.get(index);
+      }
+      return localVariables.stream().filter(v -> v.slot == slot).map(v -> v.name).findFirst().orElse(null);
+    }
+  }
+
+  private static final class LocalVariable {
+    private final int slot;
+    private final String name;
+
+    private LocalVariable(int slot, String name) {
+      this.slot = slot;
+      this.name = name;
+    }
+  }
+
+  /**
+   * The constant pool of a class file, only the entries used by {@link ClassFile} are kept.
+   */
+  private static final class ConstantPool {
+    private final int[] tags;
+    private final Object[] entries;
+    private final int[] references;
+
+    private ConstantPool(DataInputStream in) throws IOException {
+      int count = in.readUnsignedShort();
+      tags = new int[count];
+      entries = new Object[count];
+      references = new int[count];
+      for (int i = 1; i < count; i++) {
+        int tag = in.readUnsignedByte();
+        tags[i] = tag;
+        switch (tag) {
+        case 1:
+          entries[i] = in.readUTF();
+          break;
+        case 3:
+          entries[i] = in.readInt();
+          break;
+        case 4:
+          entries[i] = in.readFloat();
+          break;
+        case 5:
+          entries[i++] = in.readLong();
+          break;
+        case 6:
+          entries[i++] = in.readDouble();
+          break;
+        case 7:
+        case 8:
+        case 16:
+        case 19:
+        case 20:
+          references[i] = in.readUnsignedShort();
+          break;
+        case 15:
+          skip(in, 3);
+          break;
+        case 9:
+        case 10:
+        case 11:
+        case 12:
+        case 17:
+        case 18:
+          skip(in, 4);
+          break;
+        default:
+          throw new JavaForgerException("Unknown constant pool tag " + tag + " at index " + i);
+        }
+      }
+    }
+
+    private String utf8(int index) {
+      return (String) entries[index];
+    }
+
+    private String className(int index) {
+      return index == 0 ? null : utf8(references[index]);
+    }
+
+    private Object constant(int index) {
+      return tags[index] == 8 ? utf8(references[index]) : entries[index];
+    }
+  }
+
+}
@@ -0,0 +1,307 @@
+/*
+ * Copyright 2019 by Daan van den Heuvel.
+ *
+ * This file is part of JavaForger.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package reader;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+
+import com.github.javaparser.ast.CompilationUnit;
+
+import generator.FileTransaction;
+import generator.JavaForgerException;
+import reader.ClassFile.Member;
+import reader.TypeSignature.JavaType;
+import templateInput.ClassContainer;
+import templateInput.StringConverter;
+import templateInput.definition.ClassDefinition;
+import templateInput.definition.MethodDefinition;
+import templateInput.definition.VariableDefinition;
+
+/**
+ * {@link ClassContainerReader} that reads compiled classes, for instance when only a jar is available for the input class. Input classes ending with
+ * ".class" are read from the class file, which is also faster than parsing source code. Classes inside a jar are addressed with "!/" as separator, like
+ * <code>lib/dto.jar!/com/example/Dto.class</code>; jars are memory-mapped once and kept open until this reader is closed. All other input classes are read
+ * from source by the {@link ClassContainerReader}. This reader can be set with {@link configuration.StaticJavaForgerConfiguration#setReader}.
+ * <p>
+ * A class file does not contain everything from the source code: annotations with source retention (like {@link Override}) and line numbers of declarations
+ * are missing, only constant fields have an original initialization and there is no data derived from method bodies. Parameter names are only present if
+ * the class was compiled with -parameters or with debug information. Class files cannot be parsed into a {@link CompilationUnit}, so they can only be
+ * used as input class by the {@link generator.Generator}, not by the {@link generator.PipelineRunner}.
+ *
+ * @author Daan
+ */
+public class ClassFileReader extends ClassContainerReader implements Closeable {
+
+  public static final String JAR_SEPARATOR = "!/";
+  private static final String CLASS_EXTENSION = ".class";
+
+  private final Map<Path, MappedJar> jars = new ConcurrentHashMap<>();
+
+  /**
+   * @param inputClass The path to the input class.
+   * @return True if the input class is a class file or a class inside a jar, false otherwise.
+   */
+  public static boolean isClassFile(String inputClass) {
+    return inputClass.endsWith(CLASS_EXTENSION);
+  }
+
+  @Override
+  public ClassContainer read(String inputClass, boolean methodBodies) throws IOException {
+    return isClassFile(inputClass) ? read(ClassFile.parse(readBytes(inputClass))) : super.read(inputClass, methodBodies);
+  }
+
+  @Override
+  public CompilationUnit parse(String inputClass, boolean methodBodies) throws IOException {
+    if (isClassFile(inputClass)) {
+      throw new JavaForgerException("Class file " + inputClass + " cannot be parsed as source code, use ClassFileReader.read instead");
+    }
+    return super.parse(inputClass, methodBodies);
+  }
+
+  /**
+   * Reads the content of a class file or a class inside a jar.
+   *
+   * @param inputClass The path to the class file.
+   * @return The content of the class file.
+   * @throws IOException If the class file could not be read.
+   */
+  public byte[] readBytes(String inputClass) throws IOException {
+    int separator = inputClass.indexOf(JAR_SEPARATOR);
+    if (separator < 0) {
+      return Files.readAllBytes(FileTransaction.resolve(inputClass));
+    }
+    Path jar = Paths.get(inputClass.substring(0, separator)).toAbsolutePath().normalize();
+    return getJar(jar).read(inputClass.substring(separator + JAR_SEPARATOR.length()));
+  }
+
+  /**
+   * Gets the {@link MappedJar} for the given path, mapping it the first time it is requested.
+   *
+   * @param jar The path to the jar.
+   * @return The {@link MappedJar}
+   * @throws IOException If the jar could not be opened.
+   */
+  public MappedJar getJar(Path jar) throws IOException {
+    MappedJar mapped = jars.get(jar);
+    if (mapped == null) {
+      synchronized (jars) {
+        mapped = jars.get(jar);
+        if (mapped == null) {
+          mapped = MappedJar.open(jar);
+          jars.put(jar, mapped);
+        }
+      }
+    }
+    return mapped;
+  }
+
+  /**
+   * Closes all jars that were opened by this reader.
+   */
+  @Override
+  public void close() throws IOException {
+    synchronized (jars) {
+      for (MappedJar jar : jars.values()) {
+        jar.close();
+      }
+      jars.clear();
+    }
+  }
+
+  private ClassContainer read(ClassFile classFile) {
+    String simpleName = simpleName(classFile.getName());
+    int lastSlash = classFile.getName().lastIndexOf('/');
+    String packageName = lastSlash < 0 ? null : classFile.getName().substring(0, lastSlash).replace('/', '.');
+
+    String extend = classFile.getSuperName() == null || classFile.getSuperName().equals("java/lang/Object") || classFile.is(ClassFile.ACC_ENUM) ? null
+        : simpleName(classFile.getSuperName());
+    List<String> interfaces = classFile.getInterfaces().stream().map(ClassFileReader::simpleName).collect(Collectors.toList());
+    ClassDefinition def = ClassDefinition.builder().name(simpleName).type(simpleName).lineNumber(-1).column(-1)
+        .annotations(annotations(classFile.getAnnotations())).accessModifiers(classModifiers(classFile)).extend(extend).interfaces(interfaces).build();
+    ClassContainer claz = new ClassContainer(def);
+
+    List<VariableDefinition> fields = new ArrayList<>();
+    for (Member field : classFile.getFields()) {
+      if (!field.is(ClassFile.ACC_SYNTHETIC) && !field.is(ClassFile.ACC_ENUM)) {
+        fields.add(createField(field));
+      }
+    }
+    List<MethodDefinition> methods = new ArrayList<>();
+    List<MethodDefinition> constructors = new ArrayList<>();
+    for (Member method : classFile.getMethods()) {
+      if (method.is(ClassFile.ACC_SYNTHETIC) || method.is(ClassFile.ACC_BRIDGE) || method.getName().equals("<clinit>")
+          || isImplicitEnumMethod(classFile, method)) {
+        continue;
+      }
+      if (method.getName().equals("<init>")) {
+        MethodDefinition constructor = createMethod(method, simpleName);
+        if (packageName != null) {
+          constructor.addTypeImport(packageName);
+        }
+        constructors.add(constructor);
+      } else {
+        methods.add(createMethod(method, null));
+      }
+    }
+
+    if (packageName != null) {
+      claz.addTypeImport(packageName + "." + simpleName);
+    }
+    claz.setFields(fields);
+    claz.setMethods(methods);
+    claz.setConstructors(constructors);
+    return claz;
+  }
+
+  private VariableDefinition createField(Member field) {
+    JavaType type = TypeSignature.parseField(field.getSignature() == null ? field.getDescriptor() : field.getSignature());
+    return VariableDefinition.builder().name(field.getName()).type(type.getName()).typeImports(type.getImports())
+        .annotations(annotations(field.getAnnotations())).accessModifiers(fieldModifiers(field.getAccess())).lineNumber(-1).column(-1)
+        .originalInit(toLiteral(field.getConstantValue(), field.getDescriptor())).build();
+  }
+
+  /**
+   * Creates a {@link MethodDefinition}, the type is the return type for methods and the class name for constructors.
+   */
+  private MethodDefinition createMethod(Member method, String constructorType) {
+    List<JavaType> types = TypeSignature.parseMethod(method.getDescriptor());
+    if (method.getSignature() != null) {
+      List<JavaType> generic = TypeSignature.parseMethod(method.getSignature());
+      // Signatures omit synthetic parameters, like the outer instance of an inner class constructor
+      if (generic.size() == types.size()) {
+        types = generic;
+      }
+    }
+    List<VariableDefinition> parameters = new ArrayList<>();
+    int slot = method.is(ClassFile.ACC_STATIC) ? 0 : 1;
+    for (int i = 0; i < types.size() - 1; i++) {
+      JavaType type = types.get(i);
+      String name = method.getParameterName(i, slot);
+      parameters.add(VariableDefinition.builder().name(name == null ? "arg" + i : name).type(type.getName()).typeImports(type.getImports()).build());
+      slot += type.getName().equals("long") || type.getName().equals("double") ? 2 : 1;
+    }
+    JavaType returnType = types.get(types.size() - 1);
+    String name = constructorType == null ? method.getName() : constructorType;
+    String parameterNames = parameters.stream().map(VariableDefinition::getName).map(StringConverter::toString).collect(Collectors.joining(","));
+    String callSignature = name + "(" + parameterNames + ")";
+    MethodDefinition.Builder builder = MethodDefinition.builder().name(name).accessModifiers(methodModifiers(method.getAccess()))
+        .annotations(annotations(method.getAnnotations())).parameters(parameters).lineNumber(-1).column(-1).callSignature(callSignature);
+    if (constructorType == null) {
+      builder.type(returnType.getName()).typeImports(returnType.getImports());
+    } else {
+      builder.type(constructorType);
+    }
+    return builder.build();
+  }
+
+  private static boolean isImplicitEnumMethod(ClassFile classFile, Member method) {
+    return classFile.is(ClassFile.ACC_ENUM) && method.is(ClassFile.ACC_STATIC)
+        && (method.getName().equals("values") && method.getDescriptor().startsWith("()")
+            || method.getName().equals("valueOf") && method.getDescriptor().startsWith("(Ljava/lang/String;)"));
+  }
+
+  private static Set<String> annotations(List<String> descriptors) {
+    return descriptors.stream().map(d -> simpleName(d.substring(1, d.length() - 1))).collect(Collectors.toCollection(LinkedHashSet::new));
+  }
+
+  private static Set<String> classModifiers(ClassFile classFile) {
+    Set<String> modifiers = new LinkedHashSet<>();
+    addIf(modifiers, classFile.getAccess(), ClassFile.ACC_PUBLIC, "public");
+    addIf(modifiers, classFile.getAccess(), ClassFile.ACC_FINAL, "final");
+    if (!classFile.is(ClassFile.ACC_INTERFACE)) {
+      addIf(modifiers, classFile.getAccess(), ClassFile.ACC_ABSTRACT, "abstract");
+    }
+    return modifiers;
+  }
+
+  private static Set<String> fieldModifiers(int access) {
+    Set<String> modifiers = visibility(access);
+    addIf(modifiers, access, ClassFile.ACC_STATIC, "static");
+    addIf(modifiers, access, ClassFile.ACC_FINAL, "final");
+    addIf(modifiers, access, ClassFile.ACC_VOLATILE, "volatile");
+    addIf(modifiers, access, ClassFile.ACC_TRANSIENT, "transient");
+    return modifiers;
+  }
+
+  private static Set<String> methodModifiers(int access) {
+    Set<String> modifiers = visibility(access);
+    addIf(modifiers, access, ClassFile.ACC_STATIC, "static");
+    addIf(modifiers, access, ClassFile.ACC_FINAL, "final");
+    addIf(modifiers, access, ClassFile.ACC_SYNCHRONIZED, "synchronized");
+    addIf(modifiers, access, ClassFile.ACC_NATIVE, "native");
+    addIf(modifiers, access, ClassFile.ACC_ABSTRACT, "abstract");
+    return modifiers;
+  }
+
+  private static Set<String> visibility(int access) {
+    Set<String> modifiers = new LinkedHashSet<>();
+    addIf(modifiers, access, ClassFile.ACC_PUBLIC, "public");
+    addIf(modifiers, access, ClassFile.ACC_PROTECTED, "protected");
+    addIf(modifiers, access, ClassFile.ACC_PRIVATE, "private");
+    return modifiers;
+  }
+
+  private static void addIf(Set<String> modifiers, int access, int flag, String modifier) {
+    if ((access & flag) != 0) {
+      modifiers.add(modifier);
+    }
+  }
+
+  /**
+   * Converts the value of a constant field to how it would be written in source code.
+   */
+  private static String toLiteral(Object value, String descriptor) {
+    if (value == null) {
+      return null;
+    }
+    switch (descriptor) {
+    case "Z":
+      return Integer.valueOf(0).equals(value) ? "false" : "true";
+    case "C":
+      char c = (char) ((Integer) value).intValue();
+      return "'" + (c == '\'' ? "\\'" : escape(String.valueOf(c))) + "'";
+    case "J":
+      return value + "L";
+    case "F":
+      return value + "F";
+    case "Ljava/lang/String;":
+      return "\"" + escape((String) value) + "\"";
+    default:
+      return value.toString();
+    }
+  }
+
+  private static String escape(String value) {
+    return value.replace("\\", "\\\\").replace("\"", "\\\"").replace("\n", "\\n").replace("\r", "\\r").replace("\t", "\\t");
+  }
+
+  private static String simpleName(String internalName) {
+    return internalName.substring(Math.max(internalName.lastIndexOf('/'), internalName.lastIndexOf('$')) + 1);
+  }
+
+}
@@ -0,0 +1,374 @@
+/*
+ * Copyright 2019 by Daan van den Heuvel.
+ *
+ * This file is part of JavaForger.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package reader;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.github.javaparser.ast.CompilationUnit;
+import com.github.javaparser.ast.ImportDeclaration;
+import com.github.javaparser.ast.body.ClassOrInterfaceDeclaration;
+import com.github.javaparser.ast.type.ClassOrInterfaceType;
+import com.github.javaparser.ast.type.Type;
+import com.github.javaparser.ast.type.TypeParameter;
+
+import templateInput.ClassContainer;
+import templateInput.definition.MethodDefinition;
+import templateInput.definition.TypeDefinition;
+import templateInput.definition.VariableDefinition;
+
+/**
+ * Index of all classes within the source folders of a project, used to add the inherited fields and methods to a {@link ClassContainer}. Every supertype is
+ * parsed only once, without method bodies, and memoized, so that reading many subclasses of the same base classes does not parse the base classes again.
+ * Supertypes outside the source folders, like those from the JDK or dependency jars, are ignored. The type parameters of generic supertypes are replaced by
+ * the type arguments from the extends and implements clauses, so that {@code class Foo extends Base<String>} inherits a field of type {@code String} instead
+ * of {@code T}. Members of raw supertypes keep their declared types. Long running processes should call {@link HierarchyIndex#invalidate(String)} for every
+ * changed source file. Set it on the reader with {@link ClassContainerReader#setHierarchyIndex(HierarchyIndex)} to enable the aggregation. This class is
+ * thread safe.
+ *
+ * @author Daan
+ */
+public class HierarchyIndex {
+  private static final Logger LOG = LoggerFactory.getLogger(HierarchyIndex.class);
+  /** A simple name that is not part of a qualified name */
+  private static final Pattern IDENTIFIER = Pattern.compile("(?<![\\w$.])[\\p{javaJavaIdentifierStart}][\\p{javaJavaIdentifierPart}]*(?![\\w$.])");
+
+  private final List<Path> sourceFolders;
+  private final ClassContainerReader reader = new ClassContainerReader();
+  private final Map<String, Optional<Supertype>> supertypes = new ConcurrentHashMap<>();
+  private Map<String, Path> sources;
+
+  /**
+   * @param sourceFolders The source folders of the project, like "src/main/java".
+   */
+  public HierarchyIndex(Collection<String> sourceFolders) {
+    this.sourceFolders = sourceFolders.stream().map(Paths::get).collect(Collectors.toList());
+  }
+
+  /**
+   * Adds the fields and methods inherited from all supertypes within the project to the given {@link ClassContainer}. Private members and package private
+   * members from another package are not inherited, neither are members that are hidden or overridden by the class itself or a closer supertype.
+   *
+   * @param claz The {@link ClassContainer} read from the {@link CompilationUnit}.
+   * @param cu The parsed class.
+   */
+  public void aggregate(ClassContainer claz, CompilationUnit cu) {
+    Optional<ClassOrInterfaceDeclaration> type = findType(cu, claz.getName().toString());
+    if (!type.isPresent()) {
+      return;
+    }
+    String packageName = getPackage(cu);
+    Set<String> fieldNames = claz.getFields().stream().map(TypeDefinition::getNameAsString).collect(Collectors.toCollection(HashSet::new));
+    Set<String> methodKeys = claz.getMethods().stream().map(HierarchyIndex::methodKey).collect(Collectors.toCollection(HashSet::new));
+    List<VariableDefinition> fields = new ArrayList<>();
+    List<MethodDefinition> methods = new ArrayList<>();
+
+    Set<String> visited = new HashSet<>();
+    Deque<SupertypeRef> queue = new ArrayDeque<>(getSupertypes(cu, type.get()));
+    while (!queue.isEmpty()) {
+      SupertypeRef ref = queue.poll();
+      Optional<Supertype> supertype = visited.add(ref.name) ? supertypes.computeIfAbsent(ref.name, this::load) : Optional.empty();
+      if (!supertype.isPresent()) {
+        continue;
+      }
+      Supertype s = supertype.get();
+      Map<String, TypeArgument> arguments = s.getArguments(ref);
+      s.claz.getFields().stream().filter(f -> s.isInherited(f, packageName)).map(f -> copy(f, arguments)).filter(f -> fieldNames.add(f.getNameAsString()))
+          .forEach(fields::add);
+      s.claz.getMethods().stream().filter(m -> s.isInherited(m, packageName)).map(m -> copy(m, arguments)).filter(m -> methodKeys.add(methodKey(m)))
+          .forEach(methods::add);
+      s.supertypes.stream().map(r -> r.substitute(arguments)).forEach(queue::add);
+    }
+    claz.setInheritedFields(fields);
+    claz.setInheritedMethods(methods);
+  }
+
+  /**
+   * @return The number of supertypes that have been looked up so far, including those that were not found in the source folders.
+   */
+  public int size() {
+    return supertypes.size();
+  }
+
+  /**
+   * Forgets everything that was memoized for the given source file, so that the next {@link HierarchyIndex#aggregate(ClassContainer, CompilationUnit)} reads
+   * the current content of the file. If the file is new or deleted, the index of all source files is rebuilt as well.
+   *
+   * @param path The path to the changed source file.
+   */
+  public synchronized void invalidate(String path) {
+    Path changed = Paths.get(path).toAbsolutePath().normalize();
+    supertypes.entrySet().removeIf(e -> !e.getValue().isPresent() || e.getValue().get().path.toAbsolutePath().normalize().equals(changed));
+    if (sources != null && (!Files.exists(changed) || sources.values().stream().noneMatch(p -> p.toAbsolutePath().normalize().equals(changed)))) {
+      sources = null;
+    }
+  }
+
+  /**
+   * @return A map from the qualified name of every class in the source folders to its source file, only top level classes are indexed.
+   */
+  public synchronized Map<String, Path> getSources() {
+    if (sources == null) {
+      Map<String, Path> index = new HashMap<>();
+      for (Path folder : sourceFolders) {
+        if (!Files.isDirectory(folder)) {
+          LOG.error("Could not find the source folder located at: {}", folder);
+          continue;
+        }
+        try (Stream<Path> files = Files.walk(folder)) {
+          files.filter(p -> p.toString().endsWith(".java")).forEach(p -> index.putIfAbsent(toQualifiedName(folder.relativize(p)), p));
+        } catch (IOException e) {
+          LOG.error("Could not index the source folder " + folder, e);
+        }
+      }
+      sources = Collections.unmodifiableMap(index);
+    }
+    return sources;
+  }
+
+  private Optional<Supertype> load(String qualifiedName) {
+    Path path = getSources().get(qualifiedName);
+    if (path == null) {
+      return Optional.empty();
+    }
+    try {
+      CompilationUnit cu = reader.parse(path.toString(), false);
+      String simpleName = qualifiedName.substring(qualifiedName.lastIndexOf('.') + 1);
+      Optional<ClassOrInterfaceDeclaration> type = findType(cu, simpleName);
+      if (!type.isPresent()) {
+        return Optional.empty();
+      }
+      ClassContainer claz = reader.read(cu, false);
+      List<String> typeParameters = type.get().getTypeParameters().stream().map(TypeParameter::getNameAsString).collect(Collectors.toList());
+      return Optional.of(new Supertype(path, claz, type.get().isInterface(), getPackage(cu), typeParameters, getSupertypes(cu, type.get())));
+    } catch (IOException | RuntimeException e) {
+      LOG.error("Could not read supertype " + qualifiedName + " from " + path, e);
+      return Optional.empty();
+    }
+  }
+
+  /**
+   * @return The direct supertypes of the given type that are part of the project, with the type arguments as written in the given {@link CompilationUnit}.
+   */
+  private List<SupertypeRef> getSupertypes(CompilationUnit cu, ClassOrInterfaceDeclaration type) {
+    List<SupertypeRef> refs = new ArrayList<>();
+    for (ClassOrInterfaceType supertype : (Iterable<ClassOrInterfaceType>) Stream.concat(type.getExtendedTypes().stream(),
+        type.getImplementedTypes().stream())::iterator) {
+      String name = resolve(cu, getNameWithScope(supertype));
+      if (name != null) {
+        List<TypeArgument> arguments = supertype.getTypeArguments().map(args -> args.stream().map(arg -> new TypeArgument(arg.asString(), findImports(cu, arg)))
+            .collect(Collectors.toList())).orElse(Collections.emptyList());
+        refs.add(new SupertypeRef(name, arguments));
+      }
+    }
+    return refs;
+  }
+
+  /**
+   * @return The single type imports of the {@link CompilationUnit} that are used by the given type.
+   */
+  private static List<String> findImports(CompilationUnit cu, Type type) {
+    Set<String> names = type.findAll(ClassOrInterfaceType.class).stream().map(t -> t.getNameAsString()).collect(Collectors.toSet());
+    return cu.getImports().stream().filter(imp -> !imp.isStatic() && !imp.isAsterisk()).map(ImportDeclaration::getNameAsString)
+        .filter(imp -> names.contains(imp.substring(imp.lastIndexOf('.') + 1))).collect(Collectors.toList());
+  }
+
+  /**
+   * Resolves a type name as it is used within the given {@link CompilationUnit} to a qualified name from this index, using the imports and package of the
+   * class.
+   *
+   * @return The qualified name, or null if the type is not part of the project.
+   */
+  private String resolve(CompilationUnit cu, String name) {
+    Map<String, Path> index = getSources();
+    if (index.containsKey(name)) {
+      return name;
+    }
+    for (ImportDeclaration imp : cu.getImports()) {
+      if (!imp.isStatic() && !imp.isAsterisk() && imp.getNameAsString().endsWith("." + name)) {
+        return index.containsKey(imp.getNameAsString()) ? imp.getNameAsString() : null;
+      }
+    }
+    String packageName = getPackage(cu);
+    String samePackage = packageName.isEmpty() ? name : packageName + "." + name;
+    if (index.containsKey(samePackage)) {
+      return samePackage;
+    }
+    return cu.getImports().stream().filter(imp -> !imp.isStatic() && imp.isAsterisk()).map(imp -> imp.getNameAsString() + "." + name)
+        .filter(index::containsKey).findFirst().orElse(null);
+  }
+
+  private static Optional<ClassOrInterfaceDeclaration> findType(CompilationUnit cu, String name) {
+    return cu.getTypes().stream().filter(ClassOrInterfaceDeclaration.class::isInstance).map(ClassOrInterfaceDeclaration.class::cast)
+        .filter(t -> t.getNameAsString().equals(name)).findFirst();
+  }
+
+  private static String getNameWithScope(ClassOrInterfaceType type) {
+    return type.getScope().map(scope -> getNameWithScope(scope) + ".").orElse("") + type.getNameAsString();
+  }
+
+  private static String getPackage(CompilationUnit cu) {
+    return cu.getPackageDeclaration().map(pd -> pd.getNameAsString()).orElse("");
+  }
+
+  private static String toQualifiedName(Path relative) {
+    String path = relative.toString().replace('\\', '/');
+    return path.substring(0, path.length() - ".java".length()).replace('/', '.');
+  }
+
+  private static String methodKey(MethodDefinition method) {
+    return method.getNameAsString() + method.getParameters().stream().map(p -> p.getType().toString()).collect(Collectors.joining(",", "(", ")"));
+  }
+
+  private static VariableDefinition copy(VariableDefinition field, Map<String, TypeArgument> arguments) {
+    List<String> imports = new ArrayList<>();
+    String type = substitute(field.getType().toString(), arguments, imports);
+    return VariableDefinition.builder().copy(field).type(type).typeImports(imports).build();
+  }
+
+  private static MethodDefinition copy(MethodDefinition method, Map<String, TypeArgument> arguments) {
+    List<VariableDefinition> parameters = method.getParameters().stream().map(p -> copy(p, arguments)).collect(Collectors.toList());
+    List<String> imports = new ArrayList<>();
+    String type = substitute(method.getType().toString(), arguments, imports);
+    return MethodDefinition.builder().copy(method).type(type).typeImports(imports).parameters(parameters).callSignature(method.getCallSignature()).build();
+  }
+
+  /**
+   * Replaces every type parameter within the type by its type argument, adding the imports of the used type arguments to the given list.
+   */
+  static String substitute(String type, Map<String, TypeArgument> arguments, List<String> imports) {
+    if (arguments.isEmpty()) {
+      return type;
+    }
+    Matcher matcher = IDENTIFIER.matcher(type);
+    StringBuffer sb = new StringBuffer();
+    while (matcher.find()) {
+      TypeArgument argument = arguments.get(matcher.group());
+      if (argument != null) {
+        imports.addAll(argument.imports);
+      }
+      matcher.appendReplacement(sb, Matcher.quoteReplacement(argument == null ? matcher.group() : argument.type));
+    }
+    matcher.appendTail(sb);
+    return sb.toString();
+  }
+
+  /**
+   * A direct supertype as referenced from a subtype.
+   */
+  private static final class SupertypeRef {
+    private final String name;
+    private final List<TypeArgument> arguments;
+
+    private SupertypeRef(String name, List<TypeArgument> arguments) {
+      this.name = name;
+      this.arguments = arguments;
+    }
+
+    /**
+     * @return This reference with the type parameters of the subtype replaced by their type arguments.
+     */
+    private SupertypeRef substitute(Map<String, TypeArgument> subtypeArguments) {
+      return new SupertypeRef(name, arguments.stream().map(argument -> {
+        List<String> imports = new ArrayList<>(argument.imports);
+        return new TypeArgument(HierarchyIndex.substitute(argument.type, subtypeArguments, imports), imports);
+      }).collect(Collectors.toList()));
+    }
+  }
+
+  /**
+   * A type argument together with the imports it requires.
+   */
+  static final class TypeArgument {
+    private final String type;
+    private final List<String> imports;
+
+    TypeArgument(String type, List<String> imports) {
+      this.type = type;
+      this.imports = imports;
+    }
+  }
+
+  /**
+   * A memoized supertype, the {@link ClassContainer} is never handed out, only copies of its members.
+   */
+  private static final class Supertype {
+    private final Path path;
+    private final ClassContainer claz;
+    private final boolean isInterface;
+    private final String packageName;
+    private final List<String> typeParameters;
+    private final List<SupertypeRef> supertypes;
+
+    private Supertype(Path path, ClassContainer claz, boolean isInterface, String packageName, List<String> typeParameters, List<SupertypeRef> supertypes) {
+      this.path = path;
+      this.claz = claz;
+      this.isInterface = isInterface;
+      this.packageName = packageName;
+      this.typeParameters = typeParameters;
+      this.supertypes = supertypes;
+    }
+
+    /**
+     * @return The type parameters of this supertype to the type arguments of the reference, empty if it is used as raw type.
+     */
+    private Map<String, TypeArgument> getArguments(SupertypeRef ref) {
+      Map<String, TypeArgument> arguments = new HashMap<>();
+      if (ref.arguments.size() == typeParameters.size()) {
+        for (int i = 0; i < typeParameters.size(); i++) {
+          arguments.put(typeParameters.get(i), ref.arguments.get(i));
+        }
+      }
+      return arguments;
+    }
+
+    private boolean isInherited(TypeDefinition member, String subclassPackage) {
+      Set<String> modifiers = member.getAccessModifiers();
+      if (isInterface) {
+        // Interface members are implicitly public, static interface methods are not inherited
+        return !modifiers.contains("private") && !(member instanceof MethodDefinition && modifiers.contains("static"));
+      }
+      if (modifiers.contains("private")) {
+        return false;
+      }
+      return modifiers.contains("public") || modifiers.contains("protected") || packageName.equals(subclassPackage);
+    }
+  }
+
+}
@@ -0,0 +1,211 @@
+/*
+ * Copyright 2019 by Daan van den Heuvel.
+ *
+ * This file is part of JavaForger.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package reader;
+
+import java.io.Closeable;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+import java.util.zip.DataFormatException;
+import java.util.zip.Inflater;
+
+import generator.JavaForgerException;
+
+/**
+ * A jar file that is memory-mapped once, so that many entries can be read without opening streams for every entry. Only the central directory is parsed when
+ * the jar is opened, entries are inflated when they are read. Zip64 jars are not supported. This class is thread safe.
+ *
+ * @author Daan
+ */
+public final class MappedJar implements Closeable {
+
+  private static final int END_OF_CENTRAL_DIRECTORY = 0x06054b50;
+  private static final int CENTRAL_DIRECTORY_ENTRY = 0x02014b50;
+  private static final int LOCAL_FILE_HEADER = 0x04034b50;
+  private static final int END_OF_CENTRAL_DIRECTORY_SIZE = 22;
+  private static final int MAX_COMMENT_SIZE = 0xFFFF;
+  private static final int STORED = 0;
+  private static final int DEFLATED = 8;
+
+  private final Path path;
+  private final FileChannel channel;
+  private final MappedByteBuffer buffer;
+  private final Map<String, Entry> entries = new LinkedHashMap<>();
+
+  private MappedJar(Path path) throws IOException {
+    this.path = path;
+    this.channel = FileChannel.open(path, StandardOpenOption.READ);
+    try {
+      this.buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+      readCentralDirectory();
+    } catch (IOException | RuntimeException e) {
+      channel.close();
+      throw e;
+    }
+  }
+
+  /**
+   * Opens and maps the given jar file.
+   *
+   * @param path The path to the jar file.
+   * @return The {@link MappedJar}
+   * @throws IOException If the file could not be read.
+   */
+  public static MappedJar open(Path path) throws IOException {
+    return new MappedJar(path);
+  }
+
+  public Path getPath() {
+    return path;
+  }
+
+  public Set<String> getEntryNames() {
+    return Collections.unmodifiableSet(entries.keySet());
+  }
+
+  /**
+   * @return The names of all class files within the jar, like <code>com/example/Dto.class</code>.
+   */
+  public List<String> getClassNames() {
+    return entries.keySet().stream().filter(name -> name.endsWith(".class")).collect(Collectors.toList());
+  }
+
+  /**
+   * Reads the given entry.
+   *
+   * @param name The name of the entry, like <code>com/example/Dto.class</code>.
+   * @return The uncompressed content of the entry.
+   * @throws IOException If the entry does not exist or could not be inflated.
+   */
+  public byte[] read(String name) throws IOException {
+    Entry entry = entries.get(name);
+    if (entry == null) {
+      throw new FileNotFoundException("Entry " + name + " does not exist in " + path);
+    }
+    ByteBuffer local = view();
+    if (local.getInt(entry.localHeaderOffset) != LOCAL_FILE_HEADER) {
+      throw new JavaForgerException("Invalid local file header for entry " + name + " in " + path);
+    }
+    int dataOffset = entry.localHeaderOffset + 30 + unsignedShort(local, entry.localHeaderOffset + 26) + unsignedShort(local, entry.localHeaderOffset + 28);
+    byte[] compressed = new byte[entry.compressedSize];
+    local.position(dataOffset);
+    local.get(compressed);
+    if (entry.method == STORED) {
+      return compressed;
+    } else if (entry.method != DEFLATED) {
+      throw new JavaForgerException("Unsupported compression method " + entry.method + " for entry " + name + " in " + path);
+    }
+    Inflater inflater = new Inflater(true);
+    try {
+      inflater.setInput(compressed);
+      byte[] result = new byte[entry.size];
+      int length = 0;
+      while (length < result.length && !inflater.finished()) {
+        int inflated = inflater.inflate(result, length, result.length - length);
+        if (inflated == 0 && (inflater.needsInput() || inflater.needsDictionary())) {
+          break;
+        }
+        length += inflated;
+      }
+      if (length != result.length) {
+        throw new JavaForgerException("Entry " + name + " in " + path + " is truncated");
+      }
+      return result;
+    } catch (DataFormatException e) {
+      throw new JavaForgerException(e, "Could not inflate entry " + name + " in " + path);
+    } finally {
+      inflater.end();
+    }
+  }
+
+  @Override
+  public void close() throws IOException {
+    channel.close();
+  }
+
+  private void readCentralDirectory() {
+    ByteBuffer view = view();
+    int end = findEndOfCentralDirectory(view);
+    int count = unsignedShort(view, end + 10);
+    long offset = view.getInt(end + 16) & 0xFFFFFFFFL;
+    if (count == 0xFFFF || offset == 0xFFFFFFFFL) {
+      throw new JavaForgerException("Zip64 jars are not supported: " + path);
+    }
+    int pos = (int) offset;
+    for (int i = 0; i < count; i++) {
+      if (view.getInt(pos) != CENTRAL_DIRECTORY_ENTRY) {
+        throw new JavaForgerException("Invalid central directory in " + path);
+      }
+      int nameLength = unsignedShort(view, pos + 28);
+      byte[] name = new byte[nameLength];
+      view.position(pos + 46);
+      view.get(name);
+      Entry entry = new Entry(unsignedShort(view, pos + 10), view.getInt(pos + 20), view.getInt(pos + 24), view.getInt(pos + 42));
+      entries.put(new String(name, StandardCharsets.UTF_8), entry);
+      pos += 46 + nameLength + unsignedShort(view, pos + 30) + unsignedShort(view, pos + 32);
+    }
+  }
+
+  private int findEndOfCentralDirectory(ByteBuffer view) {
+    int last = view.limit() - END_OF_CENTRAL_DIRECTORY_SIZE;
+    for (int pos = last; pos >= 0 && pos >= last - MAX_COMMENT_SIZE; pos--) {
+      if (view.getInt(pos) == END_OF_CENTRAL_DIRECTORY) {
+        return pos;
+      }
+    }
+    throw new JavaForgerException("Not a jar file: " + path);
+  }
+
+  /**
+   * @return A view on the mapped file with its own position, so that reads from different threads do not interfere.
+   */
+  private ByteBuffer view() {
+    return buffer.duplicate().order(ByteOrder.LITTLE_ENDIAN);
+  }
+
+  private static int unsignedShort(ByteBuffer buffer, int index) {
+    return buffer.getShort(index) & 0xFFFF;
+  }
+
+  private static final class Entry {
+    private final int method;
+    private final int compressedSize;
+    private final int size;
+    private final int localHeaderOffset;
+
+    private Entry(int method, int compressedSize, int size, int localHeaderOffset) {
+      this.method = method;
+      this.compressedSize = compressedSize;
+      this.size = size;
+      this.localHeaderOffset = localHeaderOffset;
+    }
+  }
+
+}
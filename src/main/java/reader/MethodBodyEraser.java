@@ -0,0 +1,184 @@
+/*
+ * Copyright 2019 by Daan van den Heuvel.
+ *
+ * This file is part of JavaForger.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package reader;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+
+import com.github.javaparser.GeneratedJavaParserConstants;
+import com.github.javaparser.GeneratedJavaParserTokenManager;
+import com.github.javaparser.SimpleCharStream;
+import com.github.javaparser.StringProvider;
+import com.github.javaparser.Token;
+import com.github.javaparser.TokenMgrException;
+
+/**
+ * Blanks out the bodies of methods, constructors and initializer blocks of java source code before it is parsed, so that parsing a large class only costs the
+ * declarations. Only the content between the braces is replaced by spaces, keeping all line breaks, so that the line and column of every declaration stay the
+ * same and the result can still be parsed. Field initializers, annotation values and the bodies of nested types are kept. The code is scanned with the token
+ * manager of JavaParser, so comments and literals never count as braces.
+ *
+ * @author Daan
+ */
+final class MethodBodyEraser {
+
+  private MethodBodyEraser() {
+    // Utility class
+  }
+
+  /**
+   * @param code The java source code.
+   * @return The code with all method and constructor bodies blanked out, or the code itself if it could not be tokenized.
+   */
+  static String erase(String code) {
+    char[] result = code.toCharArray();
+    List<Integer> lineStarts = lineStarts(code);
+    GeneratedJavaParserTokenManager tokens = tokenize(code);
+    // One entry per open brace at the declaration level: true for the body of a type, false for a block that is kept as is, like a field initializer.
+    Deque<Boolean> blocks = new ArrayDeque<>();
+    Declaration declaration = new Declaration();
+    try {
+      for (Token token = tokens.getNextToken(); token.kind != GeneratedJavaParserConstants.EOF; token = tokens.getNextToken()) {
+        if (!blocks.isEmpty() && !blocks.peek()) {
+          // Inside a kept block, only track nesting
+          if (token.kind == GeneratedJavaParserConstants.LBRACE) {
+            blocks.push(false);
+          } else if (token.kind == GeneratedJavaParserConstants.RBRACE) {
+            blocks.pop();
+          }
+          continue;
+        }
+        switch (token.kind) {
+        case GeneratedJavaParserConstants.CLASS:
+        case GeneratedJavaParserConstants.INTERFACE:
+        case GeneratedJavaParserConstants.ENUM:
+          declaration.type |= declaration.parenDepth == 0;
+          break;
+        case GeneratedJavaParserConstants.LPAREN:
+          declaration.parenDepth++;
+          break;
+        case GeneratedJavaParserConstants.RPAREN:
+          declaration.parenDepth--;
+          declaration.parameters |= declaration.parenDepth == 0;
+          break;
+        case GeneratedJavaParserConstants.ASSIGN:
+          declaration.initializer |= declaration.parenDepth == 0;
+          break;
+        case GeneratedJavaParserConstants._DEFAULT:
+          // The default value of an annotation element, not the default modifier of an interface method
+          declaration.initializer |= declaration.parenDepth == 0 && declaration.parameters;
+          break;
+        case GeneratedJavaParserConstants.SEMICOLON:
+          if (declaration.parenDepth == 0) {
+            declaration = new Declaration();
+          }
+          break;
+        case GeneratedJavaParserConstants.RBRACE:
+          blocks.poll();
+          declaration = new Declaration();
+          break;
+        case GeneratedJavaParserConstants.LBRACE:
+          if (declaration.initializer || declaration.parenDepth > 0) {
+            // A field initializer or an array inside the parentheses of an annotation
+            blocks.push(false);
+          } else if (declaration.type) {
+            blocks.push(true);
+            declaration = new Declaration();
+          } else {
+            Token close = skipBlock(tokens);
+            blank(result, offset(lineStarts, token.endLine, token.endColumn) + 1, offset(lineStarts, close.beginLine, close.beginColumn));
+            declaration = new Declaration();
+          }
+          break;
+        default:
+          break;
+        }
+      }
+    } catch (TokenMgrException e) {
+      // Let the parser report the problem on the original code
+      return code;
+    }
+    return new String(result);
+  }
+
+  private static GeneratedJavaParserTokenManager tokenize(String code) {
+    SimpleCharStream stream = new SimpleCharStream(new StringProvider(code));
+    stream.setTabSize(1);
+    return new GeneratedJavaParserTokenManager(stream);
+  }
+
+  /**
+   * Skips the tokens of the block after an open brace.
+   *
+   * @return The closing brace of the block, or the end of file token if the block is not closed.
+   */
+  private static Token skipBlock(GeneratedJavaParserTokenManager tokens) {
+    int depth = 1;
+    Token token = tokens.getNextToken();
+    while (token.kind != GeneratedJavaParserConstants.EOF) {
+      if (token.kind == GeneratedJavaParserConstants.LBRACE) {
+        depth++;
+      } else if (token.kind == GeneratedJavaParserConstants.RBRACE && --depth == 0) {
+        break;
+      }
+      token = tokens.getNextToken();
+    }
+    return token;
+  }
+
+  /**
+   * Replaces all characters from start (inclusive) to end (exclusive) by spaces, except for line breaks.
+   */
+  private static void blank(char[] result, int start, int end) {
+    for (int i = start; i < Math.min(end, result.length); i++) {
+      if (result[i] != '\n' && result[i] != '\r') {
+        result[i] = ' ';
+      }
+    }
+  }
+
+  private static List<Integer> lineStarts(String code) {
+    List<Integer> starts = new ArrayList<>();
+    starts.add(0);
+    for (int i = 0; i < code.length(); i++) {
+      char c = code.charAt(i);
+      if (c == '\n' || (c == '\r' && (i + 1 == code.length() || code.charAt(i + 1) != '\n'))) {
+        starts.add(i + 1);
+      }
+    }
+    return starts;
+  }
+
+  /**
+   * @return The offset in the code of the given line and column, both starting at 1 as in the tokens of JavaParser.
+   */
+  private static int offset(List<Integer> lineStarts, int line, int column) {
+    return line > lineStarts.size() ? Integer.MAX_VALUE : lineStarts.get(line - 1) + column - 1;
+  }
+
+  /** The state of the declaration that is currently scanned at the level of a type body. */
+  private static final class Declaration {
+    private int parenDepth;
+    private boolean parameters;
+    private boolean initializer;
+    private boolean type;
+  }
+
+}
@@ -17,10 +17,10 @@
  */
 package reader;
 
-import java.io.BufferedReader;
 import java.io.FileInputStream;
 import java.io.IOException;
-import java.io.InputStreamReader;
+
+import org.apache.commons.io.IOUtils;
 
 import com.github.javaparser.JavaParser;
 import com.github.javaparser.StaticJavaParser;
@@ -59,15 +59,13 @@ public class Parser {
     return parse(getFileContent(in));
   }
 
-  private static String getFileContent(FileInputStream fis) throws IOException {
-    try (BufferedReader br = new BufferedReader(new InputStreamReader(fis, "UTF-8"))) {
-      StringBuilder sb = new StringBuilder();
-      String line;
-      while ((line = br.readLine()) != null) {
-        sb.append(line);
-        sb.append('\n');
-      }
-      return sb.toString();
+  /**
+   * Reads the content of the stream, with every line terminated by '\n'.
+   */
+  static String getFileContent(FileInputStream fis) throws IOException {
+    try (FileInputStream in = fis) {
+      String content = SourceCache.decode(IOUtils.toByteArray(in)).replaceAll("\r\n?", "\n");
+      return content.isEmpty() || content.endsWith("\n") ? content : content + "\n";
     }
   }
 
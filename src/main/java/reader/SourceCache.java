@@ -0,0 +1,169 @@
+/*
+ * Copyright 2019 by Daan van den Heuvel.
+ *
+ * This file is part of JavaForger.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package reader;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import configuration.StaticJavaForgerConfiguration;
+import generator.FileTransaction;
+
+/**
+ * Loads the content of source files, so that parsing, locating and backing up a file share the same decoded {@link String}. Files are read with a single
+ * read and decoded with a fast path for ASCII content. If a {@link SourceCache} is set on the {@link StaticJavaForgerConfiguration}, every file is only
+ * read from disk and decoded once per run. Cached content is validated against the size and modification time of the file, and the mergers invalidate every
+ * file they write.
+ *
+ * @author Daan
+ */
+public final class SourceCache {
+
+  private final Map<Path, Source> sources = new ConcurrentHashMap<>();
+  private final long maxChars;
+  private final AtomicLong chars = new AtomicLong();
+
+  /**
+   * Creates a {@link SourceCache} holding up to 64 million characters.
+   */
+  public SourceCache() {
+    this(64L * 1024 * 1024);
+  }
+
+  /**
+   * @param maxChars The maximum number of characters to keep, if it is exceeded the cache is cleared.
+   */
+  public SourceCache(long maxChars) {
+    this.maxChars = maxChars;
+  }
+
+  /**
+   * Gets the content of the file, reading it only if it was not read before or if it changed since.
+   *
+   * @param path The path to the file, resolved via the {@link FileTransaction}.
+   * @return The content of the file.
+   * @throws IOException If the file could not be read.
+   */
+  public String get(String path) throws IOException {
+    Path file = FileTransaction.resolve(path).toAbsolutePath();
+    BasicFileAttributes attributes = Files.readAttributes(file, BasicFileAttributes.class);
+    long modified = attributes.lastModifiedTime().toMillis();
+    Source source = sources.get(file);
+    if (source != null && source.size == attributes.size() && source.modified == modified) {
+      return source.content;
+    }
+    String content = read(file);
+    Source previous = sources.put(file, new Source(content, attributes.size(), modified));
+    if (chars.addAndGet(content.length() - (previous == null ? 0 : previous.content.length())) > maxChars) {
+      // Runs within the budget are the common case, so a simple clear is enough to bound the memory of larger runs.
+      clear();
+    }
+    return content;
+  }
+
+  /**
+   * Removes the file from the cache, needs to be called after writing it.
+   *
+   * @param path The path to the file.
+   */
+  public void invalidate(String path) {
+    Source previous = sources.remove(FileTransaction.resolve(path).toAbsolutePath());
+    if (previous != null) {
+      chars.addAndGet(-previous.content.length());
+    }
+  }
+
+  public void clear() {
+    sources.clear();
+    chars.set(0);
+  }
+
+  public int size() {
+    return sources.size();
+  }
+
+  /**
+   * Loads the content of the file via the {@link SourceCache} of the {@link StaticJavaForgerConfiguration}, or directly from disk if no cache is set.
+   *
+   * @param path The path to the file, resolved via the {@link FileTransaction}.
+   * @return The content of the file.
+   * @throws IOException If the file could not be read.
+   */
+  public static String load(String path) throws IOException {
+    SourceCache cache = StaticJavaForgerConfiguration.getConfig().getSourceCache();
+    return cache == null ? read(FileTransaction.resolve(path)) : cache.get(path);
+  }
+
+  /**
+   * Invalidates the file within the {@link SourceCache} of the {@link StaticJavaForgerConfiguration}, if it is set.
+   *
+   * @param path The path to the file that was written.
+   */
+  public static void changed(String path) {
+    SourceCache cache = StaticJavaForgerConfiguration.getConfig().getSourceCache();
+    if (cache != null) {
+      cache.invalidate(path);
+    }
+  }
+
+  /**
+   * Reads the file as UTF-8 without any caching.
+   *
+   * @param file The file to read.
+   * @return The content of the file.
+   * @throws IOException If the file could not be read.
+   */
+  public static String read(Path file) throws IOException {
+    // The content has to be copied into a String anyway, so memory mapping the file would only add the cost of setting up the mapping.
+    return decode(Files.readAllBytes(file));
+  }
+
+  /**
+   * Decodes UTF-8 bytes. Pure ASCII content is copied without decoding. A byte order mark is kept as first character, so that the mergers write it again and
+   * JavaParser skips it as white space.
+   *
+   * @param bytes The bytes to decode.
+   * @return The decoded {@link String}.
+   */
+  public static String decode(byte[] bytes) {
+    for (byte b : bytes) {
+      if (b < 0) {
+        return new String(bytes, StandardCharsets.UTF_8);
+      }
+    }
+    return new String(bytes, StandardCharsets.ISO_8859_1);
+  }
+
+  private static final class Source {
+    private final String content;
+    private final long size;
+    private final long modified;
+
+    private Source(String content, long size, long modified) {
+      this.content = content;
+      this.size = size;
+      this.modified = modified;
+    }
+  }
+
+}
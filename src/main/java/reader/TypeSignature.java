@@ -0,0 +1,215 @@
+/*
+ * Copyright 2019 by Daan van den Heuvel.
+ *
+ * This file is part of JavaForger.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package reader;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import generator.JavaForgerException;
+
+/**
+ * Parser for the type descriptors and generic signatures from a class file, see chapter 4.7.9.1 of the Java Virtual Machine Specification. Types are converted
+ * to the way they would be written in source code, using simple names, together with the imports they require.
+ *
+ * @author Daan
+ */
+final class TypeSignature {
+
+  private final String signature;
+  private int pos;
+
+  private TypeSignature(String signature) {
+    this.signature = signature;
+  }
+
+  /**
+   * Parses a field descriptor or field signature like <code>Ljava/util/List&lt;Ljava/lang/String;&gt;;</code>.
+   *
+   * @param signature The descriptor or signature.
+   * @return The {@link JavaType} representing the signature.
+   */
+  static JavaType parseField(String signature) {
+    return new TypeSignature(signature).type();
+  }
+
+  /**
+   * Parses a method descriptor or method signature like <code>&lt;T:Ljava/lang/Object;&gt;(TT;I)Ljava/util/List&lt;TT;&gt;;</code>.
+   *
+   * @param signature The descriptor or signature.
+   * @return The types of the parameters, followed by the return type as last element.
+   */
+  static List<JavaType> parseMethod(String signature) {
+    TypeSignature parser = new TypeSignature(signature);
+    parser.skipTypeParameters();
+    parser.expect('(');
+    List<JavaType> types = new ArrayList<>();
+    while (parser.peek() != ')') {
+      types.add(parser.type());
+    }
+    parser.pos++;
+    types.add(parser.type());
+    return types;
+  }
+
+  private JavaType type() {
+    List<String> imports = new ArrayList<>();
+    String name = type(imports);
+    return new JavaType(name, imports);
+  }
+
+  private String type(List<String> imports) {
+    char c = signature.charAt(pos++);
+    switch (c) {
+    case 'B':
+      return "byte";
+    case 'C':
+      return "char";
+    case 'D':
+      return "double";
+    case 'F':
+      return "float";
+    case 'I':
+      return "int";
+    case 'J':
+      return "long";
+    case 'S':
+      return "short";
+    case 'Z':
+      return "boolean";
+    case 'V':
+      return "void";
+    case '[':
+      return type(imports) + "[]";
+    case 'T':
+      String typeVariable = identifier();
+      expect(';');
+      return typeVariable;
+    case 'L':
+      return classType(imports);
+    default:
+      throw new JavaForgerException("Invalid type signature " + signature + " at index " + (pos - 1));
+    }
+  }
+
+  private String classType(List<String> imports) {
+    String binaryName = identifier();
+    String qualifiedName = binaryName.replace('/', '.').replace('$', '.');
+    if (!qualifiedName.startsWith("java.lang.")) {
+      imports.add(qualifiedName);
+    }
+    StringBuilder sb = new StringBuilder(binaryName.substring(Math.max(binaryName.lastIndexOf('/'), binaryName.lastIndexOf('$')) + 1));
+    while (true) {
+      char c = signature.charAt(pos++);
+      if (c == '<') {
+        sb.append('<').append(typeArgument(imports));
+        while (peek() != '>') {
+          sb.append(", ").append(typeArgument(imports));
+        }
+        pos++;
+        sb.append('>');
+      } else if (c == '.') {
+        sb.append('.').append(identifier());
+      } else if (c == ';') {
+        return sb.toString();
+      } else {
+        throw new JavaForgerException("Invalid type signature " + signature + " at index " + (pos - 1));
+      }
+    }
+  }
+
+  private String typeArgument(List<String> imports) {
+    char c = peek();
+    switch (c) {
+    case '*':
+      pos++;
+      return "?";
+    case '+':
+      pos++;
+      return "? extends " + type(imports);
+    case '-':
+      pos++;
+      return "? super " + type(imports);
+    default:
+      return type(imports);
+    }
+  }
+
+  /**
+   * @return The identifier up to the next <code>&lt;</code>, <code>.</code> or <code>;</code>.
+   */
+  private String identifier() {
+    int start = pos;
+    while (";<.".indexOf(signature.charAt(pos)) < 0) {
+      pos++;
+    }
+    return signature.substring(start, pos);
+  }
+
+  private void skipTypeParameters() {
+    if (peek() != '<') {
+      return;
+    }
+    int depth = 0;
+    do {
+      char c = signature.charAt(pos++);
+      if (c == '<') {
+        depth++;
+      } else if (c == '>') {
+        depth--;
+      }
+    } while (depth > 0);
+  }
+
+  private char peek() {
+    return signature.charAt(pos);
+  }
+
+  private void expect(char c) {
+    if (signature.charAt(pos++) != c) {
+      throw new JavaForgerException("Expected '" + c + "' in signature " + signature + " at index " + (pos - 1));
+    }
+  }
+
+  /**
+   * A type as it would be written in source code.
+   */
+  static final class JavaType {
+    private final String name;
+    private final List<String> imports;
+
+    private JavaType(String name, List<String> imports) {
+      this.name = name;
+      this.imports = Collections.unmodifiableList(imports);
+    }
+
+    String getName() {
+      return name;
+    }
+
+    List<String> getImports() {
+      return imports;
+    }
+
+    @Override
+    public String toString() {
+      return name;
+    }
+  }
+
+}
@@ -42,6 +42,10 @@ public class ClassContainer extends ClassDefinition {
   private List<? extends MethodDefinition> methods = new ArrayList<>();
   /** The constructors defined within the class */
   private List<? extends MethodDefinition> constructors = new ArrayList<>();
+  /** The fields inherited from supertypes, only filled if the reader has a {@link reader.HierarchyIndex} */
+  private List<? extends VariableDefinition> inheritedFields = new ArrayList<>();
+  /** The methods inherited from supertypes, only filled if the reader has a {@link reader.HierarchyIndex} */
+  private List<? extends MethodDefinition> inheritedMethods = new ArrayList<>();
 
   public ClassContainer(ClassDefinition def) {
     super(builder(def));
@@ -83,6 +87,31 @@ public class ClassContainer extends ClassDefinition {
     this.constructors = constructors;
   }
 
+  public List<? extends VariableDefinition> getInheritedFields() {
+    return inheritedFields;
+  }
+
+  public void setInheritedFields(List<? extends VariableDefinition> inheritedFields) {
+    this.inheritedFields = inheritedFields;
+  }
+
+  public List<? extends MethodDefinition> getInheritedMethods() {
+    return inheritedMethods;
+  }
+
+  public void setInheritedMethods(List<? extends MethodDefinition> inheritedMethods) {
+    this.inheritedMethods = inheritedMethods;
+  }
+
+  /**
+   * @return The fields defined within the class followed by the inherited fields.
+   */
+  public List<VariableDefinition> getAllFields() {
+    List<VariableDefinition> all = new ArrayList<>(fields);
+    all.addAll(inheritedFields);
+    return all;
+  }
+
   public List<String> getFieldImports() {
     return getTypeImports(fields);
   }
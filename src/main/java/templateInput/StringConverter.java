@@ -17,6 +17,8 @@
  */
 package templateInput;
 
+import java.util.Objects;
+
 import org.apache.commons.lang3.builder.EqualsBuilder;
 
 import templateInput.definition.TypeDefinition;
@@ -29,7 +31,7 @@ import templateInput.definition.TypeDefinition;
  */
 public class StringConverter {
 
-  private String string;
+  private final String string;
 
   public StringConverter(String string) {
     this.string = string;
@@ -78,6 +80,11 @@ public class StringConverter {
     return string;
   }
 
+  @Override
+  public int hashCode() {
+    return Objects.hashCode(string);
+  }
+
   @Override
   public boolean equals(Object obj) {
     boolean equals = false;
@@ -0,0 +1,66 @@
+/*
+ * Copyright 2019 by Daan van den Heuvel.
+ *
+ * This file is part of JavaForger.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package templateInput;
+
+import com.google.common.collect.Interner;
+import com.google.common.collect.Interners;
+
+/**
+ * Pool of interned strings and {@link StringConverter}s used for template input. Parsing many classes results in a lot of duplicate strings, like access
+ * modifiers, annotations and imports. By letting all definitions share the same instances, the memory footprint of large batches stays small. The
+ * pool only holds weak references, so that instances no longer used by any definition are garbage collected. This keeps the pool from growing in long running
+ * processes like the watcher or the language server, which read many versions of the same classes.
+ *
+ * @author Daan
+ */
+public final class StringPool {
+
+  private static final Interner<String> STRINGS = Interners.newWeakInterner();
+  private static final Interner<StringConverter> CONVERTERS = Interners.newWeakInterner();
+
+  private StringPool() {
+    // Only static methods
+  }
+
+  /**
+   * Returns the canonical instance of the given string.
+   *
+   * @param string The string to intern, may be null.
+   * @return The pooled instance equal to the input string, or null if the input was null.
+   */
+  public static String intern(String string) {
+    if (string == null) {
+      return null;
+    }
+    return STRINGS.intern(string);
+  }
+
+  /**
+   * Returns a shared {@link StringConverter} for the given string. This is safe since a {@link StringConverter} cannot be changed after construction.
+   *
+   * @param string The string to wrap, may be null.
+   * @return A {@link StringConverter} wrapping the pooled instance of the input string.
+   */
+  public static StringConverter converter(String string) {
+    if (string == null) {
+      return new StringConverter(null);
+    }
+    return CONVERTERS.intern(new StringConverter(intern(string)));
+  }
+
+}
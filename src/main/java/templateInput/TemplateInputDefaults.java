@@ -31,7 +31,8 @@ public enum TemplateInputDefaults {
   CONSTRUCTORS("constructors"),
   METHODS("methods"),
   PACKAGE("package"),
-  MERGE_CLASS_NAME("mergeClassName");
+  MERGE_CLASS_NAME("mergeClassName"),
+  CLASSES("classes");
 
   private final String name;
 
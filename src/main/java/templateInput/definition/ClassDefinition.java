@@ -26,6 +26,7 @@ import org.apache.commons.lang3.builder.ToStringBuilder;
 import org.apache.commons.lang3.builder.ToStringStyle;
 
 import templateInput.StringConverter;
+import templateInput.StringPool;
 
 /**
  * Describes a class. This includes attributes defined ON the class (className, implemented interfaces, annotations ...). It excludes attributes defined INSIDE
@@ -44,11 +45,11 @@ public class ClassDefinition extends TypeDefinition {
 
   protected ClassDefinition(Builder builder) {
     this.name = builder.name;
-    this.type = new StringConverter(builder.type);
+    this.type = StringPool.converter(builder.type);
     this.lineNumber = builder.lineNumber;
     this.column = builder.column;
-    this.annotations = builder.annotations;
-    this.accessModifiers = builder.accessModifiers;
+    this.annotations = InternedStringSet.of(builder.annotations);
+    this.accessModifiers = ModifierSet.of(builder.accessModifiers);
     this.extend = builder.extend;
     this.interfaces = builder.interfaces;
   }
@@ -134,7 +135,7 @@ public class ClassDefinition extends TypeDefinition {
     }
 
     public Builder name(String name) {
-      this.name = new StringConverter(name);
+      this.name = StringPool.converter(name);
       return this;
     }
 
@@ -18,6 +18,7 @@
 package templateInput.definition;
 
 import java.util.Arrays;
+import java.util.Collection;
 import java.util.HashSet;
 import java.util.LinkedHashSet;
 import java.util.List;
@@ -25,6 +26,7 @@ import java.util.Objects;
 import java.util.Set;
 
 import templateInput.StringConverter;
+import templateInput.StringPool;
 
 /**
  * Contains fields required to initialize a type inside a template.
@@ -42,8 +44,8 @@ public class InitializedTypeDefinition extends TypeDefinition {
   protected String noInit = "null";
   /** True if the variable is a collection, false otherwise */
   protected boolean collection;
-  /** The imports required for initializing this variable. */
-  protected LinkedHashSet<String> initImports = new LinkedHashSet<>();
+  /** The imports required for initializing this variable. Immutable and sorted on insertion order, see {@link InternedStringSet}. */
+  protected InternedStringSet initImports = InternedStringSet.empty();
 
   public InitializedTypeDefinition() {
     // explicitly make constructor visible
@@ -67,12 +69,12 @@ public class InitializedTypeDefinition extends TypeDefinition {
 
   protected InitializedTypeDefinition(Builder<?> builder) {
     this.name = builder.name;
-    this.type = new StringConverter(builder.type);
+    this.type = StringPool.converter(builder.type);
     this.lineNumber = builder.lineNumber;
     this.column = builder.column;
-    this.annotations = builder.annotations;
-    this.typeImports = builder.typeImports;
-    this.accessModifiers = builder.accessModifiers;
+    this.annotations = InternedStringSet.of(builder.annotations);
+    this.typeImports = InternedStringSet.of(builder.typeImports);
+    this.accessModifiers = ModifierSet.of(builder.accessModifiers);
     this.init1 = builder.init1;
     this.init2 = builder.init2;
     this.noInit = builder.noInit;
@@ -134,20 +136,16 @@ public class InitializedTypeDefinition extends TypeDefinition {
     return mainType;
   }
 
-  public LinkedHashSet<String> getInitImports() {
+  public Set<String> getInitImports() {
     return initImports;
   }
 
-  public void setInitImports(LinkedHashSet<String> imports) {
-    this.initImports = imports;
+  public void setInitImports(Collection<String> imports) {
+    this.initImports = InternedStringSet.of(imports);
   }
 
-  public void addInitImports(List<String> imports) {
-    this.initImports.addAll(imports);
-  }
-
-  public void addInitImports(LinkedHashSet<String> imports) {
-    this.initImports.addAll(imports);
+  public void addInitImports(Collection<String> imports) {
+    this.initImports = this.initImports.withAll(imports);
   }
 
   /**
@@ -181,12 +179,12 @@ public class InitializedTypeDefinition extends TypeDefinition {
       this.init1 = copy.getInit1();
       this.init2 = copy.getInit2();
       this.noInit = copy.getNoInit();
-      this.typeImports = copy.getTypeImports();
+      this.typeImports = new LinkedHashSet<>(copy.getTypeImports());
       return (T) this;
     }
 
     public T name(String name) {
-      this.name = new StringConverter(name);
+      this.name = StringPool.converter(name);
       return (T) this;
     }
 
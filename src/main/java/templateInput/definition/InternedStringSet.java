@@ -0,0 +1,151 @@
+/*
+ * Copyright 2019 by Daan van den Heuvel.
+ *
+ * This file is part of JavaForger.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package templateInput.definition;
+
+import java.util.AbstractSet;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+
+import templateInput.StringPool;
+
+/**
+ * Immutable {@link java.util.Set} of pooled strings backed by a single array. The insertion order is retained so that template generation is consistent. Since
+ * the sets used inside a {@link TypeDefinition} typically contain only a few elements, a linear scan is cheaper than hashing.
+ *
+ * @author Daan
+ */
+public final class InternedStringSet extends AbstractSet<String> {
+
+  private static final InternedStringSet EMPTY = new InternedStringSet(new String[0]);
+  /** Single element sets, like the "Override" annotation, are shared between all definitions. */
+  private static final Map<String, InternedStringSet> SINGLETONS = new ConcurrentHashMap<>();
+
+  private final String[] values;
+
+  private InternedStringSet(String[] values) {
+    this.values = values;
+  }
+
+  /**
+   * @return The empty {@link InternedStringSet}.
+   */
+  public static InternedStringSet empty() {
+    return EMPTY;
+  }
+
+  /**
+   * Creates an {@link InternedStringSet} containing the values of the input collection in iteration order. Duplicates are removed.
+   *
+   * @param values The values to put in the set, may be null.
+   * @return An {@link InternedStringSet}, which may be a shared instance.
+   */
+  public static InternedStringSet of(Collection<String> values) {
+    if (values instanceof InternedStringSet) {
+      return (InternedStringSet) values;
+    }
+    if (values == null || values.isEmpty()) {
+      return EMPTY;
+    }
+    return EMPTY.withAll(values);
+  }
+
+  /**
+   * Creates an {@link InternedStringSet} containing the input values in the given order.
+   *
+   * @param values The values to put in the set.
+   * @return An {@link InternedStringSet}, which may be a shared instance.
+   */
+  public static InternedStringSet of(String... values) {
+    return of(Arrays.asList(values));
+  }
+
+  /**
+   * Returns a set containing all values from this set followed by the given value. This set is not changed.
+   *
+   * @param value The value to add.
+   * @return This set if it already contained the value, a new {@link InternedStringSet} otherwise.
+   */
+  public InternedStringSet with(String value) {
+    if (contains(value)) {
+      return this;
+    }
+    String interned = StringPool.intern(value);
+    if (values.length == 0 && interned != null) {
+      return SINGLETONS.computeIfAbsent(interned, v -> new InternedStringSet(new String[] {v}));
+    }
+    String[] copy = Arrays.copyOf(values, values.length + 1);
+    copy[values.length] = interned;
+    return new InternedStringSet(copy);
+  }
+
+  /**
+   * Returns a set containing all values from this set followed by the given values in iteration order. This set is not changed.
+   *
+   * @param added The values to add.
+   * @return This set if it already contained all values, a new {@link InternedStringSet} otherwise.
+   */
+  public InternedStringSet withAll(Collection<String> added) {
+    String[] result = Arrays.copyOf(values, values.length + added.size());
+    int size = values.length;
+    for (String value : added) {
+      if (indexOf(result, size, value) < 0) {
+        result[size++] = StringPool.intern(value);
+      }
+    }
+    InternedStringSet set;
+    if (size == values.length) {
+      set = this;
+    } else if (size == 1 && result[0] != null) {
+      set = SINGLETONS.computeIfAbsent(result[0], v -> new InternedStringSet(new String[] {v}));
+    } else {
+      set = new InternedStringSet(size == result.length ? result : Arrays.copyOf(result, size));
+    }
+    return set;
+  }
+
+  @Override
+  public boolean contains(Object o) {
+    return indexOf(values, values.length, o) >= 0;
+  }
+
+  @Override
+  public Iterator<String> iterator() {
+    // The iterator of Arrays.asList does not support removal, so this set stays immutable.
+    return Arrays.asList(values).iterator();
+  }
+
+  @Override
+  public int size() {
+    return values.length;
+  }
+
+  private static int indexOf(String[] array, int size, Object o) {
+    for (int i = 0; i < size; i++) {
+      // Pooled strings are mostly the same instance, so check that first.
+      if (array[i] == o || Objects.equals(array[i], o)) {
+        return i;
+      }
+    }
+    return -1;
+  }
+
+}
@@ -0,0 +1,122 @@
+/*
+ * Copyright 2019 by Daan van den Heuvel.
+ *
+ * This file is part of JavaForger.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package templateInput.definition;
+
+import java.util.AbstractSet;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Immutable {@link Set} of java modifiers stored as a bit set. Every combination of modifiers is represented by a single shared instance, so that millions of
+ * definitions can share a handful of sets. The iteration order is the order in which modifiers are defined in {@link ModifierSet#MODIFIERS}.
+ *
+ * @author Daan
+ */
+public final class ModifierSet extends AbstractSet<String> {
+
+  /** All supported modifiers, the index within this array determines the bit representing the modifier. */
+  private static final String[] MODIFIERS = {"public", "protected", "private", "abstract", "default", "static", "final", "transient", "volatile",
+      "synchronized", "native", "strictfp", "transitive"};
+
+  private static final AtomicReferenceArray<ModifierSet> INSTANCES = new AtomicReferenceArray<>(1 << MODIFIERS.length);
+
+  private final int bits;
+
+  private ModifierSet(int bits) {
+    this.bits = bits;
+  }
+
+  /**
+   * Creates a compact immutable set for the given modifiers. If the input contains a value that is not a known java modifier, an {@link InternedStringSet} is
+   * returned instead so that no information is lost.
+   *
+   * @param modifiers The modifiers to store, may be null.
+   * @return An immutable {@link Set}, which is a shared instance.
+   */
+  public static Set<String> of(Collection<String> modifiers) {
+    if (modifiers instanceof ModifierSet) {
+      return (ModifierSet) modifiers;
+    }
+    int bits = 0;
+    if (modifiers != null) {
+      for (String modifier : modifiers) {
+        int index = indexOf(modifier);
+        if (index < 0) {
+          return InternedStringSet.of(modifiers);
+        }
+        bits |= 1 << index;
+      }
+    }
+    return forBits(bits);
+  }
+
+  private static ModifierSet forBits(int bits) {
+    ModifierSet set = INSTANCES.get(bits);
+    if (set == null) {
+      INSTANCES.compareAndSet(bits, null, new ModifierSet(bits));
+      set = INSTANCES.get(bits);
+    }
+    return set;
+  }
+
+  @Override
+  public boolean contains(Object o) {
+    int index = o instanceof String ? indexOf((String) o) : -1;
+    return index >= 0 && (bits & (1 << index)) != 0;
+  }
+
+  @Override
+  public Iterator<String> iterator() {
+    return new Iterator<String>() {
+      private int remaining = bits;
+
+      @Override
+      public boolean hasNext() {
+        return remaining != 0;
+      }
+
+      @Override
+      public String next() {
+        if (remaining == 0) {
+          throw new NoSuchElementException();
+        }
+        int index = Integer.numberOfTrailingZeros(remaining);
+        remaining &= remaining - 1;
+        return MODIFIERS[index];
+      }
+    };
+  }
+
+  @Override
+  public int size() {
+    return Integer.bitCount(bits);
+  }
+
+  private static int indexOf(String modifier) {
+    for (int i = 0; i < MODIFIERS.length; i++) {
+      if (MODIFIERS[i].equals(modifier)) {
+        return i;
+      }
+    }
+    return -1;
+  }
+
+}
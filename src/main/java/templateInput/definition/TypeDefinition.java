@@ -17,9 +17,7 @@
  */
 package templateInput.definition;
 
-import java.util.HashSet;
-import java.util.LinkedHashSet;
-import java.util.List;
+import java.util.Collection;
 import java.util.Objects;
 import java.util.Set;
 
@@ -29,6 +27,7 @@ import org.apache.commons.lang3.builder.ToStringStyle;
 
 import initialization.InitDefaultValues;
 import templateInput.StringConverter;
+import templateInput.StringPool;
 
 /**
  * Defines a type from an input java class which is parsed by JavaParser. This class defines common fields between {@link VariableDefinition} and
@@ -44,12 +43,17 @@ public class TypeDefinition implements Comparable<TypeDefinition> {
    * "void".
    */
   protected StringConverter type;
-  /** The imports required for this type. This list is sorted on insertion order so that template generation is consistent. */
-  protected LinkedHashSet<String> typeImports = new LinkedHashSet<>();
+  /**
+   * The imports required for this type. This list is sorted on insertion order so that template generation is consistent. The set is immutable and shared
+   * between definitions, adding imports replaces it with a new {@link InternedStringSet}.
+   */
+  protected InternedStringSet typeImports = InternedStringSet.empty();
   protected int lineNumber;
   protected int column;
-  protected Set<String> annotations = new HashSet<>();
-  protected Set<String> accessModifiers = new HashSet<>();
+  /** Immutable set of annotations, see {@link InternedStringSet}. */
+  protected Set<String> annotations = InternedStringSet.empty();
+  /** Immutable set of access modifiers, see {@link ModifierSet}. */
+  protected Set<String> accessModifiers = ModifierSet.of(null);
 
   public TypeDefinition() {
     // Make default constructor visable.
@@ -85,7 +89,7 @@ public class TypeDefinition implements Comparable<TypeDefinition> {
   }
 
   public void setName(String name) {
-    this.name = new StringConverter(name);
+    this.name = StringPool.converter(name);
   }
 
   public StringConverter getType() {
@@ -101,7 +105,7 @@ public class TypeDefinition implements Comparable<TypeDefinition> {
   }
 
   public void setType(String type) {
-    this.type = new StringConverter(type);
+    this.type = StringPool.converter(type);
   }
 
   public int getLineNumber() {
@@ -125,7 +129,7 @@ public class TypeDefinition implements Comparable<TypeDefinition> {
   }
 
   public void setAnnotations(Set<String> annotations) {
-    this.annotations = annotations;
+    this.annotations = InternedStringSet.of(annotations);
   }
 
   public Set<String> getAccessModifiers() {
@@ -133,25 +137,20 @@ public class TypeDefinition implements Comparable<TypeDefinition> {
   }
 
   public void setAccessModifiers(Set<String> accessModifiers) {
-    this.accessModifiers = accessModifiers;
+    this.accessModifiers = ModifierSet.of(accessModifiers);
   }
 
-  public LinkedHashSet<String> getTypeImports() {
+  public Set<String> getTypeImports() {
     return typeImports;
   }
 
   public void addTypeImport(String typeImport) {
-    this.typeImports.add(typeImport);
-  }
-
-  // Only sorted collections may be input for the sorted typeImports
-  public void addTypeImports(List<String> imports) {
-    this.typeImports.addAll(imports);
+    this.typeImports = this.typeImports.with(typeImport);
   }
 
   // Only sorted collections may be input for the sorted typeImports
-  public void addTypeImports(LinkedHashSet<String> imports) {
-    this.typeImports.addAll(imports);
+  public void addTypeImports(Collection<String> imports) {
+    this.typeImports = this.typeImports.withAll(imports);
   }
 
   @Override
@@ -0,0 +1,117 @@
+/*
+ * Copyright 2019 by Daan van den Heuvel.
+ *
+ * This file is part of JavaForger.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package execution;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Set;
+
+import org.hamcrest.Matchers;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+/**
+ * Unit test for {@link GitChangeDetector} and {@link SourceDependencyIndex}. The test creates a git repository in a temporary folder.
+ *
+ * @author Daan
+ */
+public class GitChangeDetectorTest {
+
+  @Rule
+  public TemporaryFolder folder = new TemporaryFolder();
+
+  private Path repo;
+  private String a;
+  private String b;
+  private String c;
+  private String d;
+
+  @Before
+  public void setup() throws IOException, InterruptedException {
+    repo = folder.getRoot().toPath();
+    a = write("src/main/java/pack/a/A.java", "package pack.a;\n\npublic class A {\n}\n");
+    b = write("src/main/java/pack/b/B.java", "package pack.b;\n\nimport pack.a.A;\n\npublic class B {\n  private A a;\n}\n");
+    c = write("src/main/java/pack/b/C.java", "package pack.b;\n\npublic class C {\n  private B b;\n}\n");
+    d = write("src/main/java/pack/d/D.java", "package pack.d;\n\nimport pack.b.*;\n\npublic class D {\n  private String b;\n}\n");
+    git("init", "-q");
+    git("add", ".");
+    git("-c", "user.name=test", "-c", "user.email=test@test", "commit", "-q", "-m", "initial");
+  }
+
+  @Test
+  public void testGetAffectedClasses_revisionRange() throws IOException, InterruptedException {
+    write("src/main/java/pack/a/A.java", "package pack.a;\n\npublic class A {\n  private int i;\n}\n");
+    git("-c", "user.name=test", "-c", "user.email=test@test", "commit", "-q", "-a", "-m", "change");
+
+    Set<String> affected = GitChangeDetector.builder(repo.toString()).revisionRange("HEAD~1..HEAD").build().getAffectedClasses();
+
+    Assert.assertThat(affected, Matchers.contains(a, b, c));
+  }
+
+  @Test
+  public void testGetAffectedClasses_withoutDependents() throws IOException {
+    write("src/main/java/pack/a/A.java", "package pack.a;\n\npublic class A {\n  private int i;\n}\n");
+
+    Set<String> affected = GitChangeDetector.builder(repo.toString()).includeDependents(false).build().getAffectedClasses();
+
+    Assert.assertThat(affected, Matchers.contains(a));
+  }
+
+  @Test
+  public void testGetAffectedClasses_wildcardImport() throws IOException {
+    write("src/main/java/pack/b/C.java", "package pack.b;\n\npublic class C {\n}\n");
+    write("src/main/java/pack/d/D.java", "package pack.d;\n\nimport pack.b.*;\n\npublic class D {\n  private C c;\n}\n");
+
+    Set<String> affected = GitChangeDetector.builder(repo.toString()).build().getAffectedClasses();
+
+    Assert.assertThat(affected, Matchers.contains(c, d));
+  }
+
+  @Test
+  public void testGetAffectedClasses_untrackedFile() throws IOException {
+    write(".gitignore", "Ignored.java\n");
+    write("src/main/java/pack/a/Ignored.java", "package pack.a;\n\npublic class Ignored {\n}\n");
+    String e = write("src/main/java/pack/e/E.java", "package pack.e;\n\nimport pack.b.B;\n\npublic class E {\n  private B b;\n}\n");
+
+    Set<String> affected = GitChangeDetector.builder(repo.toString()).build().getAffectedClasses();
+
+    Assert.assertThat(affected, Matchers.contains(e));
+  }
+
+  private String write(String path, String content) throws IOException {
+    Path file = repo.resolve(path);
+    Files.createDirectories(file.getParent());
+    Files.write(file, content.getBytes(StandardCharsets.UTF_8));
+    return SourceDependencyIndex.toPath(file);
+  }
+
+  private void git(String... args) throws IOException, InterruptedException {
+    String[] command = new String[args.length + 1];
+    command[0] = "git";
+    System.arraycopy(args, 0, command, 1, args.length);
+    Process process = new ProcessBuilder(command).directory(new File(repo.toString())).inheritIO().start();
+    Assert.assertEquals(0, process.waitFor());
+  }
+
+}
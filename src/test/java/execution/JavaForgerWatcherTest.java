@@ -0,0 +1,140 @@
+/*
+ * Copyright 2019 by Daan van den Heuvel.
+ *
+ * This file is part of JavaForger.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package execution;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import configuration.FreeMarkerConfiguration;
+import configuration.JavaForgerConfiguration;
+import configuration.StaticJavaForgerConfiguration;
+import freemarker.template.Configuration;
+
+/**
+ * Unit test for {@link JavaForgerWatcher}.
+ *
+ * @author Daan
+ */
+public class JavaForgerWatcherTest {
+
+  @Rule
+  public TemporaryFolder folder = new TemporaryFolder();
+
+  private Path sources;
+  private Path templates;
+  private Path inputClass;
+  private List<String> results = new CopyOnWriteArrayList<>();
+
+  @Before
+  public void setup() throws IOException {
+    StaticJavaForgerConfiguration.reset();
+    sources = folder.newFolder("src").toPath();
+    templates = folder.newFolder("templates").toPath();
+    inputClass = write(sources.resolve("Product.java"), "public class Product {\n  private String name;\n}\n");
+    write(templates.resolve("fields.javat"), "<#list fields as field>${field.name}</#list>");
+    Configuration freeMarkerConfig = FreeMarkerConfiguration.getDefaultConfig();
+    freeMarkerConfig.setDirectoryForTemplateLoading(new File(templates.toString()));
+    StaticJavaForgerConfiguration.getConfig().setFreeMarkerConfiguration(freeMarkerConfig);
+  }
+
+  @After
+  public void tearDown() {
+    StaticJavaForgerConfiguration.reset();
+  }
+
+  @Test
+  public void testProcessChanges_inputClass() throws IOException {
+    JavaForgerWatcher watcher = createWatcher();
+
+    int executed = watcher.processChanges(Arrays.asList(inputClass, folder.getRoot().toPath().resolve("Unrelated.java")));
+
+    Assert.assertEquals(1, executed);
+    Assert.assertEquals(Collections.singletonList("name"), results);
+  }
+
+  @Test
+  public void testProcessChanges_template() throws IOException {
+    JavaForgerWatcher watcher = createWatcher();
+    watcher.processChanges(Collections.singletonList(inputClass));
+
+    Path template = write(templates.resolve("fields.javat"), "<#list fields as field>${field.type}</#list>");
+    int executed = watcher.processChanges(Collections.singletonList(template));
+
+    Assert.assertEquals(1, executed);
+    Assert.assertEquals(Arrays.asList("name", "String"), results);
+  }
+
+  @Test
+  public void testRun_debouncesChanges() throws IOException, InterruptedException {
+    CountDownLatch latch = new CountDownLatch(1);
+    JavaForgerWatcher watcher = JavaForgerWatcher.builder().sourceFolders(sources.toString()).templateFolders(templates.toString()).debounceMillis(200)
+        .config(JavaForgerConfiguration.builder().template("fields.javat").build()).listener((input, code) -> {
+          results.add(code.toString());
+          latch.countDown();
+        }).build();
+    Thread thread = new Thread(watcher);
+    thread.start();
+    try {
+      waitUntilRunning(watcher);
+      write(inputClass, "public class Product {\n  private String name;\n  private int count;\n}\n");
+      write(inputClass, "public class Product {\n  private String name;\n  private int amount;\n}\n");
+
+      Assert.assertTrue(latch.await(10, TimeUnit.SECONDS));
+      Thread.sleep(500);
+      Assert.assertEquals(Collections.singletonList("nameamount"), results);
+    } finally {
+      watcher.close();
+      thread.join(5000);
+    }
+  }
+
+  private JavaForgerWatcher createWatcher() {
+    return JavaForgerWatcher.builder().sourceFolders(sources.toString()).templateFolders(templates.toString())
+        .config(JavaForgerConfiguration.builder().template("fields.javat").build()).listener((input, code) -> results.add(code.toString())).build();
+  }
+
+  private void waitUntilRunning(JavaForgerWatcher watcher) throws InterruptedException {
+    for (int i = 0; i < 100 && !watcher.isRunning(); i++) {
+      Thread.sleep(20);
+    }
+    // Give the watcher time to register the folders
+    Thread.sleep(200);
+  }
+
+  private Path write(Path path, String content) throws IOException {
+    Files.write(path, content.getBytes(StandardCharsets.UTF_8));
+    return path;
+  }
+
+}
@@ -0,0 +1,173 @@
+/*
+ * Copyright 2019 by Daan van den Heuvel.
+ *
+ * This file is part of JavaForger.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package execution;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.Supplier;
+
+import org.hamcrest.MatcherAssert;
+import org.hamcrest.Matchers;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import configuration.ClassProvider;
+import configuration.FreeMarkerConfiguration;
+import configuration.JavaForgerConfiguration;
+import configuration.StaticJavaForgerConfiguration;
+import freemarker.template.Configuration;
+import generator.JavaForgerException;
+
+/**
+ * Unit test for {@link ShardCoordinator} and {@link ShardWorker}.
+ *
+ * @author Daan
+ */
+public class ShardCoordinatorTest {
+  private static final String TARGET_FOLDER = "shardTest.targetFolder";
+  private static final String PRODUCT = "src/test/java/inputClassesForTests/Product.java";
+  private static final String EXTENDED_PRODUCT = "src/test/java/inputClassesForTests/ExtendedProduct.java";
+  private static final String CLASS_WITH_EVERYTHING = "src/test/java/inputClassesForTests/ClassWithEverything.java";
+
+  @Rule
+  public TemporaryFolder folder = new TemporaryFolder();
+
+  @After
+  public void tearDown() {
+    System.clearProperty(TARGET_FOLDER);
+    StaticJavaForgerConfiguration.reset();
+  }
+
+  @Test
+  public void testCreateItems_sharedMergeClassInSameItem() {
+    ShardCoordinator coordinator = ShardCoordinator.builder(folder.getRoot().toPath(), SharedTargetConfig.class).workers(2).itemsPerWorker(2).build();
+
+    List<List<String>> items = coordinator.createItems(Arrays.asList(PRODUCT, EXTENDED_PRODUCT, CLASS_WITH_EVERYTHING));
+
+    Assert.assertEquals(2, items.size());
+    MatcherAssert.assertThat(items.get(0), Matchers.containsInAnyOrder(PRODUCT, EXTENDED_PRODUCT));
+    MatcherAssert.assertThat(items.get(1), Matchers.contains(CLASS_WITH_EVERYTHING));
+  }
+
+  @Test
+  public void testCreateItems_outputDirectiveRejected() {
+    ShardCoordinator coordinator = ShardCoordinator.builder(folder.getRoot().toPath(), OutputConfig.class).build();
+
+    try {
+      coordinator.createItems(Arrays.asList(PRODUCT, EXTENDED_PRODUCT));
+      Assert.fail("Expected exception");
+    } catch (JavaForgerException e) {
+      MatcherAssert.assertThat(e.getMessage(), Matchers.containsString("uses the output directive"));
+    }
+  }
+
+  @Test
+  public void testRun_inProcessWorkers() throws IOException {
+    System.setProperty(TARGET_FOLDER, folder.getRoot().getAbsolutePath());
+    Path work = folder.getRoot().toPath().resolve("work");
+    ShardCoordinator coordinator = ShardCoordinator.builder(work, TargetPerInputConfig.class).workers(2).itemsPerWorker(1).build();
+    List<List<String>> items = coordinator.createItems(Arrays.asList(PRODUCT, EXTENDED_PRODUCT));
+    Path queue = Files.createDirectories(work.resolve(ShardWorker.QUEUE));
+    for (int i = 0; i < items.size(); i++) {
+      Files.write(queue.resolve("item-" + i + ".txt"), items.get(i), StandardCharsets.UTF_8);
+    }
+
+    int first = new ShardWorker(work, "worker-0", new TargetPerInputConfig().get()).run();
+    int second = new ShardWorker(work, "worker-1", new TargetPerInputConfig().get()).run();
+
+    Assert.assertEquals(2, first);
+    Assert.assertEquals(0, second);
+    Assert.assertEquals(2, Files.list(work.resolve(ShardWorker.DONE)).count());
+    Assert.assertEquals("This is a simple test template.", read(folder.getRoot().toPath().resolve("Product.txt")));
+    Assert.assertEquals("This is a simple test template.", read(folder.getRoot().toPath().resolve("ExtendedProduct.txt")));
+    List<String> report = Files.readAllLines(work.resolve(ShardWorker.REPORTS).resolve("worker-0.txt"));
+    MatcherAssert.assertThat(report, Matchers.containsInAnyOrder("OK\t" + PRODUCT, "OK\t" + EXTENDED_PRODUCT));
+  }
+
+  @Test
+  public void testRun_workerProcesses() throws IOException {
+    Path work = folder.getRoot().toPath().resolve("work");
+    ShardCoordinator coordinator = ShardCoordinator.builder(work, TargetPerInputConfig.class).workers(2).itemsPerWorker(1)
+        .jvmArguments("-D" + TARGET_FOLDER + "=" + folder.getRoot().getAbsolutePath()).build();
+
+    ShardCoordinator.Report report = coordinator.run(Arrays.asList(PRODUCT, EXTENDED_PRODUCT, "src/test/java/DoesNotExist.java"));
+
+    MatcherAssert.assertThat(report.getSucceeded(), Matchers.containsInAnyOrder(PRODUCT, EXTENDED_PRODUCT));
+    Assert.assertEquals(1, report.getFailed().size());
+    Assert.assertTrue(report.getFailed().containsKey("src/test/java/DoesNotExist.java"));
+    Assert.assertEquals("This is a simple test template.", read(folder.getRoot().toPath().resolve("Product.txt")));
+    Assert.assertEquals("This is a simple test template.", read(folder.getRoot().toPath().resolve("ExtendedProduct.txt")));
+  }
+
+  private static String read(Path path) throws IOException {
+    return new String(Files.readAllBytes(path), StandardCharsets.UTF_8);
+  }
+
+  /**
+   * Configuration merging the classes from the inputClassesForTests package with a name containing 'Product' into the same file.
+   */
+  public static class SharedTargetConfig implements Supplier<JavaForgerConfiguration> {
+    @Override
+    public JavaForgerConfiguration get() {
+      return JavaForgerConfiguration.builder().template("simple.ftlh")
+          .mergeClassProvider(ClassProvider.fromInputClass(s -> s.contains("Product") ? "Products.java" : s + "Target.java")).build();
+    }
+  }
+
+  /**
+   * Configuration with a child whose template writes to other files through the output directive.
+   */
+  public static class OutputConfig implements Supplier<JavaForgerConfiguration> {
+    @Override
+    public JavaForgerConfiguration get() {
+      new TargetPerInputConfig().get();
+      JavaForgerConfiguration child = JavaForgerConfiguration.builder().template("outputs.ftlh").build();
+      return JavaForgerConfiguration.builder().template("simple.ftlh").childConfig(child).build();
+    }
+  }
+
+  /**
+   * Configuration creating a separate text file for every input class in the folder from the {@link ShardCoordinatorTest#TARGET_FOLDER} property.
+   */
+  public static class TargetPerInputConfig implements Supplier<JavaForgerConfiguration> {
+    @Override
+    public JavaForgerConfiguration get() {
+      try {
+        Configuration freeMarkerConfig = FreeMarkerConfiguration.getDefaultConfig();
+        freeMarkerConfig.setDirectoryForTemplateLoading(new File("src/test/resources/templates"));
+        StaticJavaForgerConfiguration.getConfig().setFreeMarkerConfiguration(freeMarkerConfig);
+      } catch (IOException e) {
+        throw new IllegalStateException(e);
+      }
+      String targetFolder = System.getProperty(TARGET_FOLDER);
+      return JavaForgerConfiguration.builder().template("simple.ftlh").createFileIfNotExists(true)
+          .mergeClassProvider(ClassProvider.fromInputClass(s -> Paths.get(targetFolder, Paths.get(s).getFileName().toString().replace(".java", ".txt")).toString()))
+          .build();
+    }
+  }
+
+}
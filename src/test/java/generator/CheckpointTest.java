@@ -0,0 +1,245 @@
+/*
+ * Copyright 2019 by Daan van den Heuvel.
+ *
+ * This file is part of JavaForger.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package generator;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import configuration.FreeMarkerConfiguration;
+import configuration.JavaForgerConfiguration;
+import configuration.StaticJavaForgerConfiguration;
+import freemarker.template.Configuration;
+
+/**
+ * Unit test for {@link Checkpoint}.
+ *
+ * @author Daan
+ */
+public class CheckpointTest {
+
+  @Rule
+  public TemporaryFolder folder = new TemporaryFolder();
+
+  private Path checkpointFile;
+  private Path input;
+  private Path target;
+
+  @Before
+  public void setup() throws IOException {
+    checkpointFile = folder.getRoot().toPath().resolve("checkpoint/batch.checkpoint");
+    input = folder.getRoot().toPath().resolve("Input.java");
+    target = folder.getRoot().toPath().resolve("Target.java");
+    write(input, "input");
+    write(target, "target");
+  }
+
+  @After
+  public void tearDown() {
+    StaticJavaForgerConfiguration.reset();
+  }
+
+  @Test
+  public void testIsCompleted_afterReopen() throws IOException {
+    try (Checkpoint checkpoint = Checkpoint.open(checkpointFile)) {
+      Assert.assertFalse(checkpoint.isCompleted(input.toString(), "template.javat", target.toString()));
+      checkpoint.complete(input.toString(), "template.javat", target.toString());
+    }
+
+    try (Checkpoint checkpoint = Checkpoint.open(checkpointFile)) {
+      Assert.assertEquals(1, checkpoint.size());
+      Assert.assertTrue(checkpoint.isCompleted(input.toString(), "template.javat", target.toString()));
+      Assert.assertFalse(checkpoint.isCompleted(input.toString(), "other.javat", target.toString()));
+    }
+  }
+
+  @Test
+  public void testIsCompleted_changedFiles() throws IOException {
+    try (Checkpoint checkpoint = Checkpoint.open(checkpointFile)) {
+      checkpoint.complete(input.toString(), "template.javat", target.toString());
+
+      write(target, "changed by someone else");
+      Assert.assertFalse(checkpoint.isCompleted(input.toString(), "template.javat", target.toString()));
+
+      checkpoint.complete(input.toString(), "template.javat", target.toString());
+      write(input, "changed input");
+      Assert.assertFalse(checkpoint.isCompleted(input.toString(), "template.javat", target.toString()));
+    }
+  }
+
+  @Test
+  public void testOpen_ignoresIncompleteLine() throws IOException {
+    try (Checkpoint checkpoint = Checkpoint.open(checkpointFile)) {
+      checkpoint.complete(input.toString(), "template.javat", target.toString());
+    }
+    Files.write(checkpointFile, "abc\tdef\tInput".getBytes(StandardCharsets.UTF_8), StandardOpenOption.APPEND);
+
+    try (Checkpoint checkpoint = Checkpoint.open(checkpointFile)) {
+      Assert.assertEquals(1, checkpoint.size());
+    }
+  }
+
+  @Test
+  public void testCompact() throws IOException {
+    try (Checkpoint checkpoint = Checkpoint.open(checkpointFile)) {
+      checkpoint.complete(input.toString(), "template.javat", target.toString());
+      checkpoint.complete(input.toString(), "removed.javat", target.toString());
+    }
+
+    try (Checkpoint checkpoint = Checkpoint.open(checkpointFile)) {
+      Assert.assertTrue(checkpoint.isCompleted(input.toString(), "template.javat", target.toString()));
+      checkpoint.compact();
+      checkpoint.compact();
+
+      Assert.assertEquals(1, checkpoint.size());
+      Assert.assertEquals(2, Files.readAllLines(checkpointFile, StandardCharsets.UTF_8).size());
+    }
+
+    try (Checkpoint checkpoint = Checkpoint.open(checkpointFile)) {
+      Assert.assertTrue(checkpoint.isCompleted(input.toString(), "template.javat", target.toString()));
+      Assert.assertFalse(checkpoint.isCompleted(input.toString(), "removed.javat", target.toString()));
+    }
+  }
+
+  @Test
+  public void testExecute_skipsCompletedUnits() throws IOException {
+    Configuration freeMarkerConfig = FreeMarkerConfiguration.getDefaultConfig();
+    freeMarkerConfig.setDirectoryForTemplateLoading(new File("src/test/resources/templates"));
+    StaticJavaForgerConfiguration.getConfig().setFreeMarkerConfiguration(freeMarkerConfig);
+    Path created = folder.getRoot().toPath().resolve("Created.java");
+    JavaForgerConfiguration config = JavaForgerConfiguration.builder().template("simple.ftlh").mergeClass(created.toString()).createFileIfNotExists(true).build();
+
+    try (Checkpoint checkpoint = Checkpoint.open(checkpointFile)) {
+      ExecutionOptions options = ExecutionOptions.builder().checkpoint(checkpoint).build();
+      List<CodeSnipit> first = JavaForger.execute(config, Collections.singletonList(""), options);
+      Files.delete(created);
+      List<CodeSnipit> second = JavaForger.execute(config, Collections.singletonList(""), options);
+
+      Assert.assertEquals("This is a simple test template.", first.get(0).toString());
+      Assert.assertEquals("This is a simple test template.", second.get(0).toString());
+      Assert.assertEquals(1, checkpoint.size());
+
+      List<CodeSnipit> third = JavaForger.execute(config, Collections.singletonList(""), options);
+      Assert.assertEquals("", third.get(0).toString());
+
+      checkpoint.delete();
+    }
+    Assert.assertFalse(Files.exists(checkpointFile));
+  }
+
+  @Test
+  public void testExecute_resumeWithSharedTarget() throws IOException {
+    Configuration freeMarkerConfig = FreeMarkerConfiguration.getDefaultConfig();
+    freeMarkerConfig.setDirectoryForTemplateLoading(new File("src/test/resources/templates"));
+    StaticJavaForgerConfiguration.getConfig().setFreeMarkerConfiguration(freeMarkerConfig);
+    Path registry = folder.getRoot().toPath().resolve("Registry.java");
+    write(registry, "public class Registry {\n}\n");
+    JavaForgerConfiguration config = JavaForgerConfiguration.builder().template("constant.ftlh").mergeClass(registry.toString()).build();
+    List<String> inputs = Arrays.asList("src/test/java/inputClassesForTests/Product.java", "src/test/java/inputClassesForTests/ExtendedProduct.java");
+
+    try (Checkpoint checkpoint = Checkpoint.open(checkpointFile)) {
+      ExecutionOptions options = ExecutionOptions.builder().checkpoint(checkpoint).build();
+      JavaForger.execute(config, inputs, options);
+    }
+    String merged = new String(Files.readAllBytes(registry), StandardCharsets.UTF_8);
+
+    try (Checkpoint checkpoint = Checkpoint.open(checkpointFile)) {
+      ExecutionOptions options = ExecutionOptions.builder().checkpoint(checkpoint).build();
+      List<CodeSnipit> resumed = JavaForger.execute(config, inputs, options);
+
+      Assert.assertEquals("", resumed.get(0).toString());
+      Assert.assertEquals("", resumed.get(1).toString());
+    }
+    Assert.assertEquals(merged, new String(Files.readAllBytes(registry), StandardCharsets.UTF_8));
+  }
+
+  @Test
+  public void testExecute_outputTargetChanged() throws IOException {
+    Configuration freeMarkerConfig = FreeMarkerConfiguration.getDefaultConfig();
+    freeMarkerConfig.setDirectoryForTemplateLoading(new File("src/test/resources/templates"));
+    StaticJavaForgerConfiguration.getConfig().setFreeMarkerConfiguration(freeMarkerConfig);
+    Path log = folder.getRoot().toPath().resolve("log.txt");
+    JavaForgerConfiguration config = JavaForgerConfiguration.builder().template("outputLog.ftlh")
+        .mergeClass(folder.getRoot().toPath().resolve("Unused.java").toString()).createFileIfNotExists(true).build();
+    config.addInputParameter("log", log.toString());
+    List<String> inputs = Collections.singletonList("src/test/java/inputClassesForTests/Product.java");
+
+    try (Checkpoint checkpoint = Checkpoint.open(checkpointFile)) {
+      ExecutionOptions options = ExecutionOptions.builder().checkpoint(checkpoint).build();
+      JavaForger.execute(config, inputs, options);
+    }
+    try (Checkpoint checkpoint = Checkpoint.open(checkpointFile)) {
+      ExecutionOptions options = ExecutionOptions.builder().checkpoint(checkpoint).build();
+      Assert.assertTrue(checkpoint.isCompleted(inputs.get(0), "outputLog.ftlh", config.getMergeClassProvider().provide(inputs.get(0), null)));
+      Files.delete(log);
+      JavaForger.execute(config, inputs, options);
+    }
+
+    Assert.assertEquals("Product\n", new String(Files.readAllBytes(log), StandardCharsets.UTF_8));
+  }
+
+  @Test
+  public void testExecute_combinedWithTransactionAndVerifier() throws IOException {
+    Configuration freeMarkerConfig = FreeMarkerConfiguration.getDefaultConfig();
+    freeMarkerConfig.setDirectoryForTemplateLoading(new File("src/test/resources/templates"));
+    StaticJavaForgerConfiguration.getConfig().setFreeMarkerConfiguration(freeMarkerConfig);
+    Path created = folder.getRoot().toPath().resolve("Created.java");
+    JavaForgerConfiguration config =
+        JavaForgerConfiguration.builder().template("simple.ftlh").mergeClass(created.toString()).createFileIfNotExists(true).build();
+    JavaForgerConfiguration missing = JavaForgerConfiguration.builder().template("doesNotExist.ftlh").build();
+    JavaForgerConfiguration failing = JavaForgerConfiguration.builder(config).childConfig(missing).build();
+    CompileVerifier verifier = CompileVerifier.builder().build();
+
+    try (Checkpoint checkpoint = Checkpoint.open(checkpointFile)) {
+      ExecutionOptions options = ExecutionOptions.builder().checkpoint(checkpoint).verifier(verifier).transaction(true).build();
+      try {
+        JavaForger.execute(failing, Collections.singletonList(""), options);
+        Assert.fail("Expected exception");
+      } catch (JavaForgerException e) {
+        // expected
+      }
+      Assert.assertFalse(Files.exists(created));
+      Assert.assertFalse(checkpoint.isCompleted("", "simple.ftlh", created.toString()));
+
+      List<CodeSnipit> result = JavaForger.execute(config, Collections.singletonList(""), options);
+
+      Assert.assertEquals("This is a simple test template.", result.get(0).toString());
+      Assert.assertTrue(checkpoint.isCompleted("", "simple.ftlh", created.toString()));
+    }
+    Assert.assertTrue(Files.exists(created));
+    Assert.assertEquals(Collections.singletonList(created.toAbsolutePath().normalize().toString()), verifier.getMergeClasses());
+  }
+
+  private static void write(Path path, String content) throws IOException {
+    Files.write(path, content.getBytes(StandardCharsets.UTF_8));
+  }
+
+}
@@ -0,0 +1,105 @@
+/*
+ * Copyright 2019 by Daan van den Heuvel.
+ *
+ * This file is part of JavaForger.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package generator;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Collections;
+import java.util.List;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import configuration.JavaForgerConfiguration;
+import configuration.StaticJavaForgerConfiguration;
+import generator.CompileVerifier.CompileDiagnostic;
+
+/**
+ * Unit test for {@link CompileVerifier}.
+ *
+ * @author Daan
+ */
+public class CompileVerifierTest {
+
+  @Rule
+  public TemporaryFolder folder = new TemporaryFolder();
+
+  private Path mergeClass;
+
+  @Before
+  public void setup() throws IOException {
+    StaticJavaForgerConfiguration.getConfig().addTemplateLocation(folder.getRoot().getAbsolutePath());
+    mergeClass = folder.getRoot().toPath().resolve("Target.java");
+    write(mergeClass, "public class Target {\n\n  private int count;\n\n}\n");
+    write(folder.getRoot().toPath().resolve("valid.javat"), "public int getCount() {\n  return count;\n}\n");
+    write(folder.getRoot().toPath().resolve("invalid.javat"), "public String getName() {\n  return name;\n}\n");
+  }
+
+  @After
+  public void tearDown() {
+    StaticJavaForgerConfiguration.reset();
+  }
+
+  @Test
+  public void testVerify_valid() {
+    CompileVerifier verifier = CompileVerifier.builder().build();
+    ExecutionOptions options = ExecutionOptions.builder().verifier(verifier).build();
+
+    JavaForger.execute(config("valid.javat"), Collections.singletonList(""), options);
+
+    Assert.assertEquals(Collections.singletonList(mergeClass.toAbsolutePath().normalize().toString()), verifier.getMergeClasses());
+    Assert.assertEquals(Collections.emptyList(), verifier.verify());
+  }
+
+  @Test
+  public void testVerify_mapsErrorToTemplate() {
+    CompileVerifier verifier = CompileVerifier.builder().build();
+    ExecutionOptions options = ExecutionOptions.builder().verifier(verifier).build();
+
+    JavaForger.execute(config("valid.javat"), Collections.singletonList(""), options);
+    List<CodeSnipit> invalid = JavaForger.execute(config("invalid.javat"), Collections.singletonList(""), options);
+    List<CompileDiagnostic> diagnostics = verifier.verify();
+
+    Assert.assertEquals(1, diagnostics.size());
+    CompileDiagnostic diagnostic = diagnostics.get(0);
+    Assert.assertTrue(diagnostic.isError());
+    Assert.assertEquals("invalid.javat", diagnostic.getTemplate());
+    Assert.assertSame(invalid.get(0), diagnostic.getCodeSnipit());
+    Assert.assertEquals("return name;", diagnostic.getCode().trim());
+  }
+
+  @Test
+  public void testVerify_nothingRecorded() {
+    Assert.assertEquals(Collections.emptyList(), CompileVerifier.builder().build().verify());
+  }
+
+  private JavaForgerConfiguration config(String template) {
+    return JavaForgerConfiguration.builder().template(template).mergeClass(mergeClass.toString()).build();
+  }
+
+  private static void write(Path path, String content) throws IOException {
+    Files.write(path, content.getBytes(StandardCharsets.UTF_8));
+  }
+
+}
@@ -0,0 +1,165 @@
+/*
+ * Copyright 2019 by Daan van den Heuvel.
+ *
+ * This file is part of JavaForger.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package generator;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.stream.Collectors;
+
+import org.hamcrest.Matchers;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import configuration.ClassProvider;
+import configuration.DefaultAdjusters;
+import configuration.FreeMarkerConfiguration;
+import configuration.JavaForgerConfiguration;
+import configuration.StaticJavaForgerConfiguration;
+import freemarker.template.Configuration;
+import generator.ExecutionStep.Kind;
+import reader.ClassContainerReader;
+import templateInput.ClassContainer;
+
+/**
+ * Unit test for {@link ExecutionPlanCompiler}.
+ *
+ * @author Daan
+ */
+public class ExecutionPlanCompilerTest {
+  private static final String INPUT_CLASS = "src/test/java/inputClassesForTests/Product.java";
+  private static final String EXPECTED = "The input class has the following fields:\n" + "String url\n" + "String name\n" + "Product prod\n";
+
+  @Before
+  public void setup() throws IOException {
+    StaticJavaForgerConfiguration staticConfig = StaticJavaForgerConfiguration.getConfig();
+    StaticJavaForgerConfiguration.reset();
+    Configuration freeMarkerConfig = FreeMarkerConfiguration.getDefaultConfig();
+    freeMarkerConfig.setDirectoryForTemplateLoading(new File("src/test/resources/templates"));
+    staticConfig.setFreeMarkerConfiguration(freeMarkerConfig);
+  }
+
+  @After
+  public void tearDown() {
+    StaticJavaForgerConfiguration.reset();
+  }
+
+  @Test
+  public void testCompile_sharedRead() {
+    JavaForgerConfiguration child = JavaForgerConfiguration.builder().template("classFields.ftlh").build();
+    JavaForgerConfiguration config = JavaForgerConfiguration.builder().template("classFields.ftlh").childConfig(child).build();
+
+    ExecutionPlan plan = new ExecutionPlanCompiler().compile(config, INPUT_CLASS);
+
+    Assert.assertEquals(Arrays.asList(Kind.READ, Kind.ADJUST, Kind.RENDER, Kind.ADJUST, Kind.RENDER), getKinds(plan));
+    Assert.assertSame(plan.getSteps().get(0), plan.getSteps().get(3).getDependencies().get(0));
+
+    List<CodeSnipit> result = plan.execute();
+
+    Assert.assertEquals(2, result.size());
+    Assert.assertEquals(EXPECTED, result.get(0).toString());
+    Assert.assertEquals(EXPECTED, result.get(1).toString());
+  }
+
+  @Test
+  public void testCompile_adjustersGetPrivateRead() {
+    JavaForgerConfiguration child =
+        JavaForgerConfiguration.builder().template("classFields.ftlh").parameterAdjusters(DefaultAdjusters.removeStaticFields()).build();
+    JavaForgerConfiguration config = JavaForgerConfiguration.builder().template("classFields.ftlh").childConfig(child).build();
+
+    ExecutionPlan plan = new ExecutionPlanCompiler().compile(config, INPUT_CLASS);
+
+    Assert.assertEquals(Arrays.asList(Kind.READ, Kind.ADJUST, Kind.RENDER, Kind.READ, Kind.ADJUST, Kind.RENDER), getKinds(plan));
+  }
+
+  @Test
+  public void testCompile_readAfterMerge() {
+    String mergeClass = "src/test/resources/temporaryTestResults/ProductTest.java";
+    JavaForgerConfiguration child =
+        JavaForgerConfiguration.builder().template("classFields.ftlh").inputClassProvider(ClassProvider.fromParentMergeClass()).build();
+    JavaForgerConfiguration config = JavaForgerConfiguration.builder().template("classFields.ftlh").mergeClass(mergeClass).childConfig(child).build();
+
+    ExecutionPlan plan = new ExecutionPlanCompiler().compile(config, INPUT_CLASS);
+
+    Assert.assertEquals(Arrays.asList(Kind.READ, Kind.ADJUST, Kind.RENDER, Kind.MERGE, Kind.READ, Kind.ADJUST, Kind.RENDER), getKinds(plan));
+    ExecutionStep merge = plan.getSteps().get(3);
+    Assert.assertThat(plan.getSteps().get(4).getDependencies(), Matchers.contains(merge));
+    Assert.assertThat(plan.explain(), Matchers.containsString("#5 READ " + mergeClass + " <- #4"));
+    Assert.assertThat(plan.toDot(), Matchers.containsString("s4 -> s5;"));
+  }
+
+  @Test
+  public void testCompile_sharedReadWithMethodBodies() throws IOException {
+    StaticJavaForgerConfiguration.reset();
+    StaticJavaForgerConfiguration.getConfig().addTemplateLocation("src/test/resources/templates");
+    List<Boolean> methodBodies = new ArrayList<>();
+    StaticJavaForgerConfiguration.getConfig().setReader(new ClassContainerReader() {
+      @Override
+      public ClassContainer read(String inputClass, boolean bodies) throws IOException {
+        methodBodies.add(bodies);
+        return super.read(inputClass, bodies);
+      }
+    });
+    JavaForgerConfiguration fields = JavaForgerConfiguration.builder().template("classFields.ftlh").build();
+    JavaForgerConfiguration methods = JavaForgerConfiguration.builder().template("test/generic/stateFullClassTest.javat").build();
+
+    new ExecutionPlanCompiler().compile(fields, INPUT_CLASS).execute();
+    new ExecutionPlanCompiler().compile(JavaForgerConfiguration.builder(fields).childConfig(methods).build(), INPUT_CLASS).execute();
+
+    Assert.assertEquals(Arrays.asList(false, true), methodBodies);
+  }
+
+  @Test
+  public void testCompile_outputDirectiveIsSerial() {
+    JavaForgerConfiguration child = JavaForgerConfiguration.builder().template("outputLog.ftlh").build();
+    JavaForgerConfiguration config = JavaForgerConfiguration.builder().template("classFields.ftlh").childConfig(child).build();
+
+    ExecutionPlan plan = new ExecutionPlanCompiler().compile(config, INPUT_CLASS, "src/test/java/inputClassesForTests/ExtendedProduct.java");
+
+    List<ExecutionStep> steps = plan.getSteps();
+    for (int i = 1; i < steps.size(); i++) {
+      Assert.assertThat(steps.get(i).getDependencies(), Matchers.hasItem(steps.get(i - 1)));
+    }
+  }
+
+  @Test
+  public void testExecute_parallel() {
+    JavaForgerConfiguration config = JavaForgerConfiguration.builder().template("classFields.ftlh").build();
+    ExecutionPlan plan = new ExecutionPlanCompiler().compile(config, INPUT_CLASS, INPUT_CLASS);
+    ExecutorService executor = Executors.newFixedThreadPool(2);
+    try {
+      List<CodeSnipit> result = plan.execute(executor);
+
+      Assert.assertEquals(1, result.size());
+      Assert.assertEquals(EXPECTED, result.get(0).toString());
+    } finally {
+      executor.shutdown();
+    }
+  }
+
+  private List<Kind> getKinds(ExecutionPlan plan) {
+    return plan.getSteps().stream().map(ExecutionStep::getKind).collect(Collectors.toList());
+  }
+
+}
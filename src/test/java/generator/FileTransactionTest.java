@@ -0,0 +1,169 @@
+/*
+ * Copyright 2019 by Daan van den Heuvel.
+ *
+ * This file is part of JavaForger.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package generator;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Collections;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import configuration.FreeMarkerConfiguration;
+import configuration.JavaForgerConfiguration;
+import configuration.StaticJavaForgerConfiguration;
+import freemarker.template.Configuration;
+
+/**
+ * Unit test for {@link FileTransaction}.
+ *
+ * @author Daan
+ */
+public class FileTransactionTest {
+
+  @Rule
+  public TemporaryFolder folder = new TemporaryFolder();
+
+  private Path existing;
+  private Path created;
+
+  @Before
+  public void setup() throws IOException {
+    existing = folder.getRoot().toPath().resolve("Existing.java");
+    created = folder.getRoot().toPath().resolve("sub/Created.java");
+    write(existing, "original");
+  }
+
+  @After
+  public void tearDown() {
+    FileTransaction active = FileTransaction.getActive();
+    if (active != null) {
+      active.close();
+    }
+    StaticJavaForgerConfiguration.reset();
+  }
+
+  @Test
+  public void testCommit() throws IOException {
+    try (FileTransaction transaction = FileTransaction.begin()) {
+      write(FileTransaction.resolveForWrite(existing.toString()), "changed");
+      write(FileTransaction.resolveForWrite(created.toString()), "new");
+
+      Assert.assertEquals("original", read(existing));
+      Assert.assertFalse(Files.exists(created));
+      Assert.assertTrue(FileTransaction.exists(created.toString()));
+      Assert.assertEquals("changed", read(FileTransaction.resolve(existing.toString())));
+
+      Assert.assertEquals(FileTransaction.getDefaultStagingFolder(), transaction.getStagingFolder());
+      transaction.commit();
+      Assert.assertFalse(Files.exists(transaction.getStagingFolder()));
+    }
+    Assert.assertEquals("changed", read(existing));
+    Assert.assertEquals("new", read(created));
+    Assert.assertNull(FileTransaction.getActive());
+  }
+
+  @Test
+  public void testRollback() throws IOException {
+    try (FileTransaction transaction = FileTransaction.begin()) {
+      write(FileTransaction.resolveForWrite(existing.toString()), "changed");
+      write(FileTransaction.resolveForWrite(created.toString()), "new");
+    }
+    Assert.assertEquals("original", read(existing));
+    Assert.assertFalse(Files.exists(created));
+    Assert.assertEquals(existing, FileTransaction.resolve(existing.toString()).toAbsolutePath());
+  }
+
+  @Test
+  public void testRecover_interruptedCommit() throws IOException {
+    Path staging = folder.newFolder("staging").toPath();
+    Path backup = staging.resolve("backup-0");
+    write(backup, "original");
+    write(existing, "half committed");
+    write(created, "new");
+    Files.write(staging.resolve(FileTransaction.JOURNAL), Arrays.asList(existing + "\t" + backup, created + "\t<new>"), StandardCharsets.UTF_8);
+
+    FileTransaction.recover(staging);
+
+    Assert.assertEquals("original", read(existing));
+    Assert.assertFalse(Files.exists(created));
+    Assert.assertFalse(Files.exists(staging));
+  }
+
+  @Test(expected = JavaForgerException.class)
+  public void testBegin_alreadyActive() throws IOException {
+    FileTransaction.begin();
+    FileTransaction.begin();
+  }
+
+  @Test
+  public void testExecuteInTransaction_failureCreatesNoFiles() throws IOException {
+    Configuration freeMarkerConfig = FreeMarkerConfiguration.getDefaultConfig();
+    freeMarkerConfig.setDirectoryForTemplateLoading(new File("src/test/resources/templates"));
+    StaticJavaForgerConfiguration.getConfig().setFreeMarkerConfiguration(freeMarkerConfig);
+    JavaForgerConfiguration child = JavaForgerConfiguration.builder().template("doesNotExist.ftlh").build();
+    JavaForgerConfiguration config = JavaForgerConfiguration.builder().template("simple.ftlh").mergeClass(created.toString()).createFileIfNotExists(true)
+        .childConfig(child).build();
+
+    try {
+      JavaForger.execute(config, Collections.singletonList(""), ExecutionOptions.builder().transaction(true).build());
+      Assert.fail("Expected exception");
+    } catch (JavaForgerException e) {
+      // expected
+    }
+
+    Assert.assertFalse(Files.exists(created));
+    Assert.assertNull(FileTransaction.getActive());
+  }
+
+  @Test
+  public void testExecuteInTransaction_recoversInterruptedCommit() throws IOException {
+    Configuration freeMarkerConfig = FreeMarkerConfiguration.getDefaultConfig();
+    freeMarkerConfig.setDirectoryForTemplateLoading(new File("src/test/resources/templates"));
+    StaticJavaForgerConfiguration.getConfig().setFreeMarkerConfiguration(freeMarkerConfig);
+    Path staging = folder.newFolder("staging").toPath();
+    write(staging.resolve("backup-0"), "original");
+    write(existing, "half committed");
+    Files.write(staging.resolve(FileTransaction.JOURNAL), Collections.singletonList(existing + "\t" + staging.resolve("backup-0")), StandardCharsets.UTF_8);
+    JavaForgerConfiguration config = JavaForgerConfiguration.builder().template("simple.ftlh").mergeClass(created.toString()).createFileIfNotExists(true).build();
+
+    JavaForger.execute(config, Collections.singletonList(""), ExecutionOptions.builder().transactionFolder(staging).build());
+
+    Assert.assertEquals("original", read(existing));
+    Assert.assertTrue(Files.exists(created));
+    Assert.assertFalse(Files.exists(staging));
+  }
+
+  private static void write(Path path, String content) throws IOException {
+    Files.createDirectories(path.getParent());
+    Files.write(path, content.getBytes(StandardCharsets.UTF_8));
+  }
+
+  private static String read(Path path) throws IOException {
+    return new String(Files.readAllBytes(path), StandardCharsets.UTF_8);
+  }
+
+}
@@ -21,13 +21,17 @@ import java.io.File;
 import java.io.IOException;
 import java.io.LineNumberReader;
 import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
 import java.util.ArrayList;
 import java.util.Arrays;
 
 import org.junit.After;
 import org.junit.Assert;
 import org.junit.Before;
+import org.junit.Rule;
 import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
 
 import configuration.FreeMarkerConfiguration;
 import configuration.JavaForgerConfiguration;
@@ -44,6 +48,9 @@ import templateInput.TemplateInputParameters;
  */
 public class GeneratorTest {
 
+  @Rule
+  public TemporaryFolder folder = new TemporaryFolder();
+
   private Generator gen = new Generator();
   private JavaForgerConfiguration genConfig = JavaForgerConfiguration.builder().build();
 
@@ -133,6 +140,33 @@ public class GeneratorTest {
     executeAndVerify(template, inputClass, null, expected);
   }
 
+  @Test
+  public void testExecute_multipleInputClasses() throws IOException, TemplateException {
+    genConfig.addInputClass("entity", "src/test/java/inputClassesForTests/Product.java");
+    genConfig.addInputClassGlob("src/test/java/inputClassesForTests/*Product.java");
+    String template = "classes.ftlh";
+    String expected = "The template received the following classes:\n" + "entity: url, name, prod\n" + "ExtendedProduct: \n" + "Product: url, name, prod";
+    executeAndVerify(template, null, null, expected);
+  }
+
+  @Test
+  public void testExecute_multipleOutputs() throws IOException, TemplateException {
+    File first = new File(folder.getRoot(), "first.txt");
+    File second = new File(folder.getRoot(), "second.txt");
+    TemplateInputParameters map = new TemplateInputParameters();
+    map.put("user", "Steve");
+    map.put("first", first.getPath());
+    map.put("second", second.getPath());
+    genConfig.setCreateFileIfNotExists(true);
+
+    CodeSnipit code = execute("outputs.ftlh", null, map);
+
+    verifyEquals("Main part for Steve.\n", code.toString());
+    Assert.assertEquals(3, code.getOutputs().size());
+    verifyEquals("First part for Steve.\nLast part for Steve.\n", new String(Files.readAllBytes(first.toPath()), StandardCharsets.UTF_8));
+    verifyEquals("Second part for Steve.\n", new String(Files.readAllBytes(second.toPath()), StandardCharsets.UTF_8));
+  }
+
   private void executeAndVerify(String template, String inputClass, TemplateInputParameters map, String expected) throws IOException, TemplateException {
     CodeSnipit code = execute(template, inputClass, map);
     verifyEquals(expected, code.toString());
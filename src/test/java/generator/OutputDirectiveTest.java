@@ -0,0 +1,85 @@
+/*
+ * Copyright 2019 by Daan van den Heuvel.
+ *
+ * This file is part of JavaForger.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package generator;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.io.StringWriter;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import configuration.FreeMarkerConfiguration;
+import freemarker.template.Template;
+import freemarker.template.TemplateException;
+import templateInput.TemplateInputParameters;
+
+/**
+ * Unit test for {@link OutputDirective}.
+ *
+ * @author Daan
+ */
+public class OutputDirectiveTest {
+
+  @Test
+  public void testSplit() throws IOException, TemplateException {
+    String template = "main <@output target=\"a.txt\">to a</@output> between <@output provider=\"forMavenUnitTestFromInput\">to test</@output> end";
+
+    CodeSnipit codeSnipit = OutputDirective.split(render(template));
+
+    Assert.assertEquals("main  between  end", codeSnipit.getCode());
+    Assert.assertEquals(2, codeSnipit.getOutputs().size());
+    TemplateOutput first = codeSnipit.getOutputs().get(0);
+    Assert.assertEquals("a.txt", first.getTarget());
+    Assert.assertEquals("to a", first.getCodeSnipit().getCode());
+    TemplateOutput second = codeSnipit.getOutputs().get(1);
+    Assert.assertEquals("forMavenUnitTestFromInput", second.getProvider());
+    Assert.assertEquals("to test", second.getCodeSnipit().getCode());
+    Assert.assertEquals("src/test/java/a/BTest.java", second.resolve("src/main/java/a/B.java", null));
+  }
+
+  @Test
+  public void testSplit_withoutOutputs() {
+    CodeSnipit codeSnipit = OutputDirective.split("no outputs");
+
+    Assert.assertEquals("no outputs", codeSnipit.getCode());
+    Assert.assertTrue(codeSnipit.getOutputs().isEmpty());
+  }
+
+  @Test(expected = TemplateException.class)
+  public void testExecute_nested() throws IOException, TemplateException {
+    render("<@output target=\"a.txt\"><@output target=\"b.txt\">nested</@output></@output>");
+  }
+
+  @Test(expected = TemplateException.class)
+  public void testExecute_targetAndProvider() throws IOException, TemplateException {
+    render("<@output target=\"a.txt\" provider=\"forMavenUnitTestFromInput\">both</@output>");
+  }
+
+  @Test(expected = JavaForgerException.class)
+  public void testResolve_unknownProvider() {
+    TemplateOutput.fromProvider("unknown", "code").resolve("src/main/java/a/B.java", null);
+  }
+
+  private String render(String template) throws IOException, TemplateException {
+    StringWriter writer = new StringWriter();
+    new Template("test", new StringReader(template), FreeMarkerConfiguration.getDefaultConfig()).process(new TemplateInputParameters(), writer);
+    return writer.toString();
+  }
+
+}
@@ -0,0 +1,128 @@
+/*
+ * Copyright 2019 by Daan van den Heuvel.
+ *
+ * This file is part of JavaForger.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package generator;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import org.hamcrest.Matchers;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import configuration.FreeMarkerConfiguration;
+import configuration.JavaForgerConfiguration;
+import configuration.StaticJavaForgerConfiguration;
+import freemarker.template.Configuration;
+
+/**
+ * Unit test for {@link PipelineRunner}.
+ *
+ * @author Daan
+ */
+public class PipelineRunnerTest {
+  private static final String PRODUCT = "src/test/java/inputClassesForTests/Product.java";
+  private static final String EXTENDED_PRODUCT = "src/test/java/inputClassesForTests/ExtendedProduct.java";
+  private static final String PRODUCT_FIELDS = "The input class has the following fields:\n" + "String url\n" + "String name\n" + "Product prod\n";
+
+  @Rule
+  public TemporaryFolder folder = new TemporaryFolder();
+
+  private List<String> results = new CopyOnWriteArrayList<>();
+
+  @Before
+  public void setup() throws IOException {
+    StaticJavaForgerConfiguration staticConfig = StaticJavaForgerConfiguration.getConfig();
+    StaticJavaForgerConfiguration.reset();
+    Configuration freeMarkerConfig = FreeMarkerConfiguration.getDefaultConfig();
+    freeMarkerConfig.setDirectoryForTemplateLoading(new File("src/test/resources/templates"));
+    staticConfig.setFreeMarkerConfiguration(freeMarkerConfig);
+  }
+
+  @After
+  public void tearDown() {
+    StaticJavaForgerConfiguration.reset();
+  }
+
+  @Test
+  public void testRun() {
+    JavaForgerConfiguration child = JavaForgerConfiguration.builder().template("simple.ftlh").build();
+    JavaForgerConfiguration config = JavaForgerConfiguration.builder().template("classFields.ftlh").childConfig(child).build();
+    PipelineRunner runner = PipelineRunner.builder(config).parseThreads(2).modelThreads(1).renderThreads(2).queueCapacity(1)
+        .listener((input, code) -> results.add(code.toString())).build();
+
+    int executed = runner.run(Arrays.asList(PRODUCT, EXTENDED_PRODUCT, PRODUCT));
+
+    Assert.assertEquals(6, executed);
+    Assert.assertEquals(3, results.stream().filter(r -> r.equals("This is a simple test template.")).count());
+    Assert.assertEquals(2, results.stream().filter(r -> r.equals(PRODUCT_FIELDS)).count());
+  }
+
+  @Test
+  public void testRun_memoryBudgetSmallerThanClass() {
+    JavaForgerConfiguration config = JavaForgerConfiguration.builder().template("classFields.ftlh").build();
+    PipelineRunner runner = PipelineRunner.builder(config).memoryBudget(1).listener((input, code) -> results.add(code.toString())).build();
+
+    int executed = runner.run(Arrays.asList(PRODUCT, PRODUCT, PRODUCT, PRODUCT));
+
+    Assert.assertEquals(4, executed);
+    Assert.assertEquals(Collections.nCopies(4, PRODUCT_FIELDS), results);
+  }
+
+  @Test
+  public void testRun_failuresDoNotStopOtherInputs() {
+    JavaForgerConfiguration config = JavaForgerConfiguration.builder().template("classFields.ftlh").build();
+    PipelineRunner runner = PipelineRunner.builder(config).listener((input, code) -> results.add(input)).build();
+
+    try {
+      runner.run(Arrays.asList("src/test/java/DoesNotExist.java", PRODUCT));
+      Assert.fail("Expected exception");
+    } catch (JavaForgerException e) {
+      Assert.assertThat(e.getMessage(), Matchers.startsWith("1 executions failed"));
+      Assert.assertEquals(1, e.getSuppressed().length);
+    }
+    Assert.assertEquals(Collections.singletonList(PRODUCT), results);
+  }
+
+  @Test
+  public void testRun_checkpoint() throws IOException {
+    Path target = folder.getRoot().toPath().resolve("Fields.txt");
+    JavaForgerConfiguration config =
+        JavaForgerConfiguration.builder().template("classFields.ftlh").mergeClass(target.toString()).createFileIfNotExists(true).build();
+
+    try (Checkpoint checkpoint = Checkpoint.open(folder.getRoot().toPath().resolve("pipeline.checkpoint"))) {
+      int first = PipelineRunner.builder(config).checkpoint(checkpoint).build().run(Collections.singletonList(PRODUCT));
+      int second = PipelineRunner.builder(config).checkpoint(checkpoint).listener((input, code) -> results.add(input)).build()
+          .run(Collections.singletonList(PRODUCT));
+
+      Assert.assertEquals(1, first);
+      Assert.assertEquals(0, second);
+      Assert.assertEquals(Collections.emptyList(), results);
+      Assert.assertEquals(1, checkpoint.size());
+    }
+  }
+
+}
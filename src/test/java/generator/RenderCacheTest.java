@@ -0,0 +1,222 @@
+/*
+ * Copyright 2019 by Daan van den Heuvel.
+ *
+ * This file is part of JavaForger.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package generator;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.StringWriter;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import configuration.FreeMarkerConfiguration;
+import configuration.JavaForgerConfiguration;
+import configuration.StaticJavaForgerConfiguration;
+import freemarker.ext.beans.StringModel;
+import freemarker.template.Configuration;
+import freemarker.template.DefaultObjectWrapper;
+import freemarker.template.Template;
+import freemarker.template.TemplateException;
+import freemarker.template.TemplateModel;
+import freemarker.template.TemplateModelException;
+import templateInput.StringConverter;
+
+/**
+ * Unit test for {@link RenderCache}.
+ *
+ * @author Daan
+ */
+public class RenderCacheTest {
+
+  @Rule
+  public TemporaryFolder folder = new TemporaryFolder();
+
+  private Path input;
+  private String original;
+
+  @Before
+  public void setup() throws IOException {
+    Configuration freeMarkerConfig = FreeMarkerConfiguration.getDefaultConfig();
+    freeMarkerConfig.setDirectoryForTemplateLoading(new File("src/test/resources/templates"));
+    StaticJavaForgerConfiguration.getConfig().setFreeMarkerConfiguration(freeMarkerConfig);
+    input = folder.getRoot().toPath().resolve("Product.java");
+    original = new String(Files.readAllBytes(Paths.get("src/test/java/inputClassesForTests/Product.java")), StandardCharsets.UTF_8);
+    write(original);
+  }
+
+  @After
+  public void tearDown() {
+    StaticJavaForgerConfiguration.reset();
+  }
+
+  @Test
+  public void testRender_unrelatedChangeHits() throws IOException {
+    RenderCache cache = setCache(RenderCache.builder().build());
+
+    CodeSnipit first = execute();
+    write(original.replace("return Objects.hash(url, name);", "return Objects.hash(name, url);"));
+    CodeSnipit second = execute();
+
+    Assert.assertEquals(first.toString(), second.toString());
+    Assert.assertEquals(1, cache.getMisses());
+    Assert.assertEquals(1, cache.getHits());
+    Assert.assertEquals(1, cache.size());
+  }
+
+  @Test
+  public void testRender_readPropertyChangeMisses() throws IOException {
+    RenderCache cache = setCache(RenderCache.builder().build());
+
+    CodeSnipit first = execute();
+    write(original.replace("private String url;", "private String link;"));
+    CodeSnipit second = execute();
+
+    Assert.assertTrue(first.toString().contains("String url"));
+    Assert.assertTrue(second.toString().contains("String link"));
+    Assert.assertEquals(2, cache.getMisses());
+    Assert.assertEquals(0, cache.getHits());
+    Assert.assertEquals(2, cache.size());
+  }
+
+  @Test
+  public void testRender_maxEntries() throws IOException {
+    RenderCache cache = setCache(RenderCache.builder().maxEntries(1).build());
+
+    execute();
+    write(original.replace("private String url;", "private String link;"));
+    execute();
+    write(original);
+    execute();
+
+    Assert.assertEquals(3, cache.getMisses());
+    Assert.assertEquals(1, cache.size());
+  }
+
+  @Test
+  public void testSave_loadedInNextRun() throws IOException {
+    Path file = folder.getRoot().toPath().resolve("cache/render.cache");
+    RenderCache cache = setCache(RenderCache.builder().file(file).build());
+    CodeSnipit first = execute();
+    cache.save();
+
+    RenderCache loaded = setCache(RenderCache.builder().file(file).build());
+    CodeSnipit second = execute();
+
+    Assert.assertEquals(1, loaded.size());
+    Assert.assertEquals(1, loaded.getHits());
+    Assert.assertEquals(first.toString(), second.toString());
+  }
+
+  @Test
+  public void testRender_configuredObjectWrapper() throws IOException {
+    Configuration freeMarkerConfig = StaticJavaForgerConfiguration.getConfig().getFreeMarkerConfiguration();
+    freeMarkerConfig.setObjectWrapper(new DefaultObjectWrapper(Configuration.VERSION_2_3_29) {
+      @Override
+      public TemplateModel wrap(Object obj) throws TemplateModelException {
+        return !(obj instanceof StringConverter) ? super.wrap(obj) : new StringModel(obj, this) {
+          @Override
+          public String getAsString() {
+            return super.getAsString().toUpperCase();
+          }
+        };
+      }
+    });
+    String expected = execute().toString();
+    RenderCache cache = setCache(RenderCache.builder().build());
+
+    CodeSnipit first = execute();
+    write(original.replace("private String url;", "private String link;"));
+    CodeSnipit second = execute();
+
+    Assert.assertTrue(expected.contains("STRING URL"));
+    Assert.assertEquals(expected, first.toString());
+    Assert.assertTrue(second.toString().contains("STRING LINK"));
+    Assert.assertEquals(2, cache.getMisses());
+  }
+
+  @Test
+  public void testRender_unknownWrappedObjectIsNotCached() throws IOException, TemplateException {
+    DefaultObjectWrapper wrapper = new DefaultObjectWrapper(Configuration.VERSION_2_3_29);
+    wrapper.setUseAdaptersForContainers(false);
+    Configuration freeMarkerConfig = new Configuration(Configuration.VERSION_2_3_29);
+    freeMarkerConfig.setObjectWrapper(wrapper);
+    Template template = new Template("nested", "${m.a}", freeMarkerConfig);
+    RenderCache cache = RenderCache.builder().build();
+    Map<String, Object> nested = new HashMap<>();
+    nested.put("a", "1");
+    Map<String, Object> model = new HashMap<>();
+    model.put("m", nested);
+
+    String first = render(cache, template, model);
+    nested.put("a", "2");
+    String second = render(cache, template, model);
+
+    Assert.assertEquals("1", first);
+    Assert.assertEquals("2", second);
+    Assert.assertEquals(0, cache.size());
+  }
+
+  @Test
+  public void testGetTemplateHash() throws IOException {
+    Configuration freeMarkerConfig = StaticJavaForgerConfiguration.getConfig().getFreeMarkerConfiguration();
+    RenderCache cache = RenderCache.builder().build();
+
+    String include = cache.getTemplateHash(freeMarkerConfig.getTemplate("include.ftlh"));
+    String comment = cache.getTemplateHash(new Template("comment", "<#-- <#include x> -->${a}", freeMarkerConfig));
+    String dynamic = cache.getTemplateHash(new Template("dynamic", "<#include \"${name}.ftlh\">", freeMarkerConfig));
+    String interpret = cache.getTemplateHash(new Template("interpret", "<#assign t = code?interpret><@t/>", freeMarkerConfig));
+
+    Assert.assertNotNull(include);
+    Assert.assertNotNull(comment);
+    Assert.assertNull(dynamic);
+    Assert.assertNull(interpret);
+    Assert.assertNotEquals(include, cache.getTemplateHash(freeMarkerConfig.getTemplate("object.ftlh")));
+  }
+
+  private static String render(RenderCache cache, Template template, Object model) throws IOException, TemplateException {
+    return cache.render(template, model, w -> {
+      StringWriter out = new StringWriter();
+      template.process(model, out, w);
+      return out.toString();
+    });
+  }
+
+  private RenderCache setCache(RenderCache cache) {
+    StaticJavaForgerConfiguration.getConfig().setRenderCache(cache);
+    return cache;
+  }
+
+  private CodeSnipit execute() {
+    return JavaForger.execute(JavaForgerConfiguration.builder().template("classFields.ftlh").build(), input.toString());
+  }
+
+  private void write(String content) throws IOException {
+    Files.write(input, content.getBytes(StandardCharsets.UTF_8));
+  }
+
+}
@@ -0,0 +1,62 @@
+/*
+ * Copyright 2019 by Daan van den Heuvel.
+ *
+ * This file is part of JavaForger.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package generator;
+
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import configuration.JavaForgerConfiguration;
+import configuration.StaticJavaForgerConfiguration;
+
+/**
+ * Unit test for {@link TemplateInputNeeds}.
+ *
+ * @author Daan
+ */
+public class TemplateInputNeedsTest {
+
+  private TemplateInputNeeds sut = new TemplateInputNeeds();
+
+  @Before
+  public void setup() {
+    StaticJavaForgerConfiguration.reset();
+  }
+
+  @Test
+  public void testRequiresMethodBodies_fieldTemplates() {
+    Assert.assertFalse(sut.requiresMethodBodies("equals.javat"));
+    Assert.assertFalse(sut.requiresMethodBodies("toString.javat"));
+    Assert.assertFalse(sut.requiresMethodBodies("innerBuilder.javat"));
+  }
+
+  @Test
+  public void testRequiresMethodBodies_methodTemplates() {
+    Assert.assertTrue(sut.requiresMethodBodies("test/generic/statelessClassTest.javat"));
+    Assert.assertTrue(sut.requiresMethodBodies("test/generic/stateFullClassTest.javat"));
+  }
+
+  @Test
+  public void testRequiresMethodBodies_configIfFileDoesNotExist() {
+    JavaForgerConfiguration config = JavaForgerConfiguration.builder().template("equals.javat")
+        .configIfFileDoesNotExist(JavaForgerConfiguration.builder().template("test/generic/stateFullClassTest.javat").build()).build();
+
+    Assert.assertTrue(sut.requiresMethodBodies(config));
+  }
+
+}
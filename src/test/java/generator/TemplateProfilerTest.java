@@ -0,0 +1,162 @@
+/*
+ * Copyright 2019 by Daan van den Heuvel.
+ *
+ * This file is part of JavaForger.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package generator;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+import org.hamcrest.MatcherAssert;
+import org.hamcrest.Matchers;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import configuration.DefaultConfigurations;
+import configuration.JavaForgerConfiguration;
+import configuration.StaticJavaForgerConfiguration;
+import generator.TemplateProfiler.FrameStats;
+
+/**
+ * Unit test for {@link TemplateProfiler}.
+ *
+ * @author Daan
+ */
+public class TemplateProfilerTest {
+
+  @Rule
+  public TemporaryFolder folder = new TemporaryFolder();
+
+  private TemplateProfiler profiler;
+
+  @Before
+  public void setup() throws IOException {
+    StaticJavaForgerConfiguration.getConfig().addTemplateLocation(folder.getRoot().getAbsolutePath());
+    write(folder.getRoot().toPath().resolve("profiled.javat"), "start\n<#include \"slow.javat\">\nend");
+    write(folder.getRoot().toPath().resolve("slow.javat"), "<#list 1..20000 as i>${i?c}</#list>");
+    profiler = TemplateProfiler.builder().build();
+    StaticJavaForgerConfiguration.getConfig().setTemplateProfiler(profiler);
+  }
+
+  @After
+  public void tearDown() {
+    StaticJavaForgerConfiguration.reset();
+  }
+
+  @Test
+  public void testProcess_aggregatesIncludeAndDirective() throws IOException {
+    CodeSnipit result = JavaForger.execute(JavaForgerConfiguration.builder().template("profiled.javat").build());
+
+    Assert.assertTrue(result.toString().startsWith("start\n123"));
+    Assert.assertTrue(result.toString().endsWith("20000end"));
+    Assert.assertEquals(1, profiler.getRenders("profiled.javat"));
+    Map<String, FrameStats> frames = profiler.getFrames("profiled.javat");
+    Assert.assertEquals(3, frames.size());
+    FrameStats include = frames.get("profiled.javat:2 #include \"slow.javat\"");
+    FrameStats list = frames.get("slow.javat:1 #list 1..20000 as i");
+    FrameStats interpolation = frames.get("slow.javat:1 ${i?c}");
+    Assert.assertEquals(1, include.getInvocations());
+    Assert.assertEquals(1, list.getInvocations());
+    Assert.assertEquals(20000, interpolation.getInvocations());
+    Assert.assertTrue(include.getNanos() >= list.getNanos());
+    Assert.assertTrue(list.getNanos() >= interpolation.getNanos());
+    Assert.assertEquals(list.getNanos() - interpolation.getNanos(), list.getSelfNanos());
+
+    String report = profiler.report();
+    MatcherAssert.assertThat(report, Matchers.containsString("Template profiled.javat: 1 renders"));
+
+    StringWriter flameGraph = new StringWriter();
+    profiler.writeFlameGraph(flameGraph);
+    MatcherAssert.assertThat(flameGraph.toString(),
+        Matchers.containsString("profiled.javat;profiled.javat:2 #include \"slow.javat\";slow.javat:1 #list 1..20000 as i;slow.javat:1 ${i?c} "));
+  }
+
+  @Test
+  public void testProcess_macroAndRecursion() throws IOException {
+    write(folder.getRoot().toPath().resolve("macro.javat"),
+        "<#macro count n><#if n gt 0>${n}<@count n=n-1/></#if></#macro>\n<#list 1..3 as i><@count n=i/><#if i == 2><#break></#if></#list>");
+
+    CodeSnipit result = JavaForger.execute(JavaForgerConfiguration.builder().template("macro.javat").build());
+
+    Assert.assertEquals("121", result.toString().replace("\n", ""));
+    Map<String, FrameStats> frames = profiler.getFrames("macro.javat");
+    Assert.assertEquals(5, frames.get("macro.javat:1 #macro count n").getInvocations());
+    Assert.assertEquals(5, frames.get("macro.javat:1 #if n gt 0").getInvocations());
+    Assert.assertEquals(2, frames.get("macro.javat:2 #if i == 2").getInvocations());
+    Assert.assertEquals(1, frames.get("macro.javat:2 #list 1..3 as i").getInvocations());
+  }
+
+  @Test
+  public void testProcess_sameOutputAsWithoutProfiler() {
+    String inputClass = "src/test/java/inputClassesForTests/ClassWithEverything.java";
+    List<JavaForgerConfiguration> configs = new ArrayList<>(Arrays.asList(DefaultConfigurations.forEquals(), DefaultConfigurations.forHashCode(),
+        DefaultConfigurations.forBuilder(), DefaultConfigurations.forToString()));
+    configs.addAll(DefaultConfigurations.forEqualsAndTest().getChildConfigs());
+    configs.addAll(DefaultConfigurations.forBuilderAndTest().getChildConfigs());
+    for (JavaForgerConfiguration config : configs) {
+      config.setMerge(false);
+      StaticJavaForgerConfiguration.getConfig().setTemplateProfiler(null);
+      String expected = JavaForger.execute(config, inputClass).toString();
+      StaticJavaForgerConfiguration.getConfig().setTemplateProfiler(profiler);
+      String profiled = JavaForger.execute(config, inputClass).toString();
+
+      Assert.assertEquals(config.getTemplate(), expected, profiled);
+      Assert.assertEquals(config.getTemplate(), 1, profiler.getRenders(config.getTemplate()));
+      Assert.assertFalse(config.getTemplate(), profiler.getFrames(config.getTemplate()).isEmpty());
+    }
+  }
+
+  @Test
+  public void testProcess_userDirectiveArguments() throws IOException {
+    write(folder.getRoot().toPath().resolve("userDirective.javat"),
+        "<#macro m v>[${v}]<#nested></#macro>\n<#assign x = \"a>b\">\n<@m v=\"${x}\"/>\n<@m v='${x?upper_case}'>${x}</@m>");
+    JavaForgerConfiguration config = JavaForgerConfiguration.builder().template("userDirective.javat").build();
+
+    StaticJavaForgerConfiguration.getConfig().setTemplateProfiler(null);
+    String expected = JavaForger.execute(config).toString();
+    StaticJavaForgerConfiguration.getConfig().setTemplateProfiler(profiler);
+    String profiled = JavaForger.execute(config).toString();
+
+    Assert.assertEquals("[a>b][A>B]a>b", expected);
+    Assert.assertEquals(expected, profiled);
+    Assert.assertEquals(1, profiler.getFrames("userDirective.javat").get("userDirective.javat:4 ${x}").getInvocations());
+  }
+
+  @Test
+  public void testProcess_withoutProfiler() {
+    StaticJavaForgerConfiguration.getConfig().setTemplateProfiler(null);
+
+    JavaForger.execute(JavaForgerConfiguration.builder().template("profiled.javat").build());
+
+    Assert.assertEquals(0, profiler.getRenders("profiled.javat"));
+  }
+
+  private static void write(Path path, String content) throws IOException {
+    Files.write(path, content.getBytes(StandardCharsets.UTF_8));
+  }
+
+}
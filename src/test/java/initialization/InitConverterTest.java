@@ -21,6 +21,8 @@ import org.junit.Assert;
 import org.junit.Before;
 import org.junit.Test;
 
+import generator.JavaForgerException;
+
 /**
  * Unit test for {@link InitConverter}
  *
@@ -55,4 +57,26 @@ public class InitConverterTest {
     Assert.assertEquals("string = abc", converter.convert("string = %s%s%s"));
     Assert.assertEquals("string = d", converter.convert("string = %s"));
   }
+
+  @Test
+  public void testConvert_initValueWithCounter() {
+    InitCounter counter = new InitCounter();
+    InitValue value = new InitValue("%d.%d and \"%s\"");
+
+    Assert.assertEquals("1.2 and \"a\"", converter.convert(value, counter));
+    Assert.assertEquals("3.4 and \"b\"", converter.convert(value, counter));
+    Assert.assertEquals("1.2 and \"a\"", converter.convert(value, new InitCounter()));
+  }
+
+  @Test
+  public void testConvert_noPlaceholders() {
+    InitValue value = new InitValue("new Object()");
+    Assert.assertSame(value.getValue(), converter.convert(value, new InitCounter()));
+  }
+
+  @Test(expected = JavaForgerException.class)
+  public void testConvert_unsupportedPlaceholder() {
+    new InitValue("%f");
+  }
+
 }
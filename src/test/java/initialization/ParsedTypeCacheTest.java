@@ -0,0 +1,75 @@
+/*
+ * Copyright 2019 by Daan van den Heuvel.
+ *
+ * This file is part of JavaForger.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package initialization;
+
+import org.hamcrest.Matchers;
+import org.junit.Assert;
+import org.junit.Test;
+
+import initialization.ParsedTypeCache.InitResult;
+import initialization.ParsedTypeCache.ParsedType;
+
+/**
+ * Unit test for {@link ParsedTypeCache}.
+ *
+ * @author Daan
+ */
+public class ParsedTypeCacheTest {
+
+  private ParsedTypeCache sut = new ParsedTypeCache(TypeDefaultRegistry.getDefault(), new InitConverter());
+
+  @Test
+  public void testGetParsedType_sharesSubTypes() {
+    ParsedType map = sut.getParsedType("Map<String, List<Integer>>");
+    ParsedType list = sut.getParsedType("List<Integer>");
+
+    Assert.assertEquals("Map", map.getMainType());
+    Assert.assertEquals(2, map.getSubTypes().size());
+    Assert.assertSame(list, map.getSubTypes().get(1));
+    Assert.assertSame(sut.getParsedType("Integer"), list.getSubTypes().get(0));
+  }
+
+  @Test
+  public void testInit_reusesResultAtSameCounterPosition() {
+    InitCounter counter1 = new InitCounter();
+    InitCounter counter2 = new InitCounter();
+
+    InitResult first = sut.init("Map<String, List<Integer>>", counter1);
+    InitResult second = sut.init("Map<String, List<Integer>>", counter2);
+
+    Assert.assertSame(first, second);
+    Assert.assertEquals("Collections.singletonMap(\"a\", Collections.singletonList(1))", first.getInit1());
+    Assert.assertEquals("Collections.singletonMap(\"b\", Collections.singletonList(2))", first.getInit2());
+    Assert.assertThat(first.getImports(), Matchers.contains("java.util.Collections"));
+    Assert.assertEquals(counter1.peekInt(), counter2.peekInt());
+    Assert.assertEquals(counter1.peekChar(), counter2.peekChar());
+  }
+
+  @Test
+  public void testInit_differentCounterPosition() {
+    InitCounter counter = new InitCounter();
+
+    InitResult first = sut.init("List<Integer>", counter);
+    InitResult second = sut.init("List<Integer>", counter);
+
+    Assert.assertEquals("Collections.singletonList(1)", first.getInit1());
+    Assert.assertEquals("Collections.singletonList(3)", second.getInit1());
+    Assert.assertEquals(5, counter.peekInt());
+  }
+
+}
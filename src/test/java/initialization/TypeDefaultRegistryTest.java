@@ -0,0 +1,98 @@
+/*
+ * Copyright 2019 by Daan van den Heuvel.
+ *
+ * This file is part of JavaForger.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package initialization;
+
+import java.util.Properties;
+
+import org.hamcrest.Matchers;
+import org.junit.Assert;
+import org.junit.Test;
+
+import generator.JavaForgerException;
+import templateInput.definition.VariableDefinition;
+
+/**
+ * Unit test for {@link TypeDefaultRegistry}.
+ *
+ * @author Daan
+ */
+public class TypeDefaultRegistryTest {
+
+  @Test
+  public void testGet_javaDefaults() {
+    TypeDefaultRegistry registry = TypeDefaultRegistry.javaDefaults().build();
+
+    TypeDefault bigDecimal = registry.get("BigDecimal");
+
+    Assert.assertEquals("BigDecimal.valueOf(%d)", bigDecimal.getInit1().getValue());
+    Assert.assertEquals("BigDecimal.valueOf(%d)", bigDecimal.getInit2().getValue());
+    Assert.assertNull(bigDecimal.getEmptyInit());
+    Assert.assertThat(bigDecimal.getImports(), Matchers.contains("java.math.BigDecimal"));
+    Assert.assertTrue(registry.get("List").isCollection());
+    Assert.assertEquals("new ArrayList<>()", registry.get("List").getEmptyInit().getValue());
+    Assert.assertNull(registry.get("UnknownType"));
+  }
+
+  @Test
+  public void testLoad_properties() {
+    Properties properties = new Properties();
+    properties.setProperty("Money.init1", "Money.of(%d)");
+    properties.setProperty("Money.init2", "Money.of(%d, \"EUR\")");
+    properties.setProperty("Money.imports", "com.example.Money, com.example.Currency");
+    properties.setProperty("BigDecimal.emptyInit", "BigDecimal.ONE");
+
+    TypeDefaultRegistry registry = TypeDefaultRegistry.javaDefaults().load(properties).build();
+
+    TypeDefault money = registry.get("Money");
+    Assert.assertEquals("Money.of(%d)", money.getInit1().getValue());
+    Assert.assertEquals("Money.of(%d, \"EUR\")", money.getInit2().getValue());
+    Assert.assertEquals("null", money.getNoInitValue());
+    Assert.assertThat(money.getImports(), Matchers.contains("com.example.Money", "com.example.Currency"));
+    Assert.assertEquals("BigDecimal.ONE", registry.get("BigDecimal").getEmptyInit().getValue());
+    Assert.assertEquals("BigDecimal.valueOf(%d)", registry.get("BigDecimal").getInit1().getValue());
+  }
+
+  @Test(expected = JavaForgerException.class)
+  public void testLoad_unsupportedProperty() {
+    Properties properties = new Properties();
+    properties.setProperty("Money.unknown", "x");
+
+    TypeDefaultRegistry.builder().load(properties);
+  }
+
+  @Test
+  public void testAdd_provider() {
+    TypeDefaultRegistry registry = TypeDefaultRegistry.builder().add(r -> r.type("Money").init("Money.of(%d)", "com.example.Money").noInit("Money.NONE"))
+        .build();
+    InitializationService service = new InitializationService(registry);
+    VariableDefinition var = VariableDefinition.builder().type("Money").build();
+
+    service.init(var);
+
+    Assert.assertEquals("Money.of(1)", var.getInit1());
+    Assert.assertEquals("Money.of(2)", var.getInit2());
+    Assert.assertEquals("Money.NONE", var.getNoInit());
+    Assert.assertThat(var.getInitImports(), Matchers.contains("com.example.Money"));
+  }
+
+  @Test(expected = UnsupportedOperationException.class)
+  public void testGetAll_unmodifiable() {
+    TypeDefaultRegistry.javaDefaults().build().getAll().remove("BigDecimal");
+  }
+
+}
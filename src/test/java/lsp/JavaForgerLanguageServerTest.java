@@ -0,0 +1,244 @@
+/*
+ * Copyright 2019 by Daan van den Heuvel.
+ *
+ * This file is part of JavaForger.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package lsp;
+
+import static lsp.JavaForgerLanguageServer.map;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+import org.hamcrest.MatcherAssert;
+import org.hamcrest.Matchers;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import configuration.StaticJavaForgerConfiguration;
+
+/**
+ * Unit test for {@link JavaForgerLanguageServer}.
+ *
+ * @author Daan
+ */
+public class JavaForgerLanguageServerTest {
+  private static final String PERSON = "package my;\n\npublic class Person {\n\n  private String name;\n\n  public String getName() {\n    return name;\n  }\n\n}\n";
+
+  @Rule
+  public TemporaryFolder folder = new TemporaryFolder();
+
+  private JavaForgerLanguageServer server;
+  private ByteArrayOutputStream out;
+  private Path person;
+  private String uri;
+
+  @Before
+  public void setup() throws IOException {
+    out = new ByteArrayOutputStream();
+    server = new JavaForgerLanguageServer(new ByteArrayInputStream(new byte[0]), out);
+    person = folder.getRoot().toPath().resolve("src/main/java/my/Person.java");
+    Files.createDirectories(person.getParent());
+    Files.write(person, "on disk".getBytes(StandardCharsets.UTF_8));
+    uri = person.toUri().toString();
+  }
+
+  @After
+  public void tearDown() {
+    StaticJavaForgerConfiguration.reset();
+  }
+
+  @Test
+  public void testCodeAction_editFromOpenDocument() {
+    initialize(false);
+    open(PERSON);
+
+    Map<String, Object> action = findAction(codeActions(), "Generate toString");
+
+    Map<String, Object> edit = get(get(action, "edit"), "changes");
+    List<?> edits = (List<?>) edit.get(uri);
+    Assert.assertEquals(1, edits.size());
+    String newText = (String) ((Map<?, ?>) edits.get(0)).get("newText");
+    MatcherAssert.assertThat(newText, Matchers.containsString("public String toString() {"));
+    Assert.assertEquals("on disk", read(person));
+  }
+
+  @Test
+  public void testCodeAction_resolveWithCreatedTestFile() {
+    initialize(true);
+    open(PERSON);
+
+    Map<String, Object> action = findAction(codeActions(), "Generate equals and test");
+    Assert.assertNull(action.get("edit"));
+    Map<String, Object> resolved = get(server.handle(map("jsonrpc", "2.0", "id", 3, "method", "codeAction/resolve", "params", action)), "result");
+
+    List<?> documentChanges = (List<?>) ((Map<?, ?>) resolved.get("edit")).get("documentChanges");
+    String testUri = folder.getRoot().toPath().resolve("src/test/java/my/PersonTest.java").toUri().toString();
+    Assert.assertEquals(map("kind", "create", "uri", testUri, "options", map("ignoreIfExists", true)), documentChanges.get(1));
+    List<String> uris = documentChanges.stream().map(c -> (Map<?, ?>) ((Map<?, ?>) c).get("textDocument")).filter(d -> d != null)
+        .map(d -> (String) d.get("uri")).collect(Collectors.toList());
+    Assert.assertEquals(Arrays.asList(uri, testUri), uris);
+    Assert.assertFalse(Files.exists(folder.getRoot().toPath().resolve("src/test/java/my/PersonTest.java")));
+  }
+
+  @Test
+  public void testCodeAction_commandForLargeClass() {
+    initialize(map("workspace", map("applyEdit", true)));
+    StringBuilder fields = new StringBuilder();
+    for (int i = 0; i < 2000; i++) {
+      fields.append("  private String field").append(i).append(";\n");
+    }
+    open(PERSON.replace("  private String name;\n", fields.toString()));
+
+    List<Map<String, Object>> actions = codeActions();
+
+    Assert.assertEquals(10, actions.size());
+    Assert.assertEquals(0, out.size());
+    actions.forEach(a -> Assert.assertNull(a.get("edit")));
+    Map<String, Object> command = get(findAction(actions, "Generate toString"), "command");
+    Assert.assertEquals(JavaForgerLanguageServer.COMMAND, command.get("command"));
+
+    Map<String, Object> response = server.handle(map("jsonrpc", "2.0", "id", 3, "method", "workspace/executeCommand", "params",
+        map("command", command.get("command"), "arguments", command.get("arguments"))));
+
+    Assert.assertEquals(map("jsonrpc", "2.0", "id", 3, "result", null), response);
+    String applyEdit = new String(out.toByteArray(), StandardCharsets.UTF_8);
+    MatcherAssert.assertThat(applyEdit, Matchers.containsString("\"method\":\"workspace/applyEdit\""));
+    MatcherAssert.assertThat(applyEdit, Matchers.containsString("field1999"));
+    MatcherAssert.assertThat(applyEdit, Matchers.containsString("public String toString() {"));
+    Assert.assertNull(server.handle(map("jsonrpc", "2.0", "id", "javaforger-1", "result", map("applied", true))));
+  }
+
+  @Test
+  public void testCodeAction_stackOverflowIsInternalError() {
+    server.register("Overflow", () -> {
+      throw new StackOverflowError();
+    });
+    initialize(true);
+    open(PERSON);
+
+    Map<String, Object> response = server.handle(map("jsonrpc", "2.0", "id", 3, "method", "codeAction/resolve", "params", findAction(codeActions(), "Overflow")));
+
+    Assert.assertEquals(-32603, get(response, "error").get("code"));
+    Assert.assertNotNull(get(server.handle(map("jsonrpc", "2.0", "id", 4, "method", "codeAction/resolve", "params",
+        findAction(codeActions(), "Generate toString"))), "result").get("edit"));
+  }
+
+  @Test
+  public void testDidChange_incremental() {
+    initialize(false);
+    open(PERSON);
+
+    Map<String, Object> range = map("start", map("line", 4L, "character", 17L), "end", map("line", 4L, "character", 21L));
+    server.handle(map("jsonrpc", "2.0", "method", "textDocument/didChange", "params",
+        map("textDocument", map("uri", uri, "version", 2L), "contentChanges", Collections.singletonList(map("range", range, "text", "fullName")))));
+
+    Map<String, Object> action = findAction(codeActions(), "Generate toString");
+    Map<?, ?> edit = (Map<?, ?>) ((List<?>) get(get(action, "edit"), "changes").get(uri)).get(0);
+    MatcherAssert.assertThat((String) edit.get("newText"), Matchers.containsString("fullName"));
+  }
+
+  @Test
+  public void testCodeAction_unparsableDocument() {
+    initialize(false);
+    open("public class Person {");
+
+    Assert.assertEquals(Collections.emptyList(), codeActions());
+  }
+
+  @Test
+  public void testToTextEdit() {
+    Map<String, Object> edit = JavaForgerLanguageServer.toTextEdit("a\nb\nd\n", "a\nb\nc\nd\n");
+
+    Assert.assertEquals(map("start", map("line", 2, "character", 0), "end", map("line", 2, "character", 0)), edit.get("range"));
+    Assert.assertEquals("c\n", edit.get("newText"));
+  }
+
+  @Test
+  public void testRun_lifecycle() {
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    String input = frame("{\"jsonrpc\":\"2.0\",\"id\":1,\"method\":\"initialize\",\"params\":{\"capabilities\":{}}}")
+        + frame("{\"jsonrpc\":\"2.0\",\"id\":2,\"method\":\"unknown\"}") + frame("{\"jsonrpc\":\"2.0\",\"id\":3,\"method\":\"shutdown\"}")
+        + frame("{\"jsonrpc\":\"2.0\",\"method\":\"exit\"}");
+    JavaForgerLanguageServer lifecycle = new JavaForgerLanguageServer(new ByteArrayInputStream(input.getBytes(StandardCharsets.UTF_8)), out);
+
+    int exitCode = lifecycle.run();
+
+    Assert.assertEquals(0, exitCode);
+    String output = new String(out.toByteArray(), StandardCharsets.UTF_8);
+    MatcherAssert.assertThat(output, Matchers.containsString("\"codeActionKinds\":[\"source.javaforger\"]"));
+    MatcherAssert.assertThat(output, Matchers.containsString("\"id\":2,\"error\":{\"code\":-32601"));
+    MatcherAssert.assertThat(output, Matchers.endsWith("{\"jsonrpc\":\"2.0\",\"id\":3,\"result\":null}"));
+  }
+
+  private void initialize(boolean resolveSupport) {
+    initialize(resolveSupport
+        ? map("textDocument", map("codeAction", map("resolveSupport", map("properties", Collections.singletonList("edit")))), "workspace",
+            map("workspaceEdit", map("documentChanges", true)))
+        : map());
+  }
+
+  private void initialize(Map<String, Object> capabilities) {
+    server.handle(map("jsonrpc", "2.0", "id", 1, "method", "initialize", "params", map("capabilities", capabilities)));
+  }
+
+  private void open(String text) {
+    server.handle(map("jsonrpc", "2.0", "method", "textDocument/didOpen", "params",
+        map("textDocument", map("uri", uri, "languageId", "java", "version", 1L, "text", text))));
+  }
+
+  @SuppressWarnings("unchecked")
+  private List<Map<String, Object>> codeActions() {
+    Map<String, Object> range = map("start", map("line", 2L, "character", 0L), "end", map("line", 2L, "character", 0L));
+    Map<String, Object> response = server.handle(map("jsonrpc", "2.0", "id", 2, "method", "textDocument/codeAction", "params",
+        map("textDocument", map("uri", uri), "range", range, "context", map("diagnostics", Collections.emptyList()))));
+    return (List<Map<String, Object>>) response.get("result");
+  }
+
+  private static Map<String, Object> findAction(List<Map<String, Object>> actions, String title) {
+    return actions.stream().filter(a -> title.equals(a.get("title"))).findFirst().orElseThrow(() -> new AssertionError("No action " + title));
+  }
+
+  @SuppressWarnings("unchecked")
+  private static Map<String, Object> get(Map<String, Object> map, String key) {
+    return (Map<String, Object>) map.get(key);
+  }
+
+  private static String frame(String json) {
+    return "Content-Length: " + json.getBytes(StandardCharsets.UTF_8).length + "\r\n\r\n" + json;
+  }
+
+  private static String read(Path path) {
+    try {
+      return new String(Files.readAllBytes(path), StandardCharsets.UTF_8);
+    } catch (IOException e) {
+      throw new IllegalStateException(e);
+    }
+  }
+
+}
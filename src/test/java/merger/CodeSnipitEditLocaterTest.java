@@ -0,0 +1,130 @@
+/*
+ * Copyright 2019 by Daan van den Heuvel.
+ *
+ * This file is part of JavaForger.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package merger;
+
+import java.util.List;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.github.javaparser.ast.CompilationUnit;
+
+import reader.Parser;
+
+/**
+ * Unit test for {@link CodeSnipitEditLocater}
+ *
+ * @author Daan
+ */
+public class CodeSnipitEditLocaterTest {
+
+  private Parser parser = new Parser();
+
+  @Test
+  public void testLocate_insert() {
+    String existing = "public class ClassToMerge {\n  public int a;\n}\n";
+    String insert = "public class ClassToMerge {\n  private int b;\n}";
+
+    executeAndVerify(existing, insert, true, "public class ClassToMerge {\n  public int a;\n  private int b;\n}\n");
+  }
+
+  @Test
+  public void testLocate_replaceWithJavadoc() {
+    String existing = "public class ClassToMerge {\n  /** Old single line javadoc. */\n  public int a;\n  private int b;\n}\n";
+    String insert = "public class ClassToMerge {\n  /**\n   * New javadoc.\n   */\n  public int a = 5;\n}";
+
+    executeAndVerify(existing, insert, true,
+        "public class ClassToMerge {\n  /**\n   * New javadoc.\n   */\n  public int a = 5;\n  private int b;\n}\n");
+  }
+
+  @Test
+  public void testLocate_insertAfterSeparatedMember() {
+    String existing = "public class ClassToMerge {\n\n  public void a() {\n  }\n\n  private void c() {\n  }\n}\n";
+    String insert = "public class ClassToMerge {\n  /**\n   * Does b.\n   * @return nothing\n   */\n  public void b() {\n  }\n}";
+
+    executeAndVerify(existing, insert, true,
+        "public class ClassToMerge {\n\n  public void a() {\n  }\n\n  /**\n   * Does b.\n   * @return nothing\n   */\n  public void b() {\n  }\n\n  private void c() {\n  }\n}\n");
+  }
+
+  @Test
+  public void testLocate_insertAfterCompactMember() {
+    String existing = "public class ClassToMerge {\n  public void a() {\n  }\n\n  private void c() {\n  }\n}\n";
+    String insert = "public class ClassToMerge {\n\n  /**\n   * Does b.\n   * @return nothing\n   */\n  public void b() {\n  }\n}";
+
+    executeAndVerify(existing, insert, true,
+        "public class ClassToMerge {\n  public void a() {\n  }\n  /**\n   * Does b.\n   * @return nothing\n   */\n  public void b() {\n  }\n\n  private void c() {\n  }\n}\n");
+  }
+
+  @Test
+  public void testLocate_innerClass() {
+    String existing = "public class ClassToMerge {\n\npublic class InnerClass1 {\n\n}\n}";
+    String insert = "public class ClassToMerge {\n\nclass InnerClass2 {\n\n}\n}";
+
+    executeAndVerify(existing, insert, true, "public class ClassToMerge {\n\npublic class InnerClass1 {\n\n}\n\nclass InnerClass2 {\n\n}\n}");
+  }
+
+  @Test
+  public void testLocate_ordering() {
+    String existing = "public class ClassToMerge {\n\npublic int a; \nprivate int b; \n\n}";
+    String insert = "public class ClassToMerge {\n\nprivate int c; \npublic int a = 5; \n\n}";
+
+    executeAndVerify(existing, insert, true, "public class ClassToMerge {\n\npublic int a = 5; \nprivate int b; \nprivate int c; \n\n}");
+  }
+
+  @Test
+  public void testLocate_noOverride() {
+    String existing = "public class ClassToMerge {\n  public int a;\n}\n";
+    String insert = "public class ClassToMerge {\n  public int a = 5;\n}";
+
+    executeAndVerify(existing, insert, false, existing);
+  }
+
+  @Test
+  public void testLocate_membersOnSameLine() {
+    String existing = "public class ClassToMerge {\n  public int a; private int b; // comment of b\n}\n";
+    String insert = "public class ClassToMerge {\n  public int a = 5;\n}";
+
+    executeAndVerify(existing, insert, true, "public class ClassToMerge {\n  public int a = 5;\n private int b; // comment of b\n}\n");
+  }
+
+  @Test
+  public void testLocate_emptyClass() {
+    String existing = "public class ClassToMerge {}";
+    String insert = "public class ClassToMerge {\n  public int a;\n}";
+
+    executeAndVerify(existing, insert, true, "public class ClassToMerge {\n  public int a;}");
+  }
+
+  @Test
+  public void testLocate_windowsLineBreaks() {
+    String existing = "public class ClassToMerge {\r\n  public int a;\r\n}\r\n";
+    String insert = "public class ClassToMerge {\n  private int b;\n}";
+
+    executeAndVerify(existing, insert, true, "public class ClassToMerge {\r\n  public int a;\r\n  private int b;\r\n}\r\n");
+  }
+
+  private void executeAndVerify(String existing, String insert, boolean override, String expected) {
+    CompilationUnit cu1 = parser.parse(existing);
+    CompilationUnit cu2 = parser.parse(insert);
+
+    List<CodeSnipitEdit> edits = new CodeSnipitEditLocater(LineIndex.of(existing)).locate(cu1, cu2, override);
+
+    Assert.assertEquals(expected, CodeSnipitEdit.apply(existing, edits));
+  }
+
+}
@@ -0,0 +1,64 @@
+/*
+ * Copyright 2019 by Daan van den Heuvel.
+ *
+ * This file is part of JavaForger.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package merger;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.github.javaparser.Position;
+
+/**
+ * Unit test for {@link LineIndex}
+ *
+ * @author Daan
+ */
+public class LineIndexTest {
+
+  @Test
+  public void testOf() {
+    LineIndex index = LineIndex.of("a\nbc\r\nd\re\n");
+
+    Assert.assertEquals(5, index.getLineCount());
+    Assert.assertEquals(0, index.getLineStart(1));
+    Assert.assertEquals(2, index.getLineStart(2));
+    Assert.assertEquals(6, index.getLineStart(3));
+    Assert.assertEquals(8, index.getLineStart(4));
+    Assert.assertEquals(10, index.getLineStart(5));
+    Assert.assertEquals("\n", index.getLineSeparator());
+  }
+
+  @Test
+  public void testGetOffset() {
+    LineIndex index = LineIndex.of("class A {\r\n\tint a;\r\n}");
+
+    Assert.assertEquals(0, index.getOffset(new Position(1, 1)));
+    Assert.assertEquals(12, index.getOffset(new Position(2, 2)));
+    Assert.assertEquals(20, index.getOffset(new Position(3, 1)));
+    Assert.assertEquals("\r\n", index.getLineSeparator());
+  }
+
+  @Test
+  public void testIsLineStart() {
+    LineIndex index = LineIndex.of("ab\ncd");
+
+    Assert.assertTrue(index.isLineStart(0));
+    Assert.assertFalse(index.isLineStart(1));
+    Assert.assertTrue(index.isLineStart(3));
+  }
+
+}
@@ -18,6 +18,12 @@
 package merger;
 
 import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
 
 import org.junit.Assert;
 import org.junit.Test;
@@ -80,6 +86,20 @@ public class LineMergerTest extends AbstractFileChangingTest {
     executeAndVerify(expectedClass, code);
   }
 
+  @Test
+  public void testMerge_keepsByteOrderMark() throws IOException {
+    Path input = Paths.get(INPUT_CLASS);
+    byte[] bom = {(byte) 0xEF, (byte) 0xBB, (byte) 0xBF};
+    Files.write(input, bom);
+    Files.write(input, Files.readAllBytes(Paths.get(EXPECTED_RESULTS_PATH + "verify-field.java")), StandardOpenOption.APPEND);
+
+    merger.merge(JavaForgerConfiguration.builder().build(), new CodeSnipit("private int added;"), INPUT_CLASS);
+
+    byte[] merged = Files.readAllBytes(input);
+    Assert.assertArrayEquals(bom, Arrays.copyOf(merged, 3));
+    Assert.assertTrue(new String(merged, StandardCharsets.UTF_8).contains("private int added;"));
+  }
+
   private void executeAndVerify(String expectedClass, String code) throws IOException {
     merger.merge(JavaForgerConfiguration.builder().override(true).build(), new CodeSnipit(code), INPUT_CLASS);
     verifyFileEqual(EXPECTED_RESULTS_PATH + expectedClass, INPUT_CLASS);
@@ -0,0 +1,88 @@
+/*
+ * Copyright 2019 by Daan van den Heuvel.
+ *
+ * This file is part of JavaForger.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package merger;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.Lock;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * Unit test for {@link MergeLockManager}.
+ *
+ * @author Daan
+ */
+public class MergeLockManagerTest {
+
+  @Test
+  public void testGetLock_canonicalPath() {
+    MergeLockManager sut = new MergeLockManager(16);
+
+    Lock lock1 = sut.getLock("src/test/java/inputClassesForTests/Product.java");
+    Lock lock2 = sut.getLock("src/test/../test/java/inputClassesForTests/./Product.java");
+
+    Assert.assertSame(lock1, lock2);
+  }
+
+  @Test
+  public void testStripes_roundedToPowerOfTwo() {
+    Assert.assertEquals(1, new MergeLockManager(0).getStripes());
+    Assert.assertEquals(1, new MergeLockManager(1).getStripes());
+    Assert.assertEquals(16, new MergeLockManager(16).getStripes());
+    Assert.assertEquals(32, new MergeLockManager(17).getStripes());
+  }
+
+  @Test
+  public void testGetLock_serializesSameFile() throws Exception {
+    MergeLockManager sut = new MergeLockManager(4);
+    AtomicInteger inside = new AtomicInteger();
+    AtomicInteger maxInside = new AtomicInteger();
+    ExecutorService executor = Executors.newFixedThreadPool(8);
+    List<Future<?>> futures = new ArrayList<>();
+    for (int i = 0; i < 50; i++) {
+      String path = i % 2 == 0 ? "target/Registry.java" : "target/../target/Registry.java";
+      futures.add(executor.submit(() -> {
+        Lock lock = sut.getLock(path);
+        lock.lock();
+        try {
+          maxInside.accumulateAndGet(inside.incrementAndGet(), Math::max);
+          Thread.sleep(1);
+          inside.decrementAndGet();
+        } finally {
+          lock.unlock();
+        }
+        return null;
+      }));
+    }
+    for (Future<?> future : futures) {
+      future.get();
+    }
+    executor.shutdown();
+    executor.awaitTermination(5, TimeUnit.SECONDS);
+
+    Assert.assertEquals(1, maxInside.get());
+  }
+
+}
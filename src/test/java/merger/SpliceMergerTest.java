@@ -0,0 +1,83 @@
+/*
+ * Copyright 2019 by Daan van den Heuvel.
+ *
+ * This file is part of JavaForger.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package merger;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import generator.CodeSnipit;
+
+/**
+ * Unit test for {@link SpliceMerger}.
+ *
+ * @author Daan
+ */
+public class SpliceMergerTest {
+
+  private static final String MERGE_CLASS = "src/main/java/my/Claz.java";
+  private static final String EXISTING = //
+      "package my;\n" //
+          + "\n" //
+          + "import java.util.List;\n" //
+          + "\n" //
+          + "public class Claz {\n" //
+          + "  private  int   a ;  // Odd formatting is kept\n" //
+          + "\n" //
+          + "  /** Gets a. */\n" //
+          + "  public int getA() {\n" //
+          + "    return a;\n" //
+          + "  }\n" //
+          + "\n" //
+          + "  private void helper() {}\n" //
+          + "}\n";
+
+  private SpliceMerger merger = new SpliceMerger();
+
+  @Test
+  public void testMerge_replace() {
+    String code = "  /**\n   * Gets a, or 0.\n   */\n  public int getA() {\n    return a == 0 ? 0 : a;\n  }\n";
+
+    String expected = EXISTING.replace("  /** Gets a. */\n  public int getA() {\n    return a;\n  }\n", code);
+    Assert.assertEquals(expected, merger.merge(new CodeSnipit(code), MERGE_CLASS, EXISTING));
+  }
+
+  @Test
+  public void testMerge_insert() {
+    String code = "  public void setA(int a) {\n    this.a = a;\n  }\n";
+
+    String expected = EXISTING.replace("    return a;\n  }\n", "    return a;\n  }\n\n" + code);
+    Assert.assertEquals(expected, merger.merge(new CodeSnipit(code), MERGE_CLASS, EXISTING));
+  }
+
+  @Test
+  public void testMerge_import() {
+    String code = "import java.util.Map;\nimport java.util.List;\n\npublic class Claz {\n}";
+
+    String expected = EXISTING.replace("import java.util.List;\n", "import java.util.List;\nimport java.util.Map;\n");
+    Assert.assertEquals(expected, merger.merge(new CodeSnipit(code), MERGE_CLASS, EXISTING));
+  }
+
+  @Test
+  public void testMerge_emptyClass() {
+    String existing = "public class Claz {\n}\n";
+    String code = "  private int b;\n";
+
+    Assert.assertEquals("public class Claz {\n  private int b;\n}\n", merger.merge(new CodeSnipit(code), MERGE_CLASS, existing));
+  }
+
+}
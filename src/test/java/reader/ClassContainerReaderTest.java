@@ -18,9 +18,12 @@
 package reader;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
 
 import java.io.IOException;
 import java.util.Collections;
+import java.util.List;
+import java.util.stream.Collectors;
 
 import org.junit.Before;
 import org.junit.Test;
@@ -28,6 +31,8 @@ import org.junit.Test;
 import common.SymbolSolverSetup;
 import templateInput.ClassContainer;
 import templateInput.definition.ClassDefinition;
+import templateInput.definition.MethodDefinition;
+import templateInput.definition.VariableDefinition;
 
 /**
  * Unit test for the {@link ClassContainerReader}.
@@ -55,4 +60,27 @@ public class ClassContainerReaderTest {
     assertEquals(expected, result);
   }
 
+  @Test
+  public void testRead_withoutMethodBodies() throws IOException {
+    String input = "src/test/java/inputClassesForTests/ClassWithEverything.java";
+    ClassContainer full = sut.read(input, true);
+    ClassContainer signatures = sut.read(input, false);
+
+    assertEquals(ClassDefinition.builder(full).build(), ClassDefinition.builder(signatures).build());
+    assertEquals(describeFields(full.getFields()), describeFields(signatures.getFields()));
+    assertEquals(describeMethods(full.getMethods()), describeMethods(signatures.getMethods()));
+    assertEquals(describeMethods(full.getConstructors()), describeMethods(signatures.getConstructors()));
+    assertTrue(signatures.getMethods().stream().allMatch(m -> m.getChangedFields().isEmpty() && m.getInputMethods().isEmpty()));
+  }
+
+  private List<String> describeFields(List<? extends VariableDefinition> fields) {
+    return fields.stream().map(f -> f.getName() + " " + f.getType() + " " + f.getOriginalInit() + " " + f.getLineNumber() + ":" + f.getColumn())
+        .collect(Collectors.toList());
+  }
+
+  private List<String> describeMethods(List<? extends MethodDefinition> methods) {
+    return methods.stream().map(m -> m.getCallSignature() + " " + m.getType() + " " + m.getAnnotations() + " " + m.getLineNumber() + ":" + m.getColumn())
+        .collect(Collectors.toList());
+  }
+
 }
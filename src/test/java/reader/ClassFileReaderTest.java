@@ -0,0 +1,129 @@
+/*
+ * Copyright 2019 by Daan van den Heuvel.
+ *
+ * This file is part of JavaForger.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package reader;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.List;
+import java.util.jar.JarEntry;
+import java.util.jar.JarOutputStream;
+import java.util.stream.Collectors;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import common.SymbolSolverSetup;
+import reader.TypeSignature.JavaType;
+import templateInput.ClassContainer;
+import templateInput.definition.MethodDefinition;
+import templateInput.definition.VariableDefinition;
+
+/**
+ * Unit test for {@link ClassFileReader}.
+ *
+ * @author Daan
+ */
+public class ClassFileReaderTest {
+
+  private static final String CLASSES = "target/test-classes/inputClassesForTests/";
+
+  @Rule
+  public TemporaryFolder folder = new TemporaryFolder();
+
+  private ClassFileReader sut = new ClassFileReader();
+
+  @Before
+  public void setup() {
+    SymbolSolverSetup.setup();
+  }
+
+  @After
+  public void tearDown() throws IOException {
+    sut.close();
+  }
+
+  @Test
+  public void testRead_sameAsSource() throws IOException {
+    ClassContainer source = sut.read("src/test/java/inputClassesForTests/ClassWithEverything.java");
+    ClassContainer compiled = sut.read(CLASSES + "ClassWithEverything.class");
+
+    Assert.assertEquals(source.getName().toString(), compiled.getName().toString());
+    Assert.assertEquals(source.getTypeImports(), compiled.getTypeImports());
+    Assert.assertEquals(describeFields(source.getFields()), describeFields(compiled.getFields()));
+    Assert.assertEquals(describeMethods(source.getMethods()), describeMethods(compiled.getMethods()));
+    Assert.assertEquals(describeMethods(source.getConstructors()), describeMethods(compiled.getConstructors()));
+    Assert.assertEquals(Arrays.asList("java.util.Set", "inputClassesForTests.Product"),
+        compiled.getFields().get(1).getTypeImports().stream().collect(Collectors.toList()));
+  }
+
+  @Test
+  public void testRead_fromJar() throws IOException {
+    Path jar = folder.getRoot().toPath().resolve("products.jar");
+    try (JarOutputStream out = new JarOutputStream(Files.newOutputStream(jar))) {
+      for (String name : Arrays.asList("Product", "ExtendedProduct")) {
+        out.putNextEntry(new JarEntry("inputClassesForTests/" + name + ".class"));
+        out.write(Files.readAllBytes(Paths.get(CLASSES + name + ".class")));
+        out.closeEntry();
+      }
+    }
+
+    ClassContainer product = sut.read(jar + ClassFileReader.JAR_SEPARATOR + "inputClassesForTests/ExtendedProduct.class");
+
+    Assert.assertEquals("ExtendedProduct", product.getName().toString());
+    Assert.assertEquals("Product", product.getExtend());
+    Assert.assertEquals(Arrays.asList("TestInterface"), product.getInterfaces());
+    Assert.assertEquals(Arrays.asList("inputClassesForTests/ExtendedProduct.class", "inputClassesForTests/Product.class"),
+        sut.getJar(jar.toAbsolutePath().normalize()).getClassNames().stream().sorted().collect(Collectors.toList()));
+  }
+
+  @Test
+  public void testRead_staticField() throws IOException {
+    VariableDefinition constant = sut.read(CLASSES + "ClassWithEverything.class").getFields().get(0);
+
+    Assert.assertEquals("PUB_STAT_FIN", constant.getName().toString());
+    Assert.assertEquals("Boolean", constant.getType().toString());
+    Assert.assertTrue(constant.getAccessModifiers().containsAll(Arrays.asList("public", "static", "final")));
+  }
+
+  @Test
+  public void testParseSignature() {
+    JavaType field = TypeSignature.parseField("Ljava/util/Map<Ljava/lang/String;+Ljava/util/List<TT;>;>;");
+    Assert.assertEquals("Map<String, ? extends List<T>>", field.getName());
+    Assert.assertEquals(Arrays.asList("java.util.Map", "java.util.List"), field.getImports());
+
+    List<JavaType> method = TypeSignature.parseMethod("<T::Ljava/lang/Comparable<-TT;>;>([[IJLjava/util/Map$Entry<*TT;>;)TT;^Ljava/io/IOException;");
+    Assert.assertEquals("[int[][], long, Entry<?, T>, T]", method.toString());
+  }
+
+  private List<String> describeFields(List<? extends VariableDefinition> fields) {
+    return fields.stream().map(f -> f.getName() + " " + f.getType() + " " + f.getAccessModifiers()).collect(Collectors.toList());
+  }
+
+  private List<String> describeMethods(List<? extends MethodDefinition> methods) {
+    return methods.stream().map(m -> m.getCallSignature() + " " + m.getType() + " " + m.getAccessModifiers() + " "
+        + m.getParameters().stream().map(p -> p.getType().toString()).collect(Collectors.toList())).collect(Collectors.toList());
+  }
+
+}
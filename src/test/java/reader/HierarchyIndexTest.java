@@ -0,0 +1,142 @@
+/*
+ * Copyright 2019 by Daan van den Heuvel.
+ *
+ * This file is part of JavaForger.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package reader;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import common.SymbolSolverSetup;
+import templateInput.ClassContainer;
+import templateInput.definition.TypeDefinition;
+
+/**
+ * Unit test for {@link HierarchyIndex}.
+ *
+ * @author Daan
+ */
+public class HierarchyIndexTest {
+
+  private static final String EXTENDED_PRODUCT = "src/test/java/inputClassesForTests/ExtendedProduct.java";
+
+  @Rule
+  public TemporaryFolder folder = new TemporaryFolder();
+
+  private HierarchyIndex index = new HierarchyIndex(Collections.singletonList("src/test/java"));
+  private ClassContainerReader sut = new ClassContainerReader();
+
+  @Before
+  public void setup() {
+    SymbolSolverSetup.setup();
+    sut.setHierarchyIndex(index);
+  }
+
+  @Test
+  public void testAggregate() throws IOException {
+    ClassContainer claz = sut.read(EXTENDED_PRODUCT);
+
+    Assert.assertEquals(Arrays.asList("prod"), names(claz.getInheritedFields()));
+    // someMethod is overridden and the constructors are not inherited
+    Assert.assertEquals(Arrays.asList("getUrl", "getName", "toString", "hashCode", "equals"), names(claz.getInheritedMethods()));
+    Assert.assertEquals(Arrays.asList("prod"), names(claz.getAllFields()));
+  }
+
+  @Test
+  public void testAggregate_supertypesAreMemoized() throws IOException {
+    ClassContainer first = sut.read(EXTENDED_PRODUCT);
+    ClassContainer second = sut.read(EXTENDED_PRODUCT);
+
+    Assert.assertEquals(2, index.size());
+    Assert.assertNotSame(first.getInheritedFields().get(0), second.getInheritedFields().get(0));
+  }
+
+  @Test
+  public void testAggregate_withoutIndex() throws IOException {
+    sut.setHierarchyIndex(null);
+
+    Assert.assertTrue(sut.read(EXTENDED_PRODUCT).getInheritedFields().isEmpty());
+  }
+
+  @Test
+  public void testAggregate_genericSupertype() throws IOException {
+    Path src = folder.getRoot().toPath();
+    write(src.resolve("base/Base.java"), "package base;\n\nimport java.util.List;\n\npublic class Base<T, K> {\n  protected T value;\n"
+        + "  protected List<T> values;\n  public T getValue() { return value; }\n  public void setValue(T value) { }\n"
+        + "  public void put(K key, T value) { }\n}\n");
+    write(src.resolve("base/Middle.java"), "package base;\n\npublic class Middle<V> extends Base<V, Integer> {\n}\n");
+    write(src.resolve("my/Foo.java"), "package my;\n\nimport base.Middle;\nimport java.math.BigDecimal;\n\n"
+        + "public class Foo extends Middle<BigDecimal> {\n  public void setValue(BigDecimal value) { }\n}\n");
+    sut.setHierarchyIndex(new HierarchyIndex(Collections.singletonList(src.toString())));
+
+    ClassContainer claz = sut.read(src.resolve("my/Foo.java").toString());
+
+    Assert.assertEquals(Arrays.asList("BigDecimal", "List<BigDecimal>"), types(claz.getInheritedFields()));
+    Assert.assertTrue(claz.getInheritedFields().get(0).getTypeImports().contains("java.math.BigDecimal"));
+    // setValue is overridden
+    Assert.assertEquals(Arrays.asList("getValue", "put"), names(claz.getInheritedMethods()));
+    Assert.assertEquals("BigDecimal", claz.getInheritedMethods().get(0).getType().toString());
+    Assert.assertEquals(Arrays.asList("Integer", "BigDecimal"), types(claz.getInheritedMethods().get(1).getParameters()));
+  }
+
+  @Test
+  public void testInvalidate() throws IOException {
+    Path src = folder.getRoot().toPath();
+    Path base = src.resolve("my/Base.java");
+    write(base, "package my;\n\npublic class Base {\n  protected String name;\n}\n");
+    write(src.resolve("my/Foo.java"), "package my;\n\npublic class Foo extends Base {\n}\n");
+    write(src.resolve("my/Bar.java"), "package my;\n\npublic class Bar extends Added {\n}\n");
+    HierarchyIndex index = new HierarchyIndex(Collections.singletonList(src.toString()));
+    sut.setHierarchyIndex(index);
+    sut.read(src.resolve("my/Foo.java").toString());
+    sut.read(src.resolve("my/Bar.java").toString());
+
+    write(base, "package my;\n\npublic class Base {\n  protected String fullName;\n}\n");
+    Path added = src.resolve("my/Added.java");
+    write(added, "package my;\n\npublic class Added {\n  protected int count;\n}\n");
+    index.invalidate(base.toString());
+    index.invalidate(added.toString());
+
+    Assert.assertEquals(Arrays.asList("fullName"), names(sut.read(src.resolve("my/Foo.java").toString()).getInheritedFields()));
+    Assert.assertEquals(Arrays.asList("count"), names(sut.read(src.resolve("my/Bar.java").toString()).getInheritedFields()));
+  }
+
+  private static void write(Path path, String content) throws IOException {
+    Files.createDirectories(path.getParent());
+    Files.write(path, content.getBytes(StandardCharsets.UTF_8));
+  }
+
+  private List<String> types(List<? extends TypeDefinition> members) {
+    return members.stream().map(m -> m.getType().toString()).collect(Collectors.toList());
+  }
+
+  private List<String> names(List<? extends TypeDefinition> members) {
+    return members.stream().map(TypeDefinition::getNameAsString).collect(Collectors.toList());
+  }
+
+}
@@ -0,0 +1,138 @@
+/*
+ * Copyright 2019 by Daan van den Heuvel.
+ *
+ * This file is part of JavaForger.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package reader;
+
+import static org.junit.Assert.assertEquals;
+
+import org.apache.commons.lang3.StringUtils;
+import org.junit.Test;
+
+/**
+ * Unit test for {@link MethodBodyEraser}.
+ *
+ * @author Daan
+ */
+public class MethodBodyEraserTest {
+
+  @Test
+  public void testErase_methodAndConstructorBodies() {
+    String code = "public class A {\n" //
+        + "  public A(int i) { this.i = i; }\n" //
+        + "  @Override\n" //
+        + "  public String toString() throws Exception {\n" //
+        + "    return \"}\" + '{';\n" //
+        + "  }\n" //
+        + "  void m() { if (true) { /* } */ } }\n" //
+        + "}\n";
+    String expected = "public class A {\n" //
+        + "  public A(int i) {" + spaces(13) + "}\n" //
+        + "  @Override\n" //
+        + "  public String toString() throws Exception {\n" //
+        + spaces(21) + "\n" //
+        + "  }\n" //
+        + "  void m() {" + spaces(23) + "}\n" //
+        + "}\n";
+
+    assertEquals(expected, MethodBodyEraser.erase(code));
+  }
+
+  @Test
+  public void testErase_keepsFieldInitializersAndNestedTypes() {
+    String code = "@Annotation(value = \"a\")\n" //
+        + "class A {\n" //
+        + "  private Runnable r = () -> { run(); };\n" //
+        + "  private Object o = new Object() { public String toString() { return \"o\"; } };\n" //
+        + "  static { init(); }\n" //
+        + "  @Inner(B.class) static class B { void m() { run(); } }\n" //
+        + "  enum C { X; int get() { return 1; } }\n" //
+        + "}\n";
+    String expected = "@Annotation(value = \"a\")\n" //
+        + "class A {\n" //
+        + "  private Runnable r = () -> { run(); };\n" //
+        + "  private Object o = new Object() { public String toString() { return \"o\"; } };\n" //
+        + "  static {" + spaces(9) + "}\n" //
+        + "  @Inner(B.class) static class B { void m() {" + spaces(8) + "} }\n" //
+        + "  enum C { X; int get() {" + spaces(11) + "} }\n" //
+        + "}\n";
+
+    assertEquals(expected, MethodBodyEraser.erase(code));
+  }
+
+  @Test
+  public void testErase_classAnnotationWithArrayValue() {
+    String code = "@SuppressWarnings({\"a\", \"b\"})\n" //
+        + "public class Foo {\n" //
+        + "  private int x = 1;\n" //
+        + "  int get() { return x; }\n" //
+        + "}\n";
+    String expected = "@SuppressWarnings({\"a\", \"b\"})\n" //
+        + "public class Foo {\n" //
+        + "  private int x = 1;\n" //
+        + "  int get() {" + spaces(11) + "}\n" //
+        + "}\n";
+
+    assertEquals(expected, MethodBodyEraser.erase(code));
+  }
+
+  @Test
+  public void testErase_fieldAnnotationWithArrayValue() {
+    String code = "class A {\n" //
+        + "  @Deprecated({}) int[] y = {1, 2};\n" //
+        + "  @Names({\"m\"}) void m(@P({1}) int i) { run(); }\n" //
+        + "  int[] z() default {3};\n" //
+        + "  default void d() { run(); }\n" //
+        + "}\n";
+    String expected = "class A {\n" //
+        + "  @Deprecated({}) int[] y = {1, 2};\n" //
+        + "  @Names({\"m\"}) void m(@P({1}) int i) {" + spaces(8) + "}\n" //
+        + "  int[] z() default {3};\n" //
+        + "  default void d() {" + spaces(8) + "}\n" //
+        + "}\n";
+
+    assertEquals(expected, MethodBodyEraser.erase(code));
+  }
+
+  @Test
+  public void testErase_enumConstantsWithBodies() {
+    String code = "enum E {\n" //
+        + "  A(1) { int get() { return 2; } },\n" //
+        + "  B(2) {\n" //
+        + "    int get() { return 3; }\n" //
+        + "  };\n" //
+        + "  private final int i = 0;\n" //
+        + "  E(int i) { }\n" //
+        + "  int get() { return i; }\n" //
+        + "}\n";
+    String expected = "enum E {\n" //
+        + "  A(1) {" + spaces(25) + "},\n" //
+        + "  B(2) {\n" //
+        + spaces(27) + "\n" //
+        + "  };\n" //
+        + "  private final int i = 0;\n" //
+        + "  E(int i) { }\n" //
+        + "  int get() {" + spaces(11) + "}\n" //
+        + "}\n";
+
+    assertEquals(expected, MethodBodyEraser.erase(code));
+  }
+
+  private static String spaces(int count) {
+    return StringUtils.repeat(' ', count);
+  }
+
+}
@@ -0,0 +1,106 @@
+/*
+ * Copyright 2019 by Daan van den Heuvel.
+ *
+ * This file is part of JavaForger.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package reader;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+
+import org.apache.commons.lang3.StringUtils;
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+/**
+ * Unit test for {@link SourceCache}.
+ *
+ * @author Daan
+ */
+public class SourceCacheTest {
+
+  @Rule
+  public TemporaryFolder folder = new TemporaryFolder();
+
+  @Test
+  public void testDecode() {
+    Assert.assertEquals("class A {}", SourceCache.decode("class A {}".getBytes(StandardCharsets.UTF_8)));
+    Assert.assertEquals("String s = \"\u00e9\u20ac\";", SourceCache.decode("String s = \"\u00e9\u20ac\";".getBytes(StandardCharsets.UTF_8)));
+    Assert.assertEquals("\uFEFFclass A {}", SourceCache.decode(new byte[] {(byte) 0xEF, (byte) 0xBB, (byte) 0xBF, 'c', 'l', 'a', 's', 's', ' ', 'A', ' ', '{', '}'}));
+  }
+
+  @Test
+  public void testRead_large() throws IOException {
+    String content = StringUtils.repeat("  int a\u00e9;\n", 64 * 1024);
+    File file = write("Large.java", content);
+
+    Assert.assertEquals(content, SourceCache.read(file.toPath()));
+  }
+
+  @Test
+  public void testGet() throws IOException {
+    File file = write("A.java", "class A {}");
+    SourceCache cache = new SourceCache();
+
+    String first = cache.get(file.getPath());
+
+    Assert.assertEquals("class A {}", first);
+    Assert.assertSame(first, cache.get(file.getPath()));
+    Assert.assertEquals(1, cache.size());
+  }
+
+  @Test
+  public void testGet_invalidated() throws IOException {
+    File file = write("A.java", "class A {}");
+    SourceCache cache = new SourceCache();
+    cache.get(file.getPath());
+
+    write("A.java", "class B {}");
+    cache.invalidate(file.getPath());
+
+    Assert.assertEquals("class B {}", cache.get(file.getPath()));
+  }
+
+  @Test
+  public void testGet_sizeChanged() throws IOException {
+    File file = write("A.java", "class A {}");
+    SourceCache cache = new SourceCache();
+    cache.get(file.getPath());
+
+    write("A.java", "class A { int a; }");
+
+    Assert.assertEquals("class A { int a; }", cache.get(file.getPath()));
+  }
+
+  @Test
+  public void testGet_budgetExceeded() throws IOException {
+    SourceCache cache = new SourceCache(15);
+    cache.get(write("A.java", "class A {}").getPath());
+    cache.get(write("B.java", "class B {}").getPath());
+
+    Assert.assertEquals(0, cache.size());
+  }
+
+  private File write(String name, String content) throws IOException {
+    File file = new File(folder.getRoot(), name);
+    Files.write(file.toPath(), content.getBytes(StandardCharsets.UTF_8));
+    return file;
+  }
+
+}
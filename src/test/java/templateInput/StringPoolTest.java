@@ -0,0 +1,55 @@
+/*
+ * Copyright 2019 by Daan van den Heuvel.
+ *
+ * This file is part of JavaForger.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package templateInput;
+
+import java.lang.ref.WeakReference;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * Unit test for {@link StringPool}.
+ *
+ * @author Daan
+ */
+public class StringPoolTest {
+
+  @Test
+  public void testConverter_shared() {
+    StringConverter first = StringPool.converter(new String("shared"));
+    StringConverter second = StringPool.converter(new String("shared"));
+
+    Assert.assertSame(first, second);
+    Assert.assertSame(StringPool.intern(new String("shared")), first.toString());
+  }
+
+  @Test
+  public void testConverter_unusedInstancesAreReleased() throws InterruptedException {
+    WeakReference<StringConverter> converter = new WeakReference<>(StringPool.converter(new String("released")));
+    WeakReference<String> string = new WeakReference<>(StringPool.intern(new String("also released")));
+
+    for (int i = 0; i < 50 && (converter.get() != null || string.get() != null); i++) {
+      System.gc();
+      Thread.sleep(10);
+    }
+
+    Assert.assertNull(converter.get());
+    Assert.assertNull(string.get());
+  }
+
+}
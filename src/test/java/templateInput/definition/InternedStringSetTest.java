@@ -0,0 +1,82 @@
+/*
+ * Copyright 2019 by Daan van den Heuvel.
+ *
+ * This file is part of JavaForger.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package templateInput.definition;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.Set;
+
+import org.hamcrest.Matchers;
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * Unit test for {@link InternedStringSet} and {@link ModifierSet}.
+ *
+ * @author Daan
+ */
+public class InternedStringSetTest {
+
+  @Test
+  public void testOf_retainsInsertionOrderAndRemovesDuplicates() {
+    InternedStringSet set = InternedStringSet.of(Arrays.asList("java.util.List", "java.math.BigDecimal", "java.util.List"));
+
+    Assert.assertThat(set, Matchers.contains("java.util.List", "java.math.BigDecimal"));
+    Assert.assertEquals(new LinkedHashSet<>(Arrays.asList("java.util.List", "java.math.BigDecimal")), set);
+  }
+
+  @Test
+  public void testWith_doesNotChangeOriginal() {
+    InternedStringSet set = InternedStringSet.of("a");
+
+    InternedStringSet result = set.with("b");
+
+    Assert.assertThat(set, Matchers.contains("a"));
+    Assert.assertThat(result, Matchers.contains("a", "b"));
+    Assert.assertSame(result, result.with("a"));
+  }
+
+  @Test
+  public void testOf_sharesSingletons() {
+    Assert.assertSame(InternedStringSet.of(new String("Override")), InternedStringSet.of(new HashSet<>(Arrays.asList(new String("Override")))));
+  }
+
+  @Test(expected = UnsupportedOperationException.class)
+  public void testIterator_immutable() {
+    InternedStringSet.of("a").iterator().remove();
+  }
+
+  @Test
+  public void testModifierSet() {
+    Set<String> modifiers = ModifierSet.of(Arrays.asList("static", "private", "final"));
+
+    Assert.assertThat(modifiers, Matchers.contains("private", "static", "final"));
+    Assert.assertEquals(new HashSet<>(Arrays.asList("final", "static", "private")), modifiers);
+    Assert.assertFalse(modifiers.contains("public"));
+    Assert.assertSame(modifiers, ModifierSet.of(new HashSet<>(Arrays.asList("final", "private", "static"))));
+  }
+
+  @Test
+  public void testModifierSet_unknownModifier() {
+    Set<String> modifiers = ModifierSet.of(Arrays.asList("private", "sealed"));
+
+    Assert.assertThat(modifiers, Matchers.contains("private", "sealed"));
+  }
+
+}
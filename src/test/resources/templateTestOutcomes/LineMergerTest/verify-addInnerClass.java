@@ -65,6 +65,7 @@ public class ClassWithEverything {
     }
 
   }
+
  class AddedInnerClass {
  protected newMethod() { 
  // Do Nothing 
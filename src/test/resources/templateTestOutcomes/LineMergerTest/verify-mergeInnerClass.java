@@ -58,6 +58,7 @@ public class ClassWithEverything {
     public void method3() {
       method4(d, f);
     }
+
  protected void methodBetween3and4() { 
  // Do Nothing 
  }
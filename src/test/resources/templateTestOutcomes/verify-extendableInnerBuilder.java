@@ -37,6 +37,7 @@ public class ClassWithEverything {
     this();
     i = j;
   }
+
   protected ClassWithEverything(ClassWithEverything.Builder<?> builder) {
     this.prod = builder.prod == null ? this.prod : builder.prod;
     this.i = builder.i == null ? this.i : builder.i;
@@ -79,6 +80,7 @@ public class ClassWithEverything {
     }
 
   }
+
   /**
    * Builder to build {@link ClassWithEverything}.
    */
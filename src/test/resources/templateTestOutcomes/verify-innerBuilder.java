@@ -41,6 +41,7 @@ public class ClassWithEverything {
   private ClassWithEverything() {
     // Do nothing
   }
+
   private ClassWithEverything(Builder builder) {
     this.prod = builder.prod == null ? this.prod : builder.prod;
     this.i = builder.i == null ? this.i : builder.i;
@@ -79,6 +80,7 @@ public class ClassWithEverything {
     }
 
   }
+
   /**
    * Builder to build {@link ClassWithEverything}.
    */